@@ -2,21 +2,19 @@ package com.example.orderservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+// The domain event outbox and inbox come from the common module
+@SpringBootApplication(scanBasePackages = {"com.example.orderservice", "com.example.common"})
+@EntityScan(basePackages = {"com.example.orderservice", "com.example.common"})
+@EnableJpaRepositories(basePackages = {"com.example.orderservice", "com.example.common"})
+@EnableScheduling
 public class OrderServiceApplication {
 
 	public static void main(String[] args) {
 		SpringApplication.run(OrderServiceApplication.class, args);
 	}
 
-	@Bean
-	public WebClient webClient() {
-		return WebClient.builder()
-				.baseUrl("http://backend-delivery:8083") // Assuming delivery-service is the hostname in Docker network
-				.build();
-	}
 }
-
@@ -0,0 +1,22 @@
+package com.example.orderservice.dtos;
+
+import com.example.orderservice.entities.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchiveAggregateDto {
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private Long restaurantId;
+    // Orders placed in the range, their total and how they ended
+    private long orders;
+    private double revenue;
+    private Map<OrderStatus, Long> ordersByStatus;
+}
@@ -0,0 +1,20 @@
+package com.example.orderservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CustomerOrderCacheStatsDto {
+    private int customers;
+    private long orders;
+    // Rough heap use of the cached orders, and the budget it is held to
+    private long estimatedBytes;
+    private long maxBytes;
+    private long hits;
+    private long misses;
+    private double hitRate;
+    private long evictions;
+}
@@ -0,0 +1,17 @@
+package com.example.orderservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class KitchenBoardDto {
+    // Goes up by one on every change to this restaurant's board
+    private long version;
+    // Oldest first
+    private List<OrderDto> orders;
+}
@@ -1,5 +1,6 @@
 package com.example.orderservice.dtos;
 
+import com.example.orderservice.entities.Order;
 import com.example.orderservice.entities.OrderStatus;
 import lombok.Data;
 
@@ -12,8 +13,31 @@ public class OrderDto {
     private Long customerId;
     private Long restaurantId;
     private String deliveryAddress;
+    private Double deliveryLatitude;
+    private Double deliveryLongitude;
     private List<OrderItemDto> items;
     private double totalAmount;
     private OrderStatus status;
     private LocalDateTime date;
+
+    public static OrderDto from(Order order) {
+        OrderDto dto = new OrderDto();
+        dto.setId(order.getOrderId());
+        dto.setCustomerId(order.getUserId());
+        dto.setRestaurantId(order.getRestaurantId());
+        dto.setTotalAmount(order.getTotalAmount());
+        dto.setDeliveryAddress(order.getDeliveryAddress());
+        dto.setDeliveryLatitude(order.getDeliveryLatitude());
+        dto.setDeliveryLongitude(order.getDeliveryLongitude());
+        dto.setStatus(order.getStatus());
+        dto.setDate(order.getOrderDate());
+        dto.setItems(order.getItems().stream().map(item -> {
+            OrderItemDto itemDto = new OrderItemDto();
+            itemDto.setMenuItemId(item.getMenuItemId());
+            itemDto.setQuantity(item.getQuantity());
+            itemDto.setPrice(item.getPrice());
+            return itemDto;
+        }).toList());
+        return dto;
+    }
 }
@@ -0,0 +1,17 @@
+package com.example.orderservice.dtos;
+
+import com.example.orderservice.entities.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEventDto {
+    private Long eventId;
+    private OrderStatus status;
+    private Instant occurredAt;
+}
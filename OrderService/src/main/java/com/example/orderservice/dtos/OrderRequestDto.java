@@ -9,5 +9,8 @@ public class OrderRequestDto {
     private Long customerId;
     private Long restaurantId;
     private String deliveryAddress;
+    // Optional, geocoded on the client; used for distance-based delivery estimates
+    private Double deliveryLatitude;
+    private Double deliveryLongitude;
     private List<OrderItemDto> items;
 }
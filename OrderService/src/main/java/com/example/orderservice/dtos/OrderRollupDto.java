@@ -0,0 +1,24 @@
+package com.example.orderservice.dtos;
+
+import com.example.orderservice.entities.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderRollupDto {
+    // The range actually covered, which can be wider than the one asked for
+    private Instant from;
+    private Instant to;
+    // Orders placed in the range and their total
+    private long orders;
+    private double revenue;
+    // Orders that entered each status in the range, and their total
+    private Map<OrderStatus, Long> ordersByStatus;
+    private Map<OrderStatus, Double> revenueByStatus;
+}
@@ -0,0 +1,23 @@
+package com.example.orderservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderStatusResultDto {
+    private Long orderId;
+    private Result result;
+
+    public enum Result {
+        UPDATED,
+        // Already had the status
+        UNCHANGED,
+        NOT_FOUND,
+        // Archived orders can no longer change
+        ARCHIVED,
+        INVALID_STATUS
+    }
+}
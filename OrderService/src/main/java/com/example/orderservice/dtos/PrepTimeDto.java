@@ -0,0 +1,14 @@
+package com.example.orderservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PrepTimeDto {
+    private Long restaurantId;
+    private long orders;
+    private double averagePrepMinutes;
+}
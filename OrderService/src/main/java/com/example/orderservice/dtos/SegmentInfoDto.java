@@ -0,0 +1,15 @@
+package com.example.orderservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SegmentInfoDto {
+    private String file;
+    private long rows;
+    private int rowGroups;
+    private long sizeInBytes;
+}
@@ -0,0 +1,17 @@
+package com.example.orderservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlaBreachDto {
+    private Long orderId;
+    private Long restaurantId;
+    private double deliveryMinutes;
+    private Instant deliveredAt;
+}
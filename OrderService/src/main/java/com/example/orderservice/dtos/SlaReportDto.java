@@ -0,0 +1,19 @@
+package com.example.orderservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SlaReportDto {
+    private long slaMinutes;
+    private long delivered;
+    private long breaches;
+    private double breachRate;
+    // Most recent first
+    private List<SlaBreachDto> recentBreaches;
+}
@@ -0,0 +1,74 @@
+package com.example.orderservice.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An order moved out of {@code orders} by the {@code OrderArchiver} once it had been finished
+ * for a while. Same columns as {@link Order}, keeping the original id; rows are written only by
+ * the archiver's bulk copy and never change afterwards.
+ */
+@Entity
+@Immutable
+@Table(name = "orders_archive", indexes = {
+        @Index(name = "idx_orders_archive_user_id", columnList = "userId"),
+        @Index(name = "idx_orders_archive_restaurant_id", columnList = "restaurantId"),
+        @Index(name = "idx_orders_archive_status", columnList = "status")
+})
+@Getter
+@NoArgsConstructor
+public class ArchivedOrder {
+
+    @Id
+    private Long orderId;
+
+    private Long userId;
+    private Long restaurantId;
+    private double totalAmount;
+    private String deliveryAddress;
+    private Double deliveryLatitude;
+    private Double deliveryLongitude;
+
+    @Enumerated(EnumType.STRING)
+    private OrderStatus status;
+
+    @OneToMany(mappedBy = "order")
+    private List<ArchivedOrderItem> items = new ArrayList<>();
+
+    private LocalDateTime orderDate;
+
+    /**
+     * A detached {@link Order} with the same content, for code that reads orders. It must never
+     * be saved: that would insert it into {@code orders} as a new order.
+     */
+    public Order toOrder() {
+        Order order = new Order();
+        order.setOrderId(orderId);
+        order.setUserId(userId);
+        order.setRestaurantId(restaurantId);
+        order.setTotalAmount(totalAmount);
+        order.setDeliveryAddress(deliveryAddress);
+        order.setDeliveryLatitude(deliveryLatitude);
+        order.setDeliveryLongitude(deliveryLongitude);
+        order.setStatus(status);
+        order.setOrderDate(orderDate);
+        List<OrderItem> orderItems = new ArrayList<>(items.size());
+        for (ArchivedOrderItem archivedItem : items) {
+            OrderItem item = new OrderItem();
+            item.setOrderItemId(archivedItem.getOrderItemId());
+            item.setMenuItemId(archivedItem.getMenuItemId());
+            item.setQuantity(archivedItem.getQuantity());
+            item.setPrice(archivedItem.getPrice());
+            item.setOrder(order);
+            orderItems.add(item);
+        }
+        order.setItems(orderItems);
+        return order;
+    }
+}
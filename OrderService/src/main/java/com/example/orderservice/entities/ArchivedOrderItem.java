@@ -0,0 +1,28 @@
+package com.example.orderservice.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+/**
+ * An {@link OrderItem} of an {@link ArchivedOrder}, keeping its original id.
+ */
+@Entity
+@Immutable
+@Table(name = "order_item_archive", indexes = @Index(name = "idx_order_item_archive_order_id", columnList = "order_id"))
+@Getter
+@NoArgsConstructor
+public class ArchivedOrderItem {
+
+    @Id
+    private Long orderItemId;
+
+    private Long menuItemId;
+    private int quantity;
+    private double price;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id")
+    private ArchivedOrder order;
+}
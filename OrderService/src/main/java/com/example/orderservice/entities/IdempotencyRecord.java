@@ -0,0 +1,32 @@
+package com.example.orderservice.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * A request that was made with an {@code Idempotency-Key} header and the response it produced,
+ * kept for the dedup window so a retried request gets the same answer.
+ */
+@Entity
+@Table(name = "idempotency_keys", indexes = @Index(name = "idx_idempotency_keys_created_at", columnList = "createdAt"))
+@Data
+public class IdempotencyRecord {
+
+    // "<customer id>:<client key>", so two customers can't collide on a key
+    @Id
+    @Column(length = 300)
+    private String idempotencyKey;
+
+    // SHA-256 of the request body; reusing a key for a different request is rejected
+    @Column(length = 64, nullable = false)
+    private String requestHash;
+
+    // Serialized response body, written in the same transaction as the order
+    @Column(columnDefinition = "TEXT")
+    private String response;
+
+    @Column(nullable = false)
+    private Instant createdAt;
+}
@@ -9,7 +9,12 @@ import java.util.List;
 import java.util.UUID;
 
 @Entity
-@Table(name = "orders") // "Order" is a reserved keyword in SQL
+@Table(name = "orders", // "Order" is a reserved keyword in SQL
+        indexes = {
+                @Index(name = "idx_orders_status_order_date", columnList = "status, orderDate"),
+                @Index(name = "idx_orders_user_id_order_id", columnList = "userId, orderId"),
+                @Index(name = "idx_orders_restaurant_id", columnList = "restaurantId")
+        })
 @Data
 public class Order {
 
@@ -21,6 +26,8 @@ public class Order {
     private Long restaurantId;
     private double totalAmount;
     private String deliveryAddress;
+    private Double deliveryLatitude;
+    private Double deliveryLongitude;
 
     @Enumerated(EnumType.STRING)
     private OrderStatus status;
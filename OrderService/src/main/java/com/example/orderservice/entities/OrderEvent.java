@@ -0,0 +1,55 @@
+package com.example.orderservice.entities;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+
+/**
+ * One status transition of an order. Rows are only ever inserted; the current status of an
+ * order is its latest event, and its history is the events in id order.
+ *
+ * Kept deliberately narrow (four bigints, a smallint status code and a timestamp) so the log
+ * stays cheap to scan when projections are rebuilt. The order total is copied in so revenue
+ * rollups can be computed from the log alone.
+ */
+@Entity
+@Immutable
+@Table(name = "order_events", indexes = {
+        @Index(name = "idx_order_events_order_id", columnList = "orderId"),
+        @Index(name = "idx_order_events_occurred_at", columnList = "occurredAt")
+})
+@Getter
+@NoArgsConstructor
+public class OrderEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long eventId;
+
+    @Column(nullable = false)
+    private Long orderId;
+
+    private Long restaurantId;
+
+    @Convert(converter = OrderStatusCodeConverter.class)
+    @Column(nullable = false)
+    private OrderStatus status;
+
+    // Order total in cents at the time of the event
+    @Column(nullable = false)
+    private long amountCents;
+
+    @Column(nullable = false)
+    private Instant occurredAt;
+
+    public OrderEvent(Long orderId, Long restaurantId, OrderStatus status, long amountCents, Instant occurredAt) {
+        this.orderId = orderId;
+        this.restaurantId = restaurantId;
+        this.status = status;
+        this.amountCents = amountCents;
+        this.occurredAt = occurredAt;
+    }
+}
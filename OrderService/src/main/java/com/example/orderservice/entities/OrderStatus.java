@@ -3,12 +3,36 @@ package com.example.orderservice.entities;
 
 
 public enum OrderStatus {
-    PLACED,
-    ACCEPTED,
-    PREPARING,
-    READY_FOR_PICKUP,
-    DELIVERING,
-    DELIVERED,
-    COMPLETED,
-    CANCELLED
-}
\ No newline at end of file
+    PLACED(1),
+    ACCEPTED(2),
+    PREPARING(3),
+    READY_FOR_PICKUP(4),
+    DELIVERING(5),
+    DELIVERED(6),
+    COMPLETED(7),
+    CANCELLED(8);
+
+    // Stable one-byte code used by the order_events log; never renumber an existing status
+    private final short code;
+
+    OrderStatus(int code) {
+        this.code = (short) code;
+    }
+
+    public short code() {
+        return code;
+    }
+
+    public static OrderStatus fromCode(short code) {
+        for (OrderStatus status : values()) {
+            if (status.code == code) {
+                return status;
+            }
+        }
+        throw new IllegalArgumentException("Unknown order status code: " + code);
+    }
+
+    public boolean isTerminal() {
+        return this == DELIVERED || this == COMPLETED || this == CANCELLED;
+    }
+}
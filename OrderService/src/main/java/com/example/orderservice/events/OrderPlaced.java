@@ -0,0 +1,10 @@
+package com.example.orderservice.events;
+
+import com.example.common.events.DomainEvent;
+
+/**
+ * Payload of {@link DomainEvent#ORDER_PLACED}: a new order, in PLACED status.
+ */
+public record OrderPlaced(Long orderId, Long customerId, Long restaurantId, double totalAmount,
+                          String deliveryAddress, Double deliveryLatitude, Double deliveryLongitude) {
+}
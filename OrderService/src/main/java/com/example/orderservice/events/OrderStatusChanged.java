@@ -0,0 +1,10 @@
+package com.example.orderservice.events;
+
+import com.example.common.events.DomainEvent;
+import com.example.orderservice.entities.OrderStatus;
+
+/**
+ * Payload of {@link DomainEvent#ORDER_STATUS_CHANGED}: an order moved on from PLACED.
+ */
+public record OrderStatusChanged(Long orderId, Long restaurantId, OrderStatus status) {
+}
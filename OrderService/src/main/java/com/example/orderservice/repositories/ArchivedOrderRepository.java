@@ -0,0 +1,73 @@
+package com.example.orderservice.repositories;
+
+import com.example.orderservice.entities.ArchivedOrder;
+import com.example.orderservice.entities.OrderStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+	@Query("select o from ArchivedOrder o left join fetch o.items where o.orderId = :orderId")
+	Optional<ArchivedOrder> findWithItemsById(@Param("orderId") Long orderId);
+
+	@Query("select distinct o from ArchivedOrder o left join fetch o.items where o.userId = :userId order by o.orderId desc")
+	List<ArchivedOrder> findWithItemsByUserId(@Param("userId") Long userId);
+
+	@Query("select distinct o from ArchivedOrder o left join fetch o.items where o.restaurantId = :restaurantId order by o.orderId desc")
+	List<ArchivedOrder> findWithItemsByRestaurantId(@Param("restaurantId") Long restaurantId);
+
+	long countByStatus(OrderStatus status);
+
+	// Keyset page of archived orders placed before the cutoff, for the segment exporter
+	@Query("select o.orderId from ArchivedOrder o where o.orderId > :afterId and o.orderDate < :cutoff order by o.orderId")
+	List<Long> findIdsPlacedBefore(@Param("afterId") Long afterId, @Param("cutoff") LocalDateTime cutoff, Pageable page);
+
+	@Query("select distinct o from ArchivedOrder o left join fetch o.items where o.orderId in :orderIds order by o.orderId")
+	List<ArchivedOrder> findWithItemsByIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+	@Modifying
+	@Query(value = "delete from order_item_archive where order_id in (:orderIds)", nativeQuery = true)
+	int deleteArchivedItems(@Param("orderIds") Collection<Long> orderIds);
+
+	@Modifying
+	@Query(value = "delete from orders_archive where order_id in (:orderIds)", nativeQuery = true)
+	int deleteArchivedOrders(@Param("orderIds") Collection<Long> orderIds);
+
+	// The archiver's batch: finished orders older than the cutoff, locked until the move commits
+	@Query(value = "select order_id from orders where status in (:statuses) and order_date < :cutoff "
+			+ "order by order_id limit :limit for update", nativeQuery = true)
+	List<Long> lockArchivable(@Param("statuses") Collection<String> statuses,
+							  @Param("cutoff") LocalDateTime cutoff,
+							  @Param("limit") int limit);
+
+	@Modifying
+	@Query(value = "insert into orders_archive (order_id, user_id, restaurant_id, total_amount, delivery_address, "
+			+ "delivery_latitude, delivery_longitude, status, order_date) "
+			+ "select order_id, user_id, restaurant_id, total_amount, delivery_address, "
+			+ "delivery_latitude, delivery_longitude, status, order_date from orders where order_id in (:orderIds)",
+			nativeQuery = true)
+	int copyOrders(@Param("orderIds") Collection<Long> orderIds);
+
+	@Modifying
+	@Query(value = "insert into order_item_archive (order_item_id, menu_item_id, quantity, price, order_id) "
+			+ "select order_item_id, menu_item_id, quantity, price, order_id from order_item where order_id in (:orderIds)",
+			nativeQuery = true)
+	int copyItems(@Param("orderIds") Collection<Long> orderIds);
+
+	@Modifying
+	@Query(value = "delete from order_item where order_id in (:orderIds)", nativeQuery = true)
+	int deleteHotItems(@Param("orderIds") Collection<Long> orderIds);
+
+	@Modifying
+	@Query(value = "delete from orders where order_id in (:orderIds)", nativeQuery = true)
+	int deleteHotOrders(@Param("orderIds") Collection<Long> orderIds);
+}
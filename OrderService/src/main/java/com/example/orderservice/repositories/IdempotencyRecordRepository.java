@@ -0,0 +1,34 @@
+package com.example.orderservice.repositories;
+
+import com.example.orderservice.entities.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+	// Plain INSERT (save() would merge): a concurrent insert of the same key blocks on the
+	// primary key until the other transaction ends, then fails if that one committed
+	@Modifying
+	@Query(value = "insert into idempotency_keys (idempotency_key, request_hash, created_at) "
+			+ "values (:key, :requestHash, :createdAt)", nativeQuery = true)
+	int reserve(@Param("key") String key, @Param("requestHash") String requestHash,
+			@Param("createdAt") Instant createdAt);
+
+	@Modifying
+	@Query("update IdempotencyRecord r set r.response = :response where r.idempotencyKey = :key")
+	int complete(@Param("key") String key, @Param("response") String response);
+
+	@Modifying
+	@Query("delete from IdempotencyRecord r where r.createdAt < :cutoff")
+	int deleteCreatedBefore(@Param("cutoff") Instant cutoff);
+
+	@Modifying
+	@Query("delete from IdempotencyRecord r where r.idempotencyKey = :key and r.createdAt < :cutoff")
+	int deleteIfCreatedBefore(@Param("key") String key, @Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,16 @@
+package com.example.orderservice.repositories;
+
+import com.example.orderservice.entities.OrderEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderEventRepository extends JpaRepository<OrderEvent, Long> {
+	List<OrderEvent> findByOrderIdOrderByEventIdAsc(Long orderId);
+
+	// Keyset page through the whole log, used for replays
+	List<OrderEvent> findByEventIdGreaterThanOrderByEventIdAsc(Long afterEventId, Pageable page);
+}
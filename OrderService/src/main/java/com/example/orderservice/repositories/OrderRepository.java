@@ -3,16 +3,45 @@ package com.example.orderservice.repositories;
 
 import com.example.orderservice.entities.Order;
 import com.example.orderservice.entities.OrderStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<Order, Long> {
-	List<Order> findByUserId(Long userId);
 	List<Order> findByRestaurantId(Long restaurantId);
 	long countByStatus(OrderStatus status);
 	long countByStatusIn(Collection<OrderStatus> statuses);
+
+	// Orders with their items, for the kitchen board
+	@Query("select distinct o from Order o left join fetch o.items where o.status in :statuses")
+	List<Order> findWithItemsByStatusIn(@Param("statuses") Collection<OrderStatus> statuses);
+
+	@Query("select o from Order o left join fetch o.items where o.orderId = :orderId")
+	Optional<Order> findWithItemsById(@Param("orderId") Long orderId);
+
+	// A customer's order history, newest first, one keyset page at a time
+	@Query("select o.orderId from Order o where o.userId = :userId and o.orderId < :beforeId order by o.orderId desc")
+	List<Long> findIdsByUserIdBefore(@Param("userId") Long userId, @Param("beforeId") Long beforeId, Pageable page);
+
+	@Query("select distinct o from Order o left join fetch o.items where o.orderId in :orderIds order by o.orderId desc")
+	List<Order> findWithItemsByIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+	// (orderId, restaurantId, totalAmount, status) of the given orders, locked in id order so concurrent
+	// bulk updates over the same orders wait instead of deadlocking
+	@Query(value = "select order_id, restaurant_id, total_amount, status from orders where order_id in (:orderIds) "
+			+ "order by order_id for update", nativeQuery = true)
+	List<Object[]> lockStatusesByIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+	// Only rows not already in the status, so the count is the number of orders that changed
+	@Modifying
+	@Query("update Order o set o.status = :status where o.orderId in :orderIds and o.status <> :status")
+	int updateStatusWhereDifferent(@Param("orderIds") Collection<Long> orderIds, @Param("status") OrderStatus status);
 }
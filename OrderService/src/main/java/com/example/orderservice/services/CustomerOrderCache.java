@@ -0,0 +1,334 @@
+package com.example.orderservice.services;
+
+import com.example.orderservice.dtos.CustomerOrderCacheStatsDto;
+import com.example.orderservice.dtos.OrderDto;
+import com.example.orderservice.entities.OrderEvent;
+import com.example.orderservice.entities.OrderStatus;
+import com.example.orderservice.repositories.OrderRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The most recent orders of recently active customers, newest first, so the default order
+ * history screen is served without touching the database.
+ *
+ * A customer's entry is loaded on first request and then kept current from the
+ * {@link OrderEventLog}: new orders are put in front and status changes applied in place. The
+ * cache is held to a budget of estimated heap bytes, evicting the least recently used
+ * customers first. Anything beyond the cached page is read with keyset queries.
+ */
+@Component
+public class CustomerOrderCache {
+
+    // Changes kept for loads that are still running; a load that misses more is not cached
+    private static final int MAX_RECENT_CHANGES = 4096;
+
+    private final OrderRepository orderRepository;
+    private final int ordersPerCustomer;
+    private final long maxBytes;
+
+    // Guards everything below
+    private final Object lock = new Object();
+    // In access order, so the least recently used customer comes first
+    private final LinkedHashMap<Long, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<Long, Long> customerByOrderId = new HashMap<>();
+    private long bytes;
+    private int loadsInFlight;
+    private long changeSeq;
+    private final Deque<Change> recentChanges = new ArrayDeque<>();
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public CustomerOrderCache(OrderRepository orderRepository,
+                              @Value("${orders.customer-cache.orders-per-customer:20}") int ordersPerCustomer,
+                              @Value("${orders.customer-cache.max-size:64MB}") DataSize maxSize) {
+        this.orderRepository = orderRepository;
+        this.ordersPerCustomer = ordersPerCustomer;
+        this.maxBytes = maxSize.toBytes();
+    }
+
+    /**
+     * A page of a customer's hot orders, newest first.
+     *
+     * @param beforeId only orders with a smaller id, or null to start from the newest
+     */
+    public List<OrderDto> page(Long customerId, Long beforeId, int limit) {
+        if (beforeId != null || limit > ordersPerCustomer) {
+            return load(customerId, beforeId, limit);
+        }
+
+        long startSeq;
+        synchronized (lock) {
+            Entry entry = entries.get(customerId);
+            if (entry != null) {
+                hits++;
+                return entry.head(limit);
+            }
+            misses++;
+            loadsInFlight++;
+            startSeq = changeSeq;
+        }
+
+        List<OrderDto> loaded = null;
+        try {
+            loaded = load(customerId, null, ordersPerCustomer);
+        } finally {
+            synchronized (lock) {
+                loadsInFlight--;
+                if (loaded != null) {
+                    Entry entry = installLocked(customerId, loaded, startSeq);
+                    if (entry != null) {
+                        loaded = entry.orders();
+                    }
+                }
+                if (loadsInFlight == 0) {
+                    recentChanges.clear();
+                }
+            }
+        }
+        return loaded.subList(0, Math.min(limit, loaded.size()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderEvent event) {
+        OrderDto placed = null;
+        if (event.getStatus() == OrderStatus.PLACED) {
+            // A new order; its customer and items are not in the event
+            placed = orderRepository.findWithItemsById(event.getOrderId()).map(OrderDto::from).orElse(null);
+        }
+        synchronized (lock) {
+            changeSeq++;
+            Change change = new Change(event.getEventId(), event.getOrderId(), event.getStatus(), placed);
+            if (loadsInFlight > 0) {
+                recentChanges.addLast(change);
+                if (recentChanges.size() > MAX_RECENT_CHANGES) {
+                    recentChanges.removeFirst();
+                }
+            }
+            Long customerId = placed != null ? placed.getCustomerId() : customerByOrderId.get(event.getOrderId());
+            Entry entry = customerId != null ? entries.get(customerId) : null;
+            if (entry != null) {
+                bytes -= entry.bytes;
+                entry.apply(change);
+                bytes += entry.bytes;
+                reindexLocked(customerId, entry);
+                evictLocked();
+            }
+        }
+    }
+
+    /**
+     * Forgets customers holding any of these orders, which have left the hot table; they are
+     * reloaded on their next request.
+     */
+    public void removeOrders(Collection<Long> orderIds) {
+        synchronized (lock) {
+            for (Long orderId : orderIds) {
+                Long customerId = customerByOrderId.get(orderId);
+                if (customerId != null) {
+                    removeLocked(customerId);
+                }
+            }
+            if (loadsInFlight > 0) {
+                // Loads racing with this cannot tell whether they saw the orders, so none are cached
+                changeSeq += MAX_RECENT_CHANGES + 1;
+                recentChanges.clear();
+            }
+        }
+    }
+
+    public CustomerOrderCacheStatsDto stats() {
+        synchronized (lock) {
+            long requests = hits + misses;
+            return new CustomerOrderCacheStatsDto(entries.size(), customerByOrderId.size(), bytes, maxBytes,
+                    hits, misses, requests == 0 ? 0 : (double) hits / requests, evictions);
+        }
+    }
+
+    private List<OrderDto> load(Long customerId, Long beforeId, int limit) {
+        List<Long> orderIds = orderRepository.findIdsByUserIdBefore(customerId,
+                beforeId != null ? beforeId : Long.MAX_VALUE, PageRequest.ofSize(limit));
+        if (orderIds.isEmpty()) {
+            return List.of();
+        }
+        return orderRepository.findWithItemsByIdIn(orderIds).stream().map(OrderDto::from).toList();
+    }
+
+    /**
+     * Caches a freshly loaded page, first replaying the changes that arrived while it was read.
+     * Returns the entry, or null if the page could not be brought up to date.
+     */
+    private Entry installLocked(Long customerId, List<OrderDto> loaded, long startSeq) {
+        Entry existing = entries.get(customerId);
+        if (existing != null) {
+            // Loaded concurrently by another request
+            return existing;
+        }
+        long missed = changeSeq - startSeq;
+        if (missed > recentChanges.size()) {
+            return null;
+        }
+        Entry entry = new Entry(customerId, ordersPerCustomer, loaded);
+        Iterator<Change> changes = recentChanges.descendingIterator();
+        List<Change> since = new ArrayList<>();
+        for (long i = 0; i < missed; i++) {
+            since.add(changes.next());
+        }
+        for (int i = since.size() - 1; i >= 0; i--) {
+            entry.apply(since.get(i));
+        }
+        entries.put(customerId, entry);
+        bytes += entry.bytes;
+        reindexLocked(customerId, entry);
+        evictLocked();
+        return entry;
+    }
+
+    private void reindexLocked(Long customerId, Entry entry) {
+        for (Long orderId : entry.dropped) {
+            customerByOrderId.remove(orderId);
+        }
+        entry.dropped.clear();
+        for (Cached cached : entry.orders) {
+            customerByOrderId.put(cached.order.getId(), customerId);
+        }
+    }
+
+    private void evictLocked() {
+        Iterator<Map.Entry<Long, Entry>> eldest = entries.entrySet().iterator();
+        while (bytes > maxBytes && eldest.hasNext()) {
+            Entry entry = eldest.next().getValue();
+            eldest.remove();
+            forgetLocked(entry);
+            evictions++;
+        }
+    }
+
+    private void removeLocked(Long customerId) {
+        Entry entry = entries.remove(customerId);
+        if (entry != null) {
+            forgetLocked(entry);
+        }
+    }
+
+    private void forgetLocked(Entry entry) {
+        bytes -= entry.bytes;
+        entry.orders.forEach(cached -> customerByOrderId.remove(cached.order.getId()));
+    }
+
+    // Rough heap footprint of one cached order
+    private static long estimateBytes(OrderDto order) {
+        long size = 200 + 56L * order.getItems().size();
+        if (order.getDeliveryAddress() != null) {
+            size += 48 + 2L * order.getDeliveryAddress().length();
+        }
+        return size;
+    }
+
+    private record Change(long eventId, Long orderId, OrderStatus status, OrderDto placed) {
+    }
+
+    private record Cached(OrderDto order, long lastEventId) {
+    }
+
+    private static final class Entry {
+        private final Long customerId;
+        private final int capacity;
+        // Newest first; the DTOs are never modified, a status change replaces one
+        private final List<Cached> orders = new ArrayList<>();
+        // Orders pushed out since the last reindex
+        private final List<Long> dropped = new ArrayList<>();
+        private long bytes = 100;
+
+        private Entry(Long customerId, int capacity, List<OrderDto> loaded) {
+            this.customerId = customerId;
+            this.capacity = capacity;
+            for (OrderDto order : loaded) {
+                orders.add(new Cached(order, 0));
+                bytes += estimateBytes(order);
+            }
+        }
+
+        private List<OrderDto> head(int limit) {
+            List<OrderDto> result = new ArrayList<>(Math.min(limit, orders.size()));
+            for (int i = 0; i < orders.size() && i < limit; i++) {
+                result.add(orders.get(i).order);
+            }
+            return result;
+        }
+
+        private List<OrderDto> orders() {
+            return head(orders.size());
+        }
+
+        private void apply(Change change) {
+            if (change.placed() != null) {
+                if (customerId.equals(change.placed().getCustomerId()) && indexOf(change.orderId()) < 0) {
+                    add(new Cached(change.placed(), change.eventId()));
+                }
+                return;
+            }
+            int index = indexOf(change.orderId());
+            if (index < 0 || change.eventId() <= orders.get(index).lastEventId) {
+                // Not cached, or a listener running late; never go back
+                return;
+            }
+            orders.set(index, new Cached(withStatus(orders.get(index).order, change.status()), change.eventId()));
+        }
+
+        private void add(Cached cached) {
+            int at = 0;
+            while (at < orders.size() && orders.get(at).order.getId() > cached.order.getId()) {
+                at++;
+            }
+            if (at >= capacity) {
+                return;
+            }
+            orders.add(at, cached);
+            bytes += estimateBytes(cached.order);
+            if (orders.size() > capacity) {
+                Cached oldest = orders.remove(orders.size() - 1);
+                bytes -= estimateBytes(oldest.order);
+                dropped.add(oldest.order.getId());
+            }
+        }
+
+        private int indexOf(Long orderId) {
+            for (int i = 0; i < orders.size(); i++) {
+                if (orders.get(i).order.getId().equals(orderId)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private static OrderDto withStatus(OrderDto order, OrderStatus status) {
+            OrderDto dto = new OrderDto();
+            dto.setId(order.getId());
+            dto.setCustomerId(order.getCustomerId());
+            dto.setRestaurantId(order.getRestaurantId());
+            dto.setDeliveryAddress(order.getDeliveryAddress());
+            dto.setDeliveryLatitude(order.getDeliveryLatitude());
+            dto.setDeliveryLongitude(order.getDeliveryLongitude());
+            dto.setItems(order.getItems());
+            dto.setTotalAmount(order.getTotalAmount());
+            dto.setStatus(status);
+            dto.setDate(order.getDate());
+            return dto;
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.orderservice.services;
+
+import com.example.common.events.DomainEvent;
+import com.example.common.services.EventInbox;
+import com.example.orderservice.dtos.OrderStatusUpdateDto;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * What the order service does with other services' events.
+ */
+@Component
+@RequiredArgsConstructor
+public class DomainEventHandlers {
+
+    private final EventInbox eventInbox;
+    private final OrderService orderService;
+    private final ObjectMapper objectMapper;
+
+    @PostConstruct
+    public void subscribe() {
+        eventInbox.subscribeBatch(DomainEvent.DELIVERY_STATUS_CHANGED, this::onDeliveryStatusChanged);
+    }
+
+    // A picked-up delivery puts its order out for delivery, a delivered one delivers it. A run of
+    // changes is applied with one updateOrderStatuses call, where an order's last change wins.
+    private void onDeliveryStatusChanged(List<DomainEvent> events) {
+        List<OrderStatusUpdateDto> updates = new ArrayList<>(events.size());
+        for (DomainEvent event : events) {
+            DeliveryStatusChanged change = read(event, DeliveryStatusChanged.class);
+            String orderStatus = switch (String.valueOf(change.status())) {
+                case "PICKED_UP" -> "DELIVERING";
+                case "DELIVERED" -> "DELIVERED";
+                default -> null;
+            };
+            if (change.orderId() != null && orderStatus != null) {
+                updates.add(new OrderStatusUpdateDto(change.orderId(), orderStatus));
+            }
+        }
+        if (!updates.isEmpty()) {
+            orderService.updateOrderStatuses(updates);
+        }
+    }
+
+    private <T> T read(DomainEvent event, Class<T> type) {
+        try {
+            return objectMapper.treeToValue(event.payload(), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed " + event.type() + " payload: " + e.getOriginalMessage());
+        }
+    }
+
+    private record DeliveryStatusChanged(Long deliveryId, Long orderId, String status) {
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.orderservice.services;
+
+import com.example.orderservice.entities.IdempotencyRecord;
+import com.example.orderservice.repositories.IdempotencyRecordRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Runs a request at most once per {@code Idempotency-Key} within the dedup window.
+ *
+ * Keys live in an in-memory map for the fast path and for making concurrent duplicates wait on
+ * the first request, and in the {@code idempotency_keys} table so replays still work after a
+ * restart or on another instance. The table row is inserted in the same transaction as the
+ * work itself, so a key is never recorded without its result (or the other way round), and a
+ * duplicate racing on another instance blocks on the primary key until the first one commits.
+ */
+@Service
+public class IdempotencyService {
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration ttl;
+    private final Duration waitTimeout;
+
+    private final Map<String, Slot> slots = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyRecordRepository recordRepository,
+                              PlatformTransactionManager transactionManager,
+                              ObjectMapper objectMapper,
+                              @Value("${orders.idempotency.ttl:24h}") Duration ttl,
+                              @Value("${orders.idempotency.wait-timeout:30s}") Duration waitTimeout) {
+        this.recordRepository = recordRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.ttl = ttl;
+        this.waitTimeout = waitTimeout;
+    }
+
+    /**
+     * Returns the stored result for {@code key} if this request was already made, otherwise runs
+     * {@code action} in a transaction and stores its result under the key.
+     *
+     * @param request the request body; reusing a key with a different body is rejected with 422
+     * @param action  the work to do; its result must be serializable with Jackson
+     */
+    public <T> Result<T> execute(String key, Object request, Class<T> resultType, Supplier<T> action) {
+        String requestHash = hash(request);
+        long waitDeadline = System.nanoTime() + waitTimeout.toNanos();
+
+        while (true) {
+            Slot mine = new Slot(requestHash);
+            Slot existing = slots.putIfAbsent(key, mine);
+            if (existing == null) {
+                return runAsOwner(key, mine, resultType, action);
+            }
+            if (existing.isExpired()) {
+                slots.remove(key, existing);
+                continue;
+            }
+            checkSameRequest(existing.requestHash, requestHash);
+            try {
+                // An in-flight duplicate: wait for the first request rather than running again
+                long remaining = waitDeadline - System.nanoTime();
+                String response = existing.response.get(Math.max(remaining, 0), TimeUnit.NANOSECONDS);
+                return new Result<>(read(response, resultType), true);
+            } catch (ExecutionException e) {
+                // The first attempt failed and released the key; retry as the owner
+            } catch (TimeoutException e) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "A request with this Idempotency-Key is still being processed");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Interrupted");
+            }
+        }
+    }
+
+    private <T> Result<T> runAsOwner(String key, Slot slot, Class<T> resultType, Supplier<T> action) {
+        try {
+            Stored stored = transactionTemplate.execute(status -> {
+                Instant now = Instant.now();
+                recordRepository.deleteIfCreatedBefore(key, now.minus(ttl));
+                IdempotencyRecord previous = recordRepository.findById(key).orElse(null);
+                if (previous != null) {
+                    // Completed before a restart, or by another instance
+                    checkSameRequest(previous.getRequestHash(), slot.requestHash);
+                    return new Stored(previous.getResponse(), previous.getCreatedAt(), true);
+                }
+                recordRepository.reserve(key, slot.requestHash, now);
+                String response = write(action.get());
+                recordRepository.complete(key, response);
+                return new Stored(response, now, false);
+            });
+            slot.expiresAt = stored.createdAt().plus(ttl);
+            slot.response.complete(stored.response());
+            return new Result<>(read(stored.response(), resultType), stored.replayed());
+        } catch (DataIntegrityViolationException e) {
+            // Another instance committed the same key while we were running: use its result
+            release(key, slot, e);
+            IdempotencyRecord winner = recordRepository.findById(key).orElseThrow(() -> e);
+            checkSameRequest(winner.getRequestHash(), slot.requestHash);
+            return new Result<>(read(winner.getResponse(), resultType), true);
+        } catch (RuntimeException e) {
+            // Failures are not remembered, so the client can retry with the same key
+            release(key, slot, e);
+            throw e;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${orders.idempotency.sweep-interval:PT5M}")
+    public void evictExpired() {
+        slots.values().removeIf(Slot::isExpired);
+        transactionTemplate.executeWithoutResult(status ->
+                recordRepository.deleteCreatedBefore(Instant.now().minus(ttl)));
+    }
+
+    private void release(String key, Slot slot, Exception cause) {
+        slots.remove(key, slot);
+        slot.response.completeExceptionally(cause);
+    }
+
+    private static void checkSameRequest(String expectedHash, String actualHash) {
+        if (!expectedHash.equals(actualHash)) {
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used for a different request");
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(request)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot fingerprint request", e);
+        }
+    }
+
+    private String write(Object value) {
+        try {
+            return objectMapper.writeValueAsString(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize response", e);
+        }
+    }
+
+    private <T> T read(String json, Class<T> type) {
+        try {
+            return objectMapper.readValue(json, type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot read stored response", e);
+        }
+    }
+
+    public record Result<T>(T value, boolean replayed) {
+    }
+
+    private record Stored(String response, Instant createdAt, boolean replayed) {
+    }
+
+    private static final class Slot {
+        private final String requestHash;
+        private final CompletableFuture<String> response = new CompletableFuture<>();
+        // Set once the response is known; until then the slot is in flight and never expires
+        private volatile Instant expiresAt;
+
+        private Slot(String requestHash) {
+            this.requestHash = requestHash;
+        }
+
+        private boolean isExpired() {
+            Instant expiry = expiresAt;
+            return expiry != null && Instant.now().isAfter(expiry);
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.example.orderservice.services;
+
+import com.example.common.web.SseSubscriber;
+import com.example.orderservice.dtos.KitchenBoardDto;
+import com.example.orderservice.dtos.OrderDto;
+import com.example.orderservice.entities.Order;
+import com.example.orderservice.entities.OrderEvent;
+import com.example.orderservice.entities.OrderStatus;
+import com.example.orderservice.repositories.OrderRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The orders each restaurant's kitchen is working on, from PLACED to READY_FOR_PICKUP, held in
+ * memory so the kitchen screen never reads historical rows.
+ *
+ * The boards are filled once from the database on startup and then kept current from the
+ * {@link OrderEventLog}: an order joins its board when it is placed and leaves it once picked
+ * up, delivered or cancelled. Changes are queued for server-sent event subscribers in the
+ * order they were made, each subscriber written to by a thread of its own, so a slow client only
+ * holds up its own stream. One more than {@code orders.kitchen.max-pending-events} behind is
+ * dropped and has to reconnect, starting again from a fresh snapshot.
+ */
+@Component
+public class KitchenBoard {
+
+    private static final Logger logger = LoggerFactory.getLogger(KitchenBoard.class);
+
+    public static final Set<OrderStatus> ACTIVE = EnumSet.of(
+            OrderStatus.PLACED, OrderStatus.ACCEPTED, OrderStatus.PREPARING, OrderStatus.READY_FOR_PICKUP);
+
+    private final OrderRepository orderRepository;
+    private final long streamTimeoutMillis;
+    private final int maxPendingEvents;
+    private final Map<Long, List<SseSubscriber>> subscribers = new ConcurrentHashMap<>();
+
+    // Guards everything below
+    private final Object lock = new Object();
+    private final Map<Long, Board> boards = new HashMap<>();
+    private boolean warmingUp;
+    private final List<Change> duringWarmUp = new ArrayList<>();
+
+    public KitchenBoard(OrderRepository orderRepository,
+                        @Value("${orders.kitchen.stream-timeout:30m}") Duration streamTimeout,
+                        @Value("${orders.kitchen.max-pending-events:256}") int maxPendingEvents) {
+        this.orderRepository = orderRepository;
+        this.streamTimeoutMillis = streamTimeout.toMillis();
+        this.maxPendingEvents = maxPendingEvents;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        synchronized (lock) {
+            warmingUp = true;
+        }
+        Map<Long, Board> loaded = null;
+        try {
+            Map<Long, Board> fresh = new HashMap<>();
+            int count = 0;
+            for (Order order : orderRepository.findWithItemsByStatusIn(ACTIVE)) {
+                if (order.getRestaurantId() != null) {
+                    fresh.computeIfAbsent(order.getRestaurantId(), id -> new Board())
+                            .orders.put(order.getOrderId(), new Entry(OrderDto.from(order), order.getStatus(), 0));
+                    count++;
+                }
+            }
+            loaded = fresh;
+            logger.info("Kitchen boards warmed up with {} active orders", count);
+        } finally {
+            synchronized (lock) {
+                if (loaded != null) {
+                    boards.clear();
+                    boards.putAll(loaded);
+                }
+                for (Change change : duringWarmUp) {
+                    applyLocked(change);
+                }
+                duringWarmUp.clear();
+                warmingUp = false;
+            }
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderEvent event) {
+        Long restaurantId = event.getRestaurantId();
+        if (restaurantId == null) {
+            return;
+        }
+        OrderDto joining = null;
+        if (ACTIVE.contains(event.getStatus()) && !isOnBoard(restaurantId, event.getOrderId())) {
+            // First time the board sees this order: it needs the items too
+            joining = orderRepository.findWithItemsById(event.getOrderId())
+                    .filter(order -> ACTIVE.contains(order.getStatus()))
+                    .map(OrderDto::from)
+                    .orElse(null);
+        }
+
+        Change change = new Change(event, joining);
+        synchronized (lock) {
+            if (warmingUp) {
+                duringWarmUp.add(change);
+                return;
+            }
+            OrderDto changed = applyLocked(change);
+            if (changed != null) {
+                // Queued under the lock, so subscribers see the changes in version order
+                broadcast(restaurantId, "order", boards.get(restaurantId).version, changed);
+            }
+        }
+    }
+
+    public KitchenBoardDto snapshot(Long restaurantId) {
+        synchronized (lock) {
+            Board board = boards.get(restaurantId);
+            if (board == null) {
+                return new KitchenBoardDto(0, List.of());
+            }
+            List<OrderDto> orders = new ArrayList<>(board.orders.size());
+            board.orders.values().forEach(entry -> orders.add(entry.toDto()));
+            return new KitchenBoardDto(board.version, orders);
+        }
+    }
+
+    /**
+     * Opens a stream that starts with a {@code snapshot} event holding the whole board,
+     * followed by an {@code order} event for every order that joins, changes status on or
+     * leaves it. An order whose status is no longer in {@link #ACTIVE} has left the board.
+     */
+    public SseEmitter subscribe(Long restaurantId) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        SseSubscriber subscriber = new SseSubscriber(emitter, maxPendingEvents, "kitchen-board");
+        List<SseSubscriber> restaurantSubscribers =
+                subscribers.computeIfAbsent(restaurantId, id -> new CopyOnWriteArrayList<>());
+        emitter.onCompletion(() -> restaurantSubscribers.remove(subscriber));
+        emitter.onTimeout(() -> restaurantSubscribers.remove(subscriber));
+        emitter.onError(e -> restaurantSubscribers.remove(subscriber));
+
+        // Snapshot and registration under the lock, so every later change is queued after the snapshot
+        synchronized (lock) {
+            KitchenBoardDto snapshot = snapshot(restaurantId);
+            subscriber.offer(event("snapshot", snapshot.getVersion(), snapshot));
+            restaurantSubscribers.add(subscriber);
+        }
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(restaurantSubscribers -> restaurantSubscribers.forEach(SseSubscriber::complete));
+    }
+
+    private boolean isOnBoard(Long restaurantId, Long orderId) {
+        synchronized (lock) {
+            Board board = boards.get(restaurantId);
+            return board != null && board.orders.containsKey(orderId);
+        }
+    }
+
+    /**
+     * Applies one change, returning the order as it now looks or null if the board did not
+     * change. Callers hold the lock.
+     */
+    private OrderDto applyLocked(Change change) {
+        OrderEvent event = change.event();
+        Board board = boards.computeIfAbsent(event.getRestaurantId(), id -> new Board());
+        Entry entry = board.orders.get(event.getOrderId());
+        if (entry != null && event.getEventId() <= entry.lastEventId) {
+            // Listeners on different threads can run out of order; never go back
+            return null;
+        }
+
+        if (!ACTIVE.contains(event.getStatus())) {
+            if (entry == null) {
+                return null;
+            }
+            board.orders.remove(event.getOrderId());
+        } else if (entry == null) {
+            if (change.joining() == null) {
+                return null;
+            }
+            entry = new Entry(change.joining(), event.getStatus(), event.getEventId());
+            board.orders.put(event.getOrderId(), entry);
+        }
+        entry.status = event.getStatus();
+        entry.lastEventId = event.getEventId();
+        board.version++;
+        return entry.toDto();
+    }
+
+    // Never blocks: each subscriber only queues the event
+    private void broadcast(Long restaurantId, String name, long version, Object data) {
+        List<SseSubscriber> restaurantSubscribers = subscribers.get(restaurantId);
+        if (restaurantSubscribers == null || restaurantSubscribers.isEmpty()) {
+            return;
+        }
+        Set<DataWithMediaType> event = event(name, version, data);
+        for (SseSubscriber subscriber : restaurantSubscribers) {
+            if (!subscriber.offer(event)) {
+                // Gone or too far behind
+                restaurantSubscribers.remove(subscriber);
+            }
+        }
+    }
+
+    private static Set<DataWithMediaType> event(String name, long version, Object data) {
+        return SseEmitter.event().name(name).id(Long.toString(version)).data(data).build();
+    }
+
+    private record Change(OrderEvent event, OrderDto joining) {
+    }
+
+    private static final class Board {
+        // Active orders by id, so oldest first
+        private final TreeMap<Long, Entry> orders = new TreeMap<>();
+        private long version;
+    }
+
+    private static final class Entry {
+        // Never modified once on the board; the status is kept next to it
+        private final OrderDto order;
+        private OrderStatus status;
+        private long lastEventId;
+
+        private Entry(OrderDto order, OrderStatus status, long lastEventId) {
+            this.order = order;
+            this.status = status;
+            this.lastEventId = lastEventId;
+        }
+
+        private OrderDto toDto() {
+            OrderDto dto = new OrderDto();
+            dto.setId(order.getId());
+            dto.setCustomerId(order.getCustomerId());
+            dto.setRestaurantId(order.getRestaurantId());
+            dto.setDeliveryAddress(order.getDeliveryAddress());
+            dto.setDeliveryLatitude(order.getDeliveryLatitude());
+            dto.setDeliveryLongitude(order.getDeliveryLongitude());
+            dto.setItems(order.getItems());
+            dto.setTotalAmount(order.getTotalAmount());
+            dto.setStatus(status);
+            dto.setDate(order.getDate());
+            return dto;
+        }
+    }
+}
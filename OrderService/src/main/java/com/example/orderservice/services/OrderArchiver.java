@@ -0,0 +1,115 @@
+package com.example.orderservice.services;
+
+import com.example.orderservice.entities.OrderStatus;
+import com.example.orderservice.repositories.ArchivedOrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves finished orders (DELIVERED, COMPLETED, CANCELLED) placed more than
+ * {@code orders.archive.after} ago from {@code orders}/{@code order_item} into
+ * {@code orders_archive}/{@code order_item_archive}, so the hot tables only hold recent and
+ * in-progress orders.
+ *
+ * Each batch is copied and deleted in its own short transaction with its rows locked, so an
+ * order is always in exactly one of the two places, and batches are spaced out so the job never
+ * competes with order traffic for long. A run stops after a fixed number of batches; the next
+ * run carries on where it left off.
+ */
+@Component
+public class OrderArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderArchiver.class);
+
+    private static final List<String> FINISHED = Arrays.stream(OrderStatus.values())
+            .filter(OrderStatus::isTerminal)
+            .map(Enum::name)
+            .toList();
+
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final CustomerOrderCache customerOrderCache;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration archiveAfter;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration pauseBetweenBatches;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public OrderArchiver(ArchivedOrderRepository archivedOrderRepository,
+                         CustomerOrderCache customerOrderCache,
+                         PlatformTransactionManager transactionManager,
+                         @Value("${orders.archive.after:90d}") Duration archiveAfter,
+                         @Value("${orders.archive.batch-size:500}") int batchSize,
+                         @Value("${orders.archive.max-batches-per-run:200}") int maxBatchesPerRun,
+                         @Value("${orders.archive.pause-between-batches:100ms}") Duration pauseBetweenBatches) {
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.customerOrderCache = customerOrderCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.archiveAfter = archiveAfter;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.pauseBetweenBatches = pauseBetweenBatches;
+    }
+
+    @Scheduled(initialDelayString = "${orders.archive.interval:PT15M}", fixedDelayString = "${orders.archive.interval:PT15M}")
+    public void scheduledRun() {
+        run();
+    }
+
+    /**
+     * Archives up to {@code maxBatchesPerRun} batches.
+     *
+     * @return number of orders moved, or -1 if another run is in progress
+     */
+    public int run() {
+        if (!running.compareAndSet(false, true)) {
+            return -1;
+        }
+        long started = System.currentTimeMillis();
+        int moved = 0;
+        LocalDateTime cutoff = LocalDateTime.now().minus(archiveAfter);
+        try {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                List<Long> orderIds = transactionTemplate.execute(status -> archiveBatch(cutoff));
+                customerOrderCache.removeOrders(orderIds);
+                moved += orderIds.size();
+                if (orderIds.size() < batchSize) {
+                    break;
+                }
+                Thread.sleep(pauseBetweenBatches.toMillis());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            running.set(false);
+        }
+        if (moved > 0) {
+            logger.info("Archived {} finished orders placed before {} in {} ms", moved, cutoff,
+                    System.currentTimeMillis() - started);
+        }
+        return moved;
+    }
+
+    private List<Long> archiveBatch(LocalDateTime cutoff) {
+        List<Long> orderIds = archivedOrderRepository.lockArchivable(FINISHED, cutoff, batchSize);
+        if (orderIds.isEmpty()) {
+            return orderIds;
+        }
+        archivedOrderRepository.copyOrders(orderIds);
+        archivedOrderRepository.copyItems(orderIds);
+        archivedOrderRepository.deleteHotItems(orderIds);
+        archivedOrderRepository.deleteHotOrders(orderIds);
+        return orderIds;
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.orderservice.services;
+
+import com.example.common.events.DomainEvent;
+import com.example.common.services.EventOutbox;
+import com.example.orderservice.entities.Order;
+import com.example.orderservice.entities.OrderEvent;
+import com.example.orderservice.entities.OrderStatus;
+import com.example.orderservice.events.OrderStatusChanged;
+import com.example.orderservice.repositories.OrderEventRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Append-only log of order status transitions ({@code order_events}).
+ *
+ * Events are written in the caller's transaction, so the log and {@code orders.status} never
+ * disagree, and each appended event is published to listeners (after commit, for
+ * {@code @TransactionalEventListener}s) and, past PLACED, to other services as an
+ * OrderStatusChanged event.
+ */
+@Service
+@RequiredArgsConstructor
+public class OrderEventLog {
+
+    private final OrderEventRepository orderEventRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EventOutbox eventOutbox;
+
+    /**
+     * Records that {@code order} has just entered its current status.
+     */
+    public OrderEvent append(Order order) {
+        return append(order.getOrderId(), order.getRestaurantId(), order.getStatus(), order.getTotalAmount());
+    }
+
+    /**
+     * Same, for an order changed without loading it.
+     */
+    public OrderEvent append(Long orderId, Long restaurantId, OrderStatus status, double totalAmount) {
+        long amountCents = Math.round(totalAmount * 100);
+        OrderEvent event = orderEventRepository.save(new OrderEvent(orderId, restaurantId, status, amountCents,
+                Instant.now()));
+        eventPublisher.publishEvent(event);
+        // Placing an order is announced on its own, with the order's details
+        if (status != OrderStatus.PLACED) {
+            eventOutbox.append(DomainEvent.ORDER_STATUS_CHANGED, orderId, new OrderStatusChanged(orderId, restaurantId, status));
+        }
+        return event;
+    }
+
+    public List<OrderEvent> history(Long orderId) {
+        return orderEventRepository.findByOrderIdOrderByEventIdAsc(orderId);
+    }
+
+    /**
+     * Feeds every event after {@code afterEventId} to {@code consumer} in id order, reading the
+     * log one page at a time so it never has to fit in memory.
+     */
+    public void replay(long afterEventId, int pageSize, Consumer<OrderEvent> consumer) {
+        long cursor = afterEventId;
+        List<OrderEvent> page;
+        do {
+            page = orderEventRepository.findByEventIdGreaterThanOrderByEventIdAsc(cursor, PageRequest.ofSize(pageSize));
+            for (OrderEvent event : page) {
+                consumer.accept(event);
+                cursor = event.getEventId();
+            }
+        } while (page.size() == pageSize);
+    }
+}
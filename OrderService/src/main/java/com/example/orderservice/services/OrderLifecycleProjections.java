@@ -0,0 +1,258 @@
+package com.example.orderservice.services;
+
+import com.example.orderservice.dtos.PrepTimeDto;
+import com.example.orderservice.dtos.SlaBreachDto;
+import com.example.orderservice.dtos.SlaReportDto;
+import com.example.orderservice.entities.OrderEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Read models computed from the {@link OrderEventLog}: average kitchen prep time per restaurant
+ * and delivery SLA breaches.
+ *
+ * Each committed event is folded in as it happens. Because the state is purely a function of
+ * the log, it can be thrown away and rebuilt by replaying the log from the start, which is what
+ * happens on startup and after a change to the SLA or the projection logic.
+ */
+@Component
+public class OrderLifecycleProjections {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderLifecycleProjections.class);
+
+    private static final int REPLAY_PAGE_SIZE = 5000;
+    private static final int RECENT_BREACHES = 100;
+    private static final long CLOSED_MARGIN_MILLIS = Duration.ofMinutes(5).toMillis();
+
+    private final OrderEventLog orderEventLog;
+    private final long slaMillis;
+
+    // Guards everything below
+    private final Object lock = new Object();
+    private State state = new State();
+    private boolean rebuilding;
+    // Live events that arrived while a rebuild was running
+    private final List<OrderEvent> duringRebuild = new ArrayList<>();
+
+    public OrderLifecycleProjections(OrderEventLog orderEventLog,
+                                     @Value("${orders.sla.delivery-minutes:45}") long slaMinutes) {
+        this.orderEventLog = orderEventLog;
+        this.slaMillis = Duration.ofMinutes(slaMinutes).toMillis();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderEvent event) {
+        synchronized (lock) {
+            if (rebuilding) {
+                duringRebuild.add(event);
+            } else {
+                state.apply(event);
+            }
+        }
+    }
+
+    /**
+     * Recomputes every projection from the full event log and swaps it in.
+     *
+     * Live events arriving meanwhile are buffered and applied to the new state at the end. Some
+     * of them may also have been read by the replay; that is fine because applying an event to
+     * an order a second time never changes a projection.
+     *
+     * @return number of events replayed
+     */
+    public long rebuild() {
+        synchronized (lock) {
+            if (rebuilding) {
+                throw new IllegalStateException("A rebuild is already running");
+            }
+            rebuilding = true;
+        }
+
+        long started = System.currentTimeMillis();
+        State fresh = new State();
+        // Events buffered during the rebuild were committed after it started, give or take a
+        // transaction, so only orders finishing from about then on can see a repeat
+        fresh.closedSince = started - CLOSED_MARGIN_MILLIS;
+        long[] replayed = {0};
+        State result = fresh;
+        try {
+            orderEventLog.replay(0, REPLAY_PAGE_SIZE, event -> {
+                fresh.apply(event);
+                replayed[0]++;
+            });
+        } catch (RuntimeException e) {
+            // Keep the old state; it still has to see what arrived in the meantime
+            result = null;
+            throw e;
+        } finally {
+            synchronized (lock) {
+                State target = result != null ? result : state;
+                duringRebuild.sort(Comparator.comparing(OrderEvent::getEventId));
+                duringRebuild.forEach(target::apply);
+                duringRebuild.clear();
+                target.closed.clear();
+                target.closedSince = Long.MAX_VALUE;
+                state = target;
+                rebuilding = false;
+            }
+        }
+        logger.info("Order projections rebuilt from {} events in {} ms", replayed[0],
+                System.currentTimeMillis() - started);
+        return replayed[0];
+    }
+
+    public List<PrepTimeDto> prepTimes() {
+        synchronized (lock) {
+            List<PrepTimeDto> result = new ArrayList<>();
+            state.prepByRestaurant.forEach((restaurantId, stats) -> result.add(
+                    new PrepTimeDto(restaurantId, stats.count, minutes(stats.totalMillis / (double) stats.count))));
+            result.sort(Comparator.comparing(PrepTimeDto::getRestaurantId));
+            return result;
+        }
+    }
+
+    /**
+     * @param restaurantId only this restaurant, or null for all of them
+     */
+    public SlaReportDto slaReport(Long restaurantId) {
+        synchronized (lock) {
+            long delivered = 0;
+            long breaches = 0;
+            for (Map.Entry<Long, SlaStats> entry : state.slaByRestaurant.entrySet()) {
+                if (restaurantId == null || restaurantId.equals(entry.getKey())) {
+                    delivered += entry.getValue().delivered;
+                    breaches += entry.getValue().breaches;
+                }
+            }
+            List<SlaBreachDto> recent = new ArrayList<>();
+            state.recentBreaches.descendingIterator().forEachRemaining(breach -> {
+                if (restaurantId == null || restaurantId.equals(breach.getRestaurantId())) {
+                    recent.add(breach);
+                }
+            });
+            double rate = delivered == 0 ? 0 : (double) breaches / delivered;
+            return new SlaReportDto(slaMillis / 60_000, delivered, breaches, rate, recent);
+        }
+    }
+
+    private static double minutes(double millis) {
+        return Math.round(millis / 600.0) / 100.0;
+    }
+
+    /**
+     * All projection state; only ever touched by one thread at a time (the replaying thread
+     * before it is published, the lock holder afterwards).
+     */
+    private final class State {
+        // Orders still in progress: when each stage was reached
+        private final Map<Long, Timeline> active = new HashMap<>();
+        // Orders finished since closedSince, so a repeated event cannot reopen them
+        private final Set<Long> closed = new HashSet<>();
+        private long closedSince = Long.MAX_VALUE;
+        private final Map<Long, PrepStats> prepByRestaurant = new HashMap<>();
+        private final Map<Long, SlaStats> slaByRestaurant = new HashMap<>();
+        private final Deque<SlaBreachDto> recentBreaches = new ArrayDeque<>();
+
+        void apply(OrderEvent event) {
+            long at = event.getOccurredAt().toEpochMilli();
+            Timeline timeline = active.get(event.getOrderId());
+            if (timeline == null) {
+                if (closed.contains(event.getOrderId())) {
+                    // A repeat of an event for an order that has already finished
+                    return;
+                }
+                timeline = new Timeline();
+                active.put(event.getOrderId(), timeline);
+            }
+            if (event.getRestaurantId() != null) {
+                timeline.restaurantId = event.getRestaurantId();
+            }
+
+            switch (event.getStatus()) {
+                case PLACED -> timeline.placedAt = at;
+                case ACCEPTED -> timeline.acceptedAt = at;
+                case READY_FOR_PICKUP, DELIVERING -> recordPrep(timeline, at);
+                case DELIVERED, COMPLETED -> recordDelivery(event.getOrderId(), timeline, at);
+                default -> {
+                }
+            }
+
+            if (event.getStatus().isTerminal()) {
+                active.remove(event.getOrderId());
+                if (at >= closedSince) {
+                    closed.add(event.getOrderId());
+                }
+            }
+        }
+
+        // Prep runs from the kitchen accepting the order (or it being placed) until it is ready
+        private void recordPrep(Timeline timeline, long at) {
+            long start = timeline.acceptedAt != 0 ? timeline.acceptedAt : timeline.placedAt;
+            if (timeline.prepRecorded || start == 0 || timeline.restaurantId == null) {
+                return;
+            }
+            timeline.prepRecorded = true;
+            PrepStats stats = prepByRestaurant.computeIfAbsent(timeline.restaurantId, id -> new PrepStats());
+            stats.count++;
+            stats.totalMillis += Math.max(0, at - start);
+        }
+
+        private void recordDelivery(Long orderId, Timeline timeline, long at) {
+            if (timeline.deliveryRecorded || timeline.placedAt == 0 || timeline.restaurantId == null) {
+                return;
+            }
+            timeline.deliveryRecorded = true;
+            SlaStats stats = slaByRestaurant.computeIfAbsent(timeline.restaurantId, id -> new SlaStats());
+            stats.delivered++;
+            long took = at - timeline.placedAt;
+            if (took > slaMillis) {
+                stats.breaches++;
+                recentBreaches.addLast(new SlaBreachDto(orderId, timeline.restaurantId, minutes(took),
+                        Instant.ofEpochMilli(at)));
+                if (recentBreaches.size() > RECENT_BREACHES) {
+                    recentBreaches.removeFirst();
+                }
+            }
+        }
+    }
+
+    private static final class Timeline {
+        private Long restaurantId;
+        private long placedAt;
+        private long acceptedAt;
+        private boolean prepRecorded;
+        private boolean deliveryRecorded;
+    }
+
+    private static final class PrepStats {
+        private long count;
+        private long totalMillis;
+    }
+
+    private static final class SlaStats {
+        private long delivered;
+        private long breaches;
+    }
+}
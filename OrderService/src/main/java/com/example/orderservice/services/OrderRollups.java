@@ -0,0 +1,410 @@
+package com.example.orderservice.services;
+
+import com.example.orderservice.dtos.OrderRollupDto;
+import com.example.orderservice.entities.OrderEvent;
+import com.example.orderservice.entities.OrderStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Order volume and revenue per minute, hour and day, by restaurant and by status, kept in
+ * memory so dashboard queries over long ranges never touch the orders table.
+ *
+ * Every event in the {@link OrderEventLog} adds one order, and its total, to the status it
+ * entered in the bucket it happened in. A range is answered by adding up whole days in the
+ * middle, whole hours towards the ends and minutes at the edges, so even a year is a few
+ * hundred bucket reads. Minutes are only kept for all restaurants together; per restaurant
+ * the finest resolution is an hour.
+ *
+ * Buckets live in fixed-size rings of primitive arrays that are allocated a page at a time
+ * when first written, so quiet restaurants cost little. Old buckets fall off the end of each
+ * ring; a range reaching back further than a resolution is kept for is widened to the next
+ * coarser one, and the range actually covered is reported back. On startup the rings are
+ * filled from the log with one grouped query per resolution.
+ */
+@Component
+public class OrderRollups {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderRollups.class);
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    // Per bucket: an order count and a revenue in cents for each status
+    private static final int FIELDS = STATUSES.length * 2;
+    // Buckets per page, the unit rings allocate and recycle
+    private static final int PAGE = 16;
+    private static final int MAX_POINTS = 1000;
+
+    private static final String HOURLY_SQL = """
+            select restaurant_id, status, floor(extract(epoch from occurred_at) / 3600) as bucket,
+                   count(*) as orders, sum(amount_cents) as cents
+            from order_events
+            where event_id <= ? and occurred_at >= ?
+            group by restaurant_id, status, floor(extract(epoch from occurred_at) / 3600)
+            """;
+    private static final String MINUTELY_SQL = """
+            select status, floor(extract(epoch from occurred_at) / 60) as bucket,
+                   count(*) as orders, sum(amount_cents) as cents
+            from order_events
+            where event_id <= ? and occurred_at >= ?
+            group by status, floor(extract(epoch from occurred_at) / 60)
+            """;
+
+    public enum Granularity {
+        MINUTE, HOUR, DAY
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ZoneId zone;
+    private final int minuteBuckets;
+    private final int hourBuckets;
+    private final int dayBuckets;
+
+    // Guards everything below
+    private final Object lock = new Object();
+    private Series all;
+    private Map<Long, Series> byRestaurant = new HashMap<>();
+    private boolean loading;
+    private long loadedUpToEventId;
+    private final List<OrderEvent> duringLoad = new ArrayList<>();
+
+    public OrderRollups(JdbcTemplate jdbcTemplate,
+                        @Value("${orders.analytics.zone:}") String zone,
+                        @Value("${orders.analytics.minute-retention:48h}") Duration minuteRetention,
+                        @Value("${orders.analytics.hour-retention:31d}") Duration hourRetention,
+                        @Value("${orders.analytics.day-retention:800d}") Duration dayRetention) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.zone = zone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(zone);
+        this.minuteBuckets = (int) minuteRetention.toMinutes();
+        this.hourBuckets = (int) hourRetention.toHours();
+        this.dayBuckets = (int) dayRetention.toDays();
+        this.all = new Series(true);
+    }
+
+    /**
+     * Fills the rollups from the event log. Events committed while this runs are held back
+     * and added afterwards, unless the grouped queries already counted them.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        synchronized (lock) {
+            loading = true;
+        }
+        long started = System.currentTimeMillis();
+        Series freshAll = new Series(true);
+        Map<Long, Series> freshByRestaurant = new HashMap<>();
+        long maxEventId = 0;
+        boolean loaded = false;
+        try {
+            Long max = jdbcTemplate.queryForObject("select max(event_id) from order_events", Long.class);
+            maxEventId = max != null ? max : 0;
+            Instant now = Instant.now();
+
+            jdbcTemplate.query(HOURLY_SQL, rs -> {
+                long restaurantId = rs.getLong("restaurant_id");
+                boolean hasRestaurant = !rs.wasNull();
+                int status = OrderStatus.fromCode(rs.getShort("status")).ordinal();
+                Instant at = Instant.ofEpochSecond(rs.getLong("bucket") * 3600);
+                long orders = rs.getLong("orders");
+                long cents = rs.getLong("cents");
+                freshAll.addHourAndDay(at, status, orders, cents);
+                if (hasRestaurant) {
+                    freshByRestaurant.computeIfAbsent(restaurantId, id -> new Series(false))
+                            .addHourAndDay(at, status, orders, cents);
+                }
+            }, maxEventId, Timestamp.from(now.minus(Duration.ofDays(dayBuckets + 1L))));
+
+            jdbcTemplate.query(MINUTELY_SQL, rs -> {
+                int status = OrderStatus.fromCode(rs.getShort("status")).ordinal();
+                freshAll.minutes.add(rs.getLong("bucket"), status, rs.getLong("orders"), rs.getLong("cents"));
+            }, maxEventId, Timestamp.from(now.minus(Duration.ofMinutes(minuteBuckets + 1L))));
+            loaded = true;
+        } finally {
+            synchronized (lock) {
+                if (loaded) {
+                    all = freshAll;
+                    byRestaurant = freshByRestaurant;
+                    loadedUpToEventId = maxEventId;
+                }
+                for (OrderEvent event : duringLoad) {
+                    apply(event);
+                }
+                duringLoad.clear();
+                loading = false;
+            }
+        }
+        logger.info("Order rollups loaded up to event {} in {} ms", maxEventId,
+                System.currentTimeMillis() - started);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onOrderEvent(OrderEvent event) {
+        synchronized (lock) {
+            if (loading) {
+                duringLoad.add(event);
+            } else {
+                apply(event);
+            }
+        }
+    }
+
+    // Callers hold the lock
+    private void apply(OrderEvent event) {
+        if (event.getEventId() <= loadedUpToEventId) {
+            // Already counted by the grouped load queries
+            return;
+        }
+        int status = event.getStatus().ordinal();
+        all.add(event.getOccurredAt(), status, 1, event.getAmountCents());
+        if (event.getRestaurantId() != null) {
+            byRestaurant.computeIfAbsent(event.getRestaurantId(), id -> new Series(false))
+                    .add(event.getOccurredAt(), status, 1, event.getAmountCents());
+        }
+    }
+
+    /**
+     * Start of the day {@code daysAgo} days before today, in the rollup time zone.
+     */
+    public Instant startOfDay(int daysAgo) {
+        return LocalDate.now(zone).minusDays(daysAgo).atStartOfDay(zone).toInstant();
+    }
+
+    /**
+     * Totals for {@code [from, to)}.
+     *
+     * @param restaurantId only this restaurant, or null for all of them
+     */
+    public OrderRollupDto total(Instant from, Instant to, Long restaurantId) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        synchronized (lock) {
+            return sum(seriesFor(restaurantId), from, to, Instant.now());
+        }
+    }
+
+    /**
+     * Totals for each {@code step} in {@code [from, to)}, oldest first.
+     *
+     * @param restaurantId only this restaurant, or null for all of them
+     */
+    public List<OrderRollupDto> series(Instant from, Instant to, Granularity step, Long restaurantId) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to");
+        }
+        long first = bucketOf(step, from);
+        long last = bucketOf(step, to.minusNanos(1));
+        if (last - first + 1 > MAX_POINTS) {
+            throw new IllegalArgumentException("At most " + MAX_POINTS + " points per query; use a coarser step");
+        }
+        synchronized (lock) {
+            Series series = seriesFor(restaurantId);
+            Instant now = Instant.now();
+            List<OrderRollupDto> points = new ArrayList<>();
+            for (long bucket = first; bucket <= last; bucket++) {
+                points.add(sum(series, startOf(step, bucket), startOf(step, bucket + 1), now));
+            }
+            return points;
+        }
+    }
+
+    private Series seriesFor(Long restaurantId) {
+        if (restaurantId == null) {
+            return all;
+        }
+        Series series = byRestaurant.get(restaurantId);
+        return series != null ? series : new Series(false);
+    }
+
+    private OrderRollupDto sum(Series series, Instant from, Instant to, Instant now) {
+        // Never start before the oldest day still kept, then snap both ends to the finest
+        // resolution kept at that point
+        Instant oldest = startOf(Granularity.DAY, series.days.oldestRetained(bucketOf(Granularity.DAY, now)));
+        if (from.isBefore(oldest)) {
+            from = oldest;
+        }
+        Granularity fromStep = series.finestAt(from, now);
+        Instant start = startOf(fromStep, bucketOf(fromStep, from));
+        Granularity toStep = series.finestAt(to, now);
+        long toBucket = bucketOf(toStep, to);
+        Instant end = startOf(toStep, toBucket).equals(to) ? to : startOf(toStep, toBucket + 1);
+
+        long[] sums = new long[FIELDS];
+        Instant cursor = start;
+        while (cursor.isBefore(end)) {
+            Instant next = null;
+            for (Granularity step : new Granularity[] {Granularity.DAY, Granularity.HOUR, Granularity.MINUTE}) {
+                Ring ring = series.ring(step);
+                if (ring == null) {
+                    continue;
+                }
+                long bucket = bucketOf(step, cursor);
+                Instant bucketEnd = startOf(step, bucket + 1);
+                if (startOf(step, bucket).equals(cursor) && !bucketEnd.isAfter(end)
+                        && ring.retains(bucket, bucketOf(step, now))) {
+                    ring.sum(bucket, sums);
+                    next = bucketEnd;
+                    break;
+                }
+            }
+            if (next == null) {
+                // Nothing kept that starts exactly here (a day starting mid-hour in some zones)
+                Granularity finest = series.minutes != null ? Granularity.MINUTE : Granularity.HOUR;
+                next = startOf(finest, bucketOf(finest, cursor) + 1);
+            }
+            cursor = next;
+        }
+        return toDto(start.isBefore(end) ? start : end, end, sums);
+    }
+
+    private static OrderRollupDto toDto(Instant from, Instant to, long[] sums) {
+        Map<OrderStatus, Long> orders = new EnumMap<>(OrderStatus.class);
+        Map<OrderStatus, Double> revenue = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : STATUSES) {
+            orders.put(status, sums[status.ordinal() * 2]);
+            revenue.put(status, sums[status.ordinal() * 2 + 1] / 100.0);
+        }
+        return new OrderRollupDto(from, to, orders.get(OrderStatus.PLACED), revenue.get(OrderStatus.PLACED),
+                orders, revenue);
+    }
+
+    private long bucketOf(Granularity step, Instant at) {
+        return switch (step) {
+            case MINUTE -> Math.floorDiv(at.getEpochSecond(), 60);
+            case HOUR -> Math.floorDiv(at.getEpochSecond(), 3600);
+            case DAY -> LocalDate.ofInstant(at, zone).toEpochDay();
+        };
+    }
+
+    private Instant startOf(Granularity step, long bucket) {
+        return switch (step) {
+            case MINUTE -> Instant.ofEpochSecond(bucket * 60);
+            case HOUR -> Instant.ofEpochSecond(bucket * 3600);
+            case DAY -> LocalDate.ofEpochDay(bucket).atStartOfDay(zone).toInstant();
+        };
+    }
+
+    /**
+     * The rings of one restaurant, or of all of them.
+     */
+    private final class Series {
+        // Only kept for all restaurants together
+        private final Ring minutes;
+        private final Ring hours;
+        private final Ring days;
+
+        private Series(boolean withMinutes) {
+            this.minutes = withMinutes ? new Ring(minuteBuckets) : null;
+            this.hours = new Ring(hourBuckets);
+            this.days = new Ring(dayBuckets);
+        }
+
+        private void add(Instant at, int status, long orders, long cents) {
+            if (minutes != null) {
+                minutes.add(bucketOf(Granularity.MINUTE, at), status, orders, cents);
+            }
+            addHourAndDay(at, status, orders, cents);
+        }
+
+        private void addHourAndDay(Instant at, int status, long orders, long cents) {
+            hours.add(bucketOf(Granularity.HOUR, at), status, orders, cents);
+            days.add(bucketOf(Granularity.DAY, at), status, orders, cents);
+        }
+
+        private Ring ring(Granularity step) {
+            return switch (step) {
+                case MINUTE -> minutes;
+                case HOUR -> hours;
+                case DAY -> days;
+            };
+        }
+
+        private Granularity finestAt(Instant at, Instant now) {
+            if (minutes != null && minutes.retains(bucketOf(Granularity.MINUTE, at), bucketOf(Granularity.MINUTE, now))) {
+                return Granularity.MINUTE;
+            }
+            if (hours.retains(bucketOf(Granularity.HOUR, at), bucketOf(Granularity.HOUR, now))) {
+                return Granularity.HOUR;
+            }
+            return Granularity.DAY;
+        }
+    }
+
+    /**
+     * A ring of consecutive buckets. Page {@code i} holds the buckets {@code pageStart[i]} to
+     * {@code pageStart[i] + PAGE - 1}; writing a newer bucket that maps to the same page clears it.
+     */
+    private static final class Ring {
+        private final long[][] pages;
+        private final long[] pageStart;
+
+        private Ring(int buckets) {
+            // One page more than needed, so the oldest retained bucket never shares a page with the newest
+            int count = (Math.max(buckets, 1) + PAGE - 1) / PAGE + 1;
+            this.pages = new long[count][];
+            this.pageStart = new long[count];
+            Arrays.fill(pageStart, Long.MIN_VALUE);
+        }
+
+        private void add(long bucket, int status, long orders, long cents) {
+            long start = bucket - Math.floorMod(bucket, PAGE);
+            int slot = slot(bucket);
+            if (pageStart[slot] != start) {
+                if (pageStart[slot] > start) {
+                    // Older than anything this ring still holds
+                    return;
+                }
+                if (pages[slot] == null) {
+                    pages[slot] = new long[PAGE * FIELDS];
+                } else {
+                    Arrays.fill(pages[slot], 0);
+                }
+                pageStart[slot] = start;
+            }
+            int offset = (int) (bucket - start) * FIELDS + status * 2;
+            pages[slot][offset] += orders;
+            pages[slot][offset + 1] += cents;
+        }
+
+        private void sum(long bucket, long[] into) {
+            long start = bucket - Math.floorMod(bucket, PAGE);
+            int slot = slot(bucket);
+            if (pageStart[slot] != start) {
+                return;
+            }
+            int offset = (int) (bucket - start) * FIELDS;
+            for (int i = 0; i < FIELDS; i++) {
+                into[i] += pages[slot][offset + i];
+            }
+        }
+
+        private boolean retains(long bucket, long newest) {
+            return bucket >= oldestRetained(newest);
+        }
+
+        private long oldestRetained(long newest) {
+            return newest - (long) (pages.length - 1) * PAGE + 1;
+        }
+
+        private int slot(long bucket) {
+            return (int) Math.floorMod(Math.floorDiv(bucket, PAGE), (long) pages.length);
+        }
+    }
+}
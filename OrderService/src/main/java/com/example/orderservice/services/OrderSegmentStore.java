@@ -0,0 +1,396 @@
+package com.example.orderservice.services;
+
+import com.example.common.segments.Encoding;
+import com.example.common.segments.SegmentReader;
+import com.example.common.segments.SegmentWriter;
+import com.example.orderservice.dtos.ArchiveAggregateDto;
+import com.example.orderservice.dtos.SegmentInfoDto;
+import com.example.orderservice.entities.ArchivedOrder;
+import com.example.orderservice.entities.ArchivedOrderItem;
+import com.example.orderservice.entities.Order;
+import com.example.orderservice.entities.OrderItem;
+import com.example.orderservice.entities.OrderStatus;
+import com.example.orderservice.repositories.ArchivedOrderRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Cold storage for orders that have sat in {@code orders_archive} for long enough: they are
+ * written to compressed, columnar segment files under {@code orders.segments.dir} and removed
+ * from the database.
+ *
+ * One row per order, in order id order; the line items of a row group follow as their own
+ * columns, with a per-order item count tying them together. Ids, statuses and restaurants are
+ * dictionary- or delta-encoded and dates delta-encoded, so a segment typically takes a small
+ * fraction of the space the same rows use in Postgres. The footer's per-block min/max lets
+ * by-id lookups and range aggregates skip every row group that cannot match.
+ */
+@Component
+public class OrderSegmentStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderSegmentStore.class);
+
+    private static final int SCHEMA = 1;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    // Columns, in file order
+    private static final int ORDER_ID = 0;
+    private static final int USER_ID = 1;
+    private static final int RESTAURANT_ID = 2;
+    private static final int STATUS = 3;
+    private static final int ORDER_DATE = 4;
+    private static final int TOTAL_CENTS = 5;
+    private static final int ADDRESS = 6;
+    private static final int LATITUDE = 7;
+    private static final int LONGITUDE = 8;
+    private static final int ITEM_COUNT = 9;
+    private static final int ITEM_ID = 10;
+    private static final int ITEM_MENU_ITEM_ID = 11;
+    private static final int ITEM_QUANTITY = 12;
+    private static final int ITEM_PRICE_CENTS = 13;
+    private static final List<Encoding> COLUMNS = List.of(
+            Encoding.DELTA, Encoding.DICTIONARY, Encoding.DICTIONARY, Encoding.DICTIONARY, Encoding.DELTA,
+            Encoding.VARINT, Encoding.STRING_DICTIONARY, Encoding.DOUBLE, Encoding.DOUBLE, Encoding.VARINT,
+            Encoding.DELTA, Encoding.DICTIONARY, Encoding.VARINT, Encoding.VARINT);
+
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Path directory;
+    private final Duration exportAfter;
+    private final int rowsPerSegment;
+    private final int rowsPerGroup;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean exporting = new AtomicBoolean();
+
+    public OrderSegmentStore(ArchivedOrderRepository archivedOrderRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${orders.segments.dir:data/order-segments}") String directory,
+                             @Value("${orders.segments.after:365d}") Duration exportAfter,
+                             @Value("${orders.segments.rows-per-segment:100000}") int rowsPerSegment,
+                             @Value("${orders.segments.rows-per-group:4096}") int rowsPerGroup) {
+        this.archivedOrderRepository = archivedOrderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.directory = Path.of(directory);
+        this.exportAfter = exportAfter;
+        this.rowsPerSegment = rowsPerSegment;
+        this.rowsPerGroup = rowsPerGroup;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.sorted().toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".seg.tmp")) {
+                    // An export that died before finishing; its rows are still in the database
+                    Files.delete(file);
+                } else if (name.endsWith(".seg")) {
+                    segments.add(new Segment(new SegmentReader(file, SCHEMA)));
+                }
+            }
+        }
+        logger.info("Opened {} order segments holding {} orders", segments.size(), count());
+    }
+
+    public Optional<Order> findOrder(long orderId) {
+        for (Segment segment : segments) {
+            SegmentReader reader = segment.reader;
+            for (int group = 0; group < reader.rowGroupCount(); group++) {
+                if (reader.overlaps(group, ORDER_ID, orderId, orderId)) {
+                    int row = Arrays.binarySearch(reader.longs(group, ORDER_ID), orderId);
+                    if (row >= 0) {
+                        return Optional.of(readOrder(reader, group, row));
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    public boolean contains(long orderId) {
+        for (Segment segment : segments) {
+            SegmentReader reader = segment.reader;
+            for (int group = 0; group < reader.rowGroupCount(); group++) {
+                if (reader.overlaps(group, ORDER_ID, orderId, orderId)
+                        && Arrays.binarySearch(reader.longs(group, ORDER_ID), orderId) >= 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    public long count() {
+        return segments.stream().mapToLong(segment -> segment.reader.totalRows()).sum();
+    }
+
+    public long countByStatus(OrderStatus status) {
+        return segments.stream().mapToLong(segment -> segment.ordersByStatus[status.ordinal()]).sum();
+    }
+
+    /**
+     * Orders placed in {@code [from, to)} and how they ended.
+     *
+     * @param from         null for no lower bound
+     * @param to           null for no upper bound
+     * @param restaurantId only this restaurant, or null for all of them
+     */
+    public ArchiveAggregateDto aggregate(LocalDateTime from, LocalDateTime to, Long restaurantId) {
+        long fromMicros = from != null ? micros(from) : Long.MIN_VALUE + 1;
+        long toMicros = to != null ? micros(to) - 1 : Long.MAX_VALUE;
+        long orders = 0;
+        long cents = 0;
+        long[] byStatus = new long[OrderStatus.values().length];
+
+        for (Segment segment : segments) {
+            SegmentReader reader = segment.reader;
+            for (int group = 0; group < reader.rowGroupCount(); group++) {
+                if (!reader.overlaps(group, ORDER_DATE, fromMicros, toMicros)
+                        || (restaurantId != null && !reader.overlaps(group, RESTAURANT_ID, restaurantId, restaurantId))) {
+                    continue;
+                }
+                long[] dates = reader.longs(group, ORDER_DATE);
+                long[] statuses = reader.longs(group, STATUS);
+                long[] totals = reader.longs(group, TOTAL_CENTS);
+                long[] restaurants = restaurantId != null ? reader.longs(group, RESTAURANT_ID) : null;
+                for (int row = 0; row < dates.length; row++) {
+                    if (dates[row] < fromMicros || dates[row] > toMicros
+                            || (restaurants != null && restaurants[row] != restaurantId)) {
+                        continue;
+                    }
+                    orders++;
+                    cents += totals[row];
+                    byStatus[OrderStatus.fromCode((short) statuses[row]).ordinal()]++;
+                }
+            }
+        }
+
+        Map<OrderStatus, Long> ordersByStatus = new EnumMap<>(OrderStatus.class);
+        for (OrderStatus status : OrderStatus.values()) {
+            ordersByStatus.put(status, byStatus[status.ordinal()]);
+        }
+        return new ArchiveAggregateDto(from, to, restaurantId, orders, cents / 100.0, ordersByStatus);
+    }
+
+    public List<SegmentInfoDto> segments() {
+        return segments.stream()
+                .map(segment -> new SegmentInfoDto(segment.reader.path().getFileName().toString(),
+                        segment.reader.totalRows(), segment.reader.rowGroupCount(), segment.reader.sizeInBytes()))
+                .toList();
+    }
+
+    @Scheduled(initialDelayString = "${orders.segments.export-interval:PT6H}",
+            fixedDelayString = "${orders.segments.export-interval:PT6H}")
+    public void scheduledExport() {
+        try {
+            export();
+        } catch (IOException e) {
+            logger.warn("Order segment export failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Moves archived orders placed more than {@code orders.segments.after} ago into new
+     * segments, at most {@code rows-per-segment} orders per file.
+     *
+     * @return number of orders exported, or -1 if another export is in progress
+     */
+    public int export() throws IOException {
+        if (!exporting.compareAndSet(false, true)) {
+            return -1;
+        }
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minus(exportAfter);
+            int exported = 0;
+            long afterId = 0;
+            List<Long> orderIds;
+            do {
+                orderIds = archivedOrderRepository.findIdsPlacedBefore(afterId, cutoff, PageRequest.ofSize(rowsPerSegment));
+                if (orderIds.isEmpty()) {
+                    break;
+                }
+                afterId = orderIds.get(orderIds.size() - 1);
+                // Orders already in a segment were left behind by an export that stopped before deleting them
+                List<Long> pending = orderIds.stream().filter(id -> !contains(id)).toList();
+                if (!pending.isEmpty()) {
+                    writeSegment(pending);
+                    exported += pending.size();
+                }
+                deleteFromArchive(orderIds);
+            } while (orderIds.size() == rowsPerSegment);
+
+            if (exported > 0) {
+                logger.info("Exported {} archived orders to segments", exported);
+            }
+            return exported;
+        } finally {
+            exporting.set(false);
+        }
+    }
+
+    private void writeSegment(List<Long> orderIds) throws IOException {
+        Path file = directory.resolve(String.format("orders-%012d-%012d-%d.seg",
+                orderIds.get(0), orderIds.get(orderIds.size() - 1), System.currentTimeMillis()));
+        try (SegmentWriter writer = new SegmentWriter(file, SCHEMA, COLUMNS)) {
+            for (int from = 0; from < orderIds.size(); from += rowsPerGroup) {
+                List<Long> groupIds = orderIds.subList(from, Math.min(from + rowsPerGroup, orderIds.size()));
+                writeGroup(writer, archivedOrderRepository.findWithItemsByIdIn(groupIds));
+            }
+            writer.finish();
+        }
+        segments.add(new Segment(new SegmentReader(file, SCHEMA)));
+    }
+
+    private void writeGroup(SegmentWriter writer, List<ArchivedOrder> orders) throws IOException {
+        int rows = orders.size();
+        long[] orderIds = new long[rows];
+        long[] userIds = new long[rows];
+        long[] restaurantIds = new long[rows];
+        long[] statuses = new long[rows];
+        long[] dates = new long[rows];
+        long[] totals = new long[rows];
+        String[] addresses = new String[rows];
+        double[] latitudes = new double[rows];
+        double[] longitudes = new double[rows];
+        long[] itemCounts = new long[rows];
+        List<ArchivedOrderItem> items = new ArrayList<>();
+
+        for (int row = 0; row < rows; row++) {
+            ArchivedOrder order = orders.get(row);
+            orderIds[row] = order.getOrderId();
+            userIds[row] = orNull(order.getUserId());
+            restaurantIds[row] = orNull(order.getRestaurantId());
+            statuses[row] = order.getStatus() != null ? order.getStatus().code() : Encoding.NULL;
+            dates[row] = order.getOrderDate() != null ? micros(order.getOrderDate()) : Encoding.NULL;
+            totals[row] = Math.round(order.getTotalAmount() * 100);
+            addresses[row] = order.getDeliveryAddress();
+            latitudes[row] = order.getDeliveryLatitude() != null ? order.getDeliveryLatitude() : Double.NaN;
+            longitudes[row] = order.getDeliveryLongitude() != null ? order.getDeliveryLongitude() : Double.NaN;
+            List<ArchivedOrderItem> orderItems = order.getItems().stream()
+                    .sorted(Comparator.comparing(ArchivedOrderItem::getOrderItemId))
+                    .toList();
+            itemCounts[row] = orderItems.size();
+            items.addAll(orderItems);
+        }
+
+        long[] itemIds = new long[items.size()];
+        long[] menuItemIds = new long[items.size()];
+        long[] quantities = new long[items.size()];
+        long[] prices = new long[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            ArchivedOrderItem item = items.get(i);
+            itemIds[i] = item.getOrderItemId();
+            menuItemIds[i] = orNull(item.getMenuItemId());
+            quantities[i] = item.getQuantity();
+            prices[i] = Math.round(item.getPrice() * 100);
+        }
+
+        writer.writeRowGroup(rows, orderIds, userIds, restaurantIds, statuses, dates, totals, addresses,
+                latitudes, longitudes, itemCounts, itemIds, menuItemIds, quantities, prices);
+    }
+
+    private void deleteFromArchive(List<Long> orderIds) {
+        for (int from = 0; from < orderIds.size(); from += rowsPerGroup) {
+            List<Long> chunk = orderIds.subList(from, Math.min(from + rowsPerGroup, orderIds.size()));
+            transactionTemplate.executeWithoutResult(status -> {
+                archivedOrderRepository.deleteArchivedItems(chunk);
+                archivedOrderRepository.deleteArchivedOrders(chunk);
+            });
+        }
+    }
+
+    private static Order readOrder(SegmentReader reader, int group, int row) {
+        Order order = new Order();
+        order.setOrderId(reader.longs(group, ORDER_ID)[row]);
+        order.setUserId(toLong(reader.longs(group, USER_ID)[row]));
+        order.setRestaurantId(toLong(reader.longs(group, RESTAURANT_ID)[row]));
+        long status = reader.longs(group, STATUS)[row];
+        order.setStatus(status != Encoding.NULL ? OrderStatus.fromCode((short) status) : null);
+        long date = reader.longs(group, ORDER_DATE)[row];
+        order.setOrderDate(date != Encoding.NULL ? EPOCH.plus(date, ChronoUnit.MICROS) : null);
+        order.setTotalAmount(reader.longs(group, TOTAL_CENTS)[row] / 100.0);
+        order.setDeliveryAddress(reader.strings(group, ADDRESS)[row]);
+        order.setDeliveryLatitude(toDouble(reader.doubles(group, LATITUDE)[row]));
+        order.setDeliveryLongitude(toDouble(reader.doubles(group, LONGITUDE)[row]));
+
+        long[] itemCounts = reader.longs(group, ITEM_COUNT);
+        int first = 0;
+        for (int i = 0; i < row; i++) {
+            first += (int) itemCounts[i];
+        }
+        long[] itemIds = reader.longs(group, ITEM_ID);
+        long[] menuItemIds = reader.longs(group, ITEM_MENU_ITEM_ID);
+        long[] quantities = reader.longs(group, ITEM_QUANTITY);
+        long[] prices = reader.longs(group, ITEM_PRICE_CENTS);
+        List<OrderItem> items = new ArrayList<>();
+        for (int i = first; i < first + itemCounts[row]; i++) {
+            OrderItem item = new OrderItem();
+            item.setOrderItemId(itemIds[i]);
+            item.setMenuItemId(toLong(menuItemIds[i]));
+            item.setQuantity((int) quantities[i]);
+            item.setPrice(prices[i] / 100.0);
+            item.setOrder(order);
+            items.add(item);
+        }
+        order.setItems(items);
+        return order;
+    }
+
+    private static long micros(LocalDateTime dateTime) {
+        return ChronoUnit.MICROS.between(EPOCH, dateTime);
+    }
+
+    private static long orNull(Long value) {
+        return value != null ? value : Encoding.NULL;
+    }
+
+    private static Long toLong(long value) {
+        return value != Encoding.NULL ? value : null;
+    }
+
+    private static Double toDouble(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+
+    private static final class Segment {
+        private final SegmentReader reader;
+        // Fixed once written, so counted once when opened
+        private final long[] ordersByStatus = new long[OrderStatus.values().length];
+
+        private Segment(SegmentReader reader) {
+            this.reader = reader;
+            for (int group = 0; group < reader.rowGroupCount(); group++) {
+                for (long status : reader.longs(group, STATUS)) {
+                    if (status != Encoding.NULL) {
+                        ordersByStatus[OrderStatus.fromCode((short) status).ordinal()]++;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -1,20 +1,34 @@
 package com.example.orderservice.services;
 
-import com.example.orderservice.dtos.DeliveryRequestDto;
+import com.example.common.events.DomainEvent;
+import com.example.common.services.EventOutbox;
 import com.example.orderservice.dtos.OrderItemDto;
 import com.example.orderservice.dtos.OrderRequestDto;
+import com.example.orderservice.dtos.OrderRollupDto;
 import com.example.orderservice.dtos.OrderStatsDto;
+import com.example.orderservice.dtos.OrderStatusResultDto;
+import com.example.orderservice.dtos.OrderStatusUpdateDto;
+import com.example.orderservice.entities.ArchivedOrder;
 import com.example.orderservice.entities.Order;
 import com.example.orderservice.entities.OrderItem;
 import com.example.orderservice.entities.OrderStatus;
+import com.example.orderservice.events.OrderPlaced;
+import com.example.orderservice.repositories.ArchivedOrderRepository;
 import com.example.orderservice.repositories.OrderRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 @Service
@@ -22,7 +36,11 @@ import java.util.Objects;
 public class OrderService {
 
     private final OrderRepository orderRepository;
-    private final WebClient webClient;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final OrderSegmentStore orderSegmentStore;
+    private final OrderEventLog orderEventLog;
+    private final OrderRollups orderRollups;
+    private final EventOutbox eventOutbox;
 
     @Transactional
     public Order createOrder(OrderRequestDto orderRequest) {
@@ -50,6 +68,8 @@ public class OrderService {
         } else {
             order.setDeliveryAddress("Customer Address Placeholder");
         }
+        order.setDeliveryLatitude(orderRequest.getDeliveryLatitude());
+        order.setDeliveryLongitude(orderRequest.getDeliveryLongitude());
 
         List<OrderItem> orderItems = new ArrayList<>();
         double totalAmount = 0.0;
@@ -78,122 +98,182 @@ public class OrderService {
         order.setTotalAmount(totalAmount);
 
         Order savedOrder = orderRepository.save(order);
+        orderEventLog.append(savedOrder);
 
-        // Create a delivery request
-        DeliveryRequestDto deliveryRequestDto = new DeliveryRequestDto();
-        deliveryRequestDto.setOrderId(savedOrder.getOrderId());
-        // In a real system, you would fetch customer address and restaurant name from other services
-        deliveryRequestDto.setCustomerAddress(savedOrder.getDeliveryAddress());
-        deliveryRequestDto.setRestaurantName("Restaurant Name Placeholder");
-        
-        System.out.println("=== ORDER SERVICE: Creating delivery for order " + savedOrder.getOrderId() + " ===");
-        System.out.println("Customer Address being sent: " + deliveryRequestDto.getCustomerAddress());
-
-        try {
-            webClient.post()
-                    .uri("/api/deliveries")
-                    .bodyValue(deliveryRequestDto)
-                    .retrieve()
-                    .bodyToMono(Void.class)
-                    .subscribe(
-                        response -> System.out.println("Delivery request sent successfully for order: " + savedOrder.getOrderId()),
-                        error -> {
-                            System.err.println("Failed to send delivery request for order: " + savedOrder.getOrderId() + " Error: " + error.getMessage());
-                            error.printStackTrace();
-                        }
-                    );
-        } catch (Exception error) {
-            System.err.println("Failed to initiate delivery request for order: " + savedOrder.getOrderId() + " Error: " + error.getMessage());
-            error.printStackTrace();
-        }
+        // The delivery service creates the delivery when it sees this, once the order has committed
+        eventOutbox.append(DomainEvent.ORDER_PLACED, savedOrder.getOrderId(), new OrderPlaced(savedOrder.getOrderId(),
+                savedOrder.getUserId(), savedOrder.getRestaurantId(), savedOrder.getTotalAmount(),
+                savedOrder.getDeliveryAddress(), savedOrder.getDeliveryLatitude(), savedOrder.getDeliveryLongitude()));
 
         return savedOrder;
     }
 
     public Order getOrderById(Long orderId) {
         return orderRepository.findById(orderId)
+                .or(() -> archivedOrderRepository.findWithItemsById(orderId).map(ArchivedOrder::toOrder))
+                .or(() -> orderSegmentStore.findOrder(orderId))
                 .orElseThrow(() -> new RuntimeException("Order not found"));
     }
 
     @Transactional
     public Order updateOrderStatus(Long orderId, String status) {
-        Order order = getOrderById(orderId);
-        order.setStatus(OrderStatus.valueOf(status));
-        return orderRepository.save(order);
+        Order order = orderRepository.findById(orderId).orElseThrow(() -> {
+            if (archivedOrderRepository.existsById(orderId) || orderSegmentStore.contains(orderId)) {
+                return new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Order " + orderId + " is archived and can no longer change");
+            }
+            return new RuntimeException("Order not found");
+        });
+        OrderStatus newStatus = OrderStatus.valueOf(status);
+        if (newStatus == order.getStatus()) {
+            return order;
+        }
+        order.setStatus(newStatus);
+        Order savedOrder = orderRepository.save(order);
+        orderEventLog.append(savedOrder);
+        return savedOrder;
+    }
+
+    /**
+     * Applies many status changes in one transaction: the orders are locked with one select,
+     * then changed with one conditional UPDATE per target status rather than a load and save
+     * each. An event is appended for every order that actually changed. When an order is
+     * listed more than once the last status wins. One result per order, in request order.
+     */
+    @Transactional
+    public List<OrderStatusResultDto> updateOrderStatuses(List<OrderStatusUpdateDto> updates) {
+        Map<Long, OrderStatusResultDto.Result> results = new LinkedHashMap<>();
+        Map<Long, OrderStatus> requested = new LinkedHashMap<>();
+        for (OrderStatusUpdateDto update : updates) {
+            if (update.getOrderId() == null) {
+                continue;
+            }
+            OrderStatus status = parseStatus(update.getStatus());
+            results.put(update.getOrderId(), status == null ? OrderStatusResultDto.Result.INVALID_STATUS : null);
+            if (status == null) {
+                requested.remove(update.getOrderId());
+            } else {
+                requested.put(update.getOrderId(), status);
+            }
+        }
+
+        Map<OrderStatus, List<Long>> byStatus = new EnumMap<>(OrderStatus.class);
+        Map<Long, Object[]> current = new HashMap<>();
+        if (!requested.isEmpty()) {
+            for (Object[] row : orderRepository.lockStatusesByIdIn(requested.keySet())) {
+                current.put(((Number) row[0]).longValue(), row);
+            }
+        }
+        for (Map.Entry<Long, OrderStatus> entry : requested.entrySet()) {
+            Long orderId = entry.getKey();
+            Object[] row = current.get(orderId);
+            if (row == null) {
+                boolean archived = archivedOrderRepository.existsById(orderId) || orderSegmentStore.contains(orderId);
+                results.put(orderId, archived ? OrderStatusResultDto.Result.ARCHIVED : OrderStatusResultDto.Result.NOT_FOUND);
+            } else if (entry.getValue().name().equals(row[3])) {
+                results.put(orderId, OrderStatusResultDto.Result.UNCHANGED);
+            } else {
+                results.put(orderId, OrderStatusResultDto.Result.UPDATED);
+                byStatus.computeIfAbsent(entry.getValue(), status -> new ArrayList<>()).add(orderId);
+            }
+        }
+
+        for (Map.Entry<OrderStatus, List<Long>> entry : byStatus.entrySet()) {
+            orderRepository.updateStatusWhereDifferent(entry.getValue(), entry.getKey());
+            for (Long orderId : entry.getValue()) {
+                Object[] row = current.get(orderId);
+                Long restaurantId = row[1] == null ? null : ((Number) row[1]).longValue();
+                double totalAmount = row[2] == null ? 0 : ((Number) row[2]).doubleValue();
+                orderEventLog.append(orderId, restaurantId, entry.getKey(), totalAmount);
+            }
+        }
+
+        List<OrderStatusResultDto> response = new ArrayList<>(results.size());
+        results.forEach((orderId, result) -> response.add(new OrderStatusResultDto(orderId, result)));
+        return response;
+    }
+
+    private static OrderStatus parseStatus(String status) {
+        if (status == null) {
+            return null;
+        }
+        try {
+            return OrderStatus.valueOf(status.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
     }
 
-    // Return all orders (useful for quick testing / admin views)
+    // Return all orders (useful for quick testing / admin views); archived orders are left out
     public List<Order> getAllOrders() {
         return orderRepository.findAll();
     }
 
-    public List<Order> getOrdersByCustomer(Long customerId) {
+    public List<Order> getArchivedOrdersByCustomer(Long customerId) {
         if (customerId == null) return List.of();
-        return orderRepository.findByUserId(customerId);
+        return archivedOrderRepository.findWithItemsByUserId(customerId).stream().map(ArchivedOrder::toOrder).toList();
     }
 
+    // Recent and in-progress orders only; see getArchivedOrdersByRestaurant for older ones
     public List<Order> getOrdersByRestaurant(Long restaurantId) {
         if (restaurantId == null) return List.of();
         return orderRepository.findByRestaurantId(restaurantId);
     }
 
+    public List<Order> getArchivedOrdersByRestaurant(Long restaurantId) {
+        if (restaurantId == null) return List.of();
+        return archivedOrderRepository.findWithItemsByRestaurantId(restaurantId).stream().map(ArchivedOrder::toOrder).toList();
+    }
+
     public OrderStatsDto getOrderStats() {
-        List<Order> allOrders = orderRepository.findAll();
-        long totalOrders = allOrders.size();
-        long deliveredOrders = allOrders.stream()
-                .filter(order -> OrderStatus.DELIVERED.equals(order.getStatus()))
-                .count();
-        long pendingOrders = allOrders.stream()
-                .filter(order -> {
-                    OrderStatus status = order.getStatus();
-                    return status != null
-                            && status != OrderStatus.DELIVERED
-                            && status != OrderStatus.CANCELLED;
-                })
-                .count();
+        long totalOrders = countAll();
+        long deliveredOrders = countByStatus(OrderStatus.DELIVERED);
+        // Anything not delivered or cancelled; only COMPLETED ones can also be archived
+        long pendingOrders = orderRepository.countByStatusIn(EnumSet.complementOf(
+                EnumSet.of(OrderStatus.DELIVERED, OrderStatus.CANCELLED)))
+                + archivedOrderRepository.countByStatus(OrderStatus.COMPLETED)
+                + orderSegmentStore.countByStatus(OrderStatus.COMPLETED);
 
         return new OrderStatsDto(totalOrders, pendingOrders, deliveredOrders);
     }
 
+    private long countAll() {
+        return orderRepository.count() + archivedOrderRepository.count() + orderSegmentStore.count();
+    }
+
+    // Counts in the hot and archive tables and the segments, for finished statuses
+    private long countByStatus(OrderStatus status) {
+        return orderRepository.countByStatus(status) + archivedOrderRepository.countByStatus(status)
+                + orderSegmentStore.countByStatus(status);
+    }
+
     public com.example.orderservice.dtos.AdminStatsDto getAdminStats() {
-        List<Order> allOrders = orderRepository.findAll();
-        
         com.example.orderservice.dtos.AdminStatsDto stats = new com.example.orderservice.dtos.AdminStatsDto();
         
         // Total orders
-        stats.setTotalOrders(allOrders.size());
+        stats.setTotalOrders(countAll());
         
-        // Orders by status
-        stats.setOrdersPreparing(allOrders.stream()
-                .filter(o -> OrderStatus.PREPARING.equals(o.getStatus()))
-                .count());
+        // Orders by status; in-progress ones are never archived
+        stats.setOrdersPreparing(orderRepository.countByStatus(OrderStatus.PREPARING));
         
-        stats.setOrdersOutForDelivery(allOrders.stream()
-                .filter(o -> OrderStatus.DELIVERING.equals(o.getStatus()) || 
-                            OrderStatus.READY_FOR_PICKUP.equals(o.getStatus()))
-                .count());
+        stats.setOrdersOutForDelivery(orderRepository.countByStatusIn(
+                EnumSet.of(OrderStatus.DELIVERING, OrderStatus.READY_FOR_PICKUP)));
         
-        stats.setOrdersDelivered(allOrders.stream()
-                .filter(o -> OrderStatus.DELIVERED.equals(o.getStatus()))
-                .count());
+        stats.setOrdersDelivered(countByStatus(OrderStatus.DELIVERED));
         
-        stats.setOrdersCompleted(allOrders.stream()
-                .filter(o -> OrderStatus.COMPLETED.equals(o.getStatus()))
-                .count());
+        stats.setOrdersCompleted(countByStatus(OrderStatus.COMPLETED));
         
-        stats.setOrdersCancelled(allOrders.stream()
-                .filter(o -> OrderStatus.CANCELLED.equals(o.getStatus()))
-                .count());
+        stats.setOrdersCancelled(countByStatus(OrderStatus.CANCELLED));
         
-        // Today's orders (simple version - counts all orders for now)
-        stats.setTodayOrders(allOrders.size());
-        stats.setTodayRevenue(allOrders.stream()
-                .mapToDouble(Order::getTotalAmount)
-                .sum());
-        
-        // Week's orders
-        stats.setWeekOrders(allOrders.size());
-        stats.setWeekRevenue(stats.getTodayRevenue());
+        // Today's and the last seven days' orders, from the rollups
+        Instant now = Instant.now();
+        OrderRollupDto today = orderRollups.total(orderRollups.startOfDay(0), now, null);
+        stats.setTodayOrders(today.getOrders());
+        stats.setTodayRevenue(today.getRevenue());
+
+        OrderRollupDto week = orderRollups.total(orderRollups.startOfDay(6), now, null);
+        stats.setWeekOrders(week.getOrders());
+        stats.setWeekRevenue(week.getRevenue());
         
         // Note: Customer, Driver, Restaurant counts need to be fetched from other services
         // For now, set to 0 - frontend can call those services separately
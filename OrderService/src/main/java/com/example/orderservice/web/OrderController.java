@@ -1,16 +1,32 @@
 package com.example.orderservice.web;
 
+import com.example.orderservice.dtos.ArchiveAggregateDto;
+import com.example.orderservice.dtos.CustomerOrderCacheStatsDto;
+import com.example.orderservice.dtos.KitchenBoardDto;
 import com.example.orderservice.dtos.OrderDto;
-import com.example.orderservice.dtos.OrderItemDto;
 import com.example.orderservice.dtos.OrderRequestDto;
 import com.example.orderservice.dtos.OrderStatsDto;
+import com.example.orderservice.dtos.OrderStatusResultDto;
+import com.example.orderservice.dtos.OrderStatusUpdateDto;
+import com.example.orderservice.dtos.SegmentInfoDto;
 import com.example.orderservice.entities.Order;
+import com.example.orderservice.services.CustomerOrderCache;
+import com.example.orderservice.services.IdempotencyService;
+import com.example.orderservice.services.KitchenBoard;
+import com.example.orderservice.services.OrderArchiver;
+import com.example.orderservice.services.OrderSegmentStore;
 import com.example.orderservice.services.OrderService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.stream.Collectors;
 
 //@CrossOrigin(origins = "*")
@@ -19,12 +35,39 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class OrderController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final int MAX_IDEMPOTENCY_KEY_LENGTH = 255;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int MAX_BULK_STATUS_UPDATES = 1000;
+
     private final OrderService orderService;
+    private final IdempotencyService idempotencyService;
+    private final KitchenBoard kitchenBoard;
+    private final OrderArchiver orderArchiver;
+    private final OrderSegmentStore orderSegmentStore;
+    private final CustomerOrderCache customerOrderCache;
 
+    // POST /api/orders - an optional Idempotency-Key header makes retries return the original order
     @PostMapping
-    public ResponseEntity<OrderDto> createOrder(@RequestBody OrderRequestDto orderRequest) {
-        Order createdOrder = orderService.createOrder(orderRequest);
-        return new ResponseEntity<>(toDto(createdOrder), HttpStatus.CREATED);
+    public ResponseEntity<OrderDto> createOrder(
+            @RequestBody OrderRequestDto orderRequest,
+            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String idempotencyKey) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            Order createdOrder = orderService.createOrder(orderRequest);
+            return new ResponseEntity<>(toDto(createdOrder), HttpStatus.CREATED);
+        }
+        if (idempotencyKey.length() > MAX_IDEMPOTENCY_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    IDEMPOTENCY_KEY + " must be at most " + MAX_IDEMPOTENCY_KEY_LENGTH + " characters");
+        }
+
+        // Keys are only unique per customer
+        String scopedKey = orderRequest.getCustomerId() + ":" + idempotencyKey.trim();
+        IdempotencyService.Result<OrderDto> result = idempotencyService.execute(scopedKey, orderRequest,
+                OrderDto.class, () -> toDto(orderService.createOrder(orderRequest)));
+        return ResponseEntity.status(HttpStatus.CREATED)
+                .header("Idempotent-Replayed", Boolean.toString(result.replayed()))
+                .body(result.value());
     }
 
     // GET /api/orders - return all orders (handy for quick checks in browser)
@@ -33,31 +76,52 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getAllOrders().stream().map(this::toDto).collect(Collectors.toList()));
     }
 
-    // GET /api/orders/customer/{customerId} - orders for a specific customer
+    // GET /api/orders/customer/{customerId}?before=&limit=20 - a customer's orders, newest first; pass the last id
+    // seen as before= for the next page, or ?archived=true for old finished ones
     @GetMapping("/customer/{customerId}")
-    public ResponseEntity<java.util.List<OrderDto>> getOrdersByCustomer(@PathVariable String customerId) {
+    public ResponseEntity<java.util.List<OrderDto>> getOrdersByCustomer(@PathVariable String customerId,
+                                                                        @RequestParam(defaultValue = "false") boolean archived,
+                                                                        @RequestParam(required = false) Long before,
+                                                                        @RequestParam(defaultValue = "20") int limit) {
         try {
             Long id = Long.parseLong(customerId);
-            java.util.List<Order> orders = orderService.getOrdersByCustomer(id);
-            return ResponseEntity.ok(orders.stream().map(this::toDto).collect(java.util.stream.Collectors.toList()));
+            if (archived) {
+                return ResponseEntity.ok(orderService.getArchivedOrdersByCustomer(id).stream().map(this::toDto).collect(java.util.stream.Collectors.toList()));
+            }
+            return ResponseEntity.ok(customerOrderCache.page(id, before, Math.max(1, Math.min(limit, MAX_PAGE_SIZE))));
         } catch (NumberFormatException ex) {
             // If client sent non-numeric id, return empty list or 400. We choose empty list for robustness.
             return ResponseEntity.ok(java.util.List.of());
         }
     }
 
-    // GET /api/orders/restaurant/{restaurantId} - orders for a specific restaurant
+    // GET /api/orders/restaurant/{restaurantId} - orders for a specific restaurant; ?archived=true for old finished ones
     @GetMapping("/restaurant/{restaurantId}")
-    public ResponseEntity<java.util.List<OrderDto>> getOrdersByRestaurant(@PathVariable String restaurantId) {
+    public ResponseEntity<java.util.List<OrderDto>> getOrdersByRestaurant(@PathVariable String restaurantId,
+                                                                          @RequestParam(defaultValue = "false") boolean archived) {
         try {
             Long id = Long.parseLong(restaurantId);
-            java.util.List<Order> orders = orderService.getOrdersByRestaurant(id);
+            java.util.List<Order> orders = archived
+                    ? orderService.getArchivedOrdersByRestaurant(id)
+                    : orderService.getOrdersByRestaurant(id);
             return ResponseEntity.ok(orders.stream().map(this::toDto).collect(java.util.stream.Collectors.toList()));
         } catch (NumberFormatException ex) {
             return ResponseEntity.ok(java.util.List.of());
         }
     }
 
+    // GET /api/orders/restaurant/{restaurantId}/active - the kitchen board: orders from PLACED to READY_FOR_PICKUP
+    @GetMapping("/restaurant/{restaurantId}/active")
+    public ResponseEntity<KitchenBoardDto> getActiveOrdersByRestaurant(@PathVariable Long restaurantId) {
+        return ResponseEntity.ok(kitchenBoard.snapshot(restaurantId));
+    }
+
+    // GET /api/orders/restaurant/{restaurantId}/active/stream - the kitchen board as server-sent events
+    @GetMapping(path = "/restaurant/{restaurantId}/active/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamActiveOrdersByRestaurant(@PathVariable Long restaurantId) {
+        return kitchenBoard.subscribe(restaurantId);
+    }
+
     @GetMapping("/{orderId}")
     public ResponseEntity<OrderDto> getOrderById(@PathVariable Long orderId) {
         return ResponseEntity.ok(toDto(orderService.getOrderById(orderId)));
@@ -73,6 +137,47 @@ public class OrderController {
         return ResponseEntity.ok(orderService.getAdminStats());
     }
 
+    // POST /api/orders/admin/archive - move old finished orders to the archive tables now
+    @PostMapping("/admin/archive")
+    public ResponseEntity<java.util.Map<String, Integer>> archiveOrders() {
+        int archived = orderArchiver.run();
+        if (archived < 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "The archiver is already running");
+        }
+        return ResponseEntity.ok(java.util.Map.of("archivedOrders", archived));
+    }
+
+    // GET /api/orders/admin/customer-cache - size and hit rate of the recent-orders cache behind /customer/{id}
+    @GetMapping("/admin/customer-cache")
+    public ResponseEntity<CustomerOrderCacheStatsDto> getCustomerCacheStats() {
+        return ResponseEntity.ok(customerOrderCache.stats());
+    }
+
+    // GET /api/orders/admin/segments - the segment files holding the oldest orders
+    @GetMapping("/admin/segments")
+    public ResponseEntity<java.util.List<SegmentInfoDto>> getSegments() {
+        return ResponseEntity.ok(orderSegmentStore.segments());
+    }
+
+    // GET /api/orders/admin/segments/aggregate?from=&to=&restaurantId= - counts and revenue of segment orders placed in a range
+    @GetMapping("/admin/segments/aggregate")
+    public ResponseEntity<ArchiveAggregateDto> aggregateSegments(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long restaurantId) {
+        return ResponseEntity.ok(orderSegmentStore.aggregate(from, to, restaurantId));
+    }
+
+    // POST /api/orders/admin/segments/export - move old archived orders into segment files now
+    @PostMapping("/admin/segments/export")
+    public ResponseEntity<java.util.Map<String, Integer>> exportSegments() throws IOException {
+        int exported = orderSegmentStore.export();
+        if (exported < 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A segment export is already running");
+        }
+        return ResponseEntity.ok(java.util.Map.of("exportedOrders", exported));
+    }
+
     @PutMapping("/{orderId}/status")
     public ResponseEntity<OrderDto> updateOrderStatus(@PathVariable Long orderId, @RequestBody java.util.Map<String, String> statusUpdate) {
         String status = statusUpdate.get("status");
@@ -80,22 +185,18 @@ public class OrderController {
         return ResponseEntity.ok(toDto(updatedOrder));
     }
 
+    // POST /api/orders/status/bulk - [{orderId, status}, ...] applied in one transaction; answers
+    // [{orderId, result}] with UPDATED, UNCHANGED, NOT_FOUND, ARCHIVED or INVALID_STATUS for each order
+    @PostMapping("/status/bulk")
+    public ResponseEntity<java.util.List<OrderStatusResultDto>> updateOrderStatuses(@RequestBody java.util.List<OrderStatusUpdateDto> updates) {
+        if (updates.size() > MAX_BULK_STATUS_UPDATES) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + MAX_BULK_STATUS_UPDATES + " status updates per request");
+        }
+        return ResponseEntity.ok(orderService.updateOrderStatuses(updates));
+    }
+
     private OrderDto toDto(Order order) {
-        OrderDto dto = new OrderDto();
-        dto.setId(order.getOrderId());
-        dto.setCustomerId(order.getUserId());
-        dto.setRestaurantId(order.getRestaurantId());
-        dto.setTotalAmount(order.getTotalAmount());
-        dto.setDeliveryAddress(order.getDeliveryAddress());
-        dto.setStatus(order.getStatus());
-        dto.setDate(order.getOrderDate());
-        dto.setItems(order.getItems().stream().map(item -> {
-            OrderItemDto itemDto = new OrderItemDto();
-            itemDto.setMenuItemId(item.getMenuItemId());
-            itemDto.setQuantity(item.getQuantity());
-            itemDto.setPrice(item.getPrice());
-            return itemDto;
-        }).collect(java.util.stream.Collectors.toList()));
-        return dto;
+        return OrderDto.from(order);
     }
 }
\ No newline at end of file
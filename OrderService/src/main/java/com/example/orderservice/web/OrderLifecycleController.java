@@ -0,0 +1,96 @@
+package com.example.orderservice.web;
+
+import com.example.orderservice.dtos.OrderEventDto;
+import com.example.orderservice.dtos.OrderRollupDto;
+import com.example.orderservice.dtos.PrepTimeDto;
+import com.example.orderservice.dtos.SlaReportDto;
+import com.example.orderservice.services.OrderEventLog;
+import com.example.orderservice.services.OrderLifecycleProjections;
+import com.example.orderservice.services.OrderRollups;
+import org.springframework.format.annotation.DateTimeFormat;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/orders")
+@RequiredArgsConstructor
+public class OrderLifecycleController {
+
+    private final OrderEventLog orderEventLog;
+    private final OrderLifecycleProjections projections;
+    private final OrderRollups orderRollups;
+
+    // GET /api/orders/{orderId}/events - every status the order went through, oldest first
+    @GetMapping("/{orderId}/events")
+    public ResponseEntity<List<OrderEventDto>> getOrderEvents(@PathVariable Long orderId) {
+        return ResponseEntity.ok(orderEventLog.history(orderId).stream()
+                .map(event -> new OrderEventDto(event.getEventId(), event.getStatus(), event.getOccurredAt()))
+                .toList());
+    }
+
+    // GET /api/orders/analytics/prep-times - average kitchen prep time per restaurant
+    @GetMapping("/analytics/prep-times")
+    public ResponseEntity<List<PrepTimeDto>> getPrepTimes() {
+        return ResponseEntity.ok(projections.prepTimes());
+    }
+
+    // GET /api/orders/analytics/sla?restaurantId= - delivery SLA breaches, optionally for one restaurant
+    @GetMapping("/analytics/sla")
+    public ResponseEntity<SlaReportDto> getSlaReport(@RequestParam(required = false) Long restaurantId) {
+        return ResponseEntity.ok(projections.slaReport(restaurantId));
+    }
+
+    // GET /api/orders/analytics/volume?from=&to=&restaurantId= - order count and revenue in a range (default: last 24h)
+    @GetMapping("/analytics/volume")
+    public ResponseEntity<OrderRollupDto> getVolume(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(required = false) Long restaurantId) {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofDays(1));
+        try {
+            return ResponseEntity.ok(orderRollups.total(start, end, restaurantId));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // GET /api/orders/analytics/volume/series?from=&to=&step=HOUR&restaurantId= - the same, per minute, hour or day
+    @GetMapping("/analytics/volume/series")
+    public ResponseEntity<List<OrderRollupDto>> getVolumeSeries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+            @RequestParam(defaultValue = "HOUR") OrderRollups.Granularity step,
+            @RequestParam(required = false) Long restaurantId) {
+        Instant end = to != null ? to : Instant.now();
+        Instant start = from != null ? from : end.minus(Duration.ofDays(1));
+        try {
+            return ResponseEntity.ok(orderRollups.series(start, end, step, restaurantId));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // POST /api/orders/analytics/rebuild - recompute the analytics by replaying the event log
+    @PostMapping("/analytics/rebuild")
+    public ResponseEntity<Map<String, Long>> rebuildProjections() {
+        try {
+            return ResponseEntity.ok(Map.of("replayedEvents", projections.rebuild()));
+        } catch (IllegalStateException e) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, e.getMessage());
+        }
+    }
+}
@@ -2,8 +2,15 @@ package com.example.restaurantservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+// The domain event outbox and inbox come from the common module
+@SpringBootApplication(scanBasePackages = {"com.example.restaurantservice", "com.example.common"})
+@EntityScan(basePackages = {"com.example.restaurantservice", "com.example.common"})
+@EnableJpaRepositories(basePackages = {"com.example.restaurantservice", "com.example.common"})
+@EnableScheduling
 public class RestaurantServiceApplication {
 
     public static void main(String[] args) {
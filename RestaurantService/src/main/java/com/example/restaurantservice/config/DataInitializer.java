@@ -1,15 +1,18 @@
 package com.example.restaurantservice.config;
 
 import com.example.restaurantservice.entities.Menu;
-import com.example.restaurantservice.entities.MenuItem;
 import com.example.restaurantservice.entities.Restaurant;
 import com.example.restaurantservice.repository.RestaurantRepository;
+import com.example.restaurantservice.services.MenuTransferService;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -19,6 +22,7 @@ public class DataInitializer implements CommandLineRunner {
 
     private static final Logger logger = LoggerFactory.getLogger(DataInitializer.class);
     private final RestaurantRepository restaurantRepository;
+    private final MenuTransferService menuTransferService;
 
     @Override
     public void run(String... args) throws Exception {
@@ -36,13 +40,12 @@ public class DataInitializer implements CommandLineRunner {
             italianPlace.setDeliveryTime("30-40 min");
             italianPlace.setAddress("123 Main St, Anytown, CA 90210");
             italianPlace.setPhoneNumber("(555) 123-4567");
+            italianPlace.setLatitude(34.0736);
+            italianPlace.setLongitude(-118.4004);
+            italianPlace.setDeliveryRadiusKm(8.0);
 
             Menu italianMenu = new Menu();
-            italianMenu.setItems(new ArrayList<>(List.of(
-            createMenuItem("Margherita Pizza", "Classic tomato, mozzarella, basil", 12.50, "https://images.unsplash.com/photo-1574071318508-1cdbab80d002?w=800&q=80"),
-            createMenuItem("Spaghetti Carbonara", "Pasta with egg, cheese, and pancetta", 15.00, "https://images.unsplash.com/photo-1612874742237-6526221588e3?w=800&q=80"),
-            createMenuItem("Lasagna", "Layers of pasta, meat sauce, and cheese", 14.00, "https://images.unsplash.com/photo-1621996346565-e3dbc646d9a9?w=800&q=80")
-            )));
+            italianMenu.setItems(new ArrayList<>());
             italianPlace.setMenu(italianMenu);
 
             // Restaurant 2: Burger Joint
@@ -54,13 +57,12 @@ public class DataInitializer implements CommandLineRunner {
             burgerJoint.setDeliveryTime("20-30 min");
             burgerJoint.setAddress("456 Oak Ave, Anytown, CA 90210");
             burgerJoint.setPhoneNumber("(555) 234-5678");
+            burgerJoint.setLatitude(34.0697);
+            burgerJoint.setLongitude(-118.3963);
+            burgerJoint.setDeliveryRadiusKm(8.0);
 
             Menu burgerMenu = new Menu();
-            burgerMenu.setItems(new ArrayList<>(List.of(
-            createMenuItem("Classic Cheeseburger", "Beef patty with cheddar cheese", 10.50, "https://images.unsplash.com/photo-1568901346375-23c9450c58cd?w=800&q=80"),
-            createMenuItem("Spicy Chicken Sandwich", "Fried chicken with spicy mayo", 11.00, "https://images.unsplash.com/photo-1606755962773-d324e0a13086?w=800&q=80"),
-            createMenuItem("Fries", "Golden crispy fries", 4.00, "https://images.unsplash.com/photo-1573080496219-bb080dd4f877?w=800&q=80")
-            )));
+            burgerMenu.setItems(new ArrayList<>());
             burgerJoint.setMenu(burgerMenu);
 
             // Restaurant 3: Mexican Place
@@ -72,13 +74,12 @@ public class DataInitializer implements CommandLineRunner {
             mexicanPlace.setDeliveryTime("25-35 min");
             mexicanPlace.setAddress("789 Pine Ln, Anytown, CA 90210");
             mexicanPlace.setPhoneNumber("(555) 345-6789");
+            mexicanPlace.setLatitude(34.0782);
+            mexicanPlace.setLongitude(-118.4090);
+            mexicanPlace.setDeliveryRadiusKm(8.0);
 
             Menu mexicanMenu = new Menu();
-            mexicanMenu.setItems(new ArrayList<>(List.of(
-            createMenuItem("Tacos al Pastor", "Marinated pork tacos", 9.50, "https://images.unsplash.com/photo-1565299585323-38d6b0865b47?w=800&q=80"),
-            createMenuItem("Burrito Bowl", "Your choice of protein with rice, beans, and toppings", 12.00, "https://images.unsplash.com/photo-1626700051175-6818013e1d4f?w=800&q=80"),
-            createMenuItem("Quesadilla", "Grilled tortilla with cheese and fillings", 8.00, "https://images.unsplash.com/photo-1618040996337-56904b7850b9?w=800&q=80")
-            )));
+            mexicanMenu.setItems(new ArrayList<>());
             mexicanPlace.setMenu(mexicanMenu);
 
             // Restaurant 4: Sushi Place
@@ -90,17 +91,20 @@ public class DataInitializer implements CommandLineRunner {
             sushiPlace.setDeliveryTime("35-45 min");
             sushiPlace.setAddress("101 Cedar Blvd, Anytown, CA 90210");
             sushiPlace.setPhoneNumber("(555) 456-7890");
+            sushiPlace.setLatitude(34.0669);
+            sushiPlace.setLongitude(-118.4105);
+            sushiPlace.setDeliveryRadiusKm(8.0);
 
             Menu sushiMenu = new Menu();
-            sushiMenu.setItems(new ArrayList<>(List.of(
-            createMenuItem("California Roll", "Crab, avocado, and cucumber", 8.00, "https://images.unsplash.com/photo-1579584425555-c3ce17fd4351?w=800&q=80"),
-            createMenuItem("Spicy Tuna Roll", "Tuna with spicy mayo", 9.00, "https://images.unsplash.com/photo-1617196034796-73dfa7b1fd56?w=800&q=80"),
-            createMenuItem("Salmon Nigiri", "Slice of salmon over rice", 6.00, "https://images.unsplash.com/photo-1564489563601-c53cfc451e93?w=800&q=80")
-            )));
+            sushiMenu.setItems(new ArrayList<>());
             sushiPlace.setMenu(sushiMenu);
 
-            // Save all new restaurants to the database
+            // Save all new restaurants to the database, then load their menus from the seed files
             restaurantRepository.saveAll(List.of(italianPlace, burgerJoint, mexicanPlace, sushiPlace));
+            importSeedMenu(italianPlace, "italian");
+            importSeedMenu(burgerJoint, "american");
+            importSeedMenu(mexicanPlace, "mexican");
+            importSeedMenu(sushiPlace, "japanese");
 
             System.out.println("Database seeded with 4 restaurants.");
         } else {
@@ -109,15 +113,11 @@ public class DataInitializer implements CommandLineRunner {
     }
 
     /**
-     * A helper method to quickly create MenuItem objects.
+     * Imports {@code seed/menus/<name>.csv} from the classpath into the restaurant's menu.
      */
-    private MenuItem createMenuItem(String name, String description, double price, String imageUrl) {
-        MenuItem item = new MenuItem();
-        item.setName(name);
-        item.setDescription(description);
-        item.setPrice(price);
-        item.setImageUrl(imageUrl);
-        item.setAvailable(true);
-        return item;
+    private void importSeedMenu(Restaurant restaurant, String name) throws IOException {
+        try (InputStream in = new ClassPathResource("seed/menus/" + name + ".csv").getInputStream()) {
+            menuTransferService.importMenu(restaurant.getRestaurantId(), in, MenuTransferService.Format.CSV, false);
+        }
     }
 }
@@ -0,0 +1,16 @@
+package com.example.restaurantservice.dtos;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Body of the bulk availability endpoints. {@code itemIds} and {@code category} are optional
+ * filters; when both are given an item has to match both.
+ */
+@Data
+public class MenuAvailabilityDto {
+    private Boolean available;
+    private List<Long> itemIds;
+    private String category;
+}
@@ -0,0 +1,14 @@
+package com.example.restaurantservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuImportErrorDto {
+    // 1-based line in the uploaded file on which the rejected row starts
+    private long line;
+    private String message;
+}
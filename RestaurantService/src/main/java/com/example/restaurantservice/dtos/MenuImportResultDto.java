@@ -0,0 +1,21 @@
+package com.example.restaurantservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuImportResultDto {
+    private Long restaurantId;
+    private String format;
+    private long imported;
+    private long rejected;
+
+    // The first rejected rows only; 'rejected' has the full count
+    private List<MenuImportErrorDto> errors;
+    private boolean errorsTruncated;
+}
@@ -9,5 +9,6 @@ public class MenuItemDto {
     private String description;
     private double price;
     private String imageUrl;
+    private String category;
     private boolean isAvailable;
 }
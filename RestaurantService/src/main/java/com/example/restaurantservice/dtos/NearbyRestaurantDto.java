@@ -0,0 +1,23 @@
+package com.example.restaurantservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyRestaurantDto {
+    private Long id;
+    private String name;
+    private String cuisineType;
+    private String imageUrl;
+    private Double rating;
+    private String address;
+    private Double latitude;
+    private Double longitude;
+    private double distanceKm;
+    // Computed from distance, replaces the static Restaurant.deliveryTime for this customer
+    private int estimatedDeliveryMinutes;
+    private String deliveryTime;
+}
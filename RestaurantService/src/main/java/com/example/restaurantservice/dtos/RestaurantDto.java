@@ -11,4 +11,7 @@ public class RestaurantDto {
     private String deliveryTime;
     private String address;
     private String phoneNumber;
+    private Double latitude;
+    private Double longitude;
+    private Double deliveryRadiusKm;
 }
@@ -0,0 +1,21 @@
+package com.example.restaurantservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchHitDto {
+    private Long id;
+    private String name;
+    private String cuisineType;
+    private Double rating;
+    private String imageUrl;
+    private double score;
+    // Menu items of this restaurant that matched the query, best first
+    private List<MenuItemDto> matchedItems;
+}
@@ -0,0 +1,21 @@
+package com.example.restaurantservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SearchResultDto {
+    private String query;
+    private long total;
+    private List<SearchHitDto> hits;
+
+    // Facet counts; each facet ignores its own filter so the UI can offer the alternatives
+    private Map<String, Long> cuisineFacets;
+    private Map<String, Long> ratingFacets;
+}
@@ -0,0 +1,37 @@
+package com.example.restaurantservice.entities;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Resized image variants are persisted as a comma-separated list of URLs and exposed to
+ * clients as a width -> URL map, so they can pick the smallest one that fits.
+ */
+public final class ImageVariants {
+
+    private static final Pattern WIDTH = Pattern.compile("_w(\\d+)\\.[a-z]+$");
+
+    private ImageVariants() {
+    }
+
+    public static Map<Integer, String> parse(String urls) {
+        Map<Integer, String> variants = new TreeMap<>();
+        if (urls == null || urls.isBlank()) {
+            return variants;
+        }
+        for (String url : urls.split(",")) {
+            Matcher matcher = WIDTH.matcher(url);
+            if (matcher.find()) {
+                variants.put(Integer.parseInt(matcher.group(1)), url);
+            }
+        }
+        return variants;
+    }
+
+    public static String join(Collection<String> urls) {
+        return urls.isEmpty() ? null : String.join(",", urls);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.restaurantservice.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
@@ -7,6 +8,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+@Table(indexes = @Index(name = "idx_menu_item_menu_id", columnList = "menu_id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -21,5 +23,23 @@ public class MenuItem {
     private String description;
     private double price;
     private String imageUrl;
+    // Free-form section of the menu, e.g. "Pizza" or "Drinks"; used for bulk availability changes
+    private String category;
     private boolean isAvailable = true;
+
+    // Same column as Menu.items' join column. Lets items be inserted and queried on their own
+    // without loading the menu; changes of owner still go through the collection.
+    @JsonIgnore
+    @Column(name = "menu_id", updatable = false)
+    private Long menuId;
+
+    // Resized copies of imageUrl, filled in asynchronously by ImageVariantService
+    @JsonIgnore
+    @Column(length = 1024)
+    private String imageVariantUrls;
+
+    @JsonProperty("imageVariants")
+    public java.util.Map<Integer, String> getImageVariants() {
+        return ImageVariants.parse(imageVariantUrls);
+    }
 }
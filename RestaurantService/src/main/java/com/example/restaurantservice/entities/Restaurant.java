@@ -1,5 +1,6 @@
 package com.example.restaurantservice.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import lombok.Data;
@@ -18,19 +19,35 @@ public class Restaurant {
     private String name;
     private String cuisineType;
     
-    @Lob
-    @Column(columnDefinition = "TEXT")
+    // A URL, normally /api/images/...; inline data URIs are moved to the image store on write
+    // (see InlineImages) and by InlineImageBackfill for rows written before that
+    @Column(length = 2048)
     private String imageUrl;
+
+    // Resized copies of imageUrl, filled in asynchronously by ImageVariantService
+    @JsonIgnore
+    @Column(length = 1024)
+    private String imageVariantUrls;
     
     private Double rating;
     private String deliveryTime;
     private String address;
     private String phoneNumber;
 
+    // Location used for nearby queries; restaurants without coordinates are left out of them
+    private Double latitude;
+    private Double longitude;
+    private Double deliveryRadiusKm;
+
     @OneToOne(cascade = CascadeType.ALL)
     @JoinColumn(name = "menu_id", referencedColumnName = "menuId")
     private Menu menu;
 
+    @JsonProperty("imageVariants")
+    public java.util.Map<Integer, String> getImageVariants() {
+        return ImageVariants.parse(imageVariantUrls);
+    }
+
     public Restaurant(String name, String cuisineType, String imageUrl, String address, String phoneNumber) {
         this.name = name;
         this.cuisineType = cuisineType;
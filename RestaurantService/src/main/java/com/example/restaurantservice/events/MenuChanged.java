@@ -0,0 +1,19 @@
+package com.example.restaurantservice.events;
+
+import com.example.common.events.DomainEvent;
+
+import java.util.List;
+
+/**
+ * Payload of {@link DomainEvent#MENU_CHANGED}: where a restaurant is, and the menu items that
+ * changed as they now are. {@code removedItemIds} are items no longer on the menu. With
+ * {@code fullMenu} the items are the whole menu, replacing whatever consumers knew of it. A
+ * change is split over {@code parts} consecutive events of a bounded size, numbered by
+ * {@code part} from 0. A deleted restaurant has no items.
+ */
+public record MenuChanged(Long restaurantId, boolean deleted, String name, Double latitude, Double longitude,
+                          boolean fullMenu, List<Item> items, List<Long> removedItemIds, int part, int parts) {
+
+    public record Item(Long menuItemId, String name, double price, boolean available) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.restaurantservice.events;
+
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Published whenever a restaurant or anything in its menu is created, updated or removed.
+ * Listeners that keep derived in-memory state (search index, caches...) refresh from it
+ * once the surrounding transaction has committed.
+ *
+ * @param menuItemIds the menu items added, changed or removed; empty when only the
+ *                    restaurant's own details changed, null when any of its items may have
+ */
+public record RestaurantChangedEvent(Long restaurantId, boolean deleted, Set<Long> menuItemIds) {
+
+    public static RestaurantChangedEvent updated(Long restaurantId) {
+        return new RestaurantChangedEvent(restaurantId, false, null);
+    }
+
+    public static RestaurantChangedEvent detailsUpdated(Long restaurantId) {
+        return new RestaurantChangedEvent(restaurantId, false, Set.of());
+    }
+
+    public static RestaurantChangedEvent menuItemsChanged(Long restaurantId, Collection<Long> menuItemIds) {
+        return new RestaurantChangedEvent(restaurantId, false, Set.copyOf(menuItemIds));
+    }
+
+    public static RestaurantChangedEvent deleted(Long restaurantId) {
+        return new RestaurantChangedEvent(restaurantId, true, null);
+    }
+}
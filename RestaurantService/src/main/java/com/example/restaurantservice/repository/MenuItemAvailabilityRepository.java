@@ -0,0 +1,24 @@
+package com.example.restaurantservice.repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Set-based availability changes for menu items, mixed into {@link MenuItemRepository}.
+ */
+public interface MenuItemAvailabilityRepository {
+
+    /**
+     * Flips {@code isAvailable} on every item matching the filter whose value differs, with a
+     * single UPDATE. Any filter argument may be null to leave that dimension unrestricted.
+     */
+    AvailabilityChange setAvailability(Long restaurantId, Collection<Long> menuItemIds, String category,
+                                       boolean available);
+
+    /**
+     * @param updatedItems       rows whose availability actually changed
+     * @param affectedRestaurants restaurants owning at least one of those rows
+     */
+    record AvailabilityChange(int updatedItems, List<Long> affectedRestaurants) {
+    }
+}
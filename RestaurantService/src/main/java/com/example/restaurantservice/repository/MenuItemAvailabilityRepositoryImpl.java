@@ -0,0 +1,60 @@
+package com.example.restaurantservice.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+class MenuItemAvailabilityRepositoryImpl implements MenuItemAvailabilityRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public AvailabilityChange setAvailability(Long restaurantId, Collection<Long> menuItemIds, String category,
+                                              boolean available) {
+        if (menuItemIds != null && menuItemIds.isEmpty()) {
+            return new AvailabilityChange(0, List.of());
+        }
+
+        // Only the filters actually given end up in the statements, so each shape gets a plain plan
+        List<String> conditions = new ArrayList<>();
+        conditions.add("i.isAvailable <> :available");
+        if (restaurantId != null) {
+            conditions.add("i.menuId = (select r2.menu.menuId from Restaurant r2 where r2.restaurantId = :restaurantId)");
+        }
+        if (menuItemIds != null) {
+            conditions.add("i.menuItemId in :menuItemIds");
+        }
+        if (category != null) {
+            conditions.add("lower(i.category) = :category");
+        }
+        String where = " where " + String.join(" and ", conditions);
+
+        // Read the owners first: once the UPDATE has run, the changed rows no longer match
+        Query owners = entityManager.createQuery("select distinct r.restaurantId from Restaurant r "
+                + "join MenuItem i on i.menuId = r.menu.menuId" + where);
+        Query update = entityManager.createQuery("update MenuItem i set i.isAvailable = :available" + where);
+        for (Query query : List.of(owners, update)) {
+            query.setParameter("available", available);
+            if (restaurantId != null) {
+                query.setParameter("restaurantId", restaurantId);
+            }
+            if (menuItemIds != null) {
+                query.setParameter("menuItemIds", menuItemIds);
+            }
+            if (category != null) {
+                query.setParameter("category", category.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        List<Long> restaurants = owners.getResultList();
+        int updated = update.executeUpdate();
+        return new AvailabilityChange(updated, updated == 0 ? List.of() : restaurants);
+    }
+}
@@ -2,6 +2,45 @@ package com.example.restaurantservice.repository;
 
 import com.example.restaurantservice.entities.MenuItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface MenuItemRepository extends JpaRepository<MenuItem, Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface MenuItemRepository extends JpaRepository<MenuItem, Long>, MenuItemAvailabilityRepository {
+
+    // Looks the item up by id and checks in the same query that it is on the restaurant's menu
+    @Query("select i from MenuItem i where i.menuItemId = :menuItemId and i.menuId = "
+            + "(select r.menu.menuId from Restaurant r where r.restaurantId = :restaurantId)")
+    Optional<MenuItem> findByIdAndRestaurantId(@Param("menuItemId") Long menuItemId,
+                                               @Param("restaurantId") Long restaurantId);
+
+    @Modifying
+    @Query("delete from MenuItem i where i.menuItemId = :menuItemId and i.menuId = "
+            + "(select r.menu.menuId from Restaurant r where r.restaurantId = :restaurantId)")
+    int deleteByIdAndRestaurantId(@Param("menuItemId") Long menuItemId, @Param("restaurantId") Long restaurantId);
+
+    // (menuItemId, name, price, isAvailable) of every item on the restaurant's menu; scalars, so read
+    // from the table even when bulk updates left the loaded items behind
+    @Query("select i.menuItemId, i.name, i.price, i.isAvailable from MenuItem i where i.menuId = "
+            + "(select r.menu.menuId from Restaurant r where r.restaurantId = :restaurantId) order by i.menuItemId")
+    List<Object[]> findMenuRowsByRestaurantId(@Param("restaurantId") Long restaurantId);
+
+    // The same for just the given items, those of them still on the menu
+    @Query("select i.menuItemId, i.name, i.price, i.isAvailable from MenuItem i where i.menuItemId in :menuItemIds"
+            + " and i.menuId = (select r.menu.menuId from Restaurant r where r.restaurantId = :restaurantId)"
+            + " order by i.menuItemId")
+    List<Object[]> findMenuRowsByRestaurantIdAndMenuItemIdIn(@Param("restaurantId") Long restaurantId,
+                                                             @Param("menuItemIds") Collection<Long> menuItemIds);
+
+    // Only if the image is still the one the variants were made from; touches no other column
+    @Transactional
+    @Modifying
+    @Query("update MenuItem i set i.imageVariantUrls = :variants where i.menuItemId = :menuItemId and i.imageUrl = :imageUrl")
+    int updateImageVariants(@Param("menuItemId") Long menuItemId, @Param("imageUrl") String imageUrl,
+                            @Param("variants") String variants);
 }
@@ -1,12 +1,40 @@
 package com.example.restaurantservice.repository;
 
 import com.example.restaurantservice.entities.Restaurant;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.util.UUID;
+import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface RestaurantRepository extends JpaRepository<Restaurant, Long> {
 
+    @Query("select r.menu.menuId from Restaurant r where r.restaurantId = :restaurantId")
+    Optional<Long> findMenuIdById(@Param("restaurantId") Long restaurantId);
+
+    // Keyset page of restaurants whose image is still an inline data URI
+    @Query("select r.restaurantId from Restaurant r where r.restaurantId > :afterId and r.imageUrl like 'data:%' order by r.restaurantId")
+    List<Long> findIdsWithInlineImage(@Param("afterId") Long afterId, Pageable page);
+
+    @Query("select r.imageUrl from Restaurant r where r.restaurantId = :restaurantId")
+    Optional<String> findImageUrlById(@Param("restaurantId") Long restaurantId);
+
+    // Only replaces the value if it is still inline, so a concurrent edit is never overwritten
+    @Transactional
+    @Modifying
+    @Query("update Restaurant r set r.imageUrl = :imageUrl, r.imageVariantUrls = null where r.restaurantId = :restaurantId and r.imageUrl like 'data:%'")
+    int replaceInlineImage(@Param("restaurantId") Long restaurantId, @Param("imageUrl") String imageUrl);
+
+    // Only if the image is still the one the variants were made from; touches no other column
+    @Transactional
+    @Modifying
+    @Query("update Restaurant r set r.imageVariantUrls = :variants where r.restaurantId = :restaurantId and r.imageUrl = :imageUrl")
+    int updateImageVariants(@Param("restaurantId") Long restaurantId, @Param("imageUrl") String imageUrl,
+                            @Param("variants") String variants);
 }
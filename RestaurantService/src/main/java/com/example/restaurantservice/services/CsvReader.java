@@ -0,0 +1,148 @@
+package com.example.restaurantservice.services;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Minimal streaming RFC 4180 reader: one record at a time, quoted fields with {@code ""}
+ * escapes and embedded line breaks, LF or CRLF line endings. Only the current record is
+ * held in memory, and no field may grow past {@code maxFieldLength}.
+ */
+class CsvReader {
+
+    /**
+     * The input cannot be read past this point: a quoted field is never closed, or a field is
+     * too long. Where the next record would start is unknown, so reading should stop.
+     */
+    static final class MalformedCsvException extends IllegalArgumentException {
+        MalformedCsvException(String message) {
+            super(message);
+        }
+    }
+
+    private final Reader reader;
+    private final int maxFieldLength;
+    private final StringBuilder field = new StringBuilder();
+    private int pushedBack = -2;
+    private long line = 1;
+    private long recordLine;
+
+    CsvReader(Reader reader, int maxFieldLength) {
+        this.reader = reader;
+        this.maxFieldLength = maxFieldLength;
+    }
+
+    /**
+     * Line on which the record returned by the last {@link #next()} call started.
+     */
+    long recordLine() {
+        return recordLine;
+    }
+
+    /**
+     * The next record, or null at end of input. Blank lines are skipped.
+     *
+     * @throws MalformedCsvException if a quoted field is not closed before the end of input, or
+     *                               a field is longer than the limit
+     */
+    List<String> next() throws IOException {
+        List<String> record = new ArrayList<>();
+        field.setLength(0);
+        recordLine = line;
+        boolean quoted = false;
+        boolean fieldStarted = false;
+
+        while (true) {
+            int c = read();
+            if (quoted) {
+                if (c == -1) {
+                    throw new MalformedCsvException("unterminated quoted field starting on line " + recordLine);
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        field.append('"');
+                        continue;
+                    }
+                    quoted = false;
+                    unread(following);
+                    continue;
+                }
+                if (c == '\n') {
+                    line++;
+                }
+                append(c);
+                continue;
+            }
+
+            if (c == -1) {
+                if (!fieldStarted && record.isEmpty()) {
+                    return null;
+                }
+                record.add(field.toString());
+                return record;
+            }
+            if (c == '\r') {
+                int following = read();
+                if (following != '\n') {
+                    unread(following);
+                }
+                c = '\n';
+            }
+            if (c == '\n') {
+                line++;
+                if (!fieldStarted && record.isEmpty()) {
+                    recordLine = line;
+                    continue;
+                }
+                record.add(field.toString());
+                return record;
+            }
+            if (c == ',') {
+                record.add(field.toString());
+                field.setLength(0);
+                fieldStarted = true;
+                continue;
+            }
+            if (c == '"' && field.isEmpty()) {
+                quoted = true;
+                fieldStarted = true;
+                continue;
+            }
+            append(c);
+            fieldStarted = true;
+        }
+    }
+
+    private void append(int c) {
+        if (field.length() >= maxFieldLength) {
+            throw new MalformedCsvException("field in the record starting on line " + recordLine
+                    + " is longer than " + maxFieldLength + " characters");
+        }
+        field.append((char) c);
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+
+    private void unread(int c) {
+        pushedBack = c;
+    }
+
+    static String escape(String value) {
+        if (value == null) {
+            return "";
+        }
+        boolean needsQuotes = value.indexOf(',') >= 0 || value.indexOf('"') >= 0
+                || value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+        return needsQuotes ? '"' + value.replace("\"", "\"\"") + '"' : value;
+    }
+}
@@ -2,30 +2,32 @@ package com.example.restaurantservice.services;
 
 import com.example.restaurantservice.entities.MenuItem;
 import com.example.restaurantservice.entities.Restaurant;
+import com.example.restaurantservice.events.RestaurantChangedEvent;
 import com.example.restaurantservice.repository.MenuItemRepository;
 import com.example.restaurantservice.repository.RestaurantRepository;
-import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.UUID;
 
 @Service
 public class ImageService {
 
-    @Value("${file.upload-dir}")
-    private String uploadDir;
-
     private final RestaurantRepository restaurantRepository;
     private final MenuItemRepository menuItemRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ImageStore imageStore;
+    private final ImageVariantService imageVariantService;
 
-    public ImageService(RestaurantRepository restaurantRepository, MenuItemRepository menuItemRepository) {
+    public ImageService(RestaurantRepository restaurantRepository, MenuItemRepository menuItemRepository,
+                        ApplicationEventPublisher eventPublisher, ImageStore imageStore,
+                        ImageVariantService imageVariantService) {
         this.restaurantRepository = restaurantRepository;
         this.menuItemRepository = menuItemRepository;
+        this.eventPublisher = eventPublisher;
+        this.imageStore = imageStore;
+        this.imageVariantService = imageVariantService;
     }
 
     public String uploadImage(Long restaurantId, MultipartFile file) throws IOException {
@@ -34,7 +36,10 @@ public class ImageService {
 
         String fileUrl = saveFile(file);
         restaurant.setImageUrl(fileUrl);
+        restaurant.setImageVariantUrls(null);
         restaurantRepository.save(restaurant);
+        eventPublisher.publishEvent(RestaurantChangedEvent.detailsUpdated(restaurantId));
+        imageVariantService.scheduleRestaurantVariants(restaurantId, fileUrl);
 
         return fileUrl;
     }
@@ -45,23 +50,14 @@ public class ImageService {
 
         String fileUrl = saveFile(file);
         menuItem.setImageUrl(fileUrl);
+        menuItem.setImageVariantUrls(null);
         menuItemRepository.save(menuItem);
+        imageVariantService.scheduleMenuItemVariants(menuItemId, fileUrl);
 
         return fileUrl;
     }
 
     private String saveFile(MultipartFile file) throws IOException {
-        String originalFilename = file.getOriginalFilename();
-        String filename = UUID.randomUUID().toString() + "." + originalFilename.substring(originalFilename.lastIndexOf(".") + 1);
-
-        Path uploadPath = Paths.get(uploadDir);
-        if (!Files.exists(uploadPath)) {
-            Files.createDirectories(uploadPath);
-        }
-
-        Path filePath = uploadPath.resolve(filename);
-        Files.copy(file.getInputStream(), filePath);
-
-        return "/uploads/images/" + filename;
+        return imageStore.store(file).url();
     }
 }
@@ -0,0 +1,214 @@
+package com.example.restaurantservice.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Content-addressed image storage under {@code file.upload-dir}.
+ *
+ * Uploads are streamed to a temp file while being hashed with SHA-256 and then moved to
+ * {@code <upload-dir>/<first two hex chars>/<hash>.<ext>}. Uploading the same bytes twice
+ * lands on the same file, so duplicates cost no extra disk and the URL never changes meaning,
+ * which is what lets {@code /api/images/**} be cached as immutable.
+ *
+ * Derived files (resized variants) sit next to their original as {@code <hash>_w<width>.<ext>};
+ * they are a pure function of the original, so they are just as immutable.
+ */
+@Component
+public class ImageStore {
+
+    public static final String URL_PREFIX = "/api/images/";
+
+    private static final Map<String, String> MEDIA_TYPES = Map.of(
+            "jpg", "image/jpeg",
+            "png", "image/png",
+            "gif", "image/gif",
+            "webp", "image/webp",
+            "avif", "image/avif");
+
+    private static final Pattern KEY_PATTERN = Pattern.compile("[0-9a-f]{64}(_w[0-9]{2,4})?\\.[a-z]{3,4}");
+
+    private final Path root;
+    private final Path tmpDir;
+
+    public ImageStore(@Value("${file.upload-dir}") String uploadDir) {
+        this.root = Paths.get(uploadDir).toAbsolutePath().normalize();
+        this.tmpDir = root.resolve(".tmp");
+    }
+
+    public StoredImage store(MultipartFile file) throws IOException {
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("Uploaded file is empty");
+        }
+        try (InputStream in = file.getInputStream()) {
+            return store(in, extensionOf(file.getOriginalFilename()));
+        }
+    }
+
+    /**
+     * Streams {@code content} into the store. The caller keeps ownership of the stream.
+     *
+     * @param extension file extension without the dot, e.g. {@code png}
+     */
+    public StoredImage store(InputStream content, String extension) throws IOException {
+        String ext = normalizeExtension(extension);
+        Files.createDirectories(tmpDir);
+
+        Path temp = Files.createTempFile(tmpDir, "upload-", ".part");
+        try {
+            MessageDigest digest = sha256();
+            long size;
+            try (DigestInputStream in = new DigestInputStream(content, digest);
+                 OutputStream out = Files.newOutputStream(temp)) {
+                size = in.transferTo(out);
+            }
+            if (size == 0) {
+                throw new IllegalArgumentException("Uploaded file is empty");
+            }
+
+            String key = HexFormat.of().formatHex(digest.digest()) + "." + ext;
+            Path target = pathFor(key);
+            if (Files.exists(target)) {
+                return new StoredImage(key, URL_PREFIX + key, size, true);
+            }
+
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                // Same bytes either way, so losing a race to a concurrent identical upload is harmless
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return new StoredImage(key, URL_PREFIX + key, size, false);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes a file derived from an original under its deterministic key, unless it already exists.
+     * The content is written to a temp file first, so readers never see a partial image.
+     *
+     * @return the URL of the derived file
+     */
+    public String storeDerived(String key, ContentWriter writer) throws IOException {
+        if (!KEY_PATTERN.matcher(key).matches()) {
+            throw new IllegalArgumentException("Invalid image key: " + key);
+        }
+        Path target = pathFor(key);
+        if (Files.exists(target)) {
+            return URL_PREFIX + key;
+        }
+        Files.createDirectories(tmpDir);
+        Path temp = Files.createTempFile(tmpDir, "derived-", ".part");
+        try {
+            try (OutputStream out = Files.newOutputStream(temp)) {
+                writer.write(out);
+            }
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return URL_PREFIX + key;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * The file behind a key, if the key is well-formed and the image exists.
+     */
+    public Optional<Path> resolve(String key) {
+        if (key == null || !KEY_PATTERN.matcher(key).matches()) {
+            return Optional.empty();
+        }
+        Path path = pathFor(key);
+        return Files.isRegularFile(path) ? Optional.of(path) : Optional.empty();
+    }
+
+    public String mediaType(String key) {
+        String ext = key.substring(key.lastIndexOf('.') + 1);
+        return MEDIA_TYPES.getOrDefault(ext, "application/octet-stream");
+    }
+
+    /**
+     * Extracts the key from a URL produced by this store, or null for any other URL.
+     */
+    public static String keyFromUrl(String url) {
+        if (url == null || !url.startsWith(URL_PREFIX)) {
+            return null;
+        }
+        String key = url.substring(URL_PREFIX.length());
+        return KEY_PATTERN.matcher(key).matches() ? key : null;
+    }
+
+    /**
+     * The key without its extension: the content hash, plus the width suffix for variants.
+     */
+    public static String contentId(String key) {
+        return key.substring(0, key.lastIndexOf('.'));
+    }
+
+    public static String variantKey(String originalKey, int width, String extension) {
+        return contentId(originalKey) + "_w" + width + "." + extension;
+    }
+
+    private Path pathFor(String key) {
+        return root.resolve(key.substring(0, 2)).resolve(key);
+    }
+
+    private static String extensionOf(String filename) {
+        if (filename == null || filename.lastIndexOf('.') < 0) {
+            throw new IllegalArgumentException("File name must have an image extension");
+        }
+        return filename.substring(filename.lastIndexOf('.') + 1);
+    }
+
+    private static String normalizeExtension(String extension) {
+        String ext = extension == null ? "" : extension.toLowerCase(Locale.ROOT);
+        if (ext.equals("jpeg")) {
+            ext = "jpg";
+        }
+        if (!MEDIA_TYPES.containsKey(ext)) {
+            throw new IllegalArgumentException("Unsupported image type '" + extension
+                    + "'; expected one of " + MEDIA_TYPES.keySet());
+        }
+        return ext;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface ContentWriter {
+        void write(OutputStream out) throws IOException;
+    }
+
+    public record StoredImage(String key, String url, long size, boolean deduplicated) {
+    }
+}
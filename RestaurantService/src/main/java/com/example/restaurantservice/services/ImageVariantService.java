@@ -0,0 +1,223 @@
+package com.example.restaurantservice.services;
+
+import com.example.restaurantservice.entities.ImageVariants;
+import com.example.restaurantservice.repository.MenuItemRepository;
+import com.example.restaurantservice.repository.RestaurantRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates resized variants of uploaded restaurant and menu item images.
+ *
+ * Work runs on a small bounded pool after the upload's transaction commits, so the request
+ * only pays for storing the original. When the pool's queue is full a job is dropped and
+ * logged; clients keep using the original until the image is uploaded again.
+ */
+@Service
+public class ImageVariantService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageVariantService.class);
+
+    private static final float JPEG_QUALITY = 0.8f;
+    private static final long MAX_SOURCE_PIXELS = 40_000_000L;
+
+    private final ImageStore imageStore;
+    private final RestaurantRepository restaurantRepository;
+    private final MenuItemRepository menuItemRepository;
+    private final List<Integer> widths;
+    private final ThreadPoolExecutor executor;
+
+    public ImageVariantService(ImageStore imageStore,
+                               RestaurantRepository restaurantRepository,
+                               MenuItemRepository menuItemRepository,
+                               @Value("${image.variant-widths:160,320,640}") List<Integer> widths,
+                               @Value("${image.workers:2}") int workers,
+                               @Value("${image.queue-capacity:200}") int queueCapacity) {
+        this.imageStore = imageStore;
+        this.restaurantRepository = restaurantRepository;
+        this.menuItemRepository = menuItemRepository;
+        this.widths = widths.stream().sorted().toList();
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "image-variants-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.NORM_PRIORITY - 1);
+                    return thread;
+                });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public void scheduleRestaurantVariants(Long restaurantId, String imageUrl) {
+        schedule(imageUrl, () -> {
+            String variants = generateVariants(ImageStore.keyFromUrl(imageUrl));
+            // A targeted update, so edits committed while the variants were made are kept
+            restaurantRepository.updateImageVariants(restaurantId, imageUrl, variants);
+        });
+    }
+
+    public void scheduleMenuItemVariants(Long menuItemId, String imageUrl) {
+        schedule(imageUrl, () -> {
+            String variants = generateVariants(ImageStore.keyFromUrl(imageUrl));
+            menuItemRepository.updateImageVariants(menuItemId, imageUrl, variants);
+        });
+    }
+
+    // Only images held in our own store can be processed; external URLs are left as they are
+    private void schedule(String imageUrl, VariantJob job) {
+        if (ImageStore.keyFromUrl(imageUrl) == null) {
+            return;
+        }
+        Runnable task = () -> {
+            try {
+                job.run();
+            } catch (Exception e) {
+                logger.warn("Failed to generate variants for {}: {}", imageUrl, e.getMessage());
+            }
+        };
+        Runnable submit = () -> {
+            try {
+                executor.execute(task);
+            } catch (RejectedExecutionException e) {
+                logger.warn("Image variant queue is full, skipping {}", imageUrl);
+            }
+        };
+
+        // The job updates the row only if it still has this image, so it must not start before the upload is visible
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    submit.run();
+                }
+            });
+        } else {
+            submit.run();
+        }
+    }
+
+    /**
+     * Writes every configured width narrower than the original and returns their URLs
+     * in the comma-separated form stored on the entities.
+     */
+    String generateVariants(String key) throws IOException {
+        Path source = imageStore.resolve(key)
+                .orElseThrow(() -> new IOException("Original image missing: " + key));
+
+        BufferedImage original = read(source);
+        if (original == null) {
+            // No ImageIO reader for this format (e.g. webp/avif): serve the original only
+            return null;
+        }
+
+        boolean alpha = original.getColorModel().hasAlpha();
+        String extension = alpha ? "png" : "jpg";
+        List<String> urls = new ArrayList<>();
+        for (int width : widths) {
+            if (width >= original.getWidth()) {
+                break;
+            }
+            int height = Math.max(1, (int) Math.round((double) original.getHeight() * width / original.getWidth()));
+            BufferedImage scaled = scale(original, width, height, alpha);
+            urls.add(imageStore.storeDerived(ImageStore.variantKey(key, width, extension),
+                    out -> write(scaled, extension, out)));
+        }
+        return ImageVariants.join(urls);
+    }
+
+    private static BufferedImage read(Path source) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(source.toFile())) {
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) {
+                return null;
+            }
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                long pixels = (long) reader.getWidth(0) * reader.getHeight(0);
+                if (pixels > MAX_SOURCE_PIXELS) {
+                    throw new IOException("Image too large to resize (" + pixels + " pixels)");
+                }
+                return reader.read(0);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    // Halve repeatedly with bilinear filtering, then do the final step; much better than one big jump
+    private static BufferedImage scale(BufferedImage source, int width, int height, boolean alpha) {
+        int type = alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage current = source;
+        int currentWidth = source.getWidth();
+        int currentHeight = source.getHeight();
+        do {
+            currentWidth = Math.max(width, currentWidth / 2);
+            currentHeight = Math.max(height, currentHeight / 2);
+            BufferedImage next = new BufferedImage(currentWidth, currentHeight, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(current, 0, 0, currentWidth, currentHeight, null);
+            } finally {
+                g.dispose();
+            }
+            current = next;
+        } while (currentWidth != width || currentHeight != height);
+        return current;
+    }
+
+    private static void write(BufferedImage image, String extension, OutputStream out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName(extension.equals("jpg") ? "jpeg" : extension).next();
+        try (ImageOutputStream ios = ImageIO.createImageOutputStream(out)) {
+            writer.setOutput(ios);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            if (extension.equals("jpg")) {
+                param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+                param.setCompressionQuality(JPEG_QUALITY);
+                param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            }
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    @FunctionalInterface
+    private interface VariantJob {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.restaurantservice.services;
+
+import com.example.restaurantservice.events.RestaurantChangedEvent;
+import com.example.restaurantservice.repository.RestaurantRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Moves inline data-URI images of existing restaurants into the {@link ImageStore}.
+ *
+ * Rows are walked in id order, one chunk of ids at a time, and each payload is read, stored
+ * and replaced on its own, so memory use is bounded by a single image whatever the table size.
+ * The job is idempotent: rows that are already references are never selected again.
+ */
+@Service
+public class InlineImageBackfill {
+
+    private static final Logger logger = LoggerFactory.getLogger(InlineImageBackfill.class);
+
+    private final RestaurantRepository restaurantRepository;
+    private final InlineImages inlineImages;
+    private final ImageVariantService imageVariantService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int chunkSize;
+    private final boolean runOnStartup;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public InlineImageBackfill(RestaurantRepository restaurantRepository,
+                               InlineImages inlineImages,
+                               ImageVariantService imageVariantService,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${image.inline-backfill.chunk-size:100}") int chunkSize,
+                               @Value("${image.inline-backfill.on-startup:true}") boolean runOnStartup) {
+        this.restaurantRepository = restaurantRepository;
+        this.inlineImages = inlineImages;
+        this.imageVariantService = imageVariantService;
+        this.eventPublisher = eventPublisher;
+        this.chunkSize = chunkSize;
+        this.runOnStartup = runOnStartup;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        if (runOnStartup) {
+            run();
+        }
+    }
+
+    /**
+     * Runs the backfill to completion. Returns counts of migrated and failed rows, or
+     * {@code running=true} without doing anything when another run is in progress.
+     */
+    public Map<String, Object> run() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        if (!running.compareAndSet(false, true)) {
+            result.put("running", true);
+            return result;
+        }
+        int migrated = 0;
+        int failed = 0;
+        long started = System.currentTimeMillis();
+        try {
+            long afterId = 0;
+            List<Long> ids;
+            do {
+                ids = restaurantRepository.findIdsWithInlineImage(afterId, PageRequest.ofSize(chunkSize));
+                for (Long id : ids) {
+                    if (migrate(id)) {
+                        migrated++;
+                    } else {
+                        failed++;
+                    }
+                }
+                if (!ids.isEmpty()) {
+                    afterId = ids.get(ids.size() - 1);
+                }
+            } while (ids.size() == chunkSize);
+        } finally {
+            running.set(false);
+        }
+
+        if (migrated > 0 || failed > 0) {
+            logger.info("Inline image backfill moved {} restaurant images to the image store ({} failed) in {} ms",
+                    migrated, failed, System.currentTimeMillis() - started);
+        }
+        result.put("running", false);
+        result.put("migrated", migrated);
+        result.put("failed", failed);
+        return result;
+    }
+
+    private boolean migrate(Long restaurantId) {
+        String inline = restaurantRepository.findImageUrlById(restaurantId).orElse(null);
+        if (!InlineImages.isDataUri(inline)) {
+            // Edited since the id was read; nothing left to move
+            return true;
+        }
+        try {
+            String url = inlineImages.externalize(inline);
+            if (restaurantRepository.replaceInlineImage(restaurantId, url) == 1) {
+                eventPublisher.publishEvent(RestaurantChangedEvent.detailsUpdated(restaurantId));
+                imageVariantService.scheduleRestaurantVariants(restaurantId, url);
+            }
+            return true;
+        } catch (RuntimeException e) {
+            // Left inline so a later run (or the owner re-uploading) can deal with it
+            logger.warn("Could not move inline image of restaurant {}: {}", restaurantId, e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.restaurantservice.services;
+
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Turns inline {@code data:image/...;base64,...} image values into files in the {@link ImageStore}.
+ *
+ * The dashboard's image pickers send the picked file as a data URI, which used to be stored
+ * verbatim in the restaurant row. Storing it as a file instead keeps the row down to a short
+ * {@code /api/images/...} reference; identical payloads map to the same file.
+ */
+@Component
+public class InlineImages {
+
+    private static final String DATA_PREFIX = "data:";
+    private static final String BASE64_MARKER = ";base64";
+
+    private final ImageStore imageStore;
+
+    public InlineImages(ImageStore imageStore) {
+        this.imageStore = imageStore;
+    }
+
+    public static boolean isDataUri(String value) {
+        return value != null && value.regionMatches(true, 0, DATA_PREFIX, 0, DATA_PREFIX.length());
+    }
+
+    /**
+     * Returns {@code imageUrl} unchanged unless it is a data URI, in which case the payload is
+     * written to the image store and its URL is returned.
+     *
+     * @throws IllegalArgumentException if the data URI is not a base64-encoded image of a supported type
+     */
+    public String externalize(String imageUrl) {
+        if (!isDataUri(imageUrl)) {
+            return imageUrl;
+        }
+        int comma = imageUrl.indexOf(',');
+        if (comma < 0) {
+            throw new IllegalArgumentException("Malformed data URI for image");
+        }
+        String header = imageUrl.substring(DATA_PREFIX.length(), comma).toLowerCase(Locale.ROOT);
+        if (!header.startsWith("image/") || !header.endsWith(BASE64_MARKER)) {
+            throw new IllegalArgumentException("Inline images must be base64-encoded image data URIs");
+        }
+        // "image/png;base64" -> "png"; any parameters between the subtype and ";base64" are ignored
+        String subtype = header.substring("image/".length(), header.length() - BASE64_MARKER.length());
+        int parameters = subtype.indexOf(';');
+        String extension = parameters < 0 ? subtype : subtype.substring(0, parameters);
+
+        // Decode while streaming into the store instead of materializing the decoded bytes
+        byte[] encoded = imageUrl.getBytes(StandardCharsets.US_ASCII);
+        try (InputStream in = Base64.getMimeDecoder()
+                .wrap(new ByteArrayInputStream(encoded, comma + 1, encoded.length - comma - 1))) {
+            return imageStore.store(in, extension).url();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to store inline image", e);
+        }
+    }
+}
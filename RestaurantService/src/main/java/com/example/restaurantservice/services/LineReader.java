@@ -0,0 +1,83 @@
+package com.example.restaurantservice.services;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Reads text one line at a time, like {@link java.io.BufferedReader#readLine()}, but never holds
+ * more than {@code maxLineLength} characters: a longer line is skipped to its end and reported,
+ * and reading carries on with the line after it. Lines end with LF, CRLF or a lone CR.
+ */
+class LineReader {
+
+    /**
+     * The line was longer than the limit. It has been read past, so the next call returns the
+     * line after it.
+     */
+    static final class LineTooLongException extends IllegalArgumentException {
+        LineTooLongException(String message) {
+            super(message);
+        }
+    }
+
+    private final Reader reader;
+    private final int maxLineLength;
+    private final StringBuilder text = new StringBuilder();
+    private int pushedBack = -2;
+    private long line;
+
+    LineReader(Reader reader, int maxLineLength) {
+        this.reader = reader;
+        this.maxLineLength = maxLineLength;
+    }
+
+    /**
+     * Number of the line returned or reported by the last {@link #next()} call, from 1.
+     */
+    long line() {
+        return line;
+    }
+
+    /**
+     * The next line without its line ending, or null at end of input.
+     *
+     * @throws LineTooLongException if the line is longer than the limit
+     */
+    String next() throws IOException {
+        text.setLength(0);
+        boolean tooLong = false;
+        int c = read();
+        if (c == -1) {
+            return null;
+        }
+        line++;
+        while (c != -1 && c != '\n' && c != '\r') {
+            if (text.length() < maxLineLength) {
+                text.append((char) c);
+            } else {
+                tooLong = true;
+            }
+            c = read();
+        }
+        if (c == '\r') {
+            int after = read();
+            if (after != '\n') {
+                pushedBack = after;
+            }
+        }
+        if (tooLong) {
+            text.setLength(0);
+            throw new LineTooLongException("line " + line + " is longer than " + maxLineLength + " characters");
+        }
+        return text.toString();
+    }
+
+    private int read() throws IOException {
+        if (pushedBack != -2) {
+            int c = pushedBack;
+            pushedBack = -2;
+            return c;
+        }
+        return reader.read();
+    }
+}
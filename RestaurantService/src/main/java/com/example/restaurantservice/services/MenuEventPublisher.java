@@ -0,0 +1,84 @@
+package com.example.restaurantservice.services;
+
+import com.example.common.events.DomainEvent;
+import com.example.common.services.EventOutbox;
+import com.example.restaurantservice.entities.Restaurant;
+import com.example.restaurantservice.events.MenuChanged;
+import com.example.restaurantservice.events.RestaurantChangedEvent;
+import com.example.restaurantservice.repository.MenuItemRepository;
+import com.example.restaurantservice.repository.RestaurantRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Tells other services about menu changes through the outbox of the transaction making them:
+ * only the items that changed when that is known, otherwise the whole menu, in events of at
+ * most {@code events.menu-items-per-event} items. Changes made outside a transaction only
+ * touch images, which no other service cares about, so they are not announced.
+ */
+@Component
+public class MenuEventPublisher {
+
+    private final RestaurantRepository restaurantRepository;
+    private final MenuItemRepository menuItemRepository;
+    private final EventOutbox eventOutbox;
+    private final int itemsPerEvent;
+
+    public MenuEventPublisher(RestaurantRepository restaurantRepository,
+                              MenuItemRepository menuItemRepository,
+                              EventOutbox eventOutbox,
+                              @Value("${events.menu-items-per-event:200}") int itemsPerEvent) {
+        this.restaurantRepository = restaurantRepository;
+        this.menuItemRepository = menuItemRepository;
+        this.eventOutbox = eventOutbox;
+        this.itemsPerEvent = Math.max(1, itemsPerEvent);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        Long restaurantId = event.restaurantId();
+        Restaurant restaurant = event.deleted() ? null : restaurantRepository.findById(restaurantId).orElse(null);
+        if (restaurant == null) {
+            eventOutbox.append(DomainEvent.MENU_CHANGED, restaurantId,
+                    new MenuChanged(restaurantId, true, null, null, null, false, List.of(), List.of(), 0, 1));
+            return;
+        }
+        boolean fullMenu = event.menuItemIds() == null;
+        List<Object[]> rows;
+        if (fullMenu) {
+            rows = menuItemRepository.findMenuRowsByRestaurantId(restaurantId);
+        } else if (event.menuItemIds().isEmpty()) {
+            rows = List.of();
+        } else {
+            rows = menuItemRepository.findMenuRowsByRestaurantIdAndMenuItemIdIn(restaurantId, event.menuItemIds());
+        }
+        List<MenuChanged.Item> items = rows.stream()
+                .map(row -> new MenuChanged.Item((Long) row[0], (String) row[1], (Double) row[2], (Boolean) row[3]))
+                .toList();
+        List<Long> removed = new ArrayList<>();
+        if (!fullMenu) {
+            Set<Long> remaining = new HashSet<>(event.menuItemIds());
+            items.forEach(item -> remaining.remove(item.menuItemId()));
+            remaining.stream().sorted().forEach(removed::add);
+        }
+
+        int parts = Math.max(1, (Math.max(items.size(), removed.size()) + itemsPerEvent - 1) / itemsPerEvent);
+        for (int part = 0; part < parts; part++) {
+            eventOutbox.append(DomainEvent.MENU_CHANGED, restaurantId, new MenuChanged(restaurantId, false,
+                    restaurant.getName(), restaurant.getLatitude(), restaurant.getLongitude(), fullMenu,
+                    slice(items, part), slice(removed, part), part, parts));
+        }
+    }
+
+    private <T> List<T> slice(List<T> list, int part) {
+        int from = Math.min(list.size(), part * itemsPerEvent);
+        return list.subList(from, Math.min(list.size(), from + itemsPerEvent));
+    }
+}
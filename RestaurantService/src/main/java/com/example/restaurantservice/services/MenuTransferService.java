@@ -0,0 +1,437 @@
+package com.example.restaurantservice.services;
+
+import com.example.restaurantservice.dtos.MenuImportErrorDto;
+import com.example.restaurantservice.dtos.MenuImportResultDto;
+import com.example.restaurantservice.events.RestaurantChangedEvent;
+import com.example.restaurantservice.repository.RestaurantRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Bulk menu import and export in CSV or NDJSON.
+ *
+ * Both directions stream: an import parses and validates one row at a time and inserts valid
+ * rows with JDBC batches, and an export walks the items with a server-side cursor. Memory use
+ * stays flat no matter how many items a file holds.
+ */
+@Service
+public class MenuTransferService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MenuTransferService.class);
+
+    private static final int MAX_TEXT_LENGTH = 255;
+    // Far above any valid value; only bounds what a malformed file can make the reader buffer
+    private static final int MAX_CSV_FIELD_LENGTH = 65536;
+    private static final int MAX_NDJSON_LINE_LENGTH = 65536;
+    private static final String INSERT_SQL = "insert into menu_item "
+            + "(name, description, price, image_url, category, is_available, menu_id) values (?, ?, ?, ?, ?, ?, ?)";
+    private static final String EXPORT_SQL = "select menu_item_id, name, description, price, category, is_available, "
+            + "image_url from menu_item where menu_id = ? order by menu_item_id";
+    private static final String[] CSV_COLUMNS = {"id", "name", "description", "price", "category", "available", "imageUrl"};
+
+    public enum Format {
+        CSV("text/csv"),
+        NDJSON("application/x-ndjson");
+
+        private final String mediaType;
+
+        Format(String mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public String mediaType() {
+            return mediaType;
+        }
+
+        /**
+         * Resolves an explicit {@code format} parameter, falling back to the request's content type.
+         */
+        public static Format resolve(String name, String contentType) {
+            String value = name != null ? name : contentType;
+            if (value != null) {
+                String lower = value.toLowerCase(Locale.ROOT);
+                if (lower.contains("csv")) {
+                    return CSV;
+                }
+                if (lower.contains("ndjson") || lower.contains("jsonl") || lower.contains("json-seq")) {
+                    return NDJSON;
+                }
+            }
+            throw new IllegalArgumentException("Unknown menu format '" + value + "'; expected csv or ndjson");
+        }
+    }
+
+    private final RestaurantRepository restaurantRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate cursorTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int maxReportedErrors;
+
+    public MenuTransferService(RestaurantRepository restaurantRepository,
+                               JdbcTemplate jdbcTemplate,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper,
+                               ApplicationEventPublisher eventPublisher,
+                               @Value("${menu.import.batch-size:500}") int batchSize,
+                               @Value("${menu.import.max-reported-errors:100}") int maxReportedErrors,
+                               @Value("${menu.export.fetch-size:1000}") int exportFetchSize) {
+        this.restaurantRepository = restaurantRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        // PostgreSQL only uses a cursor for fetchSize inside a transaction, hence the read-only template
+        this.cursorTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.cursorTemplate.setFetchSize(exportFetchSize);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.maxReportedErrors = maxReportedErrors;
+    }
+
+    /**
+     * Adds every valid row of {@code content} to the restaurant's menu. Invalid rows are skipped
+     * and reported with their line number; the valid ones are imported in one transaction.
+     *
+     * @param replace remove the restaurant's existing items first
+     */
+    @Transactional
+    public MenuImportResultDto importMenu(Long restaurantId, InputStream content, Format format, boolean replace)
+            throws IOException {
+        Long menuId = restaurantRepository.findMenuIdById(restaurantId)
+                .orElseThrow(() -> new RuntimeException("Restaurant not found with id: " + restaurantId));
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(content, StandardCharsets.UTF_8), 65536);
+        Iterator<ImportRow> rows = format == Format.CSV ? new CsvRows(reader) : new NdjsonRows(reader);
+
+        if (replace) {
+            jdbcTemplate.update("delete from menu_item where menu_id = ?", menuId);
+        }
+
+        long imported = 0;
+        long rejected = 0;
+        List<MenuImportErrorDto> errors = new ArrayList<>();
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        while (rows.hasNext()) {
+            ImportRow row = rows.next();
+            try {
+                if (row.error() != null) {
+                    throw new IllegalArgumentException(row.error());
+                }
+                batch.add(toInsertParameters(row.values(), menuId));
+            } catch (IllegalArgumentException e) {
+                rejected++;
+                if (errors.size() < maxReportedErrors) {
+                    errors.add(new MenuImportErrorDto(row.line(), e.getMessage()));
+                }
+                continue;
+            }
+            if (batch.size() == batchSize) {
+                imported += insert(batch);
+            }
+        }
+        imported += insert(batch);
+
+        if (imported > 0 || replace) {
+            eventPublisher.publishEvent(RestaurantChangedEvent.updated(restaurantId));
+        }
+        logger.info("Imported {} menu items for restaurant {} ({} rows rejected)", imported, restaurantId, rejected);
+        return new MenuImportResultDto(restaurantId, format.name().toLowerCase(Locale.ROOT), imported, rejected,
+                errors, rejected > errors.size());
+    }
+
+    /**
+     * Streams the restaurant's menu items in the given format, oldest first. The restaurant is
+     * looked up eagerly so that a bad id fails before the response starts.
+     */
+    public StreamingResponseBody exportMenu(Long restaurantId, Format format) {
+        Long menuId = restaurantRepository.findMenuIdById(restaurantId)
+                .orElseThrow(() -> new RuntimeException("Restaurant not found with id: " + restaurantId));
+
+        return out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 65536);
+            JsonGenerator json = format == Format.NDJSON
+                    ? objectMapper.getFactory().createGenerator(writer).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    : null;
+            if (format == Format.CSV) {
+                writer.write(String.join(",", CSV_COLUMNS));
+                writer.write('\n');
+            }
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> cursorTemplate.query(EXPORT_SQL, rs -> {
+                    try {
+                        if (json != null) {
+                            writeJson(json, rs);
+                        } else {
+                            writeCsv(writer, rs);
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }, menuId));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            if (json != null) {
+                json.flush();
+            }
+            writer.flush();
+        };
+    }
+
+    private int insert(List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, batch);
+        int inserted = batch.size();
+        batch.clear();
+        return inserted;
+    }
+
+    // Validates one row; the message of the IllegalArgumentException becomes the row's error
+    private static Object[] toInsertParameters(Map<String, String> values, Long menuId) {
+        String name = text(values, "name");
+        if (name == null) {
+            throw new IllegalArgumentException("name is required");
+        }
+        String priceValue = text(values, "price");
+        if (priceValue == null) {
+            throw new IllegalArgumentException("price is required");
+        }
+        double price;
+        try {
+            price = Double.parseDouble(priceValue);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("price '" + priceValue + "' is not a number");
+        }
+        if (!Double.isFinite(price) || price < 0) {
+            throw new IllegalArgumentException("price must be zero or more");
+        }
+        String imageUrl = text(values, "imageurl");
+        if (InlineImages.isDataUri(imageUrl)) {
+            throw new IllegalArgumentException("imageUrl must be a URL; upload inline images separately");
+        }
+        return new Object[]{name, text(values, "description"), price, imageUrl, text(values, "category"),
+                available(values.get("available")), menuId};
+    }
+
+    private static String text(Map<String, String> values, String key) {
+        String value = values.get(key);
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        value = value.trim();
+        if (value.length() > MAX_TEXT_LENGTH) {
+            throw new IllegalArgumentException(key + " is longer than " + MAX_TEXT_LENGTH + " characters");
+        }
+        return value;
+    }
+
+    private static boolean available(String value) {
+        if (value == null || value.isBlank()) {
+            return true;
+        }
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "true", "yes", "y", "1" -> true;
+            case "false", "no", "n", "0" -> false;
+            default -> throw new IllegalArgumentException("available '" + value + "' is not a boolean");
+        };
+    }
+
+    // "imageUrl", "image_url" and "Image URL" all name the same column; "isAvailable" is "available"
+    private static String normalizeKey(String key) {
+        String normalized = key.replaceAll("[^A-Za-z0-9]", "").toLowerCase(Locale.ROOT);
+        return normalized.equals("isavailable") ? "available" : normalized;
+    }
+
+    private static void writeCsv(Writer writer, ResultSet rs) throws IOException, SQLException {
+        writer.write(Long.toString(rs.getLong("menu_item_id")));
+        writer.write(',');
+        writer.write(CsvReader.escape(rs.getString("name")));
+        writer.write(',');
+        writer.write(CsvReader.escape(rs.getString("description")));
+        writer.write(',');
+        writer.write(BigDecimal.valueOf(rs.getDouble("price")).toPlainString());
+        writer.write(',');
+        writer.write(CsvReader.escape(rs.getString("category")));
+        writer.write(',');
+        writer.write(Boolean.toString(rs.getBoolean("is_available")));
+        writer.write(',');
+        writer.write(CsvReader.escape(rs.getString("image_url")));
+        writer.write('\n');
+    }
+
+    private static void writeJson(JsonGenerator json, ResultSet rs) throws IOException, SQLException {
+        json.writeStartObject();
+        json.writeNumberField("id", rs.getLong("menu_item_id"));
+        json.writeStringField("name", rs.getString("name"));
+        json.writeStringField("description", rs.getString("description"));
+        json.writeNumberField("price", rs.getDouble("price"));
+        json.writeStringField("category", rs.getString("category"));
+        json.writeBooleanField("available", rs.getBoolean("is_available"));
+        json.writeStringField("imageUrl", rs.getString("image_url"));
+        json.writeEndObject();
+        json.writeRaw('\n');
+    }
+
+    /**
+     * One parsed input row: its field values keyed by normalized column name, or the reason it
+     * could not be parsed.
+     */
+    private record ImportRow(long line, Map<String, String> values, String error) {
+    }
+
+    private static final class CsvRows implements Iterator<ImportRow> {
+
+        private final CsvReader csv;
+        private final List<String> header = new ArrayList<>();
+        private ImportRow next;
+        private boolean finished;
+
+        CsvRows(BufferedReader reader) throws IOException {
+            this.csv = new CsvReader(reader, MAX_CSV_FIELD_LENGTH);
+            List<String> columns = csv.next();
+            if (columns == null) {
+                throw new IllegalArgumentException("CSV input is empty; expected a header row");
+            }
+            for (String column : columns) {
+                // Tolerate a UTF-8 byte order mark written by spreadsheet exports
+                header.add(normalizeKey(column.replace("\uFEFF", "")));
+            }
+            if (!header.contains("name") || !header.contains("price")) {
+                throw new IllegalArgumentException("CSV header must include 'name' and 'price' columns");
+            }
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public ImportRow next() {
+            ImportRow current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            if (finished) {
+                next = null;
+                return;
+            }
+            try {
+                List<String> record = csv.next();
+                if (record == null) {
+                    next = null;
+                } else if (record.size() != header.size()) {
+                    next = new ImportRow(csv.recordLine(), Map.of(),
+                            "expected " + header.size() + " columns but found " + record.size());
+                } else {
+                    Map<String, String> values = new HashMap<>();
+                    for (int i = 0; i < record.size(); i++) {
+                        values.put(header.get(i), record.get(i));
+                    }
+                    next = new ImportRow(csv.recordLine(), values, null);
+                }
+            } catch (CsvReader.MalformedCsvException e) {
+                // Reported like any bad row; nothing after it can be told apart into rows, so the import ends here
+                next = new ImportRow(csv.recordLine(), Map.of(), e.getMessage() + "; the rest of the input was not read");
+                finished = true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private final class NdjsonRows implements Iterator<ImportRow> {
+
+        private final LineReader lines;
+        private ImportRow next;
+
+        NdjsonRows(BufferedReader reader) {
+            this.lines = new LineReader(reader, MAX_NDJSON_LINE_LENGTH);
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public ImportRow next() {
+            ImportRow current = next;
+            advance();
+            return current;
+        }
+
+        private void advance() {
+            try {
+                String text;
+                do {
+                    text = lines.next();
+                } while (text != null && text.isBlank());
+                next = text == null ? null : parse(lines.line(), text);
+            } catch (LineReader.LineTooLongException e) {
+                // Only this line is lost; the next one starts a row as usual
+                next = new ImportRow(lines.line(), Map.of(), e.getMessage());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private ImportRow parse(long lineNumber, String text) {
+            JsonNode node;
+            try {
+                node = objectMapper.readTree(text);
+            } catch (JsonProcessingException e) {
+                return new ImportRow(lineNumber, Map.of(), "invalid JSON: " + e.getOriginalMessage());
+            }
+            if (!node.isObject()) {
+                return new ImportRow(lineNumber, Map.of(), "expected a JSON object");
+            }
+            Map<String, String> values = new HashMap<>();
+            node.fields().forEachRemaining(field -> {
+                JsonNode value = field.getValue();
+                values.put(normalizeKey(field.getKey()), value.isNull() ? null : value.asText());
+            });
+            return new ImportRow(lineNumber, values, null);
+        }
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.restaurantservice.services;
+
+import com.example.restaurantservice.dtos.NearbyRestaurantDto;
+import com.example.restaurantservice.entities.Restaurant;
+import com.example.restaurantservice.events.RestaurantChangedEvent;
+import com.example.restaurantservice.repository.RestaurantRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Fixed-size lat/lon grid over restaurant locations, used for radius and k-nearest queries.
+ *
+ * Each cell is {@value #CELL_DEGREES} degrees on a side (about 1 km north-south), so a
+ * query only looks at the cells its search circle overlaps and then checks exact
+ * great-circle distances for the restaurants in them. Longitude wraps around at 180 degrees.
+ * Near the poles cells shrink to nothing east-west; once a query would probe more cells than
+ * there are restaurants it checks every restaurant instead, which is exact and costs less.
+ */
+@Component
+public class RestaurantGeoIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestaurantGeoIndex.class);
+
+    private static final double CELL_DEGREES = 0.01;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final long LON_CELLS = Math.round(360 / CELL_DEGREES);
+    private static final long MIN_CELL_BUDGET = 4096;
+    private static final double MAX_SEARCH_RADIUS_KM = 50.0;
+
+    private final RestaurantRepository restaurantRepository;
+    private final double defaultDeliveryRadiusKm;
+    private final int prepMinutes;
+    private final double courierSpeedKmh;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, GeoEntry> entries = new HashMap<>();
+    private final Map<Long, List<GeoEntry>> cells = new HashMap<>();
+
+    public RestaurantGeoIndex(RestaurantRepository restaurantRepository,
+                              @Value("${geo.default-delivery-radius-km:5}") double defaultDeliveryRadiusKm,
+                              @Value("${geo.prep-minutes:15}") int prepMinutes,
+                              @Value("${geo.courier-speed-kmh:20}") double courierSpeedKmh) {
+        this.restaurantRepository = restaurantRepository;
+        this.defaultDeliveryRadiusKm = defaultDeliveryRadiusKm;
+        this.prepMinutes = prepMinutes;
+        this.courierSpeedKmh = courierSpeedKmh;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        restaurantRepository.findAll().forEach(this::index);
+        logger.info("Geo index loaded with {} located restaurants in {} cells", entries.size(), cells.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        if (event.deleted()) {
+            remove(event.restaurantId());
+            return;
+        }
+        restaurantRepository.findById(event.restaurantId())
+                .ifPresentOrElse(this::index, () -> remove(event.restaurantId()));
+    }
+
+    /**
+     * Adds, moves or removes a restaurant; restaurants without coordinates are simply not indexed.
+     */
+    public void index(Restaurant restaurant) {
+        if (restaurant == null || restaurant.getRestaurantId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(restaurant.getRestaurantId());
+            if (restaurant.getLatitude() == null || restaurant.getLongitude() == null) {
+                return;
+            }
+            double radius = restaurant.getDeliveryRadiusKm() != null
+                    ? restaurant.getDeliveryRadiusKm()
+                    : defaultDeliveryRadiusKm;
+            GeoEntry entry = new GeoEntry(restaurant.getRestaurantId(), restaurant.getName(),
+                    restaurant.getCuisineType(), restaurant.getImageUrl(), restaurant.getRating(),
+                    restaurant.getAddress(), restaurant.getLatitude(), restaurant.getLongitude(), radius);
+            entries.put(entry.id(), entry);
+            cells.computeIfAbsent(cellKey(entry.latitude(), entry.longitude()), k -> new ArrayList<>()).add(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long restaurantId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(restaurantId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Restaurants within {@code radiusKm} of the point, closest first.
+     *
+     * @param deliversOnly also require the point to be inside each restaurant's own delivery radius
+     */
+    public List<NearbyRestaurantDto> withinRadius(double latitude, double longitude, double radiusKm,
+                                                  boolean deliversOnly, int limit) {
+        double radius = Math.min(radiusKm, MAX_SEARCH_RADIUS_KM);
+        double angle = radius / EARTH_RADIUS_KM;
+        long latCells = (long) Math.ceil(Math.toDegrees(angle) / CELL_DEGREES);
+        // The circle is widest east-west away from the equator; around the whole world if it takes in a pole
+        double widest = Math.sin(angle) / Math.cos(Math.toRadians(latitude));
+        long lonSpan = widest >= 1 || Double.isNaN(widest) ? LON_CELLS
+                : Math.min(LON_CELLS, 2 * (long) Math.ceil(Math.toDegrees(Math.asin(widest)) / CELL_DEGREES) + 1);
+        long centerLat = cellIndex(latitude);
+        long firstLat = Math.max(centerLat - latCells, cellIndex(-90));
+        long lastLat = Math.min(centerLat + latCells, cellIndex(90));
+        long firstLon = cellIndex(longitude) - lonSpan / 2;
+
+        PriorityQueue<Candidate> closest = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distanceKm).reversed());
+        lock.readLock().lock();
+        try {
+            if ((lastLat - firstLat + 1) * lonSpan > cellBudget()) {
+                collect(entries.values(), latitude, longitude, radius, deliversOnly, limit, closest);
+            } else {
+                for (long lat = firstLat; lat <= lastLat; lat++) {
+                    for (long lon = firstLon; lon < firstLon + lonSpan; lon++) {
+                        collect(cells.get(packCell(lat, wrapLon(lon))), latitude, longitude, radius, deliversOnly,
+                                limit, closest);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return toDtos(closest);
+    }
+
+    /**
+     * The {@code k} closest restaurants, searched ring by ring outwards from the point's cell
+     * until no unvisited cell can hold anything closer than the current k-th result.
+     */
+    public List<NearbyRestaurantDto> nearest(double latitude, double longitude, int k, boolean deliversOnly) {
+        // The furthest from the equator anything in range can be, where cells are narrowest
+        double farthestLatitude = Math.min(90, Math.abs(latitude) + Math.toDegrees(MAX_SEARCH_RADIUS_KM / EARTH_RADIUS_KM));
+        long centerLat = cellIndex(latitude);
+        long centerLon = cellIndex(longitude);
+
+        PriorityQueue<Candidate> closest = new PriorityQueue<>(Comparator.comparingDouble(Candidate::distanceKm).reversed());
+        lock.readLock().lock();
+        try {
+            long budget = cellBudget();
+            long probed = 0;
+            for (long ring = 0; ; ring++) {
+                // Anything in this ring or beyond is at least (ring - 1) cells away
+                double beyondKm = ringDistanceKm(ring - 1, farthestLatitude);
+                if (beyondKm > MAX_SEARCH_RADIUS_KM || (closest.size() == k && beyondKm > closest.peek().distanceKm())) {
+                    break;
+                }
+                probed += ring == 0 ? 1 : 8 * ring;
+                if (probed > budget || 2 * ring + 1 > LON_CELLS) {
+                    // Cheaper than the cells still to go, and never sees a restaurant twice
+                    closest.clear();
+                    collect(entries.values(), latitude, longitude, MAX_SEARCH_RADIUS_KM, deliversOnly, k, closest);
+                    break;
+                }
+                for (long lat = centerLat - ring; lat <= centerLat + ring; lat++) {
+                    boolean edgeRow = lat == centerLat - ring || lat == centerLat + ring;
+                    long step = edgeRow ? 1 : 2 * ring;
+                    for (long lon = centerLon - ring; lon <= centerLon + ring; lon += step) {
+                        collect(cells.get(packCell(lat, wrapLon(lon))), latitude, longitude, MAX_SEARCH_RADIUS_KM,
+                                deliversOnly, k, closest);
+                    }
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return toDtos(closest);
+    }
+
+    /**
+     * Minutes from order to door: kitchen prep plus courier travel at the configured average speed.
+     */
+    public int estimateDeliveryMinutes(double distanceKm) {
+        return prepMinutes + (int) Math.ceil(distanceKm / courierSpeedKmh * 60);
+    }
+
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.sqrt(a));
+    }
+
+    private void collect(Collection<GeoEntry> cell, double latitude, double longitude, double radiusKm,
+                         boolean deliversOnly, int limit, PriorityQueue<Candidate> closest) {
+        if (cell == null) {
+            return;
+        }
+        for (GeoEntry entry : cell) {
+            double distance = distanceKm(latitude, longitude, entry.latitude(), entry.longitude());
+            if (distance > radiusKm || (deliversOnly && distance > entry.deliveryRadiusKm())) {
+                continue;
+            }
+            if (closest.size() < limit) {
+                closest.offer(new Candidate(entry, distance));
+            } else if (distance < closest.peek().distanceKm()) {
+                closest.poll();
+                closest.offer(new Candidate(entry, distance));
+            }
+        }
+    }
+
+    private List<NearbyRestaurantDto> toDtos(PriorityQueue<Candidate> closest) {
+        List<NearbyRestaurantDto> result = new ArrayList<>(closest.size());
+        while (!closest.isEmpty()) {
+            Candidate candidate = closest.poll();
+            GeoEntry entry = candidate.entry();
+            double distance = Math.round(candidate.distanceKm() * 100) / 100.0;
+            int minutes = estimateDeliveryMinutes(candidate.distanceKm());
+            result.add(0, new NearbyRestaurantDto(entry.id(), entry.name(), entry.cuisineType(), entry.imageUrl(),
+                    entry.rating(), entry.address(), entry.latitude(), entry.longitude(), distance, minutes,
+                    deliveryTimeLabel(minutes)));
+        }
+        return result;
+    }
+
+    // Same "30-40 min" shape as the static Restaurant.deliveryTime strings
+    private static String deliveryTimeLabel(int minutes) {
+        int low = Math.max(5, (minutes / 5) * 5);
+        return low + "-" + (low + 10) + " min";
+    }
+
+    private void removeLocked(Long restaurantId) {
+        GeoEntry previous = entries.remove(restaurantId);
+        if (previous == null) {
+            return;
+        }
+        long key = cellKey(previous.latitude(), previous.longitude());
+        List<GeoEntry> cell = cells.get(key);
+        cell.removeIf(entry -> entry.id().equals(restaurantId));
+        if (cell.isEmpty()) {
+            cells.remove(key);
+        }
+    }
+
+    // Cells to probe at most before checking every restaurant is cheaper; callers hold the lock
+    private long cellBudget() {
+        return Math.max(MIN_CELL_BUDGET, entries.size());
+    }
+
+    /**
+     * The least distance between two points {@code cellsApart} cells apart in latitude or
+     * longitude, neither further from the equator than {@code farthestLatitude}.
+     */
+    private static double ringDistanceKm(long cellsApart, double farthestLatitude) {
+        if (cellsApart <= 0) {
+            return 0;
+        }
+        double degrees = Math.min(180, cellsApart * CELL_DEGREES);
+        double northSouth = EARTH_RADIUS_KM * Math.toRadians(degrees);
+        double eastWest = 2 * EARTH_RADIUS_KM * Math.asin(
+                Math.cos(Math.toRadians(farthestLatitude)) * Math.sin(Math.toRadians(degrees) / 2));
+        return Math.min(northSouth, eastWest);
+    }
+
+    private static long wrapLon(long lonCell) {
+        return Math.floorMod(lonCell + LON_CELLS / 2, LON_CELLS) - LON_CELLS / 2;
+    }
+
+    private static long cellIndex(double degrees) {
+        return (long) Math.floor(degrees / CELL_DEGREES);
+    }
+
+    private static long cellKey(double latitude, double longitude) {
+        return packCell(cellIndex(latitude), wrapLon(cellIndex(longitude)));
+    }
+
+    private static long packCell(long latCell, long lonCell) {
+        return (latCell << 32) | (lonCell & 0xFFFFFFFFL);
+    }
+
+    private record GeoEntry(Long id, String name, String cuisineType, String imageUrl, Double rating,
+                            String address, double latitude, double longitude, double deliveryRadiusKm) {
+    }
+
+    private record Candidate(GeoEntry entry, double distanceKm) {
+    }
+}
@@ -0,0 +1,428 @@
+package com.example.restaurantservice.services;
+
+import com.example.restaurantservice.dtos.MenuItemDto;
+import com.example.restaurantservice.dtos.SearchHitDto;
+import com.example.restaurantservice.dtos.SearchResultDto;
+import com.example.restaurantservice.entities.MenuItem;
+import com.example.restaurantservice.entities.Restaurant;
+import com.example.restaurantservice.events.RestaurantChangedEvent;
+import com.example.restaurantservice.repository.RestaurantRepository;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory inverted index over restaurant names, cuisine types and menu item names/descriptions.
+ *
+ * Terms live in a sorted map so prefix queries are a range scan, and every term of
+ * {@value #MIN_FUZZY_LENGTH}+ characters is also registered under its single-character
+ * deletions so a one-typo lookup is a handful of hash probes instead of a vocabulary scan.
+ * The index is loaded once at startup and then kept current from {@link RestaurantChangedEvent}s.
+ */
+@Component
+@RequiredArgsConstructor
+public class RestaurantSearchIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(RestaurantSearchIndex.class);
+
+    // Field bits stored in the postings
+    private static final int FIELD_NAME = 1;
+    private static final int FIELD_CUISINE = 2;
+    private static final int FIELD_ITEM_NAME = 4;
+    private static final int FIELD_ITEM_DESCRIPTION = 8;
+
+    // How much a match counts depending on how the query token matched the term
+    private static final double EXACT_MATCH = 1.0;
+    private static final double PREFIX_MATCH = 0.6;
+    private static final double FUZZY_MATCH = 0.4;
+
+    private static final int MIN_FUZZY_LENGTH = 4;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final int MAX_MATCHED_ITEMS = 5;
+
+    private static final String UNRATED = "unrated";
+
+    private final RestaurantRepository restaurantRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, RestaurantDoc> restaurants = new HashMap<>();
+    private final Map<Long, MenuItemDto> items = new HashMap<>();
+    private final TreeMap<String, Postings> terms = new TreeMap<>();
+    private final Map<String, Set<String>> deletions = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        List<Restaurant> all = restaurantRepository.findAll();
+        all.forEach(this::index);
+        logger.info("Search index loaded with {} restaurants, {} menu items and {} terms",
+                restaurants.size(), items.size(), terms.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onRestaurantChanged(RestaurantChangedEvent event) {
+        if (event.deleted()) {
+            remove(event.restaurantId());
+            return;
+        }
+        restaurantRepository.findById(event.restaurantId())
+                .ifPresentOrElse(this::index, () -> remove(event.restaurantId()));
+    }
+
+    /**
+     * Adds or replaces a restaurant and its whole menu in the index.
+     */
+    public void index(Restaurant restaurant) {
+        if (restaurant == null || restaurant.getRestaurantId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeLocked(restaurant.getRestaurantId());
+
+            RestaurantDoc doc = new RestaurantDoc(restaurant.getRestaurantId(), restaurant.getName(),
+                    restaurant.getCuisineType(), restaurant.getRating(), restaurant.getImageUrl());
+            restaurants.put(doc.id, doc);
+
+            addField(doc, null, restaurant.getName(), FIELD_NAME);
+            addField(doc, null, restaurant.getCuisineType(), FIELD_CUISINE);
+
+            if (restaurant.getMenu() != null && restaurant.getMenu().getItems() != null) {
+                for (MenuItem menuItem : restaurant.getMenu().getItems()) {
+                    if (menuItem.getMenuItemId() == null) {
+                        continue;
+                    }
+                    items.put(menuItem.getMenuItemId(), toDto(menuItem));
+                    doc.itemIds.add(menuItem.getMenuItemId());
+                    addField(doc, menuItem.getMenuItemId(), menuItem.getName(), FIELD_ITEM_NAME);
+                    addField(doc, menuItem.getMenuItemId(), menuItem.getDescription(), FIELD_ITEM_DESCRIPTION);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long restaurantId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(restaurantId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a search. Every query token has to match the restaurant itself or one of its menu items,
+     * either exactly, as a prefix or within one typo.
+     *
+     * @param query     free text; blank lists every restaurant (useful for facet browsing)
+     * @param cuisine   optional cuisine filter, case-insensitive
+     * @param minRating optional minimum rating
+     * @param limit     maximum number of hits returned
+     */
+    public SearchResultDto search(String query, String cuisine, Double minRating, int limit) {
+        List<String> tokens = tokenize(query);
+
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> scores = new HashMap<>();
+            List<List<Match>> expansions = tokens.stream().map(this::expand).toList();
+
+            if (tokens.isEmpty()) {
+                restaurants.keySet().forEach(id -> scores.put(id, 0.0));
+            } else {
+                for (int i = 0; i < expansions.size(); i++) {
+                    Map<Long, Double> tokenScores = scoreToken(expansions.get(i));
+                    if (i == 0) {
+                        scores.putAll(tokenScores);
+                    } else {
+                        scores.keySet().retainAll(tokenScores.keySet());
+                        scores.replaceAll((id, score) -> score + tokenScores.get(id));
+                    }
+                    if (scores.isEmpty()) {
+                        break;
+                    }
+                }
+            }
+
+            Map<String, Long> cuisineFacets = new TreeMap<>();
+            Map<String, Long> ratingFacets = new LinkedHashMap<>();
+            for (String bucket : List.of("4.5-5.0", "4.0-4.5", "3.0-4.0", "0.0-3.0", UNRATED)) {
+                ratingFacets.put(bucket, 0L);
+            }
+
+            Comparator<RestaurantDoc> ranking = Comparator
+                    .<RestaurantDoc>comparingDouble(doc -> scores.get(doc.id))
+                    .thenComparingDouble(doc -> doc.rating != null ? doc.rating : 0.0)
+                    .thenComparing(doc -> -doc.id);
+            PriorityQueue<RestaurantDoc> top = new PriorityQueue<>(ranking);
+            long total = 0;
+
+            for (Long id : scores.keySet()) {
+                RestaurantDoc doc = restaurants.get(id);
+                boolean cuisineMatches = cuisine == null || cuisine.isBlank()
+                        || cuisine.equalsIgnoreCase(doc.cuisineType);
+                boolean ratingMatches = minRating == null || (doc.rating != null && doc.rating >= minRating);
+
+                if (ratingMatches && doc.cuisineType != null) {
+                    cuisineFacets.merge(doc.cuisineType, 1L, Long::sum);
+                }
+                if (cuisineMatches) {
+                    ratingFacets.merge(ratingBucket(doc.rating), 1L, Long::sum);
+                }
+                if (!cuisineMatches || !ratingMatches) {
+                    continue;
+                }
+
+                total++;
+                top.offer(doc);
+                if (top.size() > limit) {
+                    top.poll();
+                }
+            }
+
+            List<SearchHitDto> hits = new ArrayList<>(top.size());
+            while (!top.isEmpty()) {
+                RestaurantDoc doc = top.poll();
+                hits.add(0, new SearchHitDto(doc.id, doc.name, doc.cuisineType, doc.rating, doc.imageUrl,
+                        scores.get(doc.id), matchedItems(doc, expansions)));
+            }
+
+            return new SearchResultDto(query, total, hits, cuisineFacets, ratingFacets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Best score per restaurant for a single query token
+    private Map<Long, Double> scoreToken(List<Match> matches) {
+        Map<Long, Double> tokenScores = new HashMap<>();
+        for (Match match : matches) {
+            match.postings().restaurants.forEach((id, fields) ->
+                    tokenScores.merge(id, match.weight() * fieldWeight(fields), Math::max));
+        }
+        return tokenScores;
+    }
+
+    // Indexed terms a query token can stand for, with the weight of the best way it matches each
+    private List<Match> expand(String token) {
+        Map<String, Double> weights = new HashMap<>();
+
+        int prefixCount = 0;
+        for (String term : terms.subMap(token, true, token + Character.MAX_VALUE, false).keySet()) {
+            weights.put(term, term.equals(token) ? EXACT_MATCH : PREFIX_MATCH);
+            if (++prefixCount >= MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+        }
+
+        if (token.length() >= MIN_FUZZY_LENGTH) {
+            Set<String> candidates = new HashSet<>(deletions.getOrDefault(token, Set.of()));
+            for (String deleted : deletionsOf(token)) {
+                if (terms.containsKey(deleted)) {
+                    candidates.add(deleted);
+                }
+                candidates.addAll(deletions.getOrDefault(deleted, Set.of()));
+            }
+            for (String candidate : candidates) {
+                if (withinOneEdit(token, candidate)) {
+                    weights.putIfAbsent(candidate, FUZZY_MATCH);
+                }
+            }
+        }
+
+        List<Match> matches = new ArrayList<>(weights.size());
+        weights.forEach((term, weight) -> matches.add(new Match(terms.get(term), weight)));
+        return matches;
+    }
+
+    // Scored only for the restaurants actually returned, so broad terms don't touch every item posting
+    private List<MenuItemDto> matchedItems(RestaurantDoc doc, List<List<Match>> expansions) {
+        Map<Long, Double> itemScores = new HashMap<>();
+        for (List<Match> matches : expansions) {
+            for (Match match : matches) {
+                if (!match.postings().restaurants.containsKey(doc.id) || match.postings().items.isEmpty()) {
+                    continue;
+                }
+                for (Long itemId : doc.itemIds) {
+                    Integer fields = match.postings().items.get(itemId);
+                    if (fields != null) {
+                        itemScores.merge(itemId, match.weight() * fieldWeight(fields), Double::sum);
+                    }
+                }
+            }
+        }
+        return itemScores.entrySet().stream()
+                .sorted(Map.Entry.<Long, Double>comparingByValue().reversed())
+                .limit(MAX_MATCHED_ITEMS)
+                .map(entry -> items.get(entry.getKey()))
+                .toList();
+    }
+
+    private void addField(RestaurantDoc doc, Long itemId, String text, int field) {
+        for (String term : tokenize(text)) {
+            Postings postings = terms.get(term);
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(term, postings);
+                if (term.length() >= MIN_FUZZY_LENGTH) {
+                    for (String deleted : deletionsOf(term)) {
+                        deletions.computeIfAbsent(deleted, k -> new HashSet<>()).add(term);
+                    }
+                }
+            }
+            postings.restaurants.merge(doc.id, field, (a, b) -> a | b);
+            if (itemId != null) {
+                postings.items.merge(itemId, field, (a, b) -> a | b);
+            }
+            doc.terms.add(term);
+        }
+    }
+
+    private void removeLocked(Long restaurantId) {
+        RestaurantDoc doc = restaurants.remove(restaurantId);
+        if (doc == null) {
+            return;
+        }
+        doc.itemIds.forEach(items::remove);
+        for (String term : doc.terms) {
+            Postings postings = terms.get(term);
+            postings.restaurants.remove(doc.id);
+            doc.itemIds.forEach(postings.items::remove);
+            if (postings.restaurants.isEmpty()) {
+                terms.remove(term);
+                if (term.length() >= MIN_FUZZY_LENGTH) {
+                    for (String deleted : deletionsOf(term)) {
+                        Set<String> owners = deletions.get(deleted);
+                        if (owners != null && owners.remove(term) && owners.isEmpty()) {
+                            deletions.remove(deleted);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static double fieldWeight(int fields) {
+        if ((fields & FIELD_NAME) != 0) return 4.0;
+        if ((fields & FIELD_CUISINE) != 0) return 3.0;
+        if ((fields & FIELD_ITEM_NAME) != 0) return 2.0;
+        return 1.0;
+    }
+
+    private static String ratingBucket(Double rating) {
+        if (rating == null) return UNRATED;
+        if (rating >= 4.5) return "4.5-5.0";
+        if (rating >= 4.0) return "4.0-4.5";
+        if (rating >= 3.0) return "3.0-4.0";
+        return "0.0-3.0";
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        // Strip accents so "creme brulee" finds "Crème brûlée"
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .toLowerCase(Locale.ROOT);
+        List<String> tokens = new ArrayList<>();
+        for (String token : normalized.split("[^\\p{Alnum}]+")) {
+            if (!token.isEmpty() && !tokens.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private static List<String> deletionsOf(String term) {
+        List<String> result = new ArrayList<>(term.length());
+        for (int i = 0; i < term.length(); i++) {
+            result.add(term.substring(0, i) + term.substring(i + 1));
+        }
+        return result;
+    }
+
+    // True when a and b differ by at most one insertion, deletion, substitution or adjacent transposition
+    static boolean withinOneEdit(String a, String b) {
+        if (Math.abs(a.length() - b.length()) > 1) {
+            return false;
+        }
+        int i = 0;
+        while (i < a.length() && i < b.length() && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        if (a.length() == b.length()) {
+            if (i == a.length()) {
+                return true;
+            }
+            if (a.substring(i + 1).equals(b.substring(i + 1))) {
+                return true;
+            }
+            return i + 1 < a.length()
+                    && a.charAt(i) == b.charAt(i + 1)
+                    && a.charAt(i + 1) == b.charAt(i)
+                    && a.substring(i + 2).equals(b.substring(i + 2));
+        }
+        String longer = a.length() > b.length() ? a : b;
+        String shorter = a.length() > b.length() ? b : a;
+        return longer.substring(i + 1).equals(shorter.substring(i));
+    }
+
+    private static MenuItemDto toDto(MenuItem menuItem) {
+        MenuItemDto dto = new MenuItemDto();
+        dto.setId(menuItem.getMenuItemId());
+        dto.setName(menuItem.getName());
+        dto.setDescription(menuItem.getDescription());
+        dto.setPrice(menuItem.getPrice());
+        dto.setImageUrl(menuItem.getImageUrl());
+        dto.setCategory(menuItem.getCategory());
+        dto.setAvailable(menuItem.isAvailable());
+        return dto;
+    }
+
+    private static final class Postings {
+        // restaurant id / menu item id -> bitmask of the fields the term occurs in
+        private final Map<Long, Integer> restaurants = new HashMap<>();
+        private final Map<Long, Integer> items = new HashMap<>();
+    }
+
+    private record Match(Postings postings, double weight) {
+    }
+
+    private static final class RestaurantDoc {
+        private final Long id;
+        private final String name;
+        private final String cuisineType;
+        private final Double rating;
+        private final String imageUrl;
+        private final List<Long> itemIds = new ArrayList<>();
+        private final Set<String> terms = new HashSet<>();
+
+        private RestaurantDoc(Long id, String name, String cuisineType, Double rating, String imageUrl) {
+            this.id = id;
+            this.name = name;
+            this.cuisineType = cuisineType;
+            this.rating = rating;
+            this.imageUrl = imageUrl;
+        }
+    }
+}
@@ -1,13 +1,18 @@
 package com.example.restaurantservice.services;
 
+import com.example.restaurantservice.dtos.MenuAvailabilityDto;
 import com.example.restaurantservice.dtos.MenuItemDto;
 import com.example.restaurantservice.dtos.RestaurantDto;
 import com.example.restaurantservice.entities.Menu;
 import com.example.restaurantservice.entities.MenuItem;
 import com.example.restaurantservice.entities.Restaurant;
+import com.example.restaurantservice.events.RestaurantChangedEvent;
+import com.example.restaurantservice.repository.MenuItemAvailabilityRepository;
+import com.example.restaurantservice.repository.MenuItemRepository;
 import com.example.restaurantservice.repository.RestaurantRepository;
 import lombok.AllArgsConstructor;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -21,22 +26,32 @@ import java.util.UUID;
 public class RestaurantService {
 
     private final RestaurantRepository restaurantRepository;
+    private final MenuItemRepository menuItemRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ImageVariantService imageVariantService;
+    private final InlineImages inlineImages;
 
     public Restaurant createRestaurant(RestaurantDto restaurantDto) {
         Restaurant restaurant = new Restaurant();
         restaurant.setName(restaurantDto.getName());
         restaurant.setCuisineType(restaurantDto.getCuisineType());
-        restaurant.setImageUrl(restaurantDto.getImageUrl());
+        restaurant.setImageUrl(inlineImages.externalize(restaurantDto.getImageUrl()));
         restaurant.setRating(restaurantDto.getRating());
         restaurant.setDeliveryTime(restaurantDto.getDeliveryTime());
         restaurant.setAddress(restaurantDto.getAddress());
         restaurant.setPhoneNumber(restaurantDto.getPhoneNumber());
+        restaurant.setLatitude(restaurantDto.getLatitude());
+        restaurant.setLongitude(restaurantDto.getLongitude());
+        restaurant.setDeliveryRadiusKm(restaurantDto.getDeliveryRadiusKm());
 
         Menu menu = new Menu();
         menu.setItems(new ArrayList<>());
         restaurant.setMenu(menu);
 
-        return restaurantRepository.save(restaurant);
+        Restaurant saved = restaurantRepository.save(restaurant);
+        eventPublisher.publishEvent(RestaurantChangedEvent.updated(saved.getRestaurantId()));
+        imageVariantService.scheduleRestaurantVariants(saved.getRestaurantId(), saved.getImageUrl());
+        return saved;
     }
 
     public List<Restaurant> getAllRestaurants() {
@@ -53,32 +68,48 @@ public class RestaurantService {
     }
 
     public MenuItem addMenuItemToMenu(Long restaurantId, MenuItemDto menuItemDto) {
-        Restaurant restaurant = getRestaurantById(restaurantId);
+        Long menuId = restaurantRepository.findMenuIdById(restaurantId)
+                .orElseThrow(() -> new RuntimeException("Restaurant not found with id: " + restaurantId));
 
         MenuItem newItem = new MenuItem();
         newItem.setName(menuItemDto.getName());
         newItem.setDescription(menuItemDto.getDescription());
         newItem.setPrice(menuItemDto.getPrice());
         newItem.setImageUrl(menuItemDto.getImageUrl());
+        newItem.setCategory(menuItemDto.getCategory());
         newItem.setAvailable(menuItemDto.isAvailable());
+        newItem.setMenuId(menuId);
 
-        restaurant.getMenu().getItems().add(newItem);
-        // Saving the parent (Restaurant) will cascade and save the new MenuItem
-        restaurantRepository.save(restaurant);
+        // Inserted directly rather than through the menu, so the existing items are never loaded
+        MenuItem saved = menuItemRepository.save(newItem);
+        eventPublisher.publishEvent(RestaurantChangedEvent.menuItemsChanged(restaurantId, List.of(saved.getMenuItemId())));
 
-        return newItem;
+        return saved;
     }
 
     public Restaurant updateRestaurant(Long restaurantId, RestaurantDto restaurantDto) {
         Restaurant existingRestaurant = getRestaurantById(restaurantId);
         existingRestaurant.setName(restaurantDto.getName());
         existingRestaurant.setCuisineType(restaurantDto.getCuisineType());
-        existingRestaurant.setImageUrl(restaurantDto.getImageUrl());
+        String imageUrl = inlineImages.externalize(restaurantDto.getImageUrl());
+        boolean imageChanged = !java.util.Objects.equals(existingRestaurant.getImageUrl(), imageUrl);
+        if (imageChanged) {
+            existingRestaurant.setImageUrl(imageUrl);
+            existingRestaurant.setImageVariantUrls(null);
+        }
         existingRestaurant.setRating(restaurantDto.getRating());
         existingRestaurant.setDeliveryTime(restaurantDto.getDeliveryTime());
         existingRestaurant.setAddress(restaurantDto.getAddress());
         existingRestaurant.setPhoneNumber(restaurantDto.getPhoneNumber());
-        return restaurantRepository.save(existingRestaurant);
+        existingRestaurant.setLatitude(restaurantDto.getLatitude());
+        existingRestaurant.setLongitude(restaurantDto.getLongitude());
+        existingRestaurant.setDeliveryRadiusKm(restaurantDto.getDeliveryRadiusKm());
+        Restaurant saved = restaurantRepository.save(existingRestaurant);
+        eventPublisher.publishEvent(RestaurantChangedEvent.detailsUpdated(restaurantId));
+        if (imageChanged) {
+            imageVariantService.scheduleRestaurantVariants(restaurantId, saved.getImageUrl());
+        }
+        return saved;
     }
 
     public void deleteRestaurant(Long restaurantId) {
@@ -86,6 +117,7 @@ public class RestaurantService {
             throw new RuntimeException("Restaurant not found with id: " + restaurantId);
         }
         restaurantRepository.deleteById(restaurantId);
+        eventPublisher.publishEvent(RestaurantChangedEvent.deleted(restaurantId));
     }
 
     public String updateOrderStatus(Long orderId, String status) {
@@ -95,63 +127,88 @@ public class RestaurantService {
     }
 
     public MenuItem updateMenuItem(Long restaurantId, Long menuItemId, MenuItemDto menuItemDto) {
-        Restaurant restaurant = getRestaurantById(restaurantId);
-        Menu menu = restaurant.getMenu();
-        
-        MenuItem itemToUpdate = menu.getItems().stream()
-                .filter(item -> item.getMenuItemId().equals(menuItemId))
-                .findFirst()
-                .orElseThrow(() -> new RuntimeException("Menu item not found with id: " + menuItemId));
-        
+        MenuItem itemToUpdate = getMenuItem(restaurantId, menuItemId);
+
         itemToUpdate.setName(menuItemDto.getName());
         itemToUpdate.setDescription(menuItemDto.getDescription());
         itemToUpdate.setPrice(menuItemDto.getPrice());
-        itemToUpdate.setImageUrl(menuItemDto.getImageUrl());
+        boolean imageChanged = !java.util.Objects.equals(itemToUpdate.getImageUrl(), menuItemDto.getImageUrl());
+        if (imageChanged) {
+            itemToUpdate.setImageUrl(menuItemDto.getImageUrl());
+            itemToUpdate.setImageVariantUrls(null);
+        }
+        itemToUpdate.setCategory(menuItemDto.getCategory());
         itemToUpdate.setAvailable(menuItemDto.isAvailable());
-        
-        restaurantRepository.save(restaurant);
+
+        // Flushed as a single UPDATE by primary key when the transaction commits
+        eventPublisher.publishEvent(RestaurantChangedEvent.menuItemsChanged(restaurantId, List.of(menuItemId)));
+        if (imageChanged) {
+            imageVariantService.scheduleMenuItemVariants(menuItemId, itemToUpdate.getImageUrl());
+        }
         return itemToUpdate;
     }
 
     public void deleteMenuItem(Long restaurantId, Long menuItemId) {
-        Restaurant restaurant = getRestaurantById(restaurantId);
-        Menu menu = restaurant.getMenu();
-        
-        boolean removed = menu.getItems().removeIf(item -> item.getMenuItemId().equals(menuItemId));
-        
-        if (!removed) {
-            throw new RuntimeException("Menu item not found with id: " + menuItemId);
+        if (menuItemRepository.deleteByIdAndRestaurantId(menuItemId, restaurantId) == 0) {
+            throw menuItemNotFound(restaurantId, menuItemId);
         }
-        
-        restaurantRepository.save(restaurant);
+        eventPublisher.publishEvent(RestaurantChangedEvent.menuItemsChanged(restaurantId, List.of(menuItemId)));
     }
 
-    public java.util.Map<String, Object> markAllMenuItemsAvailable() {
-        List<Restaurant> allRestaurants = restaurantRepository.findAll();
-        int totalItemsUpdated = 0;
-        int totalRestaurants = 0;
-
-        for (Restaurant restaurant : allRestaurants) {
-            Menu menu = restaurant.getMenu();
-            if (menu != null && menu.getItems() != null) {
-                for (MenuItem item : menu.getItems()) {
-                    if (!item.isAvailable()) {
-                        item.setAvailable(true);
-                        totalItemsUpdated++;
-                    }
-                }
-                if (!menu.getItems().isEmpty()) {
-                    totalRestaurants++;
-                    restaurantRepository.save(restaurant);
-                }
-            }
+    private MenuItem getMenuItem(Long restaurantId, Long menuItemId) {
+        return menuItemRepository.findByIdAndRestaurantId(menuItemId, restaurantId)
+                .orElseThrow(() -> menuItemNotFound(restaurantId, menuItemId));
+    }
+
+    // Only reached on a miss, to keep telling callers which of the two ids was wrong
+    private RuntimeException menuItemNotFound(Long restaurantId, Long menuItemId) {
+        if (!restaurantRepository.existsById(restaurantId)) {
+            return new RuntimeException("Restaurant not found with id: " + restaurantId);
         }
+        return new RuntimeException("Menu item not found with id: " + menuItemId);
+    }
+
+    public java.util.Map<String, Object> markAllMenuItemsAvailable() {
+        MenuItemAvailabilityRepository.AvailabilityChange change =
+                menuItemRepository.setAvailability(null, null, null, true);
+        change.affectedRestaurants()
+                .forEach(id -> eventPublisher.publishEvent(RestaurantChangedEvent.updated(id)));
 
         return java.util.Map.of(
             "success", true,
             "message", "All menu items marked as available",
-            "totalRestaurants", totalRestaurants,
-            "totalItemsUpdated", totalItemsUpdated
+            "totalRestaurants", change.affectedRestaurants().size(),
+            "totalItemsUpdated", change.updatedItems()
+        );
+    }
+
+    /**
+     * Marks matching menu items available or unavailable with one UPDATE and publishes a single
+     * change event per restaurant that had items flipped.
+     *
+     * @param restaurantId restaurant whose menu to change, or null for every restaurant
+     */
+    public java.util.Map<String, Object> updateMenuAvailability(Long restaurantId, MenuAvailabilityDto request) {
+        if (request == null || request.getAvailable() == null) {
+            throw new IllegalArgumentException("'available' is required");
+        }
+        if (restaurantId != null && !restaurantRepository.existsById(restaurantId)) {
+            throw new RuntimeException("Restaurant not found with id: " + restaurantId);
+        }
+        String category = request.getCategory() == null || request.getCategory().isBlank()
+                ? null
+                : request.getCategory();
+
+        MenuItemAvailabilityRepository.AvailabilityChange change = menuItemRepository.setAvailability(
+                restaurantId, request.getItemIds(), category, request.getAvailable());
+        change.affectedRestaurants()
+                .forEach(id -> eventPublisher.publishEvent(RestaurantChangedEvent.updated(id)));
+
+        return java.util.Map.of(
+            "available", request.getAvailable(),
+            "totalItemsUpdated", change.updatedItems(),
+            "totalRestaurants", change.affectedRestaurants().size(),
+            "restaurantIds", change.affectedRestaurants()
         );
     }
-}
\ No newline at end of file
+}
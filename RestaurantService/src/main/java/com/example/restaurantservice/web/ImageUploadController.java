@@ -1,6 +1,8 @@
 package com.example.restaurantservice.web;
 
-import org.springframework.beans.factory.annotation.Value;
+import com.example.restaurantservice.services.ImageStore;
+import com.example.restaurantservice.services.InlineImageBackfill;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -8,19 +10,16 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
 
-import java.io.File;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.util.UUID;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/images")
+@RequiredArgsConstructor
 public class ImageUploadController {
 
-    @Value("${file.upload-dir}")
-    private String uploadDir;
+    private final ImageStore imageStore;
+    private final InlineImageBackfill inlineImageBackfill;
 
     @PostMapping("/upload")
     public ResponseEntity<String> uploadImage(@RequestParam("file") MultipartFile file) {
@@ -29,27 +28,17 @@ public class ImageUploadController {
         }
 
         try {
-            // Create the upload directory if it doesn't exist
-            Path uploadPath = Paths.get(uploadDir);
-            if (!Files.exists(uploadPath)) {
-                Files.createDirectories(uploadPath);
-            }
-
-            // Generate a unique filename
-            String originalFilename = file.getOriginalFilename();
-            String filename = UUID.randomUUID().toString() + "." + originalFilename.substring(originalFilename.lastIndexOf(".") + 1);
-
-            // Save the file to the upload directory
-            Path filePath = uploadPath.resolve(filename);
-            Files.copy(file.getInputStream(), filePath);
-
-            // Return the URL of the uploaded file
-            String fileUrl = "/uploads/" + filename;
-            return ResponseEntity.ok(fileUrl);
-
+            // Identical uploads resolve to the same content-addressed URL
+            return ResponseEntity.ok(imageStore.store(file).url());
         } catch (IOException e) {
             e.printStackTrace();
             return ResponseEntity.status(500).body("Failed to upload file");
         }
     }
+
+    // POST /api/images/backfill-inline - Move restaurant images still stored as data URIs into the image store
+    @PostMapping("/backfill-inline")
+    public ResponseEntity<Map<String, Object>> backfillInlineImages() {
+        return ResponseEntity.ok(inlineImageBackfill.run());
+    }
 }
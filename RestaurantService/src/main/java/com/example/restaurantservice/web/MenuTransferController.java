@@ -0,0 +1,53 @@
+package com.example.restaurantservice.web;
+
+import com.example.restaurantservice.dtos.MenuImportResultDto;
+import com.example.restaurantservice.services.MenuTransferService;
+import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.util.Locale;
+
+@RestController
+@RequestMapping("/api/restaurants/{restaurantId}/menu")
+@RequiredArgsConstructor
+public class MenuTransferController {
+
+    private final MenuTransferService menuTransferService;
+
+    // POST /api/restaurants/{restaurantId}/menu/import?format=csv&replace=false
+    // The request body is the file itself (Content-Type text/csv or application/x-ndjson), read as a stream
+    @PostMapping("/import")
+    public ResponseEntity<MenuImportResultDto> importMenu(
+            @PathVariable Long restaurantId,
+            @RequestParam(required = false) String format,
+            @RequestParam(defaultValue = "false") boolean replace,
+            HttpServletRequest request) throws IOException {
+        MenuTransferService.Format resolved = MenuTransferService.Format.resolve(format, request.getContentType());
+        return ResponseEntity.ok(menuTransferService.importMenu(restaurantId, request.getInputStream(), resolved, replace));
+    }
+
+    // GET /api/restaurants/{restaurantId}/menu/export?format=csv|ndjson
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportMenu(
+            @PathVariable Long restaurantId,
+            @RequestParam(defaultValue = "csv") String format) {
+        MenuTransferService.Format resolved = MenuTransferService.Format.resolve(format, null);
+        StreamingResponseBody body = menuTransferService.exportMenu(restaurantId, resolved);
+        String filename = "menu-" + restaurantId + "." + resolved.name().toLowerCase(Locale.ROOT);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(resolved.mediaType() + ";charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.restaurantservice.web;
+
+import com.example.restaurantservice.dtos.NearbyRestaurantDto;
+import com.example.restaurantservice.services.RestaurantGeoIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/restaurants/nearby")
+@RequiredArgsConstructor
+public class NearbyController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final RestaurantGeoIndex geoIndex;
+
+    // GET /api/restaurants/nearby?lat=34.07&lon=-118.40 - the closest restaurants that deliver to this point
+    // GET /api/restaurants/nearby?lat=34.07&lon=-118.40&radiusKm=3 - everything within 3 km, closest first
+    @GetMapping
+    public ResponseEntity<List<NearbyRestaurantDto>> nearby(
+            @RequestParam double lat,
+            @RequestParam double lon,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(defaultValue = "true") boolean deliversOnly,
+            @RequestParam(defaultValue = "20") int limit) {
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    String.format("Coordinates (%s, %s) are out of range", lat, lon));
+        }
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        if (radiusKm != null) {
+            return ResponseEntity.ok(geoIndex.withinRadius(lat, lon, radiusKm, deliversOnly, boundedLimit));
+        }
+        return ResponseEntity.ok(geoIndex.nearest(lat, lon, boundedLimit, deliversOnly));
+    }
+}
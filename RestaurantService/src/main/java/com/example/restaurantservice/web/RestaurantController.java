@@ -1,4 +1,5 @@
 package com.example.restaurantservice.web;
+import com.example.restaurantservice.dtos.MenuAvailabilityDto;
 import com.example.restaurantservice.dtos.MenuItemDto;
 import com.example.restaurantservice.dtos.RestaurantDto;
 import com.example.restaurantservice.entities.Menu;
@@ -108,6 +109,21 @@ public class RestaurantController {
         return ResponseEntity.noContent().build();
     }
 
+    // PUT /restaurants/menu/items/availability - Change availability of items across all restaurants
+    @PutMapping("/menu/items/availability")
+    public ResponseEntity<Map<String, Object>> updateAllMenuAvailability(@RequestBody MenuAvailabilityDto request) {
+        return ResponseEntity.ok(restaurantService.updateMenuAvailability(null, request));
+    }
+
+    // PUT /restaurants/{restaurantId}/menu/items/availability - Change availability of a restaurant's items
+    @PutMapping("/{restaurantId}/menu/items/availability")
+    public ResponseEntity<Map<String, Object>> updateMenuAvailability(
+            @PathVariable String restaurantId,
+            @RequestBody MenuAvailabilityDto request) {
+        Long id = parseIdOrThrow(restaurantId, "restaurantId");
+        return ResponseEntity.ok(restaurantService.updateMenuAvailability(id, request));
+    }
+
     // Helper to parse String id and throw a 400 with clear message when invalid
     private Long parseIdOrThrow(String idValue, String paramName) {
         try {
@@ -0,0 +1,31 @@
+package com.example.restaurantservice.web;
+
+import com.example.restaurantservice.dtos.SearchResultDto;
+import com.example.restaurantservice.services.RestaurantSearchIndex;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/restaurants/search")
+@RequiredArgsConstructor
+public class SearchController {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final RestaurantSearchIndex searchIndex;
+
+    // GET /api/restaurants/search?q=pizza&cuisine=Italian&minRating=4&limit=20
+    @GetMapping
+    public ResponseEntity<SearchResultDto> search(
+            @RequestParam(name = "q", required = false) String query,
+            @RequestParam(required = false) String cuisine,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(defaultValue = "20") int limit) {
+        int boundedLimit = Math.max(1, Math.min(limit, MAX_LIMIT));
+        return ResponseEntity.ok(searchIndex.search(query, cuisine, minRating, boundedLimit));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.restaurantservice.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvReaderTest {
+
+    private static CsvReader reader(String input) {
+        return new CsvReader(new StringReader(input), 16);
+    }
+
+    @Test
+    void readsQuotedFieldsEscapesAndLineBreaks() throws IOException {
+        CsvReader csv = reader("name,price\r\n\"Pizza, large\",12.5\n\"say \"\"hi\"\"\",1\n\"two\nlines\",3");
+
+        assertEquals(List.of("name", "price"), csv.next());
+        assertEquals(1, csv.recordLine());
+        assertEquals(List.of("Pizza, large", "12.5"), csv.next());
+        assertEquals(List.of("say \"hi\"", "1"), csv.next());
+        assertEquals(List.of("two\nlines", "3"), csv.next());
+        assertEquals(4, csv.recordLine());
+        assertNull(csv.next());
+    }
+
+    @Test
+    void skipsBlankLinesAndKeepsEmptyFields() throws IOException {
+        CsvReader csv = reader("\n\na,,b\n\n,\n");
+
+        assertEquals(List.of("a", "", "b"), csv.next());
+        assertEquals(3, csv.recordLine());
+        assertEquals(List.of("", ""), csv.next());
+        assertEquals(5, csv.recordLine());
+        assertNull(csv.next());
+    }
+
+    @Test
+    void escapeRoundTrips() throws IOException {
+        String value = "a \"quoted\", multi\nline value";
+        CsvReader csv = new CsvReader(new StringReader(CsvReader.escape(value) + "," + CsvReader.escape("plain")), 100);
+
+        assertEquals(List.of(value, "plain"), csv.next());
+        assertEquals("", CsvReader.escape(null));
+    }
+
+    @Test
+    void unterminatedQuoteIsMalformed() throws IOException {
+        CsvReader csv = reader("a,b\n\"never closed,1\n");
+
+        assertEquals(List.of("a", "b"), csv.next());
+        CsvReader.MalformedCsvException e = assertThrows(CsvReader.MalformedCsvException.class, csv::next);
+        assertTrue(e.getMessage().contains("line 2"));
+    }
+
+    @Test
+    void overlongFieldIsMalformed() {
+        assertThrows(CsvReader.MalformedCsvException.class, () -> reader("x".repeat(17)).next());
+        assertThrows(CsvReader.MalformedCsvException.class, () -> reader("\"" + "x".repeat(17) + "\"").next());
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.restaurantservice.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LineReaderTest {
+
+    private static LineReader reader(String input) {
+        return new LineReader(new StringReader(input), 8);
+    }
+
+    @Test
+    void readsLinesWithAnyLineEnding() throws IOException {
+        LineReader lines = reader("one\ntwo\r\nthree\rfour\n\nlast");
+
+        assertEquals("one", lines.next());
+        assertEquals("two", lines.next());
+        assertEquals("three", lines.next());
+        assertEquals("four", lines.next());
+        assertEquals("", lines.next());
+        assertEquals("last", lines.next());
+        assertEquals(6, lines.line());
+        assertNull(lines.next());
+    }
+
+    @Test
+    void reportsALineOverTheLimitAndCarriesOnAfterIt() throws IOException {
+        LineReader lines = reader("12345678\n123456789\r\nafter\n" + "x".repeat(100_000));
+
+        assertEquals("12345678", lines.next());
+        LineReader.LineTooLongException tooLong = assertThrows(LineReader.LineTooLongException.class, lines::next);
+        assertEquals("line 2 is longer than 8 characters", tooLong.getMessage());
+        assertEquals("after", lines.next());
+        assertEquals(3, lines.line());
+        assertThrows(LineReader.LineTooLongException.class, lines::next);
+        assertEquals(4, lines.line());
+        assertNull(lines.next());
+    }
+
+    @Test
+    void hasNoLinesWhenEmpty() throws IOException {
+        assertNull(reader("").next());
+    }
+}
@@ -0,0 +1,136 @@
+package com.example.restaurantservice.services;
+
+import com.example.restaurantservice.dtos.NearbyRestaurantDto;
+import com.example.restaurantservice.entities.Restaurant;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RestaurantGeoIndexTest {
+
+    // Only warmUp and change events read the repository
+    private final RestaurantGeoIndex index = new RestaurantGeoIndex(null, 5, 15, 20);
+
+    @Test
+    void nearestMatchesABruteForceScan() {
+        Random random = new Random(42);
+        List<Restaurant> restaurants = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            // Scattered over roughly 40 x 30 km around Paris, with a few far-off outliers
+            double latitude = 48.7 + random.nextDouble() * 0.35 + (id % 97 == 0 ? 2 : 0);
+            double longitude = 2.1 + random.nextDouble() * 0.5;
+            Restaurant restaurant = restaurant(id, latitude, longitude, 1 + random.nextDouble() * 6);
+            restaurants.add(restaurant);
+            index.index(restaurant);
+        }
+
+        for (int query = 0; query < 50; query++) {
+            double latitude = 48.65 + random.nextDouble() * 0.45;
+            double longitude = 2.05 + random.nextDouble() * 0.6;
+            int k = 1 + random.nextInt(20);
+            boolean deliversOnly = query % 2 == 0;
+
+            assertEquals(bruteForce(restaurants, latitude, longitude, 50, k, deliversOnly),
+                    ids(index.nearest(latitude, longitude, k, deliversOnly)));
+        }
+    }
+
+    @Test
+    void answersQuicklyAndCorrectlyAtThePolesAndAcrossTheDateLine() {
+        Random random = new Random(7);
+        List<Restaurant> restaurants = new ArrayList<>();
+        for (long id = 1; id <= 400; id++) {
+            // Half within 30 km of the North Pole, half straddling 180 degrees in the Bering Strait
+            boolean polar = id % 2 == 0;
+            double latitude = polar ? 89.73 + random.nextDouble() * 0.27 : 65.5 + random.nextDouble() * 0.4;
+            double longitude = polar ? -180 + random.nextDouble() * 360 : 179.6 + random.nextDouble() * 0.8;
+            if (longitude > 180) {
+                longitude -= 360;
+            }
+            Restaurant restaurant = restaurant(id, latitude, longitude, 5);
+            restaurants.add(restaurant);
+            index.index(restaurant);
+        }
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (double[] point : new double[][]{{90, 0}, {-90, 0}, {89.9, 45}, {89.999, -120}, {65.7, 180},
+                    {65.7, -180}, {65.7, 179.95}, {65.7, -179.95}}) {
+                for (int k : new int[]{1, 5, 300}) {
+                    assertEquals(bruteForce(restaurants, point[0], point[1], 50, k, false),
+                            ids(index.nearest(point[0], point[1], k, false)), Arrays.toString(point) + " k=" + k);
+                }
+                assertEquals(bruteForce(restaurants, point[0], point[1], 20, 500, false),
+                        ids(index.withinRadius(point[0], point[1], 20, false, 500)), Arrays.toString(point));
+                assertEquals(bruteForce(restaurants, point[0], point[1], 50, 500, true),
+                        ids(index.withinRadius(point[0], point[1], 1000, true, 500)), Arrays.toString(point));
+            }
+        });
+    }
+
+    @Test
+    void withinRadiusReturnsOnlyWhatIsInsideClosestFirst() {
+        index.index(restaurant(1L, 48.8566, 2.3522, 5.0));
+        index.index(restaurant(2L, 48.8600, 2.3522, 5.0));
+        index.index(restaurant(3L, 48.9000, 2.3522, 1.0));
+        index.index(restaurant(4L, 49.5000, 2.3522, 5.0));
+
+        List<NearbyRestaurantDto> nearby = index.withinRadius(48.8566, 2.3522, 10, false, 10);
+
+        assertEquals(List.of(1L, 2L, 3L), ids(nearby));
+        assertEquals(0.0, nearby.get(0).getDistanceKm());
+        assertEquals(15, nearby.get(0).getEstimatedDeliveryMinutes());
+        // Restaurant 3 is about 4.8 km away but only delivers within 1 km
+        assertEquals(List.of(1L, 2L), ids(index.withinRadius(48.8566, 2.3522, 10, true, 10)));
+        assertEquals(List.of(1L), ids(index.withinRadius(48.8566, 2.3522, 10, false, 1)));
+    }
+
+    @Test
+    void followsMovesAndRemovals() {
+        index.index(restaurant(1L, 48.8566, 2.3522, 5.0));
+        index.index(restaurant(2L, 48.8600, 2.3522, 5.0));
+
+        index.index(restaurant(1L, 45.7640, 4.8357, 5.0));
+        index.remove(2L);
+
+        assertTrue(index.nearest(48.8566, 2.3522, 5, false).isEmpty());
+        assertEquals(List.of(1L), ids(index.nearest(45.7640, 4.8357, 5, false)));
+    }
+
+    private static List<Long> bruteForce(List<Restaurant> restaurants, double latitude, double longitude,
+                                         double radiusKm, int k, boolean deliversOnly) {
+        return restaurants.stream()
+                .filter(r -> distance(r, latitude, longitude) <= radiusKm)
+                .filter(r -> !deliversOnly || distance(r, latitude, longitude) <= r.getDeliveryRadiusKm())
+                .sorted(Comparator.comparingDouble(r -> distance(r, latitude, longitude)))
+                .limit(k)
+                .map(Restaurant::getRestaurantId)
+                .toList();
+    }
+
+    private static double distance(Restaurant restaurant, double latitude, double longitude) {
+        return RestaurantGeoIndex.distanceKm(latitude, longitude, restaurant.getLatitude(), restaurant.getLongitude());
+    }
+
+    private static List<Long> ids(List<NearbyRestaurantDto> restaurants) {
+        return restaurants.stream().map(NearbyRestaurantDto::getId).toList();
+    }
+
+    private static Restaurant restaurant(Long id, double latitude, double longitude, double deliveryRadiusKm) {
+        Restaurant restaurant = new Restaurant();
+        restaurant.setRestaurantId(id);
+        restaurant.setName("Restaurant " + id);
+        restaurant.setLatitude(latitude);
+        restaurant.setLongitude(longitude);
+        restaurant.setDeliveryRadiusKm(deliveryRadiusKm);
+        return restaurant;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.restaurantservice.services;
+
+import com.example.restaurantservice.dtos.SearchHitDto;
+import com.example.restaurantservice.dtos.SearchResultDto;
+import com.example.restaurantservice.entities.Menu;
+import com.example.restaurantservice.entities.MenuItem;
+import com.example.restaurantservice.entities.Restaurant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RestaurantSearchIndexTest {
+
+    private RestaurantSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        // Only warmUp and change events read the repository
+        index = new RestaurantSearchIndex(null);
+        index.index(restaurant(1L, "Pizzeria Napoli", "Italian", 4.6, "Margherita", "Tomato, mozzarella, basil"));
+        index.index(restaurant(2L, "Sushi Bar", "Japanese", 4.1, "Salmon nigiri", "Fresh salmon on rice"));
+        index.index(restaurant(3L, "Le Bistrot", "French", null, "Crème brûlée", "Vanilla custard"));
+    }
+
+    @Test
+    void findsExactPrefixAndAccentFreeMatches() {
+        assertEquals(List.of(1L), ids(index.search("napoli", null, null, 10)));
+        assertEquals(List.of(1L), ids(index.search("pizz", null, null, 10)));
+        assertEquals(List.of(3L), ids(index.search("creme brulee", null, null, 10)));
+    }
+
+    @Test
+    void toleratesOneTypo() {
+        // Substitution, deletion, insertion and transposition
+        assertEquals(List.of(2L), ids(index.search("salmen", null, null, 10)));
+        assertEquals(List.of(2L), ids(index.search("salon", null, null, 10)));
+        assertEquals(List.of(1L), ids(index.search("mozzarrella", null, null, 10)));
+        assertEquals(List.of(1L), ids(index.search("npaoli", null, null, 10)));
+        assertTrue(ids(index.search("slamen", null, null, 10)).isEmpty());
+    }
+
+    @Test
+    void ranksExactAboveFuzzyAndNamesAboveMenuItems() {
+        index.index(restaurant(4L, "Salmen House", "Seafood", 3.0, "Fish soup", "Daily catch"));
+
+        List<SearchHitDto> hits = index.search("salmen", null, null, 10).getHits();
+
+        assertEquals(List.of(4L, 2L), hits.stream().map(SearchHitDto::getId).toList());
+        assertTrue(hits.get(0).getScore() > hits.get(1).getScore());
+        assertEquals("Salmon nigiri", hits.get(1).getMatchedItems().get(0).getName());
+    }
+
+    @Test
+    void requiresEveryTokenAndAppliesFilters() {
+        assertEquals(List.of(2L), ids(index.search("sushi salmon", null, null, 10)));
+        assertTrue(ids(index.search("sushi basil", null, null, 10)).isEmpty());
+
+        SearchResultDto all = index.search("", null, 4.0, 10);
+        assertEquals(List.of(1L, 2L), ids(all));
+        assertEquals(1L, all.getRatingFacets().get("unrated"));
+        assertEquals(List.of(2L), ids(index.search("", "japanese", null, 10)));
+    }
+
+    @Test
+    void forgetsRemovedAndReplacedRestaurants() {
+        index.remove(2L);
+        index.index(restaurant(1L, "Trattoria Roma", "Italian", 4.6, "Carbonara", "Egg and guanciale"));
+
+        assertTrue(ids(index.search("salmon", null, null, 10)).isEmpty());
+        assertTrue(ids(index.search("napoli", null, null, 10)).isEmpty());
+        assertEquals(List.of(1L), ids(index.search("roma", null, null, 10)));
+        assertFalse(ids(index.search("carbonera", null, null, 10)).isEmpty());
+    }
+
+    @Test
+    void comparesWithinOneEdit() {
+        assertTrue(RestaurantSearchIndex.withinOneEdit("pizza", "pizza"));
+        assertTrue(RestaurantSearchIndex.withinOneEdit("pizza", "piza"));
+        assertTrue(RestaurantSearchIndex.withinOneEdit("pizza", "pizzas"));
+        assertTrue(RestaurantSearchIndex.withinOneEdit("pizza", "pizca"));
+        assertTrue(RestaurantSearchIndex.withinOneEdit("pizza", "ipzza"));
+        assertFalse(RestaurantSearchIndex.withinOneEdit("pizza", "pasta"));
+        assertFalse(RestaurantSearchIndex.withinOneEdit("pizza", "izzap"));
+    }
+
+    private static List<Long> ids(SearchResultDto result) {
+        return result.getHits().stream().map(SearchHitDto::getId).toList();
+    }
+
+    private static Restaurant restaurant(Long id, String name, String cuisine, Double rating,
+                                         String itemName, String itemDescription) {
+        MenuItem item = new MenuItem();
+        item.setMenuItemId(id * 100);
+        item.setName(itemName);
+        item.setDescription(itemDescription);
+        Menu menu = new Menu();
+        menu.setItems(new ArrayList<>(List.of(item)));
+        Restaurant restaurant = new Restaurant();
+        restaurant.setRestaurantId(id);
+        restaurant.setName(name);
+        restaurant.setCuisineType(cuisine);
+        restaurant.setRating(rating);
+        restaurant.setMenu(menu);
+        return restaurant;
+    }
+}
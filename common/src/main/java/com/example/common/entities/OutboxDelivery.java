@@ -0,0 +1,33 @@
+package com.example.common.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * One peer has taken an outbox event that not every peer has yet. The rows go once the event
+ * is published to all of them.
+ */
+@Entity
+@Table(name = "outbox_deliveries")
+@IdClass(OutboxDelivery.Key.class)
+@Data
+public class OutboxDelivery {
+
+    @Id
+    private Long outboxEventId;
+
+    @Id
+    private String peer;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long outboxEventId;
+        private String peer;
+    }
+}
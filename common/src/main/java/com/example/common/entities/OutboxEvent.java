@@ -0,0 +1,43 @@
+package com.example.common.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * An event waiting to be published, written in the same transaction as the change it
+ * describes. Rows are published in id order and kept for a while afterwards; which peers
+ * already have an unpublished row is in {@link OutboxDelivery}.
+ */
+@Entity
+@Table(name = "outbox_events", indexes = @Index(name = "idx_outbox_events_published_at", columnList = "publishedAt"))
+@Data
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(length = 36, nullable = false, unique = true)
+    private String eventId;
+
+    @Column(nullable = false)
+    private String type;
+
+    private String eventKey;
+
+    @Column(columnDefinition = "TEXT", nullable = false)
+    private String payload;
+
+    @Column(nullable = false)
+    private Instant occurredAt;
+
+    private Instant publishedAt; // Null until every peer has it
+
+    // Set when the row cannot be read back into an event; it is then left out of publishing
+    private Instant failedAt;
+
+    @Column(length = 1000)
+    private String failure;
+}
@@ -0,0 +1,22 @@
+package com.example.common.entities;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+/**
+ * An event from another service that has been handled here, so a redelivery of it is skipped.
+ */
+@Entity
+@Table(name = "processed_events", indexes = @Index(name = "idx_processed_events_processed_at", columnList = "processedAt"))
+@Data
+public class ProcessedEvent {
+
+    @Id
+    @Column(length = 36)
+    private String eventId;
+
+    @Column(nullable = false)
+    private Instant processedAt;
+}
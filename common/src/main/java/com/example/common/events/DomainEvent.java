@@ -0,0 +1,22 @@
+package com.example.common.events;
+
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.time.Instant;
+
+/**
+ * A fact one service tells the others, as it travels between them. The payload is the event's
+ * own JSON; consumers read the fields they need and ignore the rest, so a producer can add
+ * fields without breaking anyone.
+ *
+ * @param eventId    unique across services; consumers use it to skip redeliveries
+ * @param source     the producing service's name
+ * @param key        the id of what the event is about, e.g. the order id
+ */
+public record DomainEvent(String eventId, String type, String source, String key, Instant occurredAt, JsonNode payload) {
+
+    public static final String ORDER_PLACED = "OrderPlaced";
+    public static final String ORDER_STATUS_CHANGED = "OrderStatusChanged";
+    public static final String DELIVERY_STATUS_CHANGED = "DeliveryStatusChanged";
+    public static final String MENU_CHANGED = "MenuChanged";
+}
@@ -0,0 +1,24 @@
+package com.example.common.events;
+
+import java.util.List;
+
+/**
+ * Carries events from this service's outbox to the services consuming them. Selected with
+ * {@code events.broker}: {@code http} pushes to the peers' inboxes, {@code in-process} hands
+ * them to the inboxes of services in the same JVM, for tests and running without any other
+ * service.
+ */
+public interface EventBroker {
+
+    /**
+     * The consumers, each published to on its own so one that is down holds up none of the others.
+     */
+    List<String> peers();
+
+    /**
+     * Delivers the events in order to one peer. Returns only once the peer has taken them;
+     * throws otherwise, and the same events are published to it again later, so consumers
+     * must expect to see an event more than once.
+     */
+    void publish(String peer, List<DomainEvent> events);
+}
@@ -0,0 +1,54 @@
+package com.example.common.events;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Pushes every event to each service listed in {@code events.peers}, at
+ * {@code POST /internal/events}, with {@code events.secret} in {@link #SECRET_HEADER}. A peer
+ * takes what it subscribes to and ignores the rest.
+ */
+@Component
+@ConditionalOnProperty(name = "events.broker", havingValue = "http", matchIfMissing = true)
+public class HttpEventBroker implements EventBroker {
+
+    public static final String SECRET_HEADER = "X-Events-Secret";
+
+    private final RestClient restClient;
+    private final List<String> peers;
+
+    public HttpEventBroker(RestClient.Builder restClientBuilder,
+                           @Value("${events.peers:}") List<String> peers,
+                           @Value("${events.timeout:5s}") Duration timeout,
+                           @Value("${events.secret:}") String secret) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeout);
+        requestFactory.setReadTimeout(timeout);
+        this.restClient = restClientBuilder.requestFactory(requestFactory)
+                .defaultHeader(SECRET_HEADER, secret)
+                .build();
+        this.peers = peers.stream().map(String::trim).filter(peer -> !peer.isEmpty()).toList();
+    }
+
+    @Override
+    public List<String> peers() {
+        return peers;
+    }
+
+    @Override
+    public void publish(String peer, List<DomainEvent> events) {
+        restClient.post()
+                .uri(peer + "/internal/events")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(events)
+                .retrieve()
+                .toBodilessEntity();
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.common.events;
+
+import com.example.common.services.EventInbox;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Broker that never leaves this process: events go through the {@link InProcessEventBus} to
+ * the inboxes of the services named in {@code events.in-process.peers}, by default only this
+ * service's own. This service's inbox is put on the bus under {@code spring.application.name}.
+ */
+@Component
+@ConditionalOnProperty(name = "events.broker", havingValue = "in-process")
+public class InProcessEventBroker implements EventBroker {
+
+    private final EventInbox eventInbox;
+    private final String source;
+    private final List<String> peers;
+
+    public InProcessEventBroker(EventInbox eventInbox,
+                                @Value("${spring.application.name}") String source,
+                                @Value("${events.in-process.peers:${spring.application.name}}") List<String> peers) {
+        this.eventInbox = eventInbox;
+        this.source = source;
+        this.peers = peers.stream().map(String::trim).filter(peer -> !peer.isEmpty()).toList();
+        InProcessEventBus.register(source, eventInbox);
+    }
+
+    @PreDestroy
+    public void close() {
+        InProcessEventBus.unregister(source, eventInbox);
+    }
+
+    @Override
+    public List<String> peers() {
+        return peers;
+    }
+
+    @Override
+    public void publish(String peer, List<DomainEvent> events) {
+        InProcessEventBus.deliver(peer, events);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.common.events;
+
+import com.example.common.services.EventInbox;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The inboxes of the services running in this JVM, by service name, for the
+ * {@link InProcessEventBroker}. Held statically, so services started as separate application
+ * contexts in one process, e.g. the order and delivery services side by side in a test, reach
+ * each other's inboxes.
+ */
+public final class InProcessEventBus {
+
+    private static final Map<String, EventInbox> inboxes = new ConcurrentHashMap<>();
+
+    private InProcessEventBus() {
+    }
+
+    public static void register(String service, EventInbox inbox) {
+        inboxes.put(service, inbox);
+    }
+
+    public static void unregister(String service, EventInbox inbox) {
+        inboxes.remove(service, inbox);
+    }
+
+    /**
+     * Hands the events to the service's inbox; throws, like an unreachable peer, if that
+     * service is not running here.
+     */
+    public static void deliver(String service, List<DomainEvent> events) {
+        EventInbox inbox = inboxes.get(service);
+        if (inbox == null) {
+            throw new IllegalStateException("No " + service + " inbox in this process");
+        }
+        inbox.receive(events);
+    }
+}
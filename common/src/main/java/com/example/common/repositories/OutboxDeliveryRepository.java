@@ -0,0 +1,29 @@
+package com.example.common.repositories;
+
+import com.example.common.entities.OutboxDelivery;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+
+@Repository
+public interface OutboxDeliveryRepository extends JpaRepository<OutboxDelivery, OutboxDelivery.Key> {
+
+    @Modifying
+    @Query(value = "insert into outbox_deliveries (outbox_event_id, peer) select id, :peer from outbox_events where id in :ids",
+            nativeQuery = true)
+    int insert(@Param("ids") Collection<Long> outboxEventIds, @Param("peer") String peer);
+
+    // Not needed once the event is published to everyone
+    @Modifying
+    @Query("delete from OutboxDelivery d where d.outboxEventId in"
+            + " (select e.id from OutboxEvent e where e.id in :ids and e.publishedAt is not null)")
+    int deletePublished(@Param("ids") Collection<Long> outboxEventIds);
+
+    @Modifying
+    @Query("delete from OutboxDelivery d where d.outboxEventId = :id")
+    int deleteByOutboxEventId(@Param("id") Long outboxEventId);
+}
@@ -0,0 +1,43 @@
+package com.example.common.repositories;
+
+import com.example.common.entities.OutboxEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // Waiting for this peer: not yet published to everyone, not set aside, and not taken by it
+    @Query("select e from OutboxEvent e where e.publishedAt is null and e.failedAt is null"
+            + " and not exists (select d from OutboxDelivery d where d.outboxEventId = e.id and d.peer = :peer)"
+            + " order by e.id")
+    List<OutboxEvent> findUndelivered(@Param("peer") String peer, Pageable page);
+
+    // Published once each of the peers has taken it
+    @Modifying
+    @Query("update OutboxEvent e set e.publishedAt = :publishedAt where e.id in :ids and e.publishedAt is null"
+            + " and (select count(d) from OutboxDelivery d where d.outboxEventId = e.id and d.peer in :peers) = :peerCount")
+    int markPublished(@Param("ids") Collection<Long> ids, @Param("peers") Collection<String> peers,
+                      @Param("peerCount") long peerCount, @Param("publishedAt") Instant publishedAt);
+
+    // With nobody to publish to, everything counts as published
+    @Modifying
+    @Query("update OutboxEvent e set e.publishedAt = :publishedAt where e.publishedAt is null and e.failedAt is null")
+    int markAllPublished(@Param("publishedAt") Instant publishedAt);
+
+    @Modifying
+    @Query("update OutboxEvent e set e.failedAt = :failedAt, e.failure = :failure where e.id = :id")
+    int markFailed(@Param("id") Long id, @Param("failedAt") Instant failedAt, @Param("failure") String failure);
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.publishedAt < :cutoff or e.failedAt < :cutoff")
+    int deletePublishedOrFailedBefore(@Param("cutoff") Instant cutoff);
+}
@@ -0,0 +1,25 @@
+package com.example.common.repositories;
+
+import com.example.common.entities.ProcessedEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+
+@Repository
+public interface ProcessedEventRepository extends JpaRepository<ProcessedEvent, String> {
+
+    // Plain INSERT (save() would merge): a concurrent delivery of the same event blocks on the
+    // primary key until the other transaction ends, then fails if that one committed
+    @Modifying
+    @Query(value = "insert into processed_events (event_id, processed_at) values (:eventId, :processedAt)",
+            nativeQuery = true)
+    int insert(@Param("eventId") String eventId, @Param("processedAt") Instant processedAt);
+
+    @Modifying
+    @Query("delete from ProcessedEvent e where e.processedAt < :cutoff")
+    int deleteProcessedBefore(@Param("cutoff") Instant cutoff);
+}
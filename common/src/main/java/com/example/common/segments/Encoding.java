@@ -0,0 +1,204 @@
+package com.example.common.segments;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * How the values of one column are laid out before compression. Every encoding starts with
+ * the number of values as a varint.
+ *
+ * Long columns use {@link #NULL} for a missing value.
+ */
+public enum Encoding {
+    /** Longs as the zigzag varint of the difference to the previous value; for ids and timestamps. */
+    DELTA,
+    /** Longs as zigzag varints; for small numbers like quantities and amounts in cents. */
+    VARINT,
+    /** Longs as a sorted dictionary of the distinct values plus a varint index per row; for low-cardinality ids and codes. */
+    DICTIONARY,
+    /** Strings as a dictionary of the distinct values plus a varint index per row. */
+    STRING_DICTIONARY,
+    /** Doubles as raw IEEE 754 bits, NaN standing for null. */
+    DOUBLE;
+
+    public static final long NULL = Long.MIN_VALUE;
+
+    byte[] encode(Object values) {
+        Bytes out = new Bytes();
+        switch (this) {
+            case DELTA -> {
+                long[] longs = (long[]) values;
+                out.varint(longs.length);
+                long previous = 0;
+                for (long value : longs) {
+                    // Wrapping subtraction, so NULL and any other value round-trip
+                    out.zigzag(value - previous);
+                    previous = value;
+                }
+            }
+            case VARINT -> {
+                long[] longs = (long[]) values;
+                out.varint(longs.length);
+                for (long value : longs) {
+                    out.zigzag(value);
+                }
+            }
+            case DICTIONARY -> {
+                long[] longs = (long[]) values;
+                long[] dictionary = Arrays.stream(longs).filter(value -> value != NULL).distinct().sorted().toArray();
+                out.varint(longs.length);
+                out.varint(dictionary.length);
+                long previous = 0;
+                for (long value : dictionary) {
+                    out.zigzag(value - previous);
+                    previous = value;
+                }
+                for (long value : longs) {
+                    // 0 is null, so indexes are shifted by one
+                    out.varint(value == NULL ? 0 : Arrays.binarySearch(dictionary, value) + 1);
+                }
+            }
+            case STRING_DICTIONARY -> {
+                String[] strings = (String[]) values;
+                Map<String, Integer> dictionary = new HashMap<>();
+                Bytes entries = new Bytes();
+                int[] indexes = new int[strings.length];
+                for (int i = 0; i < strings.length; i++) {
+                    if (strings[i] == null) {
+                        continue;
+                    }
+                    indexes[i] = dictionary.computeIfAbsent(strings[i], value -> {
+                        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+                        entries.varint(utf8.length);
+                        entries.write(utf8, 0, utf8.length);
+                        return dictionary.size() + 1;
+                    });
+                }
+                out.varint(strings.length);
+                out.varint(dictionary.size());
+                out.writeBytes(entries.toByteArray());
+                for (int index : indexes) {
+                    out.varint(index);
+                }
+            }
+            case DOUBLE -> {
+                double[] doubles = (double[]) values;
+                out.varint(doubles.length);
+                for (double value : doubles) {
+                    long bits = Double.doubleToRawLongBits(value);
+                    for (int shift = 56; shift >= 0; shift -= 8) {
+                        out.write((int) (bits >>> shift));
+                    }
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    Object decode(byte[] raw) {
+        Reader in = new Reader(raw);
+        int count = (int) in.varint();
+        switch (this) {
+            case DELTA -> {
+                long[] longs = new long[count];
+                long previous = 0;
+                for (int i = 0; i < count; i++) {
+                    previous += in.zigzag();
+                    longs[i] = previous;
+                }
+                return longs;
+            }
+            case VARINT -> {
+                long[] longs = new long[count];
+                for (int i = 0; i < count; i++) {
+                    longs[i] = in.zigzag();
+                }
+                return longs;
+            }
+            case DICTIONARY -> {
+                long[] dictionary = new long[(int) in.varint()];
+                long previous = 0;
+                for (int i = 0; i < dictionary.length; i++) {
+                    previous += in.zigzag();
+                    dictionary[i] = previous;
+                }
+                long[] longs = new long[count];
+                for (int i = 0; i < count; i++) {
+                    int index = (int) in.varint();
+                    longs[i] = index == 0 ? NULL : dictionary[index - 1];
+                }
+                return longs;
+            }
+            case STRING_DICTIONARY -> {
+                String[] dictionary = new String[(int) in.varint()];
+                for (int i = 0; i < dictionary.length; i++) {
+                    int length = (int) in.varint();
+                    dictionary[i] = new String(raw, in.position, length, StandardCharsets.UTF_8);
+                    in.position += length;
+                }
+                String[] strings = new String[count];
+                for (int i = 0; i < count; i++) {
+                    int index = (int) in.varint();
+                    strings[i] = index == 0 ? null : dictionary[index - 1];
+                }
+                return strings;
+            }
+            case DOUBLE -> {
+                double[] doubles = new double[count];
+                for (int i = 0; i < count; i++) {
+                    long bits = 0;
+                    for (int b = 0; b < 8; b++) {
+                        bits = (bits << 8) | (raw[in.position++] & 0xFF);
+                    }
+                    doubles[i] = Double.longBitsToDouble(bits);
+                }
+                return doubles;
+            }
+            default -> throw new IllegalStateException("Unknown encoding " + this);
+        }
+    }
+
+    private static final class Bytes extends ByteArrayOutputStream {
+        void varint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                write((int) ((value & 0x7F) | 0x80));
+                value >>>= 7;
+            }
+            write((int) value);
+        }
+
+        void zigzag(long value) {
+            varint((value << 1) ^ (value >> 63));
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] raw;
+        private int position;
+
+        Reader(byte[] raw) {
+            this.raw = raw;
+        }
+
+        long varint() {
+            long value = 0;
+            int shift = 0;
+            while (true) {
+                byte b = raw[position++];
+                value |= (long) (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+                shift += 7;
+            }
+        }
+
+        long zigzag() {
+            long value = varint();
+            return (value >>> 1) ^ -(value & 1);
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.common.segments;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a segment file written by {@link SegmentWriter}. The file is memory-mapped and only the
+ * footer is parsed up front; column blocks are inflated on demand, one block per call, so a
+ * query only pays for the row groups and columns it touches. Safe for concurrent use.
+ */
+public class SegmentReader {
+
+    private final Path path;
+    private final MappedByteBuffer data;
+    private final int schema;
+    private final Encoding[] columns;
+    private final int[] rows;
+    // Per row group and column: offset, compressed length, raw length, min, max
+    private final long[][] blocks;
+    private final long totalRows;
+
+    public SegmentReader(Path path, int expectedSchema) throws IOException {
+        this(path, expectedSchema, expectedSchema);
+    }
+
+    /**
+     * Opens a file written with any schema from {@code oldestSchema} to {@code newestSchema};
+     * {@link #schema()} tells the caller which columns it has.
+     */
+    public SegmentReader(Path path, int oldestSchema, int newestSchema) throws IOException {
+        this.path = path;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int size = data.capacity();
+        if (size < 16 || data.getInt(0) != SegmentWriter.MAGIC || data.getInt(size - 4) != SegmentWriter.MAGIC) {
+            throw new IOException("Not a segment file: " + path);
+        }
+        int footerLength = data.getInt(size - 8);
+        ByteBuffer footer = data.slice(size - 8 - footerLength, footerLength);
+        this.schema = footer.getInt();
+        if (schema < oldestSchema || schema > newestSchema) {
+            throw new IOException("Segment " + path + " has schema " + schema + ", expected "
+                    + (oldestSchema == newestSchema ? oldestSchema : oldestSchema + " to " + newestSchema));
+        }
+        Encoding[] encodings = Encoding.values();
+        this.columns = new Encoding[footer.getInt()];
+        for (int c = 0; c < columns.length; c++) {
+            columns[c] = encodings[footer.get()];
+        }
+        int groupCount = footer.getInt();
+        this.rows = new int[groupCount];
+        this.blocks = new long[groupCount][];
+        long total = 0;
+        for (int g = 0; g < groupCount; g++) {
+            rows[g] = footer.getInt();
+            total += rows[g];
+            long[] group = new long[columns.length * 5];
+            for (int c = 0; c < columns.length; c++) {
+                group[c * 5] = footer.getLong();
+                group[c * 5 + 1] = footer.getInt();
+                group[c * 5 + 2] = footer.getInt();
+                group[c * 5 + 3] = footer.getLong();
+                group[c * 5 + 4] = footer.getLong();
+            }
+            blocks[g] = group;
+        }
+        this.totalRows = total;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public int schema() {
+        return schema;
+    }
+
+    public long sizeInBytes() {
+        return data.capacity();
+    }
+
+    public int rowGroupCount() {
+        return rows.length;
+    }
+
+    public int rows(int group) {
+        return rows[group];
+    }
+
+    public long totalRows() {
+        return totalRows;
+    }
+
+    /**
+     * Smallest non-null value of a long column in a row group, from the footer.
+     */
+    public long min(int group, int column) {
+        return blocks[group][column * 5 + 3];
+    }
+
+    public long max(int group, int column) {
+        return blocks[group][column * 5 + 4];
+    }
+
+    /**
+     * Whether a row group can hold values of {@code column} in {@code [from, to]}, judging by
+     * the footer alone.
+     */
+    public boolean overlaps(int group, int column, long from, long to) {
+        return max(group, column) >= from && min(group, column) <= to;
+    }
+
+    public long[] longs(int group, int column) {
+        return (long[]) decode(group, column);
+    }
+
+    public double[] doubles(int group, int column) {
+        return (double[]) decode(group, column);
+    }
+
+    public String[] strings(int group, int column) {
+        return (String[]) decode(group, column);
+    }
+
+    private Object decode(int group, int column) {
+        long[] block = blocks[group];
+        int offset = (int) block[column * 5];
+        int compressed = (int) block[column * 5 + 1];
+        byte[] raw = new byte[(int) block[column * 5 + 2]];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(data.slice(offset, compressed));
+            int read = 0;
+            while (read < raw.length && !inflater.finished()) {
+                int n = inflater.inflate(raw, read, raw.length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new DataFormatException("Block ends early");
+                }
+                read += n;
+            }
+            return columns[column].decode(raw);
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupt block in " + path, e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
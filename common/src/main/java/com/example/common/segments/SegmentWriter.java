@@ -0,0 +1,163 @@
+package com.example.common.segments;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+/**
+ * Writes one segment file: a run of row groups, each holding every column of a few thousand
+ * rows as a separately compressed block, followed by a footer with the position and the
+ * min/max of every block.
+ *
+ * <pre>
+ * "SEG1"
+ * column blocks, deflate-compressed
+ * footer: schema, column count, encodings, row group count,
+ *         per row group: row count, then per column: offset, compressed and raw length, min, max
+ * footer length, "SEG1"
+ * </pre>
+ *
+ * The file is written under a temporary name and renamed into place by {@link #finish()}, so a
+ * reader only ever sees complete segments. Segments are never modified afterwards.
+ */
+public class SegmentWriter implements AutoCloseable {
+
+    static final int MAGIC = 0x53454731; // "SEG1"
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private final int schema;
+    private final List<Encoding> columns;
+    private final List<long[]> groups = new ArrayList<>();
+    private final Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+    private long position;
+    private boolean finished;
+
+    public SegmentWriter(Path target, int schema, List<Encoding> columns) throws IOException {
+        this.target = target;
+        this.temp = target.resolveSibling(target.getFileName() + ".tmp");
+        this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        this.schema = schema;
+        this.columns = List.copyOf(columns);
+        write(ByteBuffer.allocate(4).putInt(0, MAGIC));
+    }
+
+    /**
+     * Appends a row group.
+     *
+     * @param rows   number of rows, reported back by {@link SegmentReader#rows(int)}
+     * @param values one array per column, in schema order: {@code long[]}, {@code double[]} or
+     *               {@code String[]} to match the column's encoding. Columns may hold a different
+     *               number of values than {@code rows}, e.g. the line items of the rows.
+     */
+    public void writeRowGroup(int rows, Object... values) throws IOException {
+        if (values.length != columns.size()) {
+            throw new IllegalArgumentException("Expected " + columns.size() + " columns, got " + values.length);
+        }
+        long[] group = new long[1 + columns.size() * 5];
+        group[0] = rows;
+        for (int c = 0; c < values.length; c++) {
+            byte[] raw = columns.get(c).encode(values[c]);
+            byte[] compressed = deflate(raw);
+            long[] range = range(values[c]);
+            int at = 1 + c * 5;
+            group[at] = position;
+            group[at + 1] = compressed.length;
+            group[at + 2] = raw.length;
+            group[at + 3] = range[0];
+            group[at + 4] = range[1];
+            write(ByteBuffer.wrap(compressed));
+        }
+        groups.add(group);
+    }
+
+    /**
+     * Writes the footer, flushes the file to disk and moves it to its final name.
+     */
+    public void finish() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream footer = new DataOutputStream(bytes);
+        footer.writeInt(schema);
+        footer.writeInt(columns.size());
+        for (Encoding encoding : columns) {
+            footer.writeByte(encoding.ordinal());
+        }
+        footer.writeInt(groups.size());
+        for (long[] group : groups) {
+            footer.writeInt((int) group[0]);
+            for (int c = 0; c < columns.size(); c++) {
+                int at = 1 + c * 5;
+                footer.writeLong(group[at]);
+                footer.writeInt((int) group[at + 1]);
+                footer.writeInt((int) group[at + 2]);
+                footer.writeLong(group[at + 3]);
+                footer.writeLong(group[at + 4]);
+            }
+        }
+        footer.writeInt(bytes.size());
+        footer.writeInt(MAGIC);
+        write(ByteBuffer.wrap(bytes.toByteArray()));
+        channel.force(true);
+        channel.close();
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+        finished = true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        deflater.end();
+        if (!finished) {
+            channel.close();
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private byte[] deflate(byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        return out.toByteArray();
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        if (position + buffer.remaining() > Integer.MAX_VALUE) {
+            // Readers map the whole file into one buffer
+            throw new IOException("Segment would exceed 2 GB; write fewer rows per segment");
+        }
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer);
+        }
+    }
+
+    // Min and max of a long column, ignoring nulls; 0/0 for other columns and empty ones
+    private static long[] range(Object values) {
+        if (!(values instanceof long[] longs)) {
+            return new long[] {0, 0};
+        }
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (long value : longs) {
+            if (value != Encoding.NULL) {
+                min = Math.min(min, value);
+                max = Math.max(max, value);
+            }
+        }
+        return min > max ? new long[] {0, 0} : new long[] {min, max};
+    }
+}
@@ -0,0 +1,138 @@
+package com.example.common.services;
+
+import com.example.common.events.DomainEvent;
+import com.example.common.repositories.ProcessedEventRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Events from other services, handed to whatever here subscribed to their type.
+ *
+ * Each event is handled in a transaction of its own that also records its id in
+ * {@code processed_events}, so an event the broker delivers again is skipped. Types with a
+ * {@link #subscribeBatch batch handler} are the exception: a run of consecutive events of the
+ * type is handled in one transaction, with one handler call for the events in it not seen
+ * before. A handler that throws IllegalArgumentException or IllegalStateException turns the
+ * event down for good: it is logged and recorded as processed; a run turned down is handled
+ * again one event at a time, so only the events at fault are dropped. Anything else fails the
+ * delivery, and the producer sends the events again later.
+ */
+@Service
+public class EventInbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventInbox.class);
+
+    private final ProcessedEventRepository processedEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration retention;
+    private final Map<String, List<Consumer<DomainEvent>>> handlers = new ConcurrentHashMap<>();
+    private final Map<String, List<Consumer<List<DomainEvent>>>> batchHandlers = new ConcurrentHashMap<>();
+
+    public EventInbox(ProcessedEventRepository processedEventRepository,
+                      PlatformTransactionManager transactionManager,
+                      @Value("${events.retention:7d}") Duration retention) {
+        this.processedEventRepository = processedEventRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+    }
+
+    public void subscribe(String type, Consumer<DomainEvent> handler) {
+        handlers.computeIfAbsent(type, key -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    /**
+     * Subscribes to runs of consecutive events of the type, for handlers that apply many
+     * changes more cheaply at once than one by one.
+     */
+    public void subscribeBatch(String type, Consumer<List<DomainEvent>> handler) {
+        batchHandlers.computeIfAbsent(type, key -> new CopyOnWriteArrayList<>()).add(handler);
+    }
+
+    /**
+     * Handles the events in order; events of types nobody subscribed to are ignored.
+     */
+    public void receive(List<DomainEvent> events) {
+        int start = 0;
+        while (start < events.size()) {
+            String type = events.get(start).type();
+            int end = start + 1;
+            while (end < events.size() && Objects.equals(events.get(end).type(), type)) {
+                end++;
+            }
+            List<Consumer<DomainEvent>> subscribed = handlers.getOrDefault(type, List.of());
+            List<Consumer<List<DomainEvent>>> batchSubscribed = batchHandlers.getOrDefault(type, List.of());
+            if (!batchSubscribed.isEmpty()) {
+                handle(events.subList(start, end), subscribed, batchSubscribed);
+            } else if (!subscribed.isEmpty()) {
+                for (DomainEvent event : events.subList(start, end)) {
+                    handle(List.of(event), subscribed, batchSubscribed);
+                }
+            }
+            start = end;
+        }
+    }
+
+    private void handle(List<DomainEvent> run, List<Consumer<DomainEvent>> subscribed,
+                        List<Consumer<List<DomainEvent>>> batchSubscribed) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<DomainEvent> fresh = firstDeliveries(run);
+                if (!fresh.isEmpty()) {
+                    fresh.forEach(event -> subscribed.forEach(handler -> handler.accept(event)));
+                    batchSubscribed.forEach(handler -> handler.accept(fresh));
+                }
+            });
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            if (run.size() > 1) {
+                for (DomainEvent event : run) {
+                    handle(List.of(event), subscribed, batchSubscribed);
+                }
+                return;
+            }
+            // Sending it again would be turned down the same way
+            DomainEvent event = run.get(0);
+            logger.warn("Dropped {} event {} from {} about {}: {}",
+                    event.type(), event.eventId(), event.source(), event.key(), e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> firstDeliveries(run));
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${events.purge-interval:PT1H}")
+    public void purge() {
+        Instant cutoff = Instant.now().minus(retention);
+        transactionTemplate.executeWithoutResult(status -> processedEventRepository.deleteProcessedBefore(cutoff));
+    }
+
+    // The events not processed before, now recorded as processed
+    private List<DomainEvent> firstDeliveries(List<DomainEvent> events) {
+        Set<String> seen = new HashSet<>();
+        processedEventRepository.findAllById(events.stream().map(DomainEvent::eventId).toList())
+                .forEach(processed -> seen.add(processed.getEventId()));
+        List<DomainEvent> fresh = new ArrayList<>(events.size());
+        Instant now = Instant.now();
+        for (DomainEvent event : events) {
+            if (seen.add(event.eventId())) {
+                processedEventRepository.insert(event.eventId(), now);
+                fresh.add(event);
+            }
+        }
+        return fresh;
+    }
+}
@@ -0,0 +1,184 @@
+package com.example.common.services;
+
+import com.example.common.entities.OutboxEvent;
+import com.example.common.events.DomainEvent;
+import com.example.common.events.EventBroker;
+import com.example.common.repositories.OutboxDeliveryRepository;
+import com.example.common.repositories.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Events this service publishes for the others ({@code outbox_events}).
+ *
+ * An event is written in the transaction making the change it describes, so it goes out if
+ * and only if the change commits, and the request making the change never waits for a
+ * consumer. A background relay hands each peer of the {@link EventBroker} the events it does
+ * not have yet, in batches, in id order, and records which peer took which; an event is
+ * published once every peer has it. While a peer fails, the relay backs off from that peer
+ * alone, exponentially up to {@code events.max-backoff}, then resends from the first event it
+ * lacks, so consumers see each event at least once and the healthy peers keep up meanwhile.
+ *
+ * A row that cannot be read back into an event is set aside with {@code failedAt} and the
+ * reason rather than blocking everything behind it.
+ */
+@Service
+public class EventOutbox {
+
+    private static final Logger logger = LoggerFactory.getLogger(EventOutbox.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final OutboxDeliveryRepository outboxDeliveryRepository;
+    private final EventBroker eventBroker;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final String source;
+    private final int batchSize;
+    private final Duration minBackoff;
+    private final Duration maxBackoff;
+    private final Duration retention;
+
+    // Per peer; only touched by the relay, which never runs concurrently with itself
+    private final Map<String, Backoff> backoffs = new HashMap<>();
+
+    public EventOutbox(OutboxEventRepository outboxEventRepository,
+                       OutboxDeliveryRepository outboxDeliveryRepository,
+                       EventBroker eventBroker,
+                       ObjectMapper objectMapper,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${spring.application.name}") String source,
+                       @Value("${events.batch-size:100}") int batchSize,
+                       @Value("${events.min-backoff:PT2S}") Duration minBackoff,
+                       @Value("${events.max-backoff:PT5M}") Duration maxBackoff,
+                       @Value("${events.retention:7d}") Duration retention) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxDeliveryRepository = outboxDeliveryRepository;
+        this.eventBroker = eventBroker;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.source = source;
+        this.batchSize = batchSize;
+        this.minBackoff = minBackoff;
+        this.maxBackoff = maxBackoff;
+        this.retention = retention;
+    }
+
+    /**
+     * Queues an event about {@code key}; {@code payload} is serialized to JSON as it is now.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void append(String type, Object key, Object payload) {
+        OutboxEvent event = new OutboxEvent();
+        event.setEventId(UUID.randomUUID().toString());
+        event.setType(type);
+        event.setEventKey(key == null ? null : key.toString());
+        try {
+            event.setPayload(objectMapper.writeValueAsString(payload));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize " + type + " event", e);
+        }
+        event.setOccurredAt(Instant.now());
+        outboxEventRepository.save(event);
+    }
+
+    @Scheduled(initialDelayString = "${events.relay-interval:PT1S}", fixedDelayString = "${events.relay-interval:PT1S}")
+    public void relay() {
+        List<String> peers = eventBroker.peers();
+        if (peers.isEmpty()) {
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.markAllPublished(Instant.now()));
+            return;
+        }
+        for (String peer : peers) {
+            Backoff backoff = backoffs.computeIfAbsent(peer, key -> new Backoff());
+            if (!Instant.now().isBefore(backoff.retryAt)) {
+                relay(peer, peers, backoff);
+            }
+        }
+    }
+
+    private void relay(String peer, List<String> peers, Backoff backoff) {
+        List<OutboxEvent> batch;
+        do {
+            batch = outboxEventRepository.findUndelivered(peer, PageRequest.of(0, batchSize));
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<Long> ids = new ArrayList<>(batch.size());
+            List<DomainEvent> events = new ArrayList<>(batch.size());
+            for (OutboxEvent event : batch) {
+                DomainEvent domainEvent = toDomainEvent(event);
+                if (domainEvent != null) {
+                    ids.add(event.getId());
+                    events.add(domainEvent);
+                }
+            }
+            if (events.isEmpty()) {
+                continue;
+            }
+            try {
+                eventBroker.publish(peer, events);
+            } catch (RuntimeException e) {
+                backoff.failures++;
+                long backoffMillis = Math.min(minBackoff.toMillis() << Math.min(backoff.failures - 1, 20),
+                        maxBackoff.toMillis());
+                backoff.retryAt = Instant.now().plusMillis(backoffMillis);
+                logger.warn("Could not publish {} events to {}, retrying in {} ms: {}",
+                        events.size(), peer, backoffMillis, e.getMessage());
+                return;
+            }
+            backoff.failures = 0;
+            transactionTemplate.executeWithoutResult(status -> {
+                outboxDeliveryRepository.insert(ids, peer);
+                outboxEventRepository.markPublished(ids, peers, peers.size(), Instant.now());
+                outboxDeliveryRepository.deletePublished(ids);
+            });
+        } while (batch.size() == batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${events.purge-interval:PT1H}")
+    public void purge() {
+        Instant cutoff = Instant.now().minus(retention);
+        transactionTemplate.executeWithoutResult(status -> outboxEventRepository.deletePublishedOrFailedBefore(cutoff));
+    }
+
+    // Null for a row that cannot be read back, which is set aside so it stops holding up the rest
+    private DomainEvent toDomainEvent(OutboxEvent event) {
+        try {
+            return new DomainEvent(event.getEventId(), event.getType(), source, event.getEventKey(),
+                    event.getOccurredAt(), objectMapper.readTree(event.getPayload()));
+        } catch (JsonProcessingException | RuntimeException e) {
+            logger.error("Setting aside outbox event {} ({} {}), it cannot be published: {}",
+                    event.getId(), event.getType(), event.getEventId(), e.getMessage());
+            String failure = String.valueOf(e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> {
+                outboxEventRepository.markFailed(event.getId(), Instant.now(),
+                        failure.length() > 1000 ? failure.substring(0, 1000) : failure);
+                outboxDeliveryRepository.deleteByOutboxEventId(event.getId());
+            });
+            return null;
+        }
+    }
+
+    private static final class Backoff {
+        private int failures;
+        private Instant retryAt = Instant.MIN;
+    }
+}
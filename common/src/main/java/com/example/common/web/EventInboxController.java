@@ -0,0 +1,22 @@
+package com.example.common.web;
+
+import com.example.common.events.DomainEvent;
+import com.example.common.services.EventInbox;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/internal/events")
+@RequiredArgsConstructor
+public class EventInboxController {
+
+    private final EventInbox eventInbox;
+
+    // POST /internal/events - events pushed by other services' outboxes (InternalEventsFilter checks the secret); 204 once all of them are handled
+    @PostMapping
+    public ResponseEntity<Void> receive(@RequestBody java.util.List<DomainEvent> events) {
+        eventInbox.receive(events);
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.common.web;
+
+import com.example.common.events.HttpEventBroker;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * Lets only the other services into /internal: a request must carry {@code events.secret}, the
+ * secret the services share, in {@link HttpEventBroker#SECRET_HEADER}. Checked before the body
+ * is read. With no secret configured every request is turned away.
+ */
+@Component
+public class InternalEventsFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(InternalEventsFilter.class);
+
+    private final byte[] secret;
+
+    public InternalEventsFilter(@Value("${events.secret:}") String secret) {
+        this.secret = secret.getBytes(StandardCharsets.UTF_8);
+        if (this.secret.length == 0) {
+            logger.warn("events.secret is not set; every request to /internal will be refused");
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        // The path as it is routed on: decoded, ";" parameters removed and "//" merged, so
+        // /internal;x=1/events or /%69nternal/events cannot slip past
+        String path = UrlPathHelper.defaultInstance.getPathWithinApplication(request);
+        return !path.equals("/internal") && !path.startsWith("/internal/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String presented = request.getHeader(HttpEventBroker.SECRET_HEADER);
+        // Constant time, so the secret cannot be guessed a byte at a time
+        if (secret.length == 0 || presented == null
+                || !MessageDigest.isEqual(secret, presented.getBytes(StandardCharsets.UTF_8))) {
+            response.sendError(HttpStatus.UNAUTHORIZED.value(), "Missing or wrong " + HttpEventBroker.SECRET_HEADER);
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+}
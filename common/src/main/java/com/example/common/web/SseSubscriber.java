@@ -0,0 +1,120 @@
+package com.example.common.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Set;
+
+/**
+ * One server-sent event stream and the events not yet written to it.
+ *
+ * Events are queued without blocking and written by a virtual thread of the stream's own, so a
+ * client that reads slowly holds up nobody but itself. One that falls more than
+ * {@code capacity} events behind is dropped: what it has not been sent is discarded and its
+ * stream closed once the event being written has gone out, leaving it to reconnect and start
+ * again from the current state.
+ */
+public class SseSubscriber {
+
+    private static final Logger logger = LoggerFactory.getLogger(SseSubscriber.class);
+
+    private final SseEmitter emitter;
+    private final int capacity;
+    private final String name;
+
+    // Guards everything below
+    private final Object lock = new Object();
+    private final ArrayDeque<Set<DataWithMediaType>> pending = new ArrayDeque<>();
+    // Whether a thread is writing; true whenever events are pending, and for good once closing
+    private boolean draining;
+    private boolean closing;
+
+    /**
+     * @param name names the writing threads and the log lines, e.g. {@code kitchen-board}
+     */
+    public SseSubscriber(SseEmitter emitter, int capacity, String name) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("An SSE subscriber must be able to queue at least one event");
+        }
+        this.emitter = emitter;
+        this.capacity = capacity;
+        this.name = name;
+    }
+
+    public SseEmitter emitter() {
+        return emitter;
+    }
+
+    /**
+     * Queues an event built with {@link SseEmitter#event()}; one built event can be offered to
+     * any number of subscribers. Returns false if the stream is closing, which includes being
+     * dropped for falling behind by this very event.
+     */
+    public boolean offer(Set<DataWithMediaType> event) {
+        synchronized (lock) {
+            if (closing) {
+                return false;
+            }
+            if (pending.size() >= capacity) {
+                logger.info("Dropped a {} subscriber {} events behind", name, pending.size());
+                pending.clear();
+                closing = true;
+                // Events were pending, so the writing thread is running and closes the stream
+                return false;
+            }
+            pending.add(event);
+            startDraining();
+            return true;
+        }
+    }
+
+    /**
+     * Closes the stream once the events queued so far have been written.
+     */
+    public void complete() {
+        synchronized (lock) {
+            closing = true;
+            startDraining();
+        }
+    }
+
+    // Callers hold the lock
+    private void startDraining() {
+        if (!draining) {
+            draining = true;
+            Thread.ofVirtual().name(name + "-sse").start(this::drain);
+        }
+    }
+
+    private void drain() {
+        while (true) {
+            Set<DataWithMediaType> event;
+            synchronized (lock) {
+                event = pending.poll();
+                if (event == null && !closing) {
+                    draining = false;
+                    return;
+                }
+            }
+            if (event == null) {
+                emitter.complete();
+                return;
+            }
+            try {
+                emitter.send(event);
+            } catch (IOException | IllegalStateException e) {
+                // Client went away
+                synchronized (lock) {
+                    pending.clear();
+                    closing = true;
+                }
+                emitter.completeWithError(e);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.common;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * Configuration for the JPA tests of this module, which has no application of its own.
+ */
+@SpringBootApplication
+public class EventsTestApplication {
+}
@@ -0,0 +1,133 @@
+package com.example.common.segments;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentRoundTripTest {
+
+    private static final long[] LONGS = {42, 41, Encoding.NULL, Long.MAX_VALUE, Long.MIN_VALUE + 1, 0, -7, 42, 1L << 40};
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void longEncodingsRoundTripNullsAndExtremes() {
+        for (Encoding encoding : List.of(Encoding.DELTA, Encoding.VARINT, Encoding.DICTIONARY)) {
+            assertArrayEquals(LONGS, (long[]) encoding.decode(encoding.encode(LONGS)), encoding.name());
+            assertArrayEquals(new long[0], (long[]) encoding.decode(encoding.encode(new long[0])), encoding.name());
+        }
+    }
+
+    @Test
+    void dictionaryStoresEachDistinctValueOnce() {
+        long[] repeated = new long[1000];
+        for (int i = 0; i < repeated.length; i++) {
+            repeated[i] = 1_000_000_000L + i % 3;
+        }
+
+        byte[] dictionary = Encoding.DICTIONARY.encode(repeated);
+
+        assertArrayEquals(repeated, (long[]) Encoding.DICTIONARY.decode(dictionary));
+        // One byte per row plus the three distinct values
+        assertTrue(dictionary.length < Encoding.VARINT.encode(repeated).length);
+        assertTrue(dictionary.length < repeated.length + 32);
+    }
+
+    @Test
+    void deltaKeepsSortedIdsSmall() {
+        long[] ids = new long[1000];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = 5_000_000_000L + i;
+        }
+
+        byte[] delta = Encoding.DELTA.encode(ids);
+
+        assertArrayEquals(ids, (long[]) Encoding.DELTA.decode(delta));
+        // The first value takes a few bytes, every later one a single byte
+        assertTrue(delta.length < ids.length + 16);
+    }
+
+    @Test
+    void stringDictionaryRoundTripsNullsAndUnicode() {
+        String[] strings = {"PLACED", null, "DELIVERED", "PLACED", "", "café ✓", null};
+
+        assertArrayEquals(strings, (String[]) Encoding.STRING_DICTIONARY.decode(Encoding.STRING_DICTIONARY.encode(strings)));
+    }
+
+    @Test
+    void doublesRoundTripBitForBit() {
+        double[] doubles = {0.0, -0.0, 12.5, Double.NaN, Double.MAX_VALUE, Double.MIN_VALUE, Double.NEGATIVE_INFINITY};
+
+        double[] decoded = (double[]) Encoding.DOUBLE.decode(Encoding.DOUBLE.encode(doubles));
+
+        assertEquals(doubles.length, decoded.length);
+        for (int i = 0; i < doubles.length; i++) {
+            assertEquals(Double.doubleToRawLongBits(doubles[i]), Double.doubleToRawLongBits(decoded[i]));
+        }
+    }
+
+    @Test
+    void segmentFileRoundTripsRowGroupsAndFooterRanges() throws IOException {
+        Path path = dir.resolve("test.seg");
+        try (SegmentWriter writer = new SegmentWriter(path, 7,
+                List.of(Encoding.DELTA, Encoding.DICTIONARY, Encoding.STRING_DICTIONARY, Encoding.DOUBLE))) {
+            writer.writeRowGroup(3, new long[] {10, 11, 12}, new long[] {5, Encoding.NULL, 5},
+                    new String[] {"a", "b", null}, new double[] {1.5, 2.5, Double.NaN});
+            writer.writeRowGroup(2, new long[] {20, 21}, new long[] {Encoding.NULL, Encoding.NULL},
+                    new String[] {"c", "c"}, new double[] {3.5, 4.5});
+            writer.finish();
+        }
+
+        SegmentReader reader = new SegmentReader(path, 7);
+
+        assertEquals(2, reader.rowGroupCount());
+        assertEquals(3, reader.rows(0));
+        assertEquals(5, reader.totalRows());
+        assertArrayEquals(new long[] {10, 11, 12}, reader.longs(0, 0));
+        assertArrayEquals(new long[] {5, Encoding.NULL, 5}, reader.longs(0, 1));
+        assertArrayEquals(new String[] {"a", "b", null}, reader.strings(0, 2));
+        assertArrayEquals(new double[] {3.5, 4.5}, reader.doubles(1, 3));
+        assertEquals(10, reader.min(0, 0));
+        assertEquals(21, reader.max(1, 0));
+        // Nulls are left out of the range; an all-null column reads as 0/0
+        assertEquals(5, reader.min(0, 1));
+        assertEquals(0, reader.max(1, 1));
+        assertTrue(reader.overlaps(1, 0, 0, 20));
+        assertFalse(reader.overlaps(1, 0, 13, 19));
+    }
+
+    @Test
+    void rejectsTheWrongSchemaAndLeavesNoFileWhenNotFinished() throws IOException {
+        Path path = dir.resolve("test.seg");
+        try (SegmentWriter writer = new SegmentWriter(path, 1, List.of(Encoding.VARINT))) {
+            writer.writeRowGroup(1, new long[] {1});
+            writer.finish();
+        }
+        Path abandoned = dir.resolve("abandoned.seg");
+        try (SegmentWriter writer = new SegmentWriter(abandoned, 1, List.of(Encoding.VARINT))) {
+            writer.writeRowGroup(1, new long[] {1});
+        }
+
+        assertThrows(IOException.class, () -> new SegmentReader(path, 2));
+        assertThrows(IOException.class, () -> new SegmentReader(path, 2, 3));
+        assertEquals(1, new SegmentReader(path, 1, 2).schema());
+        assertThrows(IllegalArgumentException.class, () -> {
+            try (SegmentWriter writer = new SegmentWriter(dir.resolve("other.seg"), 1, List.of(Encoding.VARINT))) {
+                writer.writeRowGroup(1, new long[] {1}, new long[] {2});
+            }
+        });
+        assertFalse(Files.exists(abandoned));
+        assertFalse(Files.exists(dir.resolve("abandoned.seg.tmp")));
+    }
+}
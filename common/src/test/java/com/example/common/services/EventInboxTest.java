@@ -0,0 +1,82 @@
+package com.example.common.services;
+
+import com.example.common.events.DomainEvent;
+import com.example.common.repositories.ProcessedEventRepository;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EventInboxTest {
+
+    @Autowired
+    private ProcessedEventRepository processedEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<List<String>> batches = new ArrayList<>();
+    private final List<String> singles = new ArrayList<>();
+    private EventInbox eventInbox;
+
+    @BeforeEach
+    void setUp() {
+        processedEventRepository.deleteAll();
+        eventInbox = new EventInbox(processedEventRepository, transactionManager, Duration.ofDays(7));
+        eventInbox.subscribeBatch("StatusChanged", events -> {
+            if (events.stream().anyMatch(event -> "bad".equals(event.key()))) {
+                throw new IllegalArgumentException("Malformed StatusChanged payload");
+            }
+            batches.add(events.stream().map(DomainEvent::key).toList());
+        });
+        eventInbox.subscribe("Placed", event -> singles.add(event.key()));
+    }
+
+    @Test
+    void consecutiveEventsOfABatchedTypeAreHandledTogether() {
+        eventInbox.receive(List.of(event("s1", "StatusChanged"), event("s2", "StatusChanged"), event("p1", "Placed"),
+                event("p2", "Placed"), event("s3", "StatusChanged"), event("x1", "Unsubscribed")));
+
+        assertEquals(List.of(List.of("s1", "s2"), List.of("s3")), batches);
+        assertEquals(List.of("p1", "p2"), singles);
+        assertEquals(5, processedEventRepository.count());
+    }
+
+    @Test
+    void eventsSeenBeforeAreLeftOutOfTheBatch() {
+        eventInbox.receive(List.of(event("s1", "StatusChanged")));
+        eventInbox.receive(List.of(event("s1", "StatusChanged"), event("s2", "StatusChanged"), event("s2", "StatusChanged")));
+        eventInbox.receive(List.of(event("s1", "StatusChanged"), event("s2", "StatusChanged")));
+
+        assertEquals(List.of(List.of("s1"), List.of("s2")), batches);
+    }
+
+    @Test
+    void aRejectedBatchIsRetriedOneEventAtATime() {
+        eventInbox.receive(List.of(event("s1", "StatusChanged"), event("bad", "StatusChanged"), event("s2", "StatusChanged")));
+
+        assertEquals(List.of(List.of("s1"), List.of("s2")), batches);
+        // The bad event is dropped for good, the others are handled once
+        assertEquals(3, processedEventRepository.count());
+        eventInbox.receive(List.of(event("bad", "StatusChanged")));
+        assertEquals(2, batches.size());
+    }
+
+    // The key doubles as the event id
+    private static DomainEvent event(String key, String type) {
+        return new DomainEvent(key, type, "delivery", key, Instant.now(), JsonNodeFactory.instance.objectNode());
+    }
+}
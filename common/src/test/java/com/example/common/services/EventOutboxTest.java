@@ -0,0 +1,140 @@
+package com.example.common.services;
+
+import com.example.common.entities.OutboxEvent;
+import com.example.common.events.DomainEvent;
+import com.example.common.events.EventBroker;
+import com.example.common.repositories.OutboxDeliveryRepository;
+import com.example.common.repositories.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EventOutboxTest {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxDeliveryRepository outboxDeliveryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final RecordingBroker broker = new RecordingBroker();
+    private EventOutbox eventOutbox;
+
+    @BeforeEach
+    void setUp() {
+        outboxDeliveryRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+        // No backoff, so a peer that comes back is published to on the next relay
+        eventOutbox = new EventOutbox(outboxEventRepository, outboxDeliveryRepository, broker, new ObjectMapper(),
+                transactionManager, "orders", 2, Duration.ZERO, Duration.ZERO, Duration.ofDays(7));
+    }
+
+    @Test
+    void aFailingPeerHoldsUpNoneOfTheOthers() {
+        broker.peers.addAll(List.of("delivery", "kitchen"));
+        broker.down.add("kitchen");
+        append("OrderPlaced", 1, 2, 3);
+
+        eventOutbox.relay();
+        eventOutbox.relay();
+
+        assertEquals(List.of("1", "2", "3"), broker.keys("delivery"));
+        assertEquals(List.of(), broker.keys("kitchen"));
+        assertTrue(outboxEventRepository.findAll().stream().allMatch(event -> event.getPublishedAt() == null));
+
+        broker.down.clear();
+        eventOutbox.relay();
+
+        assertEquals(List.of("1", "2", "3"), broker.keys("delivery"));
+        assertEquals(List.of("1", "2", "3"), broker.keys("kitchen"));
+        assertTrue(outboxEventRepository.findAll().stream().allMatch(event -> event.getPublishedAt() != null));
+        assertEquals(0, outboxDeliveryRepository.count());
+    }
+
+    @Test
+    void anUnreadableRowIsSetAsideInsteadOfBlockingTheRest() {
+        broker.peers.add("delivery");
+        append("OrderPlaced", 1, 2);
+        OutboxEvent corrupt = outboxEventRepository.findAll().stream()
+                .filter(event -> "1".equals(event.getEventKey())).findFirst().orElseThrow();
+        corrupt.setPayload("{not json");
+        outboxEventRepository.save(corrupt);
+
+        eventOutbox.relay();
+
+        assertEquals(List.of("2"), broker.keys("delivery"));
+        OutboxEvent setAside = outboxEventRepository.findById(corrupt.getId()).orElseThrow();
+        assertNotNull(setAside.getFailedAt());
+        assertNotNull(setAside.getFailure());
+        assertNull(setAside.getPublishedAt());
+
+        eventOutbox.relay();
+
+        assertEquals(List.of("2"), broker.keys("delivery"));
+    }
+
+    @Test
+    void withoutPeersEverythingCountsAsPublished() {
+        append("OrderPlaced", 1);
+
+        eventOutbox.relay();
+
+        assertTrue(outboxEventRepository.findAll().stream().allMatch(event -> event.getPublishedAt() != null));
+    }
+
+    private void append(String type, int... keys) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int key : keys) {
+                eventOutbox.append(type, key, Map.of("id", key));
+            }
+        });
+    }
+
+    private static final class RecordingBroker implements EventBroker {
+
+        private final List<String> peers = new ArrayList<>();
+        private final Set<String> down = new HashSet<>();
+        private final Map<String, List<DomainEvent>> received = new HashMap<>();
+
+        @Override
+        public List<String> peers() {
+            return peers;
+        }
+
+        @Override
+        public void publish(String peer, List<DomainEvent> events) {
+            if (down.contains(peer)) {
+                throw new IllegalStateException(peer + " is down");
+            }
+            received.computeIfAbsent(peer, key -> new ArrayList<>()).addAll(events);
+        }
+
+        List<String> keys(String peer) {
+            return received.getOrDefault(peer, List.of()).stream().map(DomainEvent::key).toList();
+        }
+    }
+}
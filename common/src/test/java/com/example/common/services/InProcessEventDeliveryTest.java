@@ -0,0 +1,124 @@
+package com.example.common.services;
+
+import com.example.common.events.InProcessEventBroker;
+import com.example.common.repositories.OutboxDeliveryRepository;
+import com.example.common.repositories.OutboxEventRepository;
+import com.example.common.repositories.ProcessedEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * An "orders" service publishing through its outbox to a "delivery" service's inbox over the
+ * in-process bus, the way two services would run side by side in one JVM.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InProcessEventDeliveryTest {
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private OutboxDeliveryRepository outboxDeliveryRepository;
+
+    @Autowired
+    private ProcessedEventRepository processedEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final List<String> handled = new ArrayList<>();
+    private final Set<String> failOnce = new HashSet<>();
+    private InProcessEventBroker ordersBroker;
+    private InProcessEventBroker deliveryBroker;
+    private EventOutbox ordersOutbox;
+
+    @BeforeEach
+    void setUp() {
+        outboxDeliveryRepository.deleteAll();
+        outboxEventRepository.deleteAll();
+        processedEventRepository.deleteAll();
+
+        EventInbox deliveryInbox = new EventInbox(processedEventRepository, transactionManager, Duration.ofDays(7));
+        deliveryInbox.subscribe("OrderPlaced", event -> {
+            if (failOnce.remove(event.key())) {
+                // Not a rejection: the inbox fails the delivery and the outbox sends the events again
+                throw new RuntimeException("Lost the connection handling order " + event.key());
+            }
+            handled.add(event.key());
+        });
+        deliveryBroker = new InProcessEventBroker(deliveryInbox, "delivery", List.of());
+
+        EventInbox ordersInbox = new EventInbox(processedEventRepository, transactionManager, Duration.ofDays(7));
+        ordersBroker = new InProcessEventBroker(ordersInbox, "orders", List.of("delivery"));
+        ordersOutbox = new EventOutbox(outboxEventRepository, outboxDeliveryRepository, ordersBroker, new ObjectMapper(),
+                transactionManager, "orders", 100, Duration.ZERO, Duration.ZERO, Duration.ofDays(7));
+    }
+
+    @AfterEach
+    void tearDown() {
+        ordersBroker.close();
+        deliveryBroker.close();
+    }
+
+    @Test
+    void eventsResentAfterAFailureAreHandledOnce() {
+        failOnce.add("3");
+        append(1, 2, 3, 4);
+
+        ordersOutbox.relay();
+
+        assertEquals(List.of("1", "2"), handled);
+        assertTrue(outboxEventRepository.findAll().stream().allMatch(event -> event.getPublishedAt() == null));
+
+        ordersOutbox.relay();
+
+        assertEquals(List.of("1", "2", "3", "4"), handled);
+        assertTrue(outboxEventRepository.findAll().stream().allMatch(event -> event.getPublishedAt() != null));
+        assertEquals(4, processedEventRepository.count());
+    }
+
+    @Test
+    void aPeerNotRunningHereIsRetriedUntilItIs() {
+        deliveryBroker.close();
+        append(1);
+
+        ordersOutbox.relay();
+
+        assertEquals(List.of(), handled);
+
+        EventInbox restarted = new EventInbox(processedEventRepository, transactionManager, Duration.ofDays(7));
+        restarted.subscribe("OrderPlaced", event -> handled.add(event.key()));
+        deliveryBroker = new InProcessEventBroker(restarted, "delivery", List.of());
+        ordersOutbox.relay();
+        ordersOutbox.relay();
+
+        assertEquals(List.of("1"), handled);
+    }
+
+    private void append(int... keys) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int key : keys) {
+                ordersOutbox.append("OrderPlaced", key, Map.of("orderId", key));
+            }
+        });
+    }
+}
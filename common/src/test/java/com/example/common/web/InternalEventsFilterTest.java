@@ -0,0 +1,73 @@
+package com.example.common.web;
+
+import com.example.common.events.HttpEventBroker;
+import jakarta.servlet.ServletException;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+class InternalEventsFilterTest {
+
+    @Test
+    void letsThroughOnlyTheSharedSecret() throws ServletException, IOException {
+        InternalEventsFilter filter = new InternalEventsFilter("s3cret");
+
+        assertEquals(200, post(filter, "s3cret").getStatus());
+        assertEquals(401, post(filter, "wrong").getStatus());
+        assertEquals(401, post(filter, null).getStatus());
+    }
+
+    @Test
+    void refusesEverythingWithoutAConfiguredSecret() throws ServletException, IOException {
+        InternalEventsFilter filter = new InternalEventsFilter("");
+
+        assertEquals(401, post(filter, "").getStatus());
+    }
+
+    @Test
+    void checksThePathAsItIsRouted() throws ServletException, IOException {
+        InternalEventsFilter filter = new InternalEventsFilter("s3cret");
+
+        for (String uri : List.of("/internal;x=1/events", "/internal/events;x=1", "/%69nternal/events",
+                "//internal/events", "/internal;/events")) {
+            assertEquals(401, post(filter, uri, null).getStatus(), uri);
+        }
+    }
+
+    @Test
+    void leavesOtherPathsAlone() throws ServletException, IOException {
+        InternalEventsFilter filter = new InternalEventsFilter("s3cret");
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/orders");
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+
+        assertNotNull(chain.getRequest());
+    }
+
+    private static MockHttpServletResponse post(InternalEventsFilter filter, String secret)
+            throws ServletException, IOException {
+        return post(filter, "/internal/events", secret);
+    }
+
+    private static MockHttpServletResponse post(InternalEventsFilter filter, String uri, String secret)
+            throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+        if (secret != null) {
+            request.addHeader(HttpEventBroker.SECRET_HEADER, secret);
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, response, chain);
+        // The mock chain records the request it was given, so a refused one never reaches it
+        assertEquals(response.getStatus() == 200, chain.getRequest() != null);
+        return response;
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.common.web;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SseSubscriberTest {
+
+    @Test
+    void writesTheEventsInOrderThenCloses() throws InterruptedException {
+        RecordingEmitter emitter = new RecordingEmitter();
+        SseSubscriber subscriber = new SseSubscriber(emitter, 10, "test");
+        List<Set<DataWithMediaType>> events = List.of(event("1"), event("2"), event("3"));
+
+        events.forEach(subscriber::offer);
+        subscriber.complete();
+
+        assertTrue(emitter.completed.await(5, TimeUnit.SECONDS));
+        assertEquals(events, emitter.sent);
+        assertFalse(subscriber.offer(event("4")));
+    }
+
+    @Test
+    void dropsAStalledSubscriberWithoutHoldingUpTheOthers() throws InterruptedException {
+        RecordingEmitter stalled = new RecordingEmitter();
+        stalled.stall = new CountDownLatch(1);
+        RecordingEmitter reading = new RecordingEmitter();
+        SseSubscriber slow = new SseSubscriber(stalled, 2, "test");
+        SseSubscriber fast = new SseSubscriber(reading, 2, "test");
+
+        Set<DataWithMediaType> first = event("1");
+        slow.offer(first);
+        fast.offer(first);
+        assertTrue(stalled.writing.await(5, TimeUnit.SECONDS));
+        boolean[] taken = new boolean[4];
+        for (int i = 0; i < taken.length; i++) {
+            Set<DataWithMediaType> next = event(Integer.toString(i + 2));
+            taken[i] = slow.offer(next);
+            fast.offer(next);
+            // Lets the fast one keep up
+            reading.awaitSent(i + 2);
+        }
+        stalled.stall.countDown();
+
+        assertTrue(taken[0] && taken[1]);
+        assertFalse(taken[2] || taken[3]);
+        assertTrue(stalled.completed.await(5, TimeUnit.SECONDS));
+        // What was queued when it fell behind is discarded, not written
+        assertEquals(List.of(first), stalled.sent);
+        assertEquals(5, reading.sent.size());
+    }
+
+    @Test
+    void stopsOnceTheClientHasGone() throws InterruptedException {
+        RecordingEmitter emitter = new RecordingEmitter();
+        emitter.gone = true;
+        SseSubscriber subscriber = new SseSubscriber(emitter, 10, "test");
+
+        subscriber.offer(event("1"));
+
+        assertTrue(emitter.completed.await(5, TimeUnit.SECONDS));
+        assertFalse(subscriber.offer(event("2")));
+    }
+
+    private static Set<DataWithMediaType> event(String data) {
+        return SseEmitter.event().data(data).build();
+    }
+
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final List<Set<DataWithMediaType>> sent = new CopyOnWriteArrayList<>();
+        private final CountDownLatch writing = new CountDownLatch(1);
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile CountDownLatch stall;
+        private volatile boolean gone;
+
+        @Override
+        public void send(Set<DataWithMediaType> items) throws IOException {
+            writing.countDown();
+            if (gone) {
+                throw new IOException("Broken pipe");
+            }
+            if (stall != null) {
+                try {
+                    stall.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            sent.add(items);
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+
+        @Override
+        public void completeWithError(Throwable ex) {
+            completed.countDown();
+        }
+
+        private void awaitSent(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (sent.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+        }
+    }
+}
@@ -2,8 +2,15 @@ package com.example.deliveryservice;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+// The domain event outbox and inbox come from the common module
+@SpringBootApplication(scanBasePackages = {"com.example.deliveryservice", "com.example.common"})
+@EntityScan(basePackages = {"com.example.deliveryservice", "com.example.common"})
+@EnableJpaRepositories(basePackages = {"com.example.deliveryservice", "com.example.common"})
+@EnableScheduling
 public class DeliveryServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,11 @@
+package com.example.deliveryservice.dtos;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class AssignBatchDto {
+    private Long driverId;
+    private List<Long> deliveryIds;
+}
@@ -0,0 +1,22 @@
+package com.example.deliveryservice.dtos;
+
+import com.example.deliveryservice.entities.DeliveryStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchStopDto {
+    private Long deliveryId;
+    private Long orderId;
+    private int stopIndex;
+    private String customerAddress;
+    private Double customerLatitude;
+    private Double customerLongitude;
+    private DeliveryStatus status;
+    private LocalDateTime estimatedDeliveryTime;
+}
@@ -0,0 +1,24 @@
+package com.example.deliveryservice.dtos;
+
+import com.example.deliveryservice.entities.DeliveryStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryAggregateDto {
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private Long driverId;
+    // Deliveries finished in the range and how they ended
+    private long deliveries;
+    private Map<DeliveryStatus, Long> deliveriesByStatus;
+    // Of those with both an estimate and an actual delivery time
+    private long onTime;
+    private long late;
+}
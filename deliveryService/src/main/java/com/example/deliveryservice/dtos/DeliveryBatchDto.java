@@ -0,0 +1,21 @@
+package com.example.deliveryservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryBatchDto {
+    // Null for a suggestion that has not been assigned yet
+    private Long batchId;
+    private Long restaurantId;
+    private String restaurantName;
+    private Long driverId;
+    // From the restaurant through every stop in order, as the crow flies
+    private double routeKm;
+    private List<BatchStopDto> stops;
+}
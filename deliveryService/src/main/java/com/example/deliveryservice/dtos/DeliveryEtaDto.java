@@ -0,0 +1,19 @@
+package com.example.deliveryservice.dtos;
+
+import com.example.deliveryservice.entities.DeliveryStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryEtaDto {
+    private Long deliveryId;
+    private Long orderId;
+    private DeliveryStatus status;
+    private Long driverId;
+    private LocalDateTime estimatedDeliveryTime;
+}
@@ -0,0 +1,19 @@
+package com.example.deliveryservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryMetricsStatsDto {
+    private int rawSamples;
+    private int minuteBuckets;
+    private long minuteSketches;
+    private int hourBuckets;
+    private long hourSketches;
+    private Instant lastSnapshotAt;
+}
@@ -0,0 +1,22 @@
+package com.example.deliveryservice.dtos;
+
+import com.example.deliveryservice.services.DeliveryMetricsStore;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryPercentilesDto {
+    private DeliveryMetricsStore.Metric metric;
+    // The range actually covered, which may be wider than the one asked for
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private Long driverId;
+    private Long restaurantId;
+    private List<PercentileGroupDto> groups;
+}
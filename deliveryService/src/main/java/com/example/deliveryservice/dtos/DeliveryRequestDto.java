@@ -7,5 +7,11 @@ public class DeliveryRequestDto {
     private Long orderId;
     private Long driverId;
     private String customerAddress;
+    private Double customerLatitude;
+    private Double customerLongitude;
     private String restaurantName;
-}
\ No newline at end of file
+    // Coordinates are looked up from the restaurant service when only the id is given
+    private Long restaurantId;
+    private Double restaurantLatitude;
+    private Double restaurantLongitude;
+}
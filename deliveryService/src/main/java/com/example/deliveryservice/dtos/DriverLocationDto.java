@@ -0,0 +1,17 @@
+package com.example.deliveryservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverLocationDto {
+    private Long driverId;
+    // Boxed, so a ping that leaves them out is turned down rather than read as (0, 0)
+    private Double latitude;
+    private Double longitude;
+    // Epoch milliseconds when the position was taken; the server time if left out
+    private Long timestamp;
+}
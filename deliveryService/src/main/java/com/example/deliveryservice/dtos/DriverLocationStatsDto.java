@@ -0,0 +1,19 @@
+package com.example.deliveryservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DriverLocationStatsDto {
+    private int trackedDrivers;
+    // Pings since startup
+    private long accepted;
+    private long stale;
+    private long rejected;
+    private Instant lastSnapshotAt;
+}
@@ -0,0 +1,16 @@
+package com.example.deliveryservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class LocationBatchResultDto {
+    private int accepted;
+    // Older than the position already held for the driver
+    private int stale;
+    // Missing driver, coordinates out of range or timestamp in the future
+    private int rejected;
+}
@@ -0,0 +1,16 @@
+package com.example.deliveryservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyDriverDto {
+    private long driverId;
+    private double latitude;
+    private double longitude;
+    private long timestamp;
+    private double distanceKm;
+}
@@ -0,0 +1,19 @@
+package com.example.deliveryservice.dtos;
+
+import com.example.deliveryservice.entities.Delivery;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingDeliveriesDto {
+    // Pass back as ?version= to wait for the next change that matters to the same filter
+    private long version;
+    // Matching deliveries on the board, before limit and offset
+    private long total;
+    private List<Delivery> deliveries;
+}
@@ -0,0 +1,19 @@
+package com.example.deliveryservice.dtos;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PercentileGroupDto {
+    // 0-23 when split by hour of day, otherwise null
+    private Integer hourOfDay;
+    private long count;
+    // In minutes; null when there are no samples
+    private Double meanMinutes;
+    private Double p50Minutes;
+    private Double p90Minutes;
+    private Double p99Minutes;
+}
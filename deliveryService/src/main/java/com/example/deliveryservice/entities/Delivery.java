@@ -2,10 +2,12 @@ package com.example.deliveryservice.entities;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.CreationTimestamp;
+
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "deliveries")
+@Table(name = "deliveries", indexes = @Index(name = "idx_deliveries_batch_id", columnList = "batchId"))
 @Data
 public class Delivery {
 
@@ -19,7 +21,12 @@ public class Delivery {
     private Long driverId; // Foreign key from a future DriverService
 
     private String customerAddress;
+    private Double customerLatitude;
+    private Double customerLongitude;
     private String restaurantName;
+    private Long restaurantId;
+    private Double restaurantLatitude;
+    private Double restaurantLongitude;
 
     @Enumerated(EnumType.STRING)
     private DeliveryStatus status;
@@ -27,6 +34,12 @@ public class Delivery {
     private LocalDateTime estimatedDeliveryTime;
     private LocalDateTime actualDeliveryTime; // Set when status becomes DELIVERED
 
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+
+    private Long batchId; // Id of the batch's first delivery when carried together with others
+    private Integer stopIndex; // Position on the batch's route, from 0
+
     public Long getDeliveryId() {
         return deliveryId;
     }
@@ -59,6 +72,22 @@ public class Delivery {
         this.customerAddress = customerAddress;
     }
 
+    public Double getCustomerLatitude() {
+        return customerLatitude;
+    }
+
+    public void setCustomerLatitude(Double customerLatitude) {
+        this.customerLatitude = customerLatitude;
+    }
+
+    public Double getCustomerLongitude() {
+        return customerLongitude;
+    }
+
+    public void setCustomerLongitude(Double customerLongitude) {
+        this.customerLongitude = customerLongitude;
+    }
+
     public String getRestaurantName() {
         return restaurantName;
     }
@@ -67,6 +96,30 @@ public class Delivery {
         this.restaurantName = restaurantName;
     }
 
+    public Long getRestaurantId() {
+        return restaurantId;
+    }
+
+    public void setRestaurantId(Long restaurantId) {
+        this.restaurantId = restaurantId;
+    }
+
+    public Double getRestaurantLatitude() {
+        return restaurantLatitude;
+    }
+
+    public void setRestaurantLatitude(Double restaurantLatitude) {
+        this.restaurantLatitude = restaurantLatitude;
+    }
+
+    public Double getRestaurantLongitude() {
+        return restaurantLongitude;
+    }
+
+    public void setRestaurantLongitude(Double restaurantLongitude) {
+        this.restaurantLongitude = restaurantLongitude;
+    }
+
     public DeliveryStatus getStatus() {
         return status;
     }
@@ -90,4 +143,28 @@ public class Delivery {
     public void setActualDeliveryTime(LocalDateTime actualDeliveryTime) {
         this.actualDeliveryTime = actualDeliveryTime;
     }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Long getBatchId() {
+        return batchId;
+    }
+
+    public void setBatchId(Long batchId) {
+        this.batchId = batchId;
+    }
+
+    public Integer getStopIndex() {
+        return stopIndex;
+    }
+
+    public void setStopIndex(Integer stopIndex) {
+        this.stopIndex = stopIndex;
+    }
 }
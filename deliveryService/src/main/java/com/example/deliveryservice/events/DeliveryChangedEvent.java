@@ -0,0 +1,12 @@
+package com.example.deliveryservice.events;
+
+import com.example.deliveryservice.entities.Delivery;
+import com.example.deliveryservice.entities.DeliveryStatus;
+
+/**
+ * Published whenever a delivery is created, assigned or changes status, carrying the delivery
+ * as saved and the status it had before, null for a new one. Listeners that push it to
+ * clients do so once the surrounding transaction has committed.
+ */
+public record DeliveryChangedEvent(Delivery delivery, DeliveryStatus previousStatus) {
+}
@@ -0,0 +1,12 @@
+package com.example.deliveryservice.events;
+
+import com.example.common.events.DomainEvent;
+import com.example.deliveryservice.entities.DeliveryStatus;
+
+/**
+ * Payload of {@link DomainEvent#DELIVERY_STATUS_CHANGED}: a delivery was created or moved to
+ * another status; {@code previousStatus} is null for a new one.
+ */
+public record DeliveryStatusChanged(Long deliveryId, Long orderId, Long driverId, DeliveryStatus status,
+                                    DeliveryStatus previousStatus) {
+}
@@ -2,9 +2,17 @@ package com.example.deliveryservice.repositories;
 
 import com.example.deliveryservice.entities.Delivery;
 import com.example.deliveryservice.entities.DeliveryStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,7 +26,33 @@ public interface DeliveryRepository extends JpaRepository<Delivery, Long> {
 
     List<Delivery> findByStatus(DeliveryStatus status);
 
-    List<Delivery> findByDriverIdAndStatusNot(Long driverId, DeliveryStatus status);
+    // (driverId, batch or delivery id) of every delivery a driver is still busy with
+    @Query("select distinct d.driverId, coalesce(d.batchId, d.deliveryId) from Delivery d "
+            + "where d.driverId is not null and d.status not in :inactive")
+    List<Object[]> findActiveDriverAssignments(@Param("inactive") Collection<DeliveryStatus> inactive);
+
+    List<Delivery> findByBatchIdOrderByStopIndex(Long batchId);
+
+    // Locked in id order, so concurrent batch assignments over the same deliveries wait instead of deadlocking
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select d from Delivery d where d.deliveryId in :deliveryIds order by d.deliveryId")
+    List<Delivery> lockByDeliveryIdIn(@Param("deliveryIds") Collection<Long> deliveryIds);
 
     List<Delivery> findByDriverId(Long driverId);
+
+    // Finished deliveries due for export to segment files, in id order
+    @Query("select d.deliveryId from Delivery d where d.deliveryId > :afterId and d.status in :statuses "
+            + "and coalesce(d.actualDeliveryTime, d.estimatedDeliveryTime) < :cutoff order by d.deliveryId")
+    List<Long> findIdsFinishedBefore(@Param("afterId") Long afterId,
+                                     @Param("statuses") Collection<DeliveryStatus> statuses,
+                                     @Param("cutoff") LocalDateTime cutoff,
+                                     Pageable page);
+
+    List<Delivery> findByDeliveryIdInOrderByDeliveryId(Collection<Long> deliveryIds);
+
+    // Only rows still in one of the given statuses, so a delivery changed since it was exported stays
+    @Modifying
+    @Query("delete from Delivery d where d.deliveryId in :deliveryIds and d.status in :statuses")
+    int deleteByIdsInStatus(@Param("deliveryIds") Collection<Long> deliveryIds,
+                            @Param("statuses") Collection<DeliveryStatus> statuses);
 }
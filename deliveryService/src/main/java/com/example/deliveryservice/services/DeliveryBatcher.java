@@ -0,0 +1,204 @@
+package com.example.deliveryservice.services;
+
+import com.example.deliveryservice.dtos.BatchStopDto;
+import com.example.deliveryservice.dtos.DeliveryBatchDto;
+import com.example.deliveryservice.entities.Delivery;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Groups pending deliveries one driver can carry together: orders from the same restaurant,
+ * placed within {@code deliveries.batching.window} of each other, whose customers are within
+ * {@code deliveries.batching.radius-km} of the first one's.
+ *
+ * Stops are ordered by nearest neighbour from the restaurant, then improved with 2-opt until
+ * no reversal of a stretch of the route makes it shorter. Batches are small, so this settles
+ * in a handful of passes and is close to the best order.
+ */
+@Component
+public class DeliveryBatcher {
+
+    private final PendingDeliveryBoard pendingDeliveryBoard;
+    private final Duration window;
+    private final double radiusKm;
+    private final int maxStops;
+
+    public DeliveryBatcher(PendingDeliveryBoard pendingDeliveryBoard,
+                           @Value("${deliveries.batching.window:10m}") Duration window,
+                           @Value("${deliveries.batching.radius-km:2}") double radiusKm,
+                           @Value("${deliveries.batching.max-stops:3}") int maxStops) {
+        this.pendingDeliveryBoard = pendingDeliveryBoard;
+        this.window = window;
+        this.radiusKm = radiusKm;
+        this.maxStops = maxStops;
+    }
+
+    public int maxStops() {
+        return maxStops;
+    }
+
+    /**
+     * Batches that could be formed from the deliveries waiting for a driver right now, oldest
+     * orders first. Deliveries that fit no batch are left out.
+     */
+    public List<DeliveryBatchDto> suggestions() {
+        Map<String, List<Delivery>> byPickup = new LinkedHashMap<>();
+        LocalDateTime now = LocalDateTime.now();
+        pendingDeliveryBoard.all().stream()
+                .filter(d -> d.getDriverId() == null && d.getBatchId() == null
+                        && d.getCustomerLatitude() != null && d.getCustomerLongitude() != null)
+                .sorted(Comparator.comparing((Delivery d) -> createdAt(d, now)).thenComparing(Delivery::getDeliveryId))
+                .forEach(d -> byPickup.computeIfAbsent(pickupKey(d), key -> new ArrayList<>()).add(d));
+
+        List<DeliveryBatchDto> suggestions = new ArrayList<>();
+        for (List<Delivery> candidates : byPickup.values()) {
+            boolean[] taken = new boolean[candidates.size()];
+            for (int seed = 0; seed < candidates.size(); seed++) {
+                if (taken[seed]) {
+                    continue;
+                }
+                Delivery first = candidates.get(seed);
+                LocalDateTime windowEnd = createdAt(first, now).plus(window);
+                List<Integer> members = new ArrayList<>(List.of(seed));
+                for (int i = seed + 1; i < candidates.size() && members.size() < maxStops; i++) {
+                    Delivery candidate = candidates.get(i);
+                    if (createdAt(candidate, now).isAfter(windowEnd)) {
+                        break;
+                    }
+                    if (!taken[i] && DriverLocationStore.distanceKm(first.getCustomerLatitude(), first.getCustomerLongitude(),
+                            candidate.getCustomerLatitude(), candidate.getCustomerLongitude()) <= radiusKm) {
+                        members.add(i);
+                    }
+                }
+                if (members.size() < 2) {
+                    continue;
+                }
+                List<Delivery> batch = new ArrayList<>();
+                for (int i : members) {
+                    taken[i] = true;
+                    batch.add(candidates.get(i));
+                }
+                suggestions.add(toDto(null, null, orderStops(batch)));
+            }
+        }
+        return suggestions;
+    }
+
+    /**
+     * Whether these deliveries are picked up at the same place.
+     */
+    public boolean samePickup(List<Delivery> deliveries) {
+        String key = pickupKey(deliveries.get(0));
+        return deliveries.stream().allMatch(d -> pickupKey(d).equals(key));
+    }
+
+    /**
+     * The deliveries in the order to drop them off, starting from the restaurant.
+     */
+    public List<Delivery> orderStops(List<Delivery> deliveries) {
+        List<Delivery> remaining = new ArrayList<>(deliveries);
+        List<Delivery> route = new ArrayList<>(deliveries.size());
+        double[] start = start(deliveries);
+        double[] at = start;
+        while (!remaining.isEmpty()) {
+            int nearest = 0;
+            for (int i = 1; i < remaining.size(); i++) {
+                if (distance(at, customer(remaining.get(i))) < distance(at, customer(remaining.get(nearest)))) {
+                    nearest = i;
+                }
+            }
+            Delivery next = remaining.remove(nearest);
+            route.add(next);
+            at = customer(next);
+        }
+        improve(start, route);
+        return route;
+    }
+
+    public DeliveryBatchDto toDto(Long batchId, Long driverId, List<Delivery> stops) {
+        List<BatchStopDto> stopDtos = new ArrayList<>(stops.size());
+        double routeKm = 0;
+        double[] at = start(stops);
+        for (int i = 0; i < stops.size(); i++) {
+            Delivery stop = stops.get(i);
+            routeKm += distance(at, customer(stop));
+            at = customer(stop);
+            stopDtos.add(new BatchStopDto(stop.getDeliveryId(), stop.getOrderId(), i, stop.getCustomerAddress(),
+                    stop.getCustomerLatitude(), stop.getCustomerLongitude(), stop.getStatus(),
+                    stop.getEstimatedDeliveryTime()));
+        }
+        Delivery first = stops.get(0);
+        return new DeliveryBatchDto(batchId, first.getRestaurantId(), first.getRestaurantName(), driverId,
+                routeKm, stopDtos);
+    }
+
+    // 2-opt on an open route from a fixed start: reverse any stretch whose ends can be joined more cheaply
+    private static void improve(double[] start, List<Delivery> route) {
+        int n = route.size();
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int i = 0; i < n - 1; i++) {
+                double[] before = i == 0 ? start : customer(route.get(i - 1));
+                for (int k = i + 1; k < n; k++) {
+                    double[] first = customer(route.get(i));
+                    double[] last = customer(route.get(k));
+                    double change = distance(before, last) - distance(before, first);
+                    if (k + 1 < n) {
+                        double[] after = customer(route.get(k + 1));
+                        change += distance(first, after) - distance(last, after);
+                    }
+                    if (change < -1e-9) {
+                        Collections.reverse(route.subList(i, k + 1));
+                        improved = true;
+                    }
+                }
+            }
+        }
+    }
+
+    // The restaurant if its position is known, otherwise the first customer
+    private static double[] start(List<Delivery> deliveries) {
+        Delivery first = deliveries.get(0);
+        if (first.getRestaurantLatitude() != null && first.getRestaurantLongitude() != null) {
+            return new double[]{first.getRestaurantLatitude(), first.getRestaurantLongitude()};
+        }
+        return customer(first);
+    }
+
+    private static double[] customer(Delivery delivery) {
+        if (delivery.getCustomerLatitude() == null || delivery.getCustomerLongitude() == null) {
+            return null;
+        }
+        return new double[]{delivery.getCustomerLatitude(), delivery.getCustomerLongitude()};
+    }
+
+    // Unknown positions count as no distance, so they keep their place in the order
+    private static double distance(double[] from, double[] to) {
+        if (from == null || to == null) {
+            return 0;
+        }
+        return DriverLocationStore.distanceKm(from[0], from[1], to[0], to[1]);
+    }
+
+    private static String pickupKey(Delivery delivery) {
+        if (delivery.getRestaurantId() != null) {
+            return "id:" + delivery.getRestaurantId();
+        }
+        return "name:" + Objects.toString(delivery.getRestaurantName(), "").trim().toLowerCase();
+    }
+
+    private static LocalDateTime createdAt(Delivery delivery, LocalDateTime now) {
+        return delivery.getCreatedAt() != null ? delivery.getCreatedAt() : now;
+    }
+}
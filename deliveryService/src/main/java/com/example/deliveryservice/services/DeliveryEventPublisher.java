@@ -0,0 +1,33 @@
+package com.example.deliveryservice.services;
+
+import com.example.common.events.DomainEvent;
+import com.example.common.services.EventOutbox;
+import com.example.deliveryservice.entities.Delivery;
+import com.example.deliveryservice.events.DeliveryChangedEvent;
+import com.example.deliveryservice.events.DeliveryStatusChanged;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Tells other services about delivery status changes, through the outbox of the transaction
+ * making them.
+ */
+@Component
+@RequiredArgsConstructor
+public class DeliveryEventPublisher {
+
+    private final EventOutbox eventOutbox;
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onDeliveryChanged(DeliveryChangedEvent event) {
+        Delivery delivery = event.delivery();
+        if (delivery.getStatus() == event.previousStatus()) {
+            return;
+        }
+        eventOutbox.append(DomainEvent.DELIVERY_STATUS_CHANGED, delivery.getDeliveryId(),
+                new DeliveryStatusChanged(delivery.getDeliveryId(), delivery.getOrderId(), delivery.getDriverId(),
+                        delivery.getStatus(), event.previousStatus()));
+    }
+}
@@ -0,0 +1,441 @@
+package com.example.deliveryservice.services;
+
+import com.example.deliveryservice.dtos.DeliveryMetricsStatsDto;
+import com.example.deliveryservice.dtos.DeliveryPercentilesDto;
+import com.example.deliveryservice.dtos.PercentileGroupDto;
+import com.example.deliveryservice.entities.Delivery;
+import com.example.deliveryservice.entities.DeliveryStatus;
+import com.example.deliveryservice.events.DeliveryChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Delivery performance over time: how long deliveries wait to be accepted and picked up, how
+ * long they take end to end and how late they arrive against their estimate, overall, per
+ * driver and per restaurant.
+ *
+ * Every status transition that completes one of these intervals is recorded as a raw sample.
+ * Once a minute is over, its samples are folded into one {@link QuantileSketch} per metric and
+ * series; once an hour is over, its minute sketches are merged into hourly ones. Each tier is
+ * kept for its own retention, so percentiles over long ranges read a few hundred sketches
+ * instead of every sample. A range is answered from whole hours in the middle, minutes at the
+ * edges and raw samples for the minute in progress; where the finer tier has already aged out
+ * the range is widened to whole hours, and the range actually covered is reported back.
+ *
+ * The store lives in memory and is written to a snapshot file every few minutes and on
+ * shutdown, so a crash loses at most the samples since the last snapshot.
+ */
+@Component
+public class DeliveryMetricsStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliveryMetricsStore.class);
+
+    private static final int SNAPSHOT_MAGIC = 0x444D4554; // "DMET"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final long MINUTE = Duration.ofMinutes(1).toMillis();
+    private static final long HOUR = Duration.ofHours(1).toMillis();
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99};
+
+    public enum Metric {
+        ACCEPT_LATENCY,     // Created until a driver accepted
+        PICKUP_LATENCY,     // Created until the food was picked up
+        DELIVERY_DURATION,  // Created until delivered
+        LATENESS            // Delivered minus the estimated delivery time; negative when early
+    }
+
+    private enum Dimension {
+        ALL, DRIVER, RESTAURANT
+    }
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private final long rawRetentionMillis;
+    private final long minuteRetentionMillis;
+    private final long hourRetentionMillis;
+    private final Path snapshotFile;
+
+    // Guards everything below
+    private final Object lock = new Object();
+    // In time order
+    private final Deque<Sample> raw = new ArrayDeque<>();
+    // Bucket start -> series key -> sketch
+    private final NavigableMap<Long, Map<Long, QuantileSketch>> minutes = new TreeMap<>();
+    private final NavigableMap<Long, Map<Long, QuantileSketch>> hours = new TreeMap<>();
+    // Raw samples before this are in the minute tier, minutes before this in the hour tier
+    private long minutesFoldedUpTo;
+    private long hoursFoldedUpTo;
+    private long lastSampleAt;
+    private volatile Instant lastSnapshotAt;
+
+    public DeliveryMetricsStore(@Value("${deliveries.metrics.raw-retention:2h}") Duration rawRetention,
+                                @Value("${deliveries.metrics.minute-retention:48h}") Duration minuteRetention,
+                                @Value("${deliveries.metrics.hour-retention:90d}") Duration hourRetention,
+                                @Value("${deliveries.metrics.snapshot-file:data/delivery-metrics.bin}") String snapshotFile) {
+        this.rawRetentionMillis = rawRetention.toMillis();
+        this.minuteRetentionMillis = minuteRetention.toMillis();
+        this.hourRetentionMillis = hourRetention.toMillis();
+        this.snapshotFile = Path.of(snapshotFile);
+        long now = System.currentTimeMillis();
+        this.minutesFoldedUpTo = floor(now, MINUTE);
+        this.hoursFoldedUpTo = floor(now, HOUR);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeliveryChanged(DeliveryChangedEvent event) {
+        Delivery delivery = event.delivery();
+        DeliveryStatus status = delivery.getStatus();
+        if (status == null || status == event.previousStatus()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime createdAt = delivery.getCreatedAt();
+        switch (status) {
+            case ACCEPTED -> {
+                if (createdAt != null) {
+                    record(delivery, Metric.ACCEPT_LATENCY, seconds(createdAt, now));
+                }
+            }
+            case PICKED_UP -> {
+                if (createdAt != null) {
+                    record(delivery, Metric.PICKUP_LATENCY, seconds(createdAt, now));
+                }
+            }
+            case DELIVERED -> {
+                LocalDateTime deliveredAt = delivery.getActualDeliveryTime() != null ? delivery.getActualDeliveryTime() : now;
+                if (createdAt != null) {
+                    record(delivery, Metric.DELIVERY_DURATION, seconds(createdAt, deliveredAt));
+                }
+                if (delivery.getEstimatedDeliveryTime() != null) {
+                    record(delivery, Metric.LATENESS, seconds(delivery.getEstimatedDeliveryTime(), deliveredAt));
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    /**
+     * p50, p90 and p99 of a metric, in minutes, over {@code [from, to)} for all deliveries or
+     * one driver or restaurant, optionally split by hour of day.
+     */
+    public DeliveryPercentilesDto percentiles(Metric metric, LocalDateTime from, LocalDateTime to,
+                                              Long driverId, Long restaurantId, boolean byHourOfDay) {
+        long key = driverId != null ? key(metric, Dimension.DRIVER, driverId)
+                : restaurantId != null ? key(metric, Dimension.RESTAURANT, restaurantId)
+                : key(metric, Dimension.ALL, 0);
+        long start = toMillis(from);
+        long end = toMillis(to);
+        QuantileSketch[] groups = new QuantileSketch[byHourOfDay ? 24 : 1];
+        long coveredFrom = Long.MAX_VALUE;
+        long coveredTo = Long.MIN_VALUE;
+
+        synchronized (lock) {
+            long now = System.currentTimeMillis();
+            // The oldest minute still kept; before it only whole hours are known
+            long minutesFrom = floor(now - minuteRetentionMillis, MINUTE) + MINUTE;
+            long cursor = Math.max(start, floor(now - hourRetentionMillis, HOUR));
+            while (cursor < end) {
+                long hour = floor(cursor, HOUR);
+                long minute = floor(cursor, MINUTE);
+                long next;
+                long used;
+                if (cursor >= minutesFoldedUpTo) {
+                    // Not folded yet: the raw samples themselves
+                    for (Sample sample : raw) {
+                        if (sample.at() >= cursor && sample.at() < end && sample.key() == key) {
+                            group(groups, sample.at(), byHourOfDay).add(sample.seconds());
+                        }
+                    }
+                    coveredFrom = Math.min(coveredFrom, cursor);
+                    coveredTo = Math.max(coveredTo, end);
+                    break;
+                } else if (hour < hoursFoldedUpTo && (cursor == hour && hour + HOUR <= end || minute < minutesFrom)) {
+                    merge(groups, hours.get(hour), key, hour, byHourOfDay);
+                    used = hour;
+                    next = hour + HOUR;
+                } else {
+                    merge(groups, minutes.get(minute), key, minute, byHourOfDay);
+                    used = minute;
+                    next = minute + MINUTE;
+                }
+                coveredFrom = Math.min(coveredFrom, used);
+                coveredTo = Math.max(coveredTo, next);
+                cursor = next;
+            }
+        }
+
+        List<PercentileGroupDto> result = new ArrayList<>(groups.length);
+        for (int i = 0; i < groups.length; i++) {
+            QuantileSketch sketch = groups[i] != null ? groups[i] : new QuantileSketch();
+            result.add(new PercentileGroupDto(byHourOfDay ? i : null, sketch.count(),
+                    minutes(sketch.mean()), minutes(sketch.quantile(QUANTILES[0])),
+                    minutes(sketch.quantile(QUANTILES[1])), minutes(sketch.quantile(QUANTILES[2]))));
+        }
+        return new DeliveryPercentilesDto(metric, coveredFrom == Long.MAX_VALUE ? from : toLocal(coveredFrom),
+                coveredTo == Long.MIN_VALUE ? to : toLocal(coveredTo), driverId, restaurantId, result);
+    }
+
+    public DeliveryMetricsStatsDto stats() {
+        synchronized (lock) {
+            long minuteSeries = minutes.values().stream().mapToLong(Map::size).sum();
+            long hourSeries = hours.values().stream().mapToLong(Map::size).sum();
+            return new DeliveryMetricsStatsDto(raw.size(), minutes.size(), minuteSeries, hours.size(), hourSeries,
+                    lastSnapshotAt);
+        }
+    }
+
+    /**
+     * Folds finished minutes of raw samples into minute sketches and finished hours of minute
+     * sketches into hour sketches, then drops whatever is past its tier's retention.
+     */
+    @Scheduled(initialDelayString = "${deliveries.metrics.compact-interval:PT1M}",
+            fixedDelayString = "${deliveries.metrics.compact-interval:PT1M}")
+    public void compact() {
+        long now = System.currentTimeMillis();
+        long currentMinute = floor(now, MINUTE);
+        long currentHour = floor(now, HOUR);
+        synchronized (lock) {
+            for (Sample sample : raw) {
+                if (sample.at() >= currentMinute) {
+                    break;
+                }
+                if (sample.at() >= minutesFoldedUpTo) {
+                    add(minutes, floor(sample.at(), MINUTE), sample.key(), sample.seconds());
+                }
+            }
+            minutesFoldedUpTo = Math.max(minutesFoldedUpTo, currentMinute);
+
+            for (Map.Entry<Long, Map<Long, QuantileSketch>> bucket
+                    : minutes.subMap(hoursFoldedUpTo, true, currentHour, false).entrySet()) {
+                Map<Long, QuantileSketch> hour = hours.computeIfAbsent(floor(bucket.getKey(), HOUR), h -> new HashMap<>());
+                bucket.getValue().forEach((key, sketch) -> hour.computeIfAbsent(key, k -> new QuantileSketch()).merge(sketch));
+            }
+            hoursFoldedUpTo = Math.max(hoursFoldedUpTo, currentHour);
+
+            while (!raw.isEmpty() && raw.peekFirst().at() < Math.min(now - rawRetentionMillis, minutesFoldedUpTo)) {
+                raw.removeFirst();
+            }
+            minutes.headMap(Math.min(floor(now - minuteRetentionMillis, MINUTE) + MINUTE, hoursFoldedUpTo)).clear();
+            hours.headMap(floor(now - hourRetentionMillis, HOUR)).clear();
+        }
+    }
+
+    @PostConstruct
+    public void restore() {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshotFile)), crc))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Not a delivery metrics snapshot");
+            }
+            long restoredMinutesFolded = in.readLong();
+            long restoredHoursFolded = in.readLong();
+            long fileSize = Files.size(snapshotFile);
+            int rawCount = count(in, fileSize);
+            List<Sample> restoredRaw = new ArrayList<>(rawCount);
+            for (int i = 0; i < rawCount; i++) {
+                restoredRaw.add(new Sample(in.readLong(), in.readLong(), in.readDouble()));
+            }
+            NavigableMap<Long, Map<Long, QuantileSketch>> restoredMinutes = readTier(in, fileSize);
+            NavigableMap<Long, Map<Long, QuantileSketch>> restoredHours = readTier(in, fileSize);
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Checksum mismatch");
+            }
+            synchronized (lock) {
+                raw.addAll(restoredRaw);
+                minutes.putAll(restoredMinutes);
+                hours.putAll(restoredHours);
+                minutesFoldedUpTo = restoredMinutesFolded;
+                hoursFoldedUpTo = restoredHoursFolded;
+                lastSampleAt = restoredRaw.isEmpty() ? 0 : restoredRaw.get(restoredRaw.size() - 1).at();
+            }
+            logger.info("Restored {} raw samples, {} minute and {} hour buckets from {}",
+                    rawCount, restoredMinutes.size(), restoredHours.size(), snapshotFile);
+        } catch (IOException e) {
+            logger.warn("Ignoring delivery metrics snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the whole store to the snapshot file. The file is replaced atomically, so a crash
+     * mid-write leaves the previous snapshot in place.
+     */
+    @Scheduled(initialDelayString = "${deliveries.metrics.snapshot-interval:PT5M}",
+            fixedDelayString = "${deliveries.metrics.snapshot-interval:PT5M}")
+    public void snapshot() {
+        try {
+            Path parent = snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, snapshotFile.getFileName().toString(), ".tmp");
+            try {
+                CRC32 crc = new CRC32();
+                try (OutputStream file = Files.newOutputStream(temp);
+                     DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(file), crc))) {
+                    out.writeInt(SNAPSHOT_MAGIC);
+                    out.writeInt(SNAPSHOT_VERSION);
+                    // Written under the lock; sketches are small and this runs every few minutes
+                    synchronized (lock) {
+                        out.writeLong(minutesFoldedUpTo);
+                        out.writeLong(hoursFoldedUpTo);
+                        out.writeInt(raw.size());
+                        for (Sample sample : raw) {
+                            out.writeLong(sample.at());
+                            out.writeLong(sample.key());
+                            out.writeDouble(sample.seconds());
+                        }
+                        writeTier(out, minutes);
+                        writeTier(out, hours);
+                    }
+                    out.flush();
+                    long checksum = crc.getValue();
+                    out.writeLong(checksum);
+                }
+                Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            lastSnapshotAt = Instant.now();
+        } catch (IOException e) {
+            logger.warn("Could not write delivery metrics snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshot();
+    }
+
+    private void record(Delivery delivery, Metric metric, double seconds) {
+        synchronized (lock) {
+            // Kept in time order even if the clock steps back
+            long at = Math.max(System.currentTimeMillis(), lastSampleAt);
+            lastSampleAt = at;
+            raw.addLast(new Sample(at, key(metric, Dimension.ALL, 0), seconds));
+            if (delivery.getDriverId() != null) {
+                raw.addLast(new Sample(at, key(metric, Dimension.DRIVER, delivery.getDriverId()), seconds));
+            }
+            if (delivery.getRestaurantId() != null) {
+                raw.addLast(new Sample(at, key(metric, Dimension.RESTAURANT, delivery.getRestaurantId()), seconds));
+            }
+        }
+    }
+
+    private QuantileSketch group(QuantileSketch[] groups, long at, boolean byHourOfDay) {
+        int index = byHourOfDay ? toLocal(at).getHour() : 0;
+        if (groups[index] == null) {
+            groups[index] = new QuantileSketch();
+        }
+        return groups[index];
+    }
+
+    private void merge(QuantileSketch[] groups, Map<Long, QuantileSketch> bucket, long key, long bucketStart,
+                       boolean byHourOfDay) {
+        QuantileSketch sketch = bucket != null ? bucket.get(key) : null;
+        if (sketch != null) {
+            group(groups, bucketStart, byHourOfDay).merge(sketch);
+        }
+    }
+
+    private static void add(NavigableMap<Long, Map<Long, QuantileSketch>> tier, long bucket, long key, double value) {
+        tier.computeIfAbsent(bucket, b -> new HashMap<>()).computeIfAbsent(key, k -> new QuantileSketch()).add(value);
+    }
+
+    private static void writeTier(DataOutputStream out, NavigableMap<Long, Map<Long, QuantileSketch>> tier) throws IOException {
+        out.writeInt(tier.size());
+        for (Map.Entry<Long, Map<Long, QuantileSketch>> bucket : tier.entrySet()) {
+            out.writeLong(bucket.getKey());
+            out.writeInt(bucket.getValue().size());
+            for (Map.Entry<Long, QuantileSketch> series : bucket.getValue().entrySet()) {
+                out.writeLong(series.getKey());
+                series.getValue().writeTo(out);
+            }
+        }
+    }
+
+    private static NavigableMap<Long, Map<Long, QuantileSketch>> readTier(DataInputStream in, long fileSize)
+            throws IOException {
+        NavigableMap<Long, Map<Long, QuantileSketch>> tier = new TreeMap<>();
+        int buckets = count(in, fileSize);
+        for (int b = 0; b < buckets; b++) {
+            long start = in.readLong();
+            int seriesCount = count(in, fileSize);
+            Map<Long, QuantileSketch> series = new HashMap<>(seriesCount * 2);
+            for (int s = 0; s < seriesCount; s++) {
+                series.put(in.readLong(), QuantileSketch.readFrom(in));
+            }
+            tier.put(start, series);
+        }
+        return tier;
+    }
+
+    // A count read from the snapshot; every entry takes at least a byte, so a larger one means a corrupt file
+    private static int count(DataInputStream in, long fileSize) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > fileSize) {
+            throw new IOException("Snapshot is truncated or corrupt (count " + count + ")");
+        }
+        return count;
+    }
+
+    // Metric and dimension in the top bits, the driver or restaurant id below
+    private static long key(Metric metric, Dimension dimension, long id) {
+        return ((long) metric.ordinal() << 58) | ((long) dimension.ordinal() << 56) | (id & ((1L << 56) - 1));
+    }
+
+    private static long floor(long millis, long unit) {
+        return Math.floorDiv(millis, unit) * unit;
+    }
+
+    private static double seconds(LocalDateTime from, LocalDateTime to) {
+        return Duration.between(from, to).toMillis() / 1000.0;
+    }
+
+    private static Double minutes(double seconds) {
+        return Double.isNaN(seconds) ? null : seconds / 60;
+    }
+
+    private long toMillis(LocalDateTime time) {
+        return time.atZone(zone).toInstant().toEpochMilli();
+    }
+
+    private LocalDateTime toLocal(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), zone);
+    }
+
+    private record Sample(long at, long key, double seconds) {
+    }
+}
@@ -0,0 +1,393 @@
+package com.example.deliveryservice.services;
+
+import com.example.common.segments.Encoding;
+import com.example.common.segments.SegmentReader;
+import com.example.common.segments.SegmentWriter;
+import com.example.deliveryservice.dtos.DeliveryAggregateDto;
+import com.example.deliveryservice.dtos.SegmentInfoDto;
+import com.example.deliveryservice.entities.Delivery;
+import com.example.deliveryservice.entities.DeliveryStatus;
+import com.example.deliveryservice.repositories.DeliveryRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Cold storage for finished deliveries: COMPLETED and CANCELLED deliveries that ended more than
+ * {@code deliveries.segments.after} ago are written to compressed, columnar segment files under
+ * {@code deliveries.segments.dir} and removed from the database.
+ *
+ * Rows are in delivery id order. Ids and times are delta-encoded, drivers and statuses
+ * dictionary-encoded, and the footer's per-block min/max lets by-id lookups and range
+ * aggregates skip every row group that cannot match.
+ */
+@Component
+public class DeliverySegmentStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeliverySegmentStore.class);
+
+    // 2 added the restaurant, its location, createdAt and the batch columns; 1 is still read
+    private static final int SCHEMA = 2;
+    private static final int OLDEST_SCHEMA = 1;
+    private static final LocalDateTime EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final Set<DeliveryStatus> FINISHED = EnumSet.of(DeliveryStatus.COMPLETED, DeliveryStatus.CANCELLED);
+    // Status codes stored in the files: only ever append to this list
+    private static final List<DeliveryStatus> STATUS_CODES = List.of(
+            DeliveryStatus.PENDING, DeliveryStatus.ACCEPTED, DeliveryStatus.PICKED_UP, DeliveryStatus.IN_TRANSIT,
+            DeliveryStatus.DELIVERED, DeliveryStatus.COMPLETED, DeliveryStatus.CANCELLED);
+
+    // Columns, in file order
+    private static final int DELIVERY_ID = 0;
+    private static final int ORDER_ID = 1;
+    private static final int DRIVER_ID = 2;
+    private static final int CUSTOMER_ADDRESS = 3;
+    private static final int CUSTOMER_LATITUDE = 4;
+    private static final int CUSTOMER_LONGITUDE = 5;
+    private static final int RESTAURANT_NAME = 6;
+    private static final int STATUS = 7;
+    private static final int ESTIMATED_DELIVERY_TIME = 8;
+    private static final int ACTUAL_DELIVERY_TIME = 9;
+    // Schema 2 onwards
+    private static final int RESTAURANT_ID = 10;
+    private static final int RESTAURANT_LATITUDE = 11;
+    private static final int RESTAURANT_LONGITUDE = 12;
+    private static final int CREATED_AT = 13;
+    private static final int BATCH_ID = 14;
+    private static final int STOP_INDEX = 15;
+    private static final List<Encoding> COLUMNS = List.of(
+            Encoding.DELTA, Encoding.DELTA, Encoding.DICTIONARY, Encoding.STRING_DICTIONARY, Encoding.DOUBLE,
+            Encoding.DOUBLE, Encoding.STRING_DICTIONARY, Encoding.DICTIONARY, Encoding.DELTA, Encoding.DELTA,
+            Encoding.DICTIONARY, Encoding.DOUBLE, Encoding.DOUBLE, Encoding.DELTA, Encoding.DELTA, Encoding.DICTIONARY);
+
+    private final DeliveryRepository deliveryRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Path directory;
+    private final Duration exportAfter;
+    private final int rowsPerSegment;
+    private final int rowsPerGroup;
+    private final List<SegmentReader> segments = new CopyOnWriteArrayList<>();
+    private final AtomicBoolean exporting = new AtomicBoolean();
+
+    public DeliverySegmentStore(DeliveryRepository deliveryRepository,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${deliveries.segments.dir:data/delivery-segments}") String directory,
+                                @Value("${deliveries.segments.after:180d}") Duration exportAfter,
+                                @Value("${deliveries.segments.rows-per-segment:100000}") int rowsPerSegment,
+                                @Value("${deliveries.segments.rows-per-group:4096}") int rowsPerGroup) {
+        this.deliveryRepository = deliveryRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.directory = Path.of(directory);
+        this.exportAfter = exportAfter;
+        this.rowsPerSegment = rowsPerSegment;
+        this.rowsPerGroup = rowsPerGroup;
+    }
+
+    @PostConstruct
+    public void open() throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.sorted().toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".seg.tmp")) {
+                    // An export that died before finishing; its rows are still in the database
+                    Files.delete(file);
+                } else if (name.endsWith(".seg")) {
+                    segments.add(new SegmentReader(file, OLDEST_SCHEMA, SCHEMA));
+                }
+            }
+        }
+        logger.info("Opened {} delivery segments holding {} deliveries", segments.size(),
+                segments.stream().mapToLong(SegmentReader::totalRows).sum());
+    }
+
+    public Optional<Delivery> findById(long deliveryId) {
+        for (SegmentReader reader : segments) {
+            for (int group = 0; group < reader.rowGroupCount(); group++) {
+                if (reader.overlaps(group, DELIVERY_ID, deliveryId, deliveryId)) {
+                    int row = Arrays.binarySearch(reader.longs(group, DELIVERY_ID), deliveryId);
+                    if (row >= 0) {
+                        return Optional.of(readDelivery(reader, group, row));
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    // Order ids are only roughly increasing with delivery ids, so matching groups are scanned
+    public Optional<Delivery> findByOrderId(long orderId) {
+        for (SegmentReader reader : segments) {
+            for (int group = 0; group < reader.rowGroupCount(); group++) {
+                if (!reader.overlaps(group, ORDER_ID, orderId, orderId)) {
+                    continue;
+                }
+                long[] orderIds = reader.longs(group, ORDER_ID);
+                for (int row = 0; row < orderIds.length; row++) {
+                    if (orderIds[row] == orderId) {
+                        return Optional.of(readDelivery(reader, group, row));
+                    }
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    public boolean contains(long deliveryId) {
+        for (SegmentReader reader : segments) {
+            for (int group = 0; group < reader.rowGroupCount(); group++) {
+                if (reader.overlaps(group, DELIVERY_ID, deliveryId, deliveryId)
+                        && Arrays.binarySearch(reader.longs(group, DELIVERY_ID), deliveryId) >= 0) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Deliveries that ended in {@code [from, to)}, by actual delivery time or, failing that,
+     * the estimate.
+     *
+     * @param from     null for no lower bound
+     * @param to       null for no upper bound
+     * @param driverId only this driver, or null for all of them
+     */
+    public DeliveryAggregateDto aggregate(LocalDateTime from, LocalDateTime to, Long driverId) {
+        long fromMicros = from != null ? micros(from) : Long.MIN_VALUE + 1;
+        long toMicros = to != null ? micros(to) - 1 : Long.MAX_VALUE;
+        long deliveries = 0;
+        long onTime = 0;
+        long late = 0;
+        long[] byStatus = new long[STATUS_CODES.size()];
+
+        for (SegmentReader reader : segments) {
+            for (int group = 0; group < reader.rowGroupCount(); group++) {
+                if (driverId != null && !reader.overlaps(group, DRIVER_ID, driverId, driverId)) {
+                    continue;
+                }
+                if (!reader.overlaps(group, ACTUAL_DELIVERY_TIME, fromMicros, toMicros)
+                        && !reader.overlaps(group, ESTIMATED_DELIVERY_TIME, fromMicros, toMicros)) {
+                    continue;
+                }
+                long[] estimated = reader.longs(group, ESTIMATED_DELIVERY_TIME);
+                long[] actual = reader.longs(group, ACTUAL_DELIVERY_TIME);
+                long[] statuses = reader.longs(group, STATUS);
+                long[] drivers = driverId != null ? reader.longs(group, DRIVER_ID) : null;
+                for (int row = 0; row < statuses.length; row++) {
+                    long ended = actual[row] != Encoding.NULL ? actual[row] : estimated[row];
+                    if (ended == Encoding.NULL || ended < fromMicros || ended > toMicros
+                            || (drivers != null && drivers[row] != driverId)) {
+                        continue;
+                    }
+                    deliveries++;
+                    byStatus[(int) statuses[row]]++;
+                    if (actual[row] != Encoding.NULL && estimated[row] != Encoding.NULL) {
+                        if (actual[row] <= estimated[row]) {
+                            onTime++;
+                        } else {
+                            late++;
+                        }
+                    }
+                }
+            }
+        }
+
+        Map<DeliveryStatus, Long> deliveriesByStatus = new EnumMap<>(DeliveryStatus.class);
+        for (int code = 0; code < byStatus.length; code++) {
+            deliveriesByStatus.put(STATUS_CODES.get(code), byStatus[code]);
+        }
+        return new DeliveryAggregateDto(from, to, driverId, deliveries, deliveriesByStatus, onTime, late);
+    }
+
+    public List<SegmentInfoDto> segments() {
+        return segments.stream()
+                .map(reader -> new SegmentInfoDto(reader.path().getFileName().toString(),
+                        reader.totalRows(), reader.rowGroupCount(), reader.sizeInBytes()))
+                .toList();
+    }
+
+    @Scheduled(initialDelayString = "${deliveries.segments.export-interval:PT6H}",
+            fixedDelayString = "${deliveries.segments.export-interval:PT6H}")
+    public void scheduledExport() {
+        try {
+            export();
+        } catch (IOException e) {
+            logger.warn("Delivery segment export failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Moves finished deliveries that ended more than {@code deliveries.segments.after} ago into
+     * new segments, at most {@code rows-per-segment} deliveries per file.
+     *
+     * @return number of deliveries exported, or -1 if another export is in progress
+     */
+    public int export() throws IOException {
+        if (!exporting.compareAndSet(false, true)) {
+            return -1;
+        }
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minus(exportAfter);
+            int exported = 0;
+            long afterId = 0;
+            List<Long> deliveryIds;
+            do {
+                deliveryIds = deliveryRepository.findIdsFinishedBefore(afterId, FINISHED, cutoff,
+                        PageRequest.ofSize(rowsPerSegment));
+                if (deliveryIds.isEmpty()) {
+                    break;
+                }
+                afterId = deliveryIds.get(deliveryIds.size() - 1);
+                // Deliveries already in a segment were left behind by an export that stopped before deleting them
+                List<Long> pending = deliveryIds.stream().filter(id -> !contains(id)).toList();
+                if (!pending.isEmpty()) {
+                    writeSegment(pending);
+                    exported += pending.size();
+                }
+                deleteExported(deliveryIds);
+            } while (deliveryIds.size() == rowsPerSegment);
+
+            if (exported > 0) {
+                logger.info("Exported {} finished deliveries to segments", exported);
+            }
+            return exported;
+        } finally {
+            exporting.set(false);
+        }
+    }
+
+    private void writeSegment(List<Long> deliveryIds) throws IOException {
+        Path file = directory.resolve(String.format("deliveries-%012d-%012d-%d.seg",
+                deliveryIds.get(0), deliveryIds.get(deliveryIds.size() - 1), System.currentTimeMillis()));
+        try (SegmentWriter writer = new SegmentWriter(file, SCHEMA, COLUMNS)) {
+            for (int from = 0; from < deliveryIds.size(); from += rowsPerGroup) {
+                List<Long> groupIds = deliveryIds.subList(from, Math.min(from + rowsPerGroup, deliveryIds.size()));
+                writeGroup(writer, deliveryRepository.findByDeliveryIdInOrderByDeliveryId(groupIds));
+            }
+            writer.finish();
+        }
+        segments.add(new SegmentReader(file, OLDEST_SCHEMA, SCHEMA));
+    }
+
+    private static void writeGroup(SegmentWriter writer, List<Delivery> deliveries) throws IOException {
+        int rows = deliveries.size();
+        long[] deliveryIds = new long[rows];
+        long[] orderIds = new long[rows];
+        long[] driverIds = new long[rows];
+        String[] addresses = new String[rows];
+        double[] latitudes = new double[rows];
+        double[] longitudes = new double[rows];
+        String[] restaurants = new String[rows];
+        long[] statuses = new long[rows];
+        long[] estimated = new long[rows];
+        long[] actual = new long[rows];
+        long[] restaurantIds = new long[rows];
+        double[] restaurantLatitudes = new double[rows];
+        double[] restaurantLongitudes = new double[rows];
+        long[] created = new long[rows];
+        long[] batchIds = new long[rows];
+        long[] stopIndexes = new long[rows];
+
+        for (int row = 0; row < rows; row++) {
+            Delivery delivery = deliveries.get(row);
+            deliveryIds[row] = delivery.getDeliveryId();
+            orderIds[row] = orNull(delivery.getOrderId());
+            driverIds[row] = orNull(delivery.getDriverId());
+            addresses[row] = delivery.getCustomerAddress();
+            latitudes[row] = orNaN(delivery.getCustomerLatitude());
+            longitudes[row] = orNaN(delivery.getCustomerLongitude());
+            restaurants[row] = delivery.getRestaurantName();
+            statuses[row] = STATUS_CODES.indexOf(delivery.getStatus());
+            estimated[row] = micros(delivery.getEstimatedDeliveryTime());
+            actual[row] = micros(delivery.getActualDeliveryTime());
+            restaurantIds[row] = orNull(delivery.getRestaurantId());
+            restaurantLatitudes[row] = orNaN(delivery.getRestaurantLatitude());
+            restaurantLongitudes[row] = orNaN(delivery.getRestaurantLongitude());
+            created[row] = micros(delivery.getCreatedAt());
+            batchIds[row] = orNull(delivery.getBatchId());
+            stopIndexes[row] = delivery.getStopIndex() != null ? delivery.getStopIndex() : Encoding.NULL;
+        }
+
+        writer.writeRowGroup(rows, deliveryIds, orderIds, driverIds, addresses, latitudes, longitudes,
+                restaurants, statuses, estimated, actual, restaurantIds, restaurantLatitudes, restaurantLongitudes,
+                created, batchIds, stopIndexes);
+    }
+
+    private void deleteExported(List<Long> deliveryIds) {
+        for (int from = 0; from < deliveryIds.size(); from += rowsPerGroup) {
+            List<Long> chunk = deliveryIds.subList(from, Math.min(from + rowsPerGroup, deliveryIds.size()));
+            transactionTemplate.executeWithoutResult(status -> deliveryRepository.deleteByIdsInStatus(chunk, FINISHED));
+        }
+    }
+
+    private static Delivery readDelivery(SegmentReader reader, int group, int row) {
+        Delivery delivery = new Delivery();
+        delivery.setDeliveryId(reader.longs(group, DELIVERY_ID)[row]);
+        delivery.setOrderId(toLong(reader.longs(group, ORDER_ID)[row]));
+        delivery.setDriverId(toLong(reader.longs(group, DRIVER_ID)[row]));
+        delivery.setCustomerAddress(reader.strings(group, CUSTOMER_ADDRESS)[row]);
+        delivery.setCustomerLatitude(toDouble(reader.doubles(group, CUSTOMER_LATITUDE)[row]));
+        delivery.setCustomerLongitude(toDouble(reader.doubles(group, CUSTOMER_LONGITUDE)[row]));
+        delivery.setRestaurantName(reader.strings(group, RESTAURANT_NAME)[row]);
+        delivery.setStatus(STATUS_CODES.get((int) reader.longs(group, STATUS)[row]));
+        delivery.setEstimatedDeliveryTime(toDateTime(reader.longs(group, ESTIMATED_DELIVERY_TIME)[row]));
+        delivery.setActualDeliveryTime(toDateTime(reader.longs(group, ACTUAL_DELIVERY_TIME)[row]));
+        if (reader.schema() >= 2) {
+            delivery.setRestaurantId(toLong(reader.longs(group, RESTAURANT_ID)[row]));
+            delivery.setRestaurantLatitude(toDouble(reader.doubles(group, RESTAURANT_LATITUDE)[row]));
+            delivery.setRestaurantLongitude(toDouble(reader.doubles(group, RESTAURANT_LONGITUDE)[row]));
+            delivery.setCreatedAt(toDateTime(reader.longs(group, CREATED_AT)[row]));
+            delivery.setBatchId(toLong(reader.longs(group, BATCH_ID)[row]));
+            Long stopIndex = toLong(reader.longs(group, STOP_INDEX)[row]);
+            delivery.setStopIndex(stopIndex != null ? stopIndex.intValue() : null);
+        }
+        return delivery;
+    }
+
+    private static long micros(LocalDateTime dateTime) {
+        return dateTime != null ? ChronoUnit.MICROS.between(EPOCH, dateTime) : Encoding.NULL;
+    }
+
+    private static LocalDateTime toDateTime(long micros) {
+        return micros != Encoding.NULL ? EPOCH.plus(micros, ChronoUnit.MICROS) : null;
+    }
+
+    private static long orNull(Long value) {
+        return value != null ? value : Encoding.NULL;
+    }
+
+    private static double orNaN(Double value) {
+        return value != null ? value : Double.NaN;
+    }
+
+    private static Long toLong(long value) {
+        return value != Encoding.NULL ? value : null;
+    }
+
+    private static Double toDouble(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
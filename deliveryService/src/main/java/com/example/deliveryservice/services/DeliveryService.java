@@ -1,11 +1,14 @@
 package com.example.deliveryservice.services;
 
+import com.example.deliveryservice.dtos.DeliveryBatchDto;
 import com.example.deliveryservice.dtos.DeliveryRequestDto;
 import com.example.deliveryservice.dtos.UpdateDeliveryStatusDto;
 import com.example.deliveryservice.entities.Delivery;
 import com.example.deliveryservice.entities.DeliveryStatus;
+import com.example.deliveryservice.events.DeliveryChangedEvent;
 import com.example.deliveryservice.repositories.DeliveryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,25 +19,39 @@ import java.time.LocalDateTime;
 public class DeliveryService {
 
     private final DeliveryRepository deliveryRepository;
-    private final org.springframework.web.client.RestTemplate restTemplate;
+    private final DeliverySegmentStore deliverySegmentStore;
+    private final EtaEngine etaEngine;
+    private final DriverAssignments driverAssignments;
+    private final DeliveryBatcher deliveryBatcher;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public Delivery createDelivery(DeliveryRequestDto request) {
         // Check if driver already has an active delivery
-        if (request.getDriverId() != null) {
-            java.util.List<Delivery> activeDeliveries = getActiveDeliveriesForDriver(request.getDriverId());
-            if (!activeDeliveries.isEmpty()) {
-                throw new IllegalStateException("Driver already has an active delivery");
-            }
+        if (driverAssignments.isBusy(request.getDriverId())) {
+            throw new IllegalStateException("Driver already has an active delivery");
         }
 
         Delivery delivery = new Delivery();
         delivery.setOrderId(request.getOrderId());
         delivery.setDriverId(request.getDriverId()); // Can be null
         delivery.setCustomerAddress(request.getCustomerAddress());
+        delivery.setCustomerLatitude(request.getCustomerLatitude());
+        delivery.setCustomerLongitude(request.getCustomerLongitude());
         delivery.setRestaurantName(request.getRestaurantName());
+        delivery.setRestaurantId(request.getRestaurantId());
+        if (request.getRestaurantLatitude() != null && request.getRestaurantLongitude() != null) {
+            delivery.setRestaurantLatitude(request.getRestaurantLatitude());
+            delivery.setRestaurantLongitude(request.getRestaurantLongitude());
+        } else {
+            EtaEngine.RestaurantLocation location = etaEngine.restaurantLocation(request.getRestaurantId());
+            if (location != null) {
+                delivery.setRestaurantLatitude(location.latitude());
+                delivery.setRestaurantLongitude(location.longitude());
+            }
+        }
         delivery.setStatus(DeliveryStatus.PENDING); // Start as PENDING, driver accepts later
-        delivery.setEstimatedDeliveryTime(LocalDateTime.now().plusMinutes(30)); // Simple estimate
+        delivery.setEstimatedDeliveryTime(etaEngine.estimate(delivery, LocalDateTime.now()));
         
         System.out.println("=== DELIVERY SERVICE: Creating delivery for order " + request.getOrderId() + " ===");
         System.out.println("Customer Address received: " + request.getCustomerAddress());
@@ -44,59 +61,87 @@ public class DeliveryService {
         
         System.out.println("Delivery saved with ID: " + saved.getDeliveryId());
         System.out.println("Saved Customer Address: " + saved.getCustomerAddress());
-        
+        if (saved.getDriverId() != null) {
+            // Claimed only now that the id exists; throws, rolling back the insert, if a concurrent request won
+            driverAssignments.claim(saved.getDriverId(), saved.getDeliveryId());
+        }
+
+        eventPublisher.publishEvent(new DeliveryChangedEvent(saved, null));
         return saved;
     }
 
     public Delivery getDeliveryById(Long deliveryId) {
         return deliveryRepository.findById(deliveryId)
+                .or(() -> deliverySegmentStore.findById(deliveryId))
                 .orElseThrow(() -> new RuntimeException("Delivery not found"));
     }
 
     public Delivery getDeliveryByOrderId(Long orderId) {
         return deliveryRepository.findByOrderId(orderId)
+                .or(() -> deliverySegmentStore.findByOrderId(orderId))
                 .orElseThrow(() -> new RuntimeException("Delivery not found for order: " + orderId));
     }
 
+    // Deliveries that can still change; exported ones are read-only copies
+    private Delivery getLiveDelivery(Long deliveryId) {
+        return deliveryRepository.findById(deliveryId).orElseThrow(() -> {
+            if (deliverySegmentStore.contains(deliveryId)) {
+                return new IllegalStateException("Delivery " + deliveryId + " is archived and can no longer change");
+            }
+            return new RuntimeException("Delivery not found");
+        });
+    }
+
     @Transactional
     public Delivery updateDeliveryStatus(Long deliveryId, UpdateDeliveryStatusDto statusUpdate) {
-        Delivery delivery = getDeliveryById(deliveryId);
+        Delivery delivery = getLiveDelivery(deliveryId);
         DeliveryStatus newStatus = DeliveryStatus.valueOf(statusUpdate.getStatus().toUpperCase());
+        java.util.List<Delivery> batch = delivery.getBatchId() != null
+                ? deliveryRepository.findByBatchIdOrderByStopIndex(delivery.getBatchId())
+                : java.util.List.of(delivery);
+        boolean wasActive = batch.stream().anyMatch(d -> DriverAssignments.isActive(d.getStatus()));
+        java.util.Map<Long, DeliveryStatus> previousStatus = new java.util.HashMap<>();
+        batch.forEach(stop -> previousStatus.put(stop.getDeliveryId(), stop.getStatus()));
 
-        delivery.setStatus(newStatus);
-
-        if (newStatus == DeliveryStatus.DELIVERED) {
-            delivery.setActualDeliveryTime(LocalDateTime.now());
+        for (Delivery stop : batch) {
+            // A batch is picked up at once, so picking up one stop picks up the others
+            boolean pickedUpWith = newStatus == DeliveryStatus.PICKED_UP
+                    && (stop.getStatus() == DeliveryStatus.PENDING || stop.getStatus() == DeliveryStatus.ACCEPTED);
+            if (!stop.getDeliveryId().equals(deliveryId) && !pickedUpWith) {
+                continue;
+            }
+            stop.setStatus(newStatus);
+            if (newStatus == DeliveryStatus.DELIVERED) {
+                stop.setActualDeliveryTime(LocalDateTime.now());
+            }
         }
-        
-        Delivery savedDelivery = deliveryRepository.save(delivery);
-
-        // Sync with Order Service
-        try {
-            String orderStatus = null;
-            if (newStatus == DeliveryStatus.PICKED_UP) {
-                orderStatus = "DELIVERING";
-            } else if (newStatus == DeliveryStatus.DELIVERED) {
-                orderStatus = "DELIVERED";
+
+        boolean isActive = batch.stream().anyMatch(d -> DriverAssignments.isActive(d.getStatus()));
+        if (delivery.getDriverId() != null) {
+            Long assignmentId = delivery.getBatchId() != null ? delivery.getBatchId() : deliveryId;
+            if (wasActive && !isActive) {
+                driverAssignments.release(delivery.getDriverId(), assignmentId);
+            } else if (!wasActive && isActive) {
+                driverAssignments.claim(delivery.getDriverId(), assignmentId);
             }
+        }
 
-            if (orderStatus != null) {
-                String url = "http://backend_order_service:8081/api/orders/" + delivery.getOrderId() + "/status";
-                java.util.Map<String, String> body = new java.util.HashMap<>();
-                body.put("status", orderStatus);
-                restTemplate.put(url, body);
-                System.out.println("Updated Order " + delivery.getOrderId() + " status to " + orderStatus);
+        // Every stop after a changed one may now be reached sooner or later
+        LocalDateTime now = LocalDateTime.now();
+        if (delivery.getBatchId() != null) {
+            java.util.List<LocalDateTime> etas = etaEngine.estimateRoute(batch, now);
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).setEstimatedDeliveryTime(etas.get(i));
             }
-        } catch (Exception e) {
-            System.err.println("Failed to update Order Service: " + e.getMessage());
-            // Don't rollback delivery update just because sync failed, but log it
+        } else {
+            delivery.setEstimatedDeliveryTime(etaEngine.estimate(delivery, now));
         }
 
-        return savedDelivery;
-    }
+        deliveryRepository.saveAll(batch);
+        batch.forEach(stop -> eventPublisher.publishEvent(
+                new DeliveryChangedEvent(stop, previousStatus.get(stop.getDeliveryId()))));
 
-    public java.util.List<Delivery> getPendingDeliveries() {
-        return deliveryRepository.findByStatus(DeliveryStatus.PENDING);
+        return delivery;
     }
 
     public java.util.List<Delivery> getActiveDeliveriesForDriver(Long driverId) {
@@ -104,10 +149,14 @@ public class DeliveryService {
             return java.util.List.of();
         }
         // Exclude COMPLETED and CANCELLED (Driver is blocked until COMPLETED)
-        return deliveryRepository.findByDriverIdAndStatusNot(driverId, DeliveryStatus.COMPLETED)
-                .stream()
-                .filter(d -> d.getStatus() != DeliveryStatus.CANCELLED)
-                .collect(java.util.stream.Collectors.toList());
+        return driverAssignments.activeAssignment(driverId)
+                .flatMap(deliveryRepository::findById)
+                .map(delivery -> delivery.getBatchId() == null
+                        ? java.util.List.of(delivery)
+                        : deliveryRepository.findByBatchIdOrderByStopIndex(delivery.getBatchId()).stream()
+                                .filter(stop -> DriverAssignments.isActive(stop.getStatus()))
+                                .toList())
+                .orElseGet(java.util.List::of);
     }
 
     @Transactional
@@ -117,21 +166,89 @@ public class DeliveryService {
         }
 
         // Check if driver already has an active delivery
-        java.util.List<Delivery> activeDeliveries = getActiveDeliveriesForDriver(driverId);
-        if (!activeDeliveries.isEmpty()) {
+        if (driverAssignments.isBusy(driverId)) {
             throw new IllegalStateException("Driver already has an active delivery");
         }
 
-        Delivery delivery = getDeliveryById(deliveryId);
-        if (delivery.getDriverId() != null && !delivery.getDriverId().equals(driverId)) {
-            throw new IllegalStateException("Delivery already assigned to another driver");
+        // Locked so two drivers accepting at once cannot both see it waiting
+        java.util.List<Delivery> locked = deliveryRepository.lockByDeliveryIdIn(java.util.List.of(deliveryId));
+        Delivery delivery = locked.isEmpty() ? getLiveDelivery(deliveryId) : locked.get(0);
+        if (delivery.getStatus() != DeliveryStatus.PENDING || delivery.getDriverId() != null
+                || delivery.getBatchId() != null) {
+            throw new IllegalStateException("Delivery " + deliveryId + " is no longer waiting for a driver");
         }
+        // Race-free version of the busy check above; taken back if this transaction rolls back
+        driverAssignments.claim(driverId, deliveryId);
+        DeliveryStatus previousStatus = delivery.getStatus();
         delivery.setDriverId(driverId);
         delivery.setStatus(DeliveryStatus.ACCEPTED);
-        if (delivery.getEstimatedDeliveryTime() == null) {
-            delivery.setEstimatedDeliveryTime(LocalDateTime.now().plusMinutes(30));
+        delivery.setEstimatedDeliveryTime(etaEngine.estimate(delivery, LocalDateTime.now()));
+        Delivery saved = deliveryRepository.save(delivery);
+        eventPublisher.publishEvent(new DeliveryChangedEvent(saved, previousStatus));
+        return saved;
+    }
+
+    /**
+     * Assigns pending deliveries from one restaurant to a driver as a single multi-stop route.
+     * The batch is known by its smallest delivery id.
+     */
+    @Transactional
+    public DeliveryBatchDto assignBatch(Long driverId, java.util.List<Long> deliveryIds) {
+        if (driverId == null) {
+            throw new IllegalArgumentException("Driver ID is required to accept a batch");
+        }
+        java.util.Set<Long> ids = deliveryIds == null ? java.util.Set.of() : deliveryIds.stream()
+                .filter(java.util.Objects::nonNull)
+                .collect(java.util.stream.Collectors.toCollection(java.util.TreeSet::new));
+        if (ids.size() < 2) {
+            throw new IllegalArgumentException("A batch needs at least two deliveries");
+        }
+        if (ids.size() > deliveryBatcher.maxStops()) {
+            throw new IllegalArgumentException("A batch holds at most " + deliveryBatcher.maxStops() + " deliveries");
+        }
+        if (driverAssignments.isBusy(driverId)) {
+            throw new IllegalStateException("Driver already has an active delivery");
+        }
+
+        java.util.List<Delivery> deliveries = deliveryRepository.lockByDeliveryIdIn(ids);
+        if (deliveries.size() != ids.size()) {
+            throw new RuntimeException("Delivery not found");
+        }
+        for (Delivery delivery : deliveries) {
+            if (delivery.getStatus() != DeliveryStatus.PENDING || delivery.getDriverId() != null
+                    || delivery.getBatchId() != null) {
+                throw new IllegalStateException("Delivery " + delivery.getDeliveryId() + " is no longer waiting for a driver");
+            }
+        }
+        if (!deliveryBatcher.samePickup(deliveries)) {
+            throw new IllegalStateException("All deliveries in a batch must come from the same restaurant");
+        }
+
+        Long batchId = deliveries.get(0).getDeliveryId();
+        driverAssignments.claim(driverId, batchId);
+        java.util.List<Delivery> stops = deliveryBatcher.orderStops(deliveries);
+        for (int i = 0; i < stops.size(); i++) {
+            Delivery stop = stops.get(i);
+            stop.setBatchId(batchId);
+            stop.setStopIndex(i);
+            stop.setDriverId(driverId);
+            stop.setStatus(DeliveryStatus.ACCEPTED);
+        }
+        java.util.List<LocalDateTime> etas = etaEngine.estimateRoute(stops, LocalDateTime.now());
+        for (int i = 0; i < stops.size(); i++) {
+            stops.get(i).setEstimatedDeliveryTime(etas.get(i));
+        }
+        deliveryRepository.saveAll(stops);
+        stops.forEach(stop -> eventPublisher.publishEvent(new DeliveryChangedEvent(stop, DeliveryStatus.PENDING)));
+        return deliveryBatcher.toDto(batchId, driverId, stops);
+    }
+
+    public DeliveryBatchDto getBatch(Long batchId) {
+        java.util.List<Delivery> stops = deliveryRepository.findByBatchIdOrderByStopIndex(batchId);
+        if (stops.isEmpty()) {
+            throw new RuntimeException("Batch not found");
         }
-        return deliveryRepository.save(delivery);
+        return deliveryBatcher.toDto(batchId, stops.get(0).getDriverId(), stops);
     }
 
     public java.util.List<Delivery> getAllDeliveries() {
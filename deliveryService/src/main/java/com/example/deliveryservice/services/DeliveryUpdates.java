@@ -0,0 +1,157 @@
+package com.example.deliveryservice.services;
+
+import com.example.common.web.SseSubscriber;
+import com.example.deliveryservice.dtos.DeliveryEtaDto;
+import com.example.deliveryservice.entities.Delivery;
+import com.example.deliveryservice.entities.DeliveryStatus;
+import com.example.deliveryservice.events.DeliveryChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Pushes a delivery's status and estimated arrival to server-sent event subscribers.
+ *
+ * Subscribers get an update whenever the delivery changes, and in between whenever the ETA
+ * moves by a minute or more as the driver's position changes. The in-between estimates are
+ * computed in memory from the last saved state and are not written back. Each subscriber is
+ * written to by a thread of its own, so a slow client only holds up its own stream; one more
+ * than {@code deliveries.updates.max-pending-events} behind is dropped and has to reconnect.
+ */
+@Component
+public class DeliveryUpdates {
+
+    private static final Set<DeliveryStatus> FINISHED = EnumSet.of(
+            DeliveryStatus.DELIVERED, DeliveryStatus.COMPLETED, DeliveryStatus.CANCELLED);
+    private static final long MIN_ETA_CHANGE_SECONDS = 60;
+
+    private final EtaEngine etaEngine;
+    private final long streamTimeoutMillis;
+    private final int maxPendingEvents;
+    private final Map<Long, Watched> watched = new ConcurrentHashMap<>();
+
+    public DeliveryUpdates(EtaEngine etaEngine,
+                           @Value("${deliveries.updates.stream-timeout:30m}") Duration streamTimeout,
+                           @Value("${deliveries.updates.max-pending-events:32}") int maxPendingEvents) {
+        this.etaEngine = etaEngine;
+        this.streamTimeoutMillis = streamTimeout.toMillis();
+        this.maxPendingEvents = maxPendingEvents;
+    }
+
+    /**
+     * Opens a stream of {@code delivery} events, starting with the delivery as it is now. The
+     * stream is closed once the delivery is finished.
+     */
+    public SseEmitter subscribe(Delivery delivery) {
+        SseEmitter emitter = new SseEmitter(streamTimeoutMillis);
+        SseSubscriber subscriber = new SseSubscriber(emitter, maxPendingEvents, "delivery-updates");
+        Long deliveryId = delivery.getDeliveryId();
+        Watched target = watched.compute(deliveryId, (id, existing) -> {
+            Watched w = existing != null ? existing : new Watched(delivery);
+            w.subscribers.add(subscriber);
+            return w;
+        });
+        Runnable unsubscribe = () -> unsubscribe(deliveryId, target, subscriber);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(e -> unsubscribe.run());
+
+        DeliveryEtaDto current = toDto(target.delivery, target.delivery.getEstimatedDeliveryTime());
+        send(subscriber, event(current), FINISHED.contains(current.getStatus()));
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeliveryChanged(DeliveryChangedEvent event) {
+        Watched target = watched.get(event.delivery().getDeliveryId());
+        if (target == null) {
+            return;
+        }
+        target.delivery = event.delivery();
+        push(target, event.delivery().getEstimatedDeliveryTime());
+    }
+
+    @Scheduled(fixedDelayString = "${deliveries.eta.push-interval:PT30S}")
+    public void refreshEstimates() {
+        LocalDateTime now = LocalDateTime.now();
+        for (Watched target : watched.values()) {
+            Delivery delivery = target.delivery;
+            // A batched stop depends on the stops before it, so it only changes with the batch
+            if (FINISHED.contains(delivery.getStatus()) || delivery.getBatchId() != null) {
+                continue;
+            }
+            LocalDateTime eta = etaEngine.estimate(delivery, now);
+            LocalDateTime lastSent = target.lastSentEta;
+            if (lastSent == null || Math.abs(Duration.between(lastSent, eta).toSeconds()) >= MIN_ETA_CHANGE_SECONDS) {
+                push(target, eta);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watched.values().forEach(target -> target.subscribers.forEach(SseSubscriber::complete));
+    }
+
+    // Never blocks: each subscriber only queues the update
+    private void push(Watched target, LocalDateTime eta) {
+        DeliveryEtaDto update = toDto(target.delivery, eta);
+        target.lastSentEta = eta;
+        Set<DataWithMediaType> event = event(update);
+        boolean finished = FINISHED.contains(update.getStatus());
+        for (SseSubscriber subscriber : target.subscribers) {
+            if (!send(subscriber, event, finished)) {
+                // Gone or too far behind
+                unsubscribe(update.getDeliveryId(), target, subscriber);
+            }
+        }
+    }
+
+    private void unsubscribe(Long deliveryId, Watched target, SseSubscriber subscriber) {
+        target.subscribers.remove(subscriber);
+        watched.computeIfPresent(deliveryId, (id, w) -> w.subscribers.isEmpty() ? null : w);
+    }
+
+    private static boolean send(SseSubscriber subscriber, Set<DataWithMediaType> event, boolean last) {
+        boolean queued = subscriber.offer(event);
+        if (last) {
+            subscriber.complete();
+        }
+        return queued;
+    }
+
+    private static Set<DataWithMediaType> event(DeliveryEtaDto update) {
+        return SseEmitter.event().name("delivery").data(update).build();
+    }
+
+    private static DeliveryEtaDto toDto(Delivery delivery, LocalDateTime eta) {
+        return new DeliveryEtaDto(delivery.getDeliveryId(), delivery.getOrderId(), delivery.getStatus(),
+                delivery.getDriverId(), eta);
+    }
+
+    private static final class Watched {
+        private final List<SseSubscriber> subscribers = new CopyOnWriteArrayList<>();
+        // Latest saved state; replaced, never modified
+        private volatile Delivery delivery;
+        private volatile LocalDateTime lastSentEta;
+
+        private Watched(Delivery delivery) {
+            this.delivery = Objects.requireNonNull(delivery);
+            this.lastSentEta = delivery.getEstimatedDeliveryTime();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.deliveryservice.services;
+
+import com.example.common.events.DomainEvent;
+import com.example.common.services.EventInbox;
+import com.example.deliveryservice.dtos.DeliveryRequestDto;
+import com.example.deliveryservice.dtos.UpdateDeliveryStatusDto;
+import com.example.deliveryservice.entities.Delivery;
+import com.example.deliveryservice.entities.DeliveryStatus;
+import com.example.deliveryservice.repositories.DeliveryRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * What the delivery service does with other services' events.
+ */
+@Component
+@RequiredArgsConstructor
+public class DomainEventHandlers {
+
+    private final EventInbox eventInbox;
+    private final DeliveryService deliveryService;
+    private final DeliveryRepository deliveryRepository;
+    private final EtaEngine etaEngine;
+    private final ObjectMapper objectMapper;
+
+    @PostConstruct
+    public void subscribe() {
+        eventInbox.subscribe(DomainEvent.ORDER_PLACED, this::onOrderPlaced);
+        eventInbox.subscribe(DomainEvent.ORDER_STATUS_CHANGED, this::onOrderStatusChanged);
+        eventInbox.subscribe(DomainEvent.MENU_CHANGED, this::onMenuChanged);
+    }
+
+    // Every order gets a delivery, waiting for a driver
+    private void onOrderPlaced(DomainEvent event) {
+        OrderPlaced order = read(event, OrderPlaced.class);
+        if (order.orderId() == null) {
+            throw new IllegalArgumentException("OrderPlaced without an order id");
+        }
+        if (deliveryRepository.findByOrderId(order.orderId()).isPresent()) {
+            return;
+        }
+        DeliveryRequestDto request = new DeliveryRequestDto();
+        request.setOrderId(order.orderId());
+        request.setCustomerAddress(order.deliveryAddress());
+        request.setCustomerLatitude(order.deliveryLatitude());
+        request.setCustomerLongitude(order.deliveryLongitude());
+        request.setRestaurantId(order.restaurantId());
+        deliveryService.createDelivery(request);
+    }
+
+    // A cancelled order cancels its delivery, unless the food is already on its way
+    private void onOrderStatusChanged(DomainEvent event) {
+        OrderStatusChanged change = read(event, OrderStatusChanged.class);
+        if (!"CANCELLED".equals(change.status()) || change.orderId() == null) {
+            return;
+        }
+        Optional<Delivery> delivery = deliveryRepository.findByOrderId(change.orderId());
+        if (delivery.isEmpty() || (delivery.get().getStatus() != DeliveryStatus.PENDING
+                && delivery.get().getStatus() != DeliveryStatus.ACCEPTED)) {
+            return;
+        }
+        UpdateDeliveryStatusDto cancel = new UpdateDeliveryStatusDto();
+        cancel.setStatus(DeliveryStatus.CANCELLED.name());
+        deliveryService.updateDeliveryStatus(delivery.get().getDeliveryId(), cancel);
+    }
+
+    private void onMenuChanged(DomainEvent event) {
+        MenuChanged menu = read(event, MenuChanged.class);
+        if (menu.restaurantId() == null) {
+            return;
+        }
+        if (menu.deleted()) {
+            etaEngine.updateRestaurantLocation(menu.restaurantId(), null, null);
+        } else {
+            etaEngine.updateRestaurantLocation(menu.restaurantId(), menu.latitude(), menu.longitude());
+        }
+    }
+
+    private <T> T read(DomainEvent event, Class<T> type) {
+        try {
+            return objectMapper.treeToValue(event.payload(), type);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed " + event.type() + " payload: " + e.getOriginalMessage());
+        }
+    }
+
+    private record OrderPlaced(Long orderId, Long restaurantId, String deliveryAddress,
+                               Double deliveryLatitude, Double deliveryLongitude) {
+    }
+
+    private record OrderStatusChanged(Long orderId, String status) {
+    }
+
+    private record MenuChanged(Long restaurantId, boolean deleted, Double latitude, Double longitude) {
+    }
+}
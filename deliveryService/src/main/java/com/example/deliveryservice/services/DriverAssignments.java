@@ -0,0 +1,135 @@
+package com.example.deliveryservice.services;
+
+import com.example.deliveryservice.entities.DeliveryStatus;
+import com.example.deliveryservice.repositories.DeliveryRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * What each driver is busy with: a single delivery, or a batch of deliveries from one restaurant
+ * carried together, known by its batch id. A delivery is active while it is assigned and neither
+ * COMPLETED nor CANCELLED, a batch while any of its deliveries is.
+ *
+ * The map is the authority for the busy check, so it never scans the table. A claim is made
+ * inside the transaction that assigns the driver and is taken back if that transaction rolls
+ * back; a release waits until the finishing transaction has committed, so for a moment a
+ * driver may look busy for longer, never free too early. Behind it, a partial unique index
+ * rejects a second active assignment for a driver however it is written; a batch is covered
+ * through its first delivery, whose id is the batch id, for as long as that one is active. On
+ * startup the map is rebuilt from the table.
+ */
+@Component
+public class DriverAssignments {
+
+    private static final Logger logger = LoggerFactory.getLogger(DriverAssignments.class);
+
+    static final Set<DeliveryStatus> INACTIVE = EnumSet.of(DeliveryStatus.COMPLETED, DeliveryStatus.CANCELLED);
+
+    // Replaces uq_deliveries_active_driver, which predates batches
+    private static final String DROP_SINGLE_DELIVERY_INDEX_SQL = "drop index if exists uq_deliveries_active_driver";
+    private static final String ACTIVE_DRIVER_INDEX_SQL = """
+            create unique index if not exists uq_deliveries_active_driver_assignment on deliveries (driver_id)
+            where driver_id is not null and status not in ('COMPLETED', 'CANCELLED')
+            and (batch_id is null or batch_id = delivery_id)
+            """;
+
+    private final DeliveryRepository deliveryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Map<Long, Long> activeByDriver = new ConcurrentHashMap<>();
+
+    public DriverAssignments(DeliveryRepository deliveryRepository, JdbcTemplate jdbcTemplate) {
+        this.deliveryRepository = deliveryRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void load() {
+        try {
+            jdbcTemplate.execute(DROP_SINGLE_DELIVERY_INDEX_SQL);
+            jdbcTemplate.execute(ACTIVE_DRIVER_INDEX_SQL);
+        } catch (DataAccessException e) {
+            // Existing duplicates, or a database without partial indexes; the map still holds
+            logger.warn("Could not create the active driver index: {}", e.getMessage());
+        }
+        for (Object[] row : deliveryRepository.findActiveDriverAssignments(INACTIVE)) {
+            Long driverId = (Long) row[0];
+            Long assignmentId = (Long) row[1];
+            Long kept = activeByDriver.putIfAbsent(driverId, assignmentId);
+            if (kept != null) {
+                logger.warn("Driver {} has several active deliveries, keeping {} and ignoring {}",
+                        driverId, kept, assignmentId);
+            }
+        }
+        logger.info("Loaded {} active driver assignments", activeByDriver.size());
+    }
+
+    public static boolean isActive(DeliveryStatus status) {
+        return status != null && !INACTIVE.contains(status);
+    }
+
+    /**
+     * The id of the delivery, or batch, the driver is busy with.
+     */
+    public Optional<Long> activeAssignment(Long driverId) {
+        return driverId == null ? Optional.empty() : Optional.ofNullable(activeByDriver.get(driverId));
+    }
+
+    public boolean isBusy(Long driverId) {
+        return driverId != null && activeByDriver.containsKey(driverId);
+    }
+
+    /**
+     * Makes {@code assignmentId}, a delivery or batch id, the driver's active assignment, or
+     * throws if they already have another one. Claiming the same one again is a no-op.
+     */
+    public void claim(Long driverId, Long assignmentId) {
+        Long existing = activeByDriver.putIfAbsent(driverId, assignmentId);
+        if (existing != null) {
+            if (existing.equals(assignmentId)) {
+                return;
+            }
+            throw new IllegalStateException("Driver already has an active delivery");
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        activeByDriver.remove(driverId, assignmentId);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Frees the driver from {@code assignmentId} once the current transaction commits.
+     */
+    public void release(Long driverId, Long assignmentId) {
+        if (driverId == null) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    activeByDriver.remove(driverId, assignmentId);
+                }
+            });
+        } else {
+            activeByDriver.remove(driverId, assignmentId);
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package com.example.deliveryservice.services;
+
+import com.example.deliveryservice.dtos.DriverLocationDto;
+import com.example.deliveryservice.dtos.DriverLocationStatsDto;
+import com.example.deliveryservice.dtos.LocationBatchResultDto;
+import com.example.deliveryservice.dtos.NearbyDriverDto;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * The latest known position of every driver, held in memory and fed by batched location pings.
+ *
+ * Drivers are spread over lock stripes by id, so pings for different drivers rarely contend.
+ * Each stripe keeps positions in primitive arrays indexed through a {@link LongIntHashMap}, plus
+ * a grid of fixed-size cells listing the drivers in each, which is what nearby searches walk. A
+ * ping never touches the database; instead the whole store is written to a compact snapshot
+ * file every few seconds and read back on startup.
+ */
+@Component
+public class DriverLocationStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DriverLocationStore.class);
+
+    private static final int STRIPES = 64;
+    private static final int SNAPSHOT_MAGIC = 0x444C4F43; // "DLOC"
+    private static final int SNAPSHOT_VERSION = 1;
+    // Magic, version and count before the entries, the checksum after them
+    private static final long SNAPSHOT_OVERHEAD_BYTES = 3 * Integer.BYTES + Long.BYTES;
+    // Driver id, latitude, longitude and time
+    private static final long SNAPSHOT_ENTRY_BYTES = 4 * Long.BYTES;
+    private static final double KM_PER_DEGREE = 111.2;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    // Pings stamped further ahead than this are rejected rather than trusted
+    private static final long MAX_CLOCK_SKEW_MILLIS = Duration.ofMinutes(1).toMillis();
+    // Searches covering more cells than this scan every driver instead
+    private static final int MAX_CELLS_PER_SEARCH = 400;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+    private final double cellDegrees;
+    private final long maxAgeMillis;
+    private final long retentionMillis;
+    private final Path snapshotFile;
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder stale = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private volatile Instant lastSnapshotAt;
+
+    public DriverLocationStore(@Value("${deliveries.locations.cell-size-km:1}") double cellSizeKm,
+                               @Value("${deliveries.locations.max-age:5m}") Duration maxAge,
+                               @Value("${deliveries.locations.retention:24h}") Duration retention,
+                               @Value("${deliveries.locations.snapshot-file:data/driver-locations.bin}") String snapshotFile) {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        this.cellDegrees = cellSizeKm / KM_PER_DEGREE;
+        this.maxAgeMillis = maxAge.toMillis();
+        this.retentionMillis = retention.toMillis();
+        this.snapshotFile = Path.of(snapshotFile);
+    }
+
+    @PostConstruct
+    public void restore() {
+        if (!Files.exists(snapshotFile)) {
+            return;
+        }
+        CRC32 crc = new CRC32();
+        try (DataInputStream in = new DataInputStream(new CheckedInputStream(
+                new BufferedInputStream(Files.newInputStream(snapshotFile)), crc))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Not a driver location snapshot");
+            }
+            int count = in.readInt();
+            // Checked against the file's length before anything is allocated from it
+            if (count < 0 || SNAPSHOT_OVERHEAD_BYTES + (long) count * SNAPSHOT_ENTRY_BYTES != Files.size(snapshotFile)) {
+                throw new IOException("Snapshot is truncated or corrupt (" + count + " entries in "
+                        + Files.size(snapshotFile) + " bytes)");
+            }
+            long[] driverIds = new long[count];
+            double[] latitudes = new double[count];
+            double[] longitudes = new double[count];
+            long[] times = new long[count];
+            for (int i = 0; i < count; i++) {
+                driverIds[i] = in.readLong();
+                latitudes[i] = in.readDouble();
+                longitudes[i] = in.readDouble();
+                times[i] = in.readLong();
+            }
+            long expected = crc.getValue();
+            if (in.readLong() != expected) {
+                throw new IOException("Checksum mismatch");
+            }
+            for (int i = 0; i < count; i++) {
+                update(driverIds[i], latitudes[i], longitudes[i], times[i]);
+            }
+            logger.info("Restored {} driver locations from {}", count, snapshotFile);
+        } catch (IOException e) {
+            // Positions come back with the drivers' next pings
+            logger.warn("Ignoring driver location snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    /**
+     * Applies a batch of pings. Pings older than the position already held for a driver are
+     * skipped, so batches may arrive out of order.
+     */
+    public LocationBatchResultDto ingest(List<DriverLocationDto> pings) {
+        long now = System.currentTimeMillis();
+        int acceptedPings = 0;
+        int stalePings = 0;
+        int rejectedPings = 0;
+        for (DriverLocationDto ping : pings) {
+            long time = ping.getTimestamp() != null ? ping.getTimestamp() : now;
+            if (ping.getDriverId() == null || ping.getLatitude() == null || ping.getLongitude() == null
+                    || !isValid(ping.getLatitude(), ping.getLongitude()) || time > now + MAX_CLOCK_SKEW_MILLIS) {
+                rejectedPings++;
+            } else if (update(ping.getDriverId(), ping.getLatitude(), ping.getLongitude(), time)) {
+                acceptedPings++;
+            } else {
+                stalePings++;
+            }
+        }
+        accepted.add(acceptedPings);
+        stale.add(stalePings);
+        rejected.add(rejectedPings);
+        return new LocationBatchResultDto(acceptedPings, stalePings, rejectedPings);
+    }
+
+    public Optional<DriverLocationDto> find(long driverId) {
+        Stripe stripe = stripeOf(driverId);
+        synchronized (stripe) {
+            int slot = stripe.slotByDriver.get(driverId);
+            if (slot == LongIntHashMap.MISSING) {
+                return Optional.empty();
+            }
+            return Optional.of(new DriverLocationDto(driverId, stripe.latitudes[slot], stripe.longitudes[slot],
+                    stripe.times[slot]));
+        }
+    }
+
+    /**
+     * Drivers whose last position, no older than {@code deliveries.locations.max-age}, is
+     * within {@code radiusKm} of the given point, nearest first.
+     */
+    public List<NearbyDriverDto> nearby(double latitude, double longitude, double radiusKm, int limit) {
+        if (!isValid(latitude, longitude)) {
+            throw new IllegalArgumentException("Coordinates out of range");
+        }
+        long freshSince = System.currentTimeMillis() - maxAgeMillis;
+        double latitudeSpan = radiusKm / KM_PER_DEGREE;
+        double longitudeSpan = radiusKm / (KM_PER_DEGREE * Math.max(0.01, Math.cos(Math.toRadians(latitude))));
+        int fromRow = row(Math.max(-90, latitude - latitudeSpan));
+        int toRow = row(Math.min(90, latitude + latitudeSpan));
+        int fromColumn = column(Math.max(-180, longitude - longitudeSpan));
+        int toColumn = column(Math.min(180, longitude + longitudeSpan));
+        boolean scanAll = (long) (toRow - fromRow + 1) * (toColumn - fromColumn + 1) > MAX_CELLS_PER_SEARCH;
+
+        List<NearbyDriverDto> found = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                if (scanAll) {
+                    for (int slot = 0; slot < stripe.size; slot++) {
+                        collect(stripe, slot, latitude, longitude, radiusKm, freshSince, found);
+                    }
+                    continue;
+                }
+                for (int row = fromRow; row <= toRow; row++) {
+                    for (int column = fromColumn; column <= toColumn; column++) {
+                        int cell = stripe.cellSlots.get(cellId(row, column));
+                        if (cell != LongIntHashMap.MISSING) {
+                            stripe.cells.get(cell).forEachKey(driverId -> collect(stripe,
+                                    stripe.slotByDriver.get(driverId), latitude, longitude, radiusKm, freshSince, found));
+                        }
+                    }
+                }
+            }
+        }
+        found.sort(Comparator.comparingDouble(NearbyDriverDto::getDistanceKm));
+        return found.size() > limit ? new ArrayList<>(found.subList(0, limit)) : found;
+    }
+
+    public DriverLocationStatsDto stats() {
+        int tracked = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                tracked += stripe.size;
+            }
+        }
+        return new DriverLocationStatsDto(tracked, accepted.sum(), stale.sum(), rejected.sum(), lastSnapshotAt);
+    }
+
+    /**
+     * Writes every driver's latest position to the snapshot file, dropping drivers not heard
+     * from within {@code deliveries.locations.retention}. The file is replaced atomically, so a
+     * crash mid-write leaves the previous snapshot in place.
+     */
+    @Scheduled(initialDelayString = "${deliveries.locations.snapshot-interval:PT30S}",
+            fixedDelayString = "${deliveries.locations.snapshot-interval:PT30S}")
+    public void snapshot() {
+        long expiredBefore = System.currentTimeMillis() - retentionMillis;
+        List<long[]> ids = new ArrayList<>(STRIPES);
+        List<double[]> positions = new ArrayList<>(STRIPES);
+        List<long[]> times = new ArrayList<>(STRIPES);
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                stripe.expire(expiredBefore);
+                double[] latLon = new double[stripe.size * 2];
+                for (int slot = 0; slot < stripe.size; slot++) {
+                    latLon[slot * 2] = stripe.latitudes[slot];
+                    latLon[slot * 2 + 1] = stripe.longitudes[slot];
+                }
+                ids.add(Arrays.copyOf(stripe.driverIds, stripe.size));
+                positions.add(latLon);
+                times.add(Arrays.copyOf(stripe.times, stripe.size));
+                count += stripe.size;
+            }
+        }
+
+        try {
+            Path parent = snapshotFile.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, snapshotFile.getFileName().toString(), ".tmp");
+            try {
+                CRC32 crc = new CRC32();
+                try (OutputStream file = Files.newOutputStream(temp);
+                     DataOutputStream out = new DataOutputStream(new CheckedOutputStream(new BufferedOutputStream(file), crc))) {
+                    out.writeInt(SNAPSHOT_MAGIC);
+                    out.writeInt(SNAPSHOT_VERSION);
+                    out.writeInt(count);
+                    for (int s = 0; s < ids.size(); s++) {
+                        long[] stripeIds = ids.get(s);
+                        for (int i = 0; i < stripeIds.length; i++) {
+                            out.writeLong(stripeIds[i]);
+                            out.writeDouble(positions.get(s)[i * 2]);
+                            out.writeDouble(positions.get(s)[i * 2 + 1]);
+                            out.writeLong(times.get(s)[i]);
+                        }
+                    }
+                    out.flush();
+                    long checksum = crc.getValue();
+                    out.writeLong(checksum);
+                }
+                Files.move(temp, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            lastSnapshotAt = Instant.now();
+        } catch (IOException e) {
+            logger.warn("Could not write driver location snapshot {}: {}", snapshotFile, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshot();
+    }
+
+    /**
+     * @return false if the store already has a newer position for the driver
+     */
+    private boolean update(long driverId, double latitude, double longitude, long time) {
+        long cell = cellId(row(latitude), column(longitude));
+        Stripe stripe = stripeOf(driverId);
+        synchronized (stripe) {
+            int slot = stripe.slotByDriver.get(driverId);
+            if (slot == LongIntHashMap.MISSING) {
+                slot = stripe.add(driverId);
+            } else if (time < stripe.times[slot]) {
+                return false;
+            } else if (stripe.cellOf[slot] != cell) {
+                stripe.leaveCell(stripe.cellOf[slot], driverId);
+            } else {
+                cell = Long.MIN_VALUE;
+            }
+            stripe.latitudes[slot] = latitude;
+            stripe.longitudes[slot] = longitude;
+            stripe.times[slot] = time;
+            if (cell != Long.MIN_VALUE) {
+                stripe.cellOf[slot] = cell;
+                stripe.joinCell(cell, driverId);
+            }
+            return true;
+        }
+    }
+
+    private static void collect(Stripe stripe, int slot, double latitude, double longitude, double radiusKm,
+                                long freshSince, List<NearbyDriverDto> found) {
+        if (stripe.times[slot] < freshSince) {
+            return;
+        }
+        double distance = distanceKm(latitude, longitude, stripe.latitudes[slot], stripe.longitudes[slot]);
+        if (distance <= radiusKm) {
+            found.add(new NearbyDriverDto(stripe.driverIds[slot], stripe.latitudes[slot], stripe.longitudes[slot],
+                    stripe.times[slot], Math.round(distance * 1000) / 1000.0));
+        }
+    }
+
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static boolean isValid(double latitude, double longitude) {
+        return latitude >= -90 && latitude <= 90 && longitude >= -180 && longitude <= 180;
+    }
+
+    private int row(double latitude) {
+        return (int) Math.floor((latitude + 90) / cellDegrees);
+    }
+
+    private int column(double longitude) {
+        return (int) Math.floor((longitude + 180) / cellDegrees);
+    }
+
+    private static long cellId(int row, int column) {
+        return ((long) row << 32) | (column & 0xFFFFFFFFL);
+    }
+
+    private Stripe stripeOf(long driverId) {
+        return stripes[(int) ((driverId ^ (driverId >>> 32)) & (STRIPES - 1))];
+    }
+
+    /**
+     * One lock's worth of drivers. Slots are dense: removing a driver moves the last one into
+     * its place.
+     */
+    private static final class Stripe {
+        private final LongIntHashMap slotByDriver = new LongIntHashMap(64);
+        private long[] driverIds = new long[16];
+        private double[] latitudes = new double[16];
+        private double[] longitudes = new double[16];
+        private long[] times = new long[16];
+        private long[] cellOf = new long[16];
+        private int size;
+        // Grid cell -> index into cells, each a set of driver ids (values unused)
+        private final LongIntHashMap cellSlots = new LongIntHashMap(64);
+        private final List<LongIntHashMap> cells = new ArrayList<>();
+
+        private int add(long driverId) {
+            if (size == driverIds.length) {
+                int capacity = size * 2;
+                driverIds = Arrays.copyOf(driverIds, capacity);
+                latitudes = Arrays.copyOf(latitudes, capacity);
+                longitudes = Arrays.copyOf(longitudes, capacity);
+                times = Arrays.copyOf(times, capacity);
+                cellOf = Arrays.copyOf(cellOf, capacity);
+            }
+            int slot = size++;
+            driverIds[slot] = driverId;
+            slotByDriver.put(driverId, slot);
+            return slot;
+        }
+
+        private void joinCell(long cell, long driverId) {
+            int index = cellSlots.get(cell);
+            if (index == LongIntHashMap.MISSING) {
+                index = cells.size();
+                cells.add(new LongIntHashMap(4));
+                cellSlots.put(cell, index);
+            }
+            cells.get(index).put(driverId, 0);
+        }
+
+        private void leaveCell(long cell, long driverId) {
+            int index = cellSlots.get(cell);
+            if (index != LongIntHashMap.MISSING) {
+                cells.get(index).remove(driverId);
+            }
+        }
+
+        private void expire(long expiredBefore) {
+            for (int slot = size - 1; slot >= 0; slot--) {
+                if (times[slot] >= expiredBefore) {
+                    continue;
+                }
+                leaveCell(cellOf[slot], driverIds[slot]);
+                slotByDriver.remove(driverIds[slot]);
+                int last = --size;
+                if (slot != last) {
+                    driverIds[slot] = driverIds[last];
+                    latitudes[slot] = latitudes[last];
+                    longitudes[slot] = longitudes[last];
+                    times[slot] = times[last];
+                    cellOf[slot] = cellOf[last];
+                    slotByDriver.put(driverIds[slot], slot);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.example.deliveryservice.services;
+
+import com.example.deliveryservice.dtos.DriverLocationDto;
+import com.example.deliveryservice.entities.Delivery;
+import com.example.deliveryservice.entities.DeliveryStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Estimates when a delivery will reach the customer.
+ *
+ * Until pickup, the delivery waits for whichever takes longer: the kitchen finishing (the
+ * restaurant's average prep time, less what has already passed) or the driver reaching the
+ * restaurant from their last known position. The ride to the customer is the straight-line
+ * distance stretched by a road factor, at an average urban speed; once the order is picked up
+ * it is measured from the driver instead. Everything used here is held in memory, so an
+ * estimate never reads the database: positions come from the {@link DriverLocationStore},
+ * prep times are refreshed from the order service in the background, and restaurant
+ * coordinates are stored on the delivery when it is created.
+ */
+@Component
+public class EtaEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(EtaEngine.class);
+
+    private static final Set<DeliveryStatus> FINISHED = EnumSet.of(
+            DeliveryStatus.DELIVERED, DeliveryStatus.COMPLETED, DeliveryStatus.CANCELLED);
+
+    private final DriverLocationStore driverLocationStore;
+    private final RestTemplate restTemplate;
+    private final String orderServiceUrl;
+    private final String restaurantServiceUrl;
+    private final double speedKmh;
+    private final double roadFactor;
+    private final double defaultPrepMinutes;
+    private final long minPrepSamples;
+    private final double driverArrivalMinutes;
+    private final double defaultTravelMinutes;
+    private final double handoverMinutes;
+    private final long positionMaxAgeMillis;
+
+    private volatile Map<Long, Double> prepMinutesByRestaurant = Map.of();
+    private final Map<Long, RestaurantLocation> restaurantLocations = new ConcurrentHashMap<>();
+
+    public EtaEngine(DriverLocationStore driverLocationStore,
+                     RestTemplate restTemplate,
+                     @Value("${services.order.url:http://backend_order_service:8081}") String orderServiceUrl,
+                     @Value("${services.restaurant.url:http://backend_restaurant_service:8082}") String restaurantServiceUrl,
+                     @Value("${deliveries.eta.speed-kmh:25}") double speedKmh,
+                     @Value("${deliveries.eta.road-factor:1.3}") double roadFactor,
+                     @Value("${deliveries.eta.default-prep-minutes:15}") double defaultPrepMinutes,
+                     @Value("${deliveries.eta.min-prep-samples:5}") long minPrepSamples,
+                     @Value("${deliveries.eta.driver-arrival-minutes:10}") double driverArrivalMinutes,
+                     @Value("${deliveries.eta.default-travel-minutes:20}") double defaultTravelMinutes,
+                     @Value("${deliveries.eta.handover-minutes:3}") double handoverMinutes,
+                     @Value("${deliveries.locations.max-age:5m}") Duration positionMaxAge) {
+        this.driverLocationStore = driverLocationStore;
+        this.restTemplate = restTemplate;
+        this.orderServiceUrl = orderServiceUrl;
+        this.restaurantServiceUrl = restaurantServiceUrl;
+        this.speedKmh = speedKmh;
+        this.roadFactor = roadFactor;
+        this.defaultPrepMinutes = defaultPrepMinutes;
+        this.minPrepSamples = minPrepSamples;
+        this.driverArrivalMinutes = driverArrivalMinutes;
+        this.defaultTravelMinutes = defaultTravelMinutes;
+        this.handoverMinutes = handoverMinutes;
+        this.positionMaxAgeMillis = positionMaxAge.toMillis();
+    }
+
+    /**
+     * The delivery's estimated arrival as of {@code now}; finished deliveries keep theirs.
+     */
+    public LocalDateTime estimate(Delivery delivery, LocalDateTime now) {
+        if (delivery.getStatus() != null && FINISHED.contains(delivery.getStatus())) {
+            return delivery.getEstimatedDeliveryTime();
+        }
+        DriverLocationDto driver = driverPosition(delivery.getDriverId());
+        boolean hasCustomer = delivery.getCustomerLatitude() != null && delivery.getCustomerLongitude() != null;
+
+        double minutes;
+        if (delivery.getStatus() == DeliveryStatus.PICKED_UP || delivery.getStatus() == DeliveryStatus.IN_TRANSIT) {
+            minutes = driver != null && hasCustomer
+                    ? travelMinutes(driver.getLatitude(), driver.getLongitude(),
+                            delivery.getCustomerLatitude(), delivery.getCustomerLongitude())
+                    : restaurantToCustomerMinutes(delivery);
+        } else {
+            minutes = pickupWaitMinutes(delivery, driver, now) + restaurantToCustomerMinutes(delivery);
+        }
+        return now.plusSeconds(Math.round((minutes + handoverMinutes) * 60));
+    }
+
+    /**
+     * Estimated arrivals for the stops of a batch, in route order. All orders are picked up
+     * together, then the driver goes from one customer to the next; finished stops keep theirs.
+     */
+    public List<LocalDateTime> estimateRoute(List<Delivery> stops, LocalDateTime now) {
+        Delivery first = null;
+        boolean beforePickup = false;
+        for (Delivery stop : stops) {
+            if (stop.getStatus() == null || !FINISHED.contains(stop.getStatus())) {
+                first = first != null ? first : stop;
+                beforePickup |= stop.getStatus() != DeliveryStatus.PICKED_UP && stop.getStatus() != DeliveryStatus.IN_TRANSIT;
+            }
+        }
+
+        List<LocalDateTime> etas = new ArrayList<>(stops.size());
+        double minutes = 0;
+        double[] position = null;
+        if (first != null) {
+            DriverLocationDto driver = driverPosition(first.getDriverId());
+            if (beforePickup) {
+                minutes = pickupWaitMinutes(first, driver, now);
+                if (first.getRestaurantLatitude() != null && first.getRestaurantLongitude() != null) {
+                    position = new double[]{first.getRestaurantLatitude(), first.getRestaurantLongitude()};
+                }
+            } else if (driver != null) {
+                position = new double[]{driver.getLatitude(), driver.getLongitude()};
+            }
+        }
+        boolean firstLeg = true;
+        for (Delivery stop : stops) {
+            if (stop.getStatus() != null && FINISHED.contains(stop.getStatus())) {
+                etas.add(stop.getEstimatedDeliveryTime());
+                continue;
+            }
+            boolean hasCustomer = stop.getCustomerLatitude() != null && stop.getCustomerLongitude() != null;
+            if (position != null && hasCustomer) {
+                minutes += travelMinutes(position[0], position[1], stop.getCustomerLatitude(), stop.getCustomerLongitude());
+            } else {
+                minutes += firstLeg ? restaurantToCustomerMinutes(stop) : defaultTravelMinutes;
+            }
+            minutes += handoverMinutes;
+            etas.add(now.plusSeconds(Math.round(minutes * 60)));
+            position = hasCustomer ? new double[]{stop.getCustomerLatitude(), stop.getCustomerLongitude()} : null;
+            firstLeg = false;
+        }
+        return etas;
+    }
+
+    /**
+     * Replaces what is remembered about a restaurant's position, as announced by the restaurant
+     * service; null coordinates forget it, so it is asked for again when next needed.
+     */
+    public void updateRestaurantLocation(Long restaurantId, Double latitude, Double longitude) {
+        if (latitude == null || longitude == null) {
+            restaurantLocations.remove(restaurantId);
+        } else {
+            restaurantLocations.put(restaurantId, new RestaurantLocation(latitude, longitude));
+        }
+    }
+
+    /**
+     * Coordinates of a restaurant, asked from the restaurant service once and then remembered.
+     * Null if the restaurant is unknown, has no coordinates or the service cannot be reached.
+     */
+    public RestaurantLocation restaurantLocation(Long restaurantId) {
+        if (restaurantId == null) {
+            return null;
+        }
+        RestaurantLocation cached = restaurantLocations.get(restaurantId);
+        if (cached != null) {
+            return cached;
+        }
+        try {
+            RestaurantLocation location = restTemplate.getForObject(
+                    restaurantServiceUrl + "/api/restaurants/{id}", RestaurantLocation.class, restaurantId);
+            if (location == null || location.latitude() == null || location.longitude() == null) {
+                return null;
+            }
+            restaurantLocations.put(restaurantId, location);
+            return location;
+        } catch (RestClientException e) {
+            logger.warn("Could not look up restaurant {}: {}", restaurantId, e.getMessage());
+            return null;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${deliveries.eta.prep-refresh-interval:PT5M}")
+    public void refreshPrepTimes() {
+        try {
+            PrepTime[] prepTimes = restTemplate.getForObject(
+                    orderServiceUrl + "/api/orders/analytics/prep-times", PrepTime[].class);
+            if (prepTimes == null) {
+                return;
+            }
+            Map<Long, Double> fresh = new HashMap<>();
+            for (PrepTime prepTime : prepTimes) {
+                // Too few orders say little about a kitchen
+                if (prepTime.restaurantId() != null && prepTime.orders() >= minPrepSamples) {
+                    fresh.put(prepTime.restaurantId(), prepTime.averagePrepMinutes());
+                }
+            }
+            prepMinutesByRestaurant = fresh;
+        } catch (RestClientException e) {
+            // Keep the last known prep times
+            logger.debug("Could not refresh prep times: {}", e.getMessage());
+        }
+    }
+
+    // Picked up once both the food and the driver are there
+    private double pickupWaitMinutes(Delivery delivery, DriverLocationDto driver, LocalDateTime now) {
+        LocalDateTime createdAt = delivery.getCreatedAt() != null ? delivery.getCreatedAt() : now;
+        double prepLeft = prepMinutes(delivery.getRestaurantId())
+                - Duration.between(createdAt, now).toSeconds() / 60.0;
+        double driverArrival = driver != null
+                && delivery.getRestaurantLatitude() != null && delivery.getRestaurantLongitude() != null
+                ? travelMinutes(driver.getLatitude(), driver.getLongitude(),
+                        delivery.getRestaurantLatitude(), delivery.getRestaurantLongitude())
+                : driverArrivalMinutes;
+        return Math.max(Math.max(0, prepLeft), driverArrival);
+    }
+
+    private double prepMinutes(Long restaurantId) {
+        Double minutes = restaurantId != null ? prepMinutesByRestaurant.get(restaurantId) : null;
+        return minutes != null ? minutes : defaultPrepMinutes;
+    }
+
+    private double restaurantToCustomerMinutes(Delivery delivery) {
+        if (delivery.getRestaurantLatitude() == null || delivery.getRestaurantLongitude() == null
+                || delivery.getCustomerLatitude() == null || delivery.getCustomerLongitude() == null) {
+            return defaultTravelMinutes;
+        }
+        return travelMinutes(delivery.getRestaurantLatitude(), delivery.getRestaurantLongitude(),
+                delivery.getCustomerLatitude(), delivery.getCustomerLongitude());
+    }
+
+    private double travelMinutes(double fromLatitude, double fromLongitude, double toLatitude, double toLongitude) {
+        double km = DriverLocationStore.distanceKm(fromLatitude, fromLongitude, toLatitude, toLongitude) * roadFactor;
+        return km / speedKmh * 60;
+    }
+
+    // Only positions recent enough to still say where the driver is
+    private DriverLocationDto driverPosition(Long driverId) {
+        if (driverId == null) {
+            return null;
+        }
+        return driverLocationStore.find(driverId)
+                .filter(position -> position.getTimestamp() >= System.currentTimeMillis() - positionMaxAgeMillis)
+                .orElse(null);
+    }
+
+    public record RestaurantLocation(Double latitude, Double longitude) {
+    }
+
+    private record PrepTime(Long restaurantId, long orders, double averagePrepMinutes) {
+    }
+}
@@ -0,0 +1,304 @@
+package com.example.deliveryservice.services;
+
+import com.example.deliveryservice.dtos.PendingDeliveriesDto;
+import com.example.deliveryservice.entities.Delivery;
+import com.example.deliveryservice.entities.DeliveryStatus;
+import com.example.deliveryservice.events.DeliveryChangedEvent;
+import com.example.deliveryservice.repositories.DeliveryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The deliveries waiting for a driver, held in memory so drivers looking for work never hit
+ * the database.
+ *
+ * The board is filled once from the database on startup and then kept current from
+ * {@link DeliveryChangedEvent}s: a delivery is on it while it is PENDING. Every change bumps
+ * the board's version. A driver that passes back the version of its last answer is held until
+ * a delivery matching its filter joins or leaves the board, or the wait runs out, so an idle
+ * driver keeps one cheap request open instead of polling.
+ */
+@Component
+public class PendingDeliveryBoard {
+
+    private static final Logger logger = LoggerFactory.getLogger(PendingDeliveryBoard.class);
+
+    // Changes kept to tell a returning poller whether it missed anything it cares about
+    private static final int MAX_RECENT_CHANGES = 1024;
+    // Deliveries recently taken off, so a creation event arriving late cannot bring one back
+    private static final int MAX_RECENTLY_REMOVED = 4096;
+
+    private final DeliveryRepository deliveryRepository;
+    private final int maxWaiters;
+
+    // Guards everything below
+    private final Object lock = new Object();
+    // Copies of the pending deliveries by id, so oldest first; never modified once here
+    private final TreeMap<Long, Delivery> pending = new TreeMap<>();
+    private long version;
+    private final Deque<Change> recentChanges = new ArrayDeque<>();
+    private final Map<Long, Boolean> recentlyRemoved = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+            return size() > MAX_RECENTLY_REMOVED;
+        }
+    };
+    private final List<Waiter> waiters = new ArrayList<>();
+    private boolean warmingUp;
+    private final List<DeliveryChangedEvent> duringWarmUp = new ArrayList<>();
+
+    public PendingDeliveryBoard(DeliveryRepository deliveryRepository,
+                                @Value("${deliveries.pending.max-waiters:10000}") int maxWaiters) {
+        this.deliveryRepository = deliveryRepository;
+        this.maxWaiters = maxWaiters;
+    }
+
+    /**
+     * What a driver asks for: deliveries from one restaurant and/or picked up within a radius
+     * of a point, nearest first; any of them may be null.
+     */
+    public record Filter(Long restaurantId, Double latitude, Double longitude, Double radiusKm) {
+
+        private boolean byDistance() {
+            return latitude != null && longitude != null;
+        }
+
+        private boolean matches(Delivery delivery) {
+            if (restaurantId != null && !restaurantId.equals(delivery.getRestaurantId())) {
+                return false;
+            }
+            if (byDistance() && radiusKm != null) {
+                return delivery.getRestaurantLatitude() != null && delivery.getRestaurantLongitude() != null
+                        && distanceKm(delivery) <= radiusKm;
+            }
+            return true;
+        }
+
+        private double distanceKm(Delivery delivery) {
+            if (delivery.getRestaurantLatitude() == null || delivery.getRestaurantLongitude() == null) {
+                return Double.MAX_VALUE;
+            }
+            return DriverLocationStore.distanceKm(latitude, longitude,
+                    delivery.getRestaurantLatitude(), delivery.getRestaurantLongitude());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        synchronized (lock) {
+            warmingUp = true;
+        }
+        List<Delivery> loaded = null;
+        try {
+            loaded = deliveryRepository.findByStatus(DeliveryStatus.PENDING);
+            logger.info("Pending delivery board warmed up with {} deliveries", loaded.size());
+        } finally {
+            List<Waiter> woken;
+            synchronized (lock) {
+                if (loaded != null) {
+                    pending.clear();
+                    loaded.forEach(delivery -> pending.put(delivery.getDeliveryId(), copyOf(delivery)));
+                    version++;
+                }
+                woken = new ArrayList<>();
+                for (DeliveryChangedEvent event : duringWarmUp) {
+                    applyLocked(event, woken);
+                }
+                duringWarmUp.clear();
+                warmingUp = false;
+                // Whatever they were waiting on, the board has just been replaced
+                woken.addAll(waiters);
+                waiters.clear();
+            }
+            woken.forEach(this::answer);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDeliveryChanged(DeliveryChangedEvent event) {
+        List<Waiter> woken = new ArrayList<>();
+        synchronized (lock) {
+            if (warmingUp) {
+                duringWarmUp.add(new DeliveryChangedEvent(copyOf(event.delivery()), event.previousStatus()));
+                return;
+            }
+            applyLocked(event, woken);
+        }
+        woken.forEach(this::answer);
+    }
+
+    /**
+     * A page of the pending deliveries matching the filter, with the board's version.
+     */
+    public PendingDeliveriesDto page(Filter filter, int offset, int limit) {
+        synchronized (lock) {
+            return pageLocked(filter, offset, limit);
+        }
+    }
+
+    /**
+     * Like {@link #page}, but if nothing matching the filter changed since {@code sinceVersion}
+     * the answer is held until something does or {@code wait} runs out; then the unchanged page
+     * is returned.
+     */
+    public DeferredResult<PendingDeliveriesDto> poll(Filter filter, int offset, int limit, long sinceVersion, Duration wait) {
+        DeferredResult<PendingDeliveriesDto> result = new DeferredResult<>(wait.toMillis());
+        Waiter waiter = new Waiter(filter, offset, limit, result);
+        synchronized (lock) {
+            if (warmingUp || waiters.size() >= maxWaiters || changedSinceLocked(filter, sinceVersion)) {
+                result.setResult(pageLocked(filter, offset, limit));
+                return result;
+            }
+            waiters.add(waiter);
+        }
+        result.onTimeout(() -> {
+            removeWaiter(waiter);
+            result.setResult(page(filter, offset, limit));
+        });
+        result.onCompletion(() -> removeWaiter(waiter));
+        result.onError(e -> removeWaiter(waiter));
+        return result;
+    }
+
+    /**
+     * Every pending delivery, oldest first.
+     */
+    public List<Delivery> all() {
+        synchronized (lock) {
+            return new ArrayList<>(pending.values());
+        }
+    }
+
+    private void applyLocked(DeliveryChangedEvent event, List<Waiter> woken) {
+        Delivery delivery = event.delivery();
+        Long deliveryId = delivery.getDeliveryId();
+        Delivery before = pending.get(deliveryId);
+        Delivery after = null;
+        if (delivery.getStatus() == DeliveryStatus.PENDING) {
+            if (before == null && event.previousStatus() == null && recentlyRemoved.containsKey(deliveryId)) {
+                // Created and taken in quick succession, with the listeners running out of order
+                return;
+            }
+            after = copyOf(delivery);
+            pending.put(deliveryId, after);
+            recentlyRemoved.remove(deliveryId);
+        } else {
+            if (before == null) {
+                return;
+            }
+            pending.remove(deliveryId);
+            recentlyRemoved.put(deliveryId, Boolean.TRUE);
+        }
+
+        version++;
+        recentChanges.addLast(new Change(version, before, after));
+        if (recentChanges.size() > MAX_RECENT_CHANGES) {
+            recentChanges.removeFirst();
+        }
+        for (int i = waiters.size() - 1; i >= 0; i--) {
+            Waiter waiter = waiters.get(i);
+            if (before != null && waiter.filter.matches(before) || after != null && waiter.filter.matches(after)) {
+                woken.add(waiters.remove(i));
+            }
+        }
+    }
+
+    private boolean changedSinceLocked(Filter filter, long sinceVersion) {
+        if (sinceVersion >= version) {
+            return false;
+        }
+        if (recentChanges.isEmpty() || recentChanges.peekFirst().version() > sinceVersion + 1) {
+            // Older than anything remembered, so it may have missed something
+            return true;
+        }
+        for (Change change : recentChanges) {
+            if (change.version() > sinceVersion
+                    && (change.before() != null && filter.matches(change.before())
+                    || change.after() != null && filter.matches(change.after()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private PendingDeliveriesDto pageLocked(Filter filter, int offset, int limit) {
+        List<Delivery> matching = new ArrayList<>();
+        for (Delivery delivery : pending.values()) {
+            if (filter.matches(delivery)) {
+                matching.add(delivery);
+            }
+        }
+        if (filter.byDistance()) {
+            matching.sort(Comparator.comparingDouble(filter::distanceKm));
+        }
+        int from = Math.min(offset, matching.size());
+        int to = Math.min(from + limit, matching.size());
+        return new PendingDeliveriesDto(version, matching.size(), new ArrayList<>(matching.subList(from, to)));
+    }
+
+    private void answer(Waiter waiter) {
+        waiter.result.setResult(page(waiter.filter, waiter.offset, waiter.limit));
+    }
+
+    private void removeWaiter(Waiter waiter) {
+        synchronized (lock) {
+            waiters.remove(waiter);
+        }
+    }
+
+    // A detached copy, so later changes to the saved entity cannot show through
+    private static Delivery copyOf(Delivery delivery) {
+        Delivery copy = new Delivery();
+        copy.setDeliveryId(delivery.getDeliveryId());
+        copy.setOrderId(delivery.getOrderId());
+        copy.setDriverId(delivery.getDriverId());
+        copy.setCustomerAddress(delivery.getCustomerAddress());
+        copy.setCustomerLatitude(delivery.getCustomerLatitude());
+        copy.setCustomerLongitude(delivery.getCustomerLongitude());
+        copy.setRestaurantName(delivery.getRestaurantName());
+        copy.setRestaurantId(delivery.getRestaurantId());
+        copy.setRestaurantLatitude(delivery.getRestaurantLatitude());
+        copy.setRestaurantLongitude(delivery.getRestaurantLongitude());
+        copy.setStatus(delivery.getStatus());
+        copy.setEstimatedDeliveryTime(delivery.getEstimatedDeliveryTime());
+        copy.setActualDeliveryTime(delivery.getActualDeliveryTime());
+        copy.setCreatedAt(delivery.getCreatedAt());
+        copy.setBatchId(delivery.getBatchId());
+        copy.setStopIndex(delivery.getStopIndex());
+        return copy;
+    }
+
+    private record Change(long version, Delivery before, Delivery after) {
+    }
+
+    // Compared by identity, so two drivers with the same filter are separate waiters
+    private static final class Waiter {
+        private final Filter filter;
+        private final int offset;
+        private final int limit;
+        private final DeferredResult<PendingDeliveriesDto> result;
+
+        private Waiter(Filter filter, int offset, int limit, DeferredResult<PendingDeliveriesDto> result) {
+            this.filter = filter;
+            this.offset = offset;
+            this.limit = limit;
+            this.result = result;
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.deliveryservice.services;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Mergeable quantile sketch with a fixed relative error. Values are counted in buckets whose
+ * bounds grow geometrically, so every quantile it answers is within {@link #RELATIVE_ACCURACY}
+ * of the true one, and two sketches merge by adding up their bucket counts. Negative values
+ * have buckets of their own; magnitudes below {@link #MIN_MAGNITUDE} count as zero. Not
+ * thread-safe; callers lock around it.
+ */
+final class QuantileSketch {
+
+    static final double RELATIVE_ACCURACY = 0.01;
+    static final double MIN_MAGNITUDE = 1.0;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+
+    private final Buckets positive = new Buckets();
+    private final Buckets negative = new Buckets();
+    private long zeroCount;
+    private long count;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    void add(double value) {
+        if (value >= MIN_MAGNITUDE) {
+            positive.add(index(value), 1);
+        } else if (value <= -MIN_MAGNITUDE) {
+            negative.add(index(-value), 1);
+        } else {
+            zeroCount++;
+        }
+        count++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    void merge(QuantileSketch other) {
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+        count += other.count;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    long count() {
+        return count;
+    }
+
+    double mean() {
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    /**
+     * The value at quantile {@code q}, between 0 and 1, or NaN if the sketch is empty.
+     */
+    double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        double rank = q * (count - 1);
+        long seen = 0;
+        // Most negative first: the largest magnitudes of the negative side
+        for (int i = negative.counts.length - 1; i >= 0; i--) {
+            seen += negative.counts[i];
+            if (seen > rank) {
+                return clamp(-value(negative.offset + i));
+            }
+        }
+        seen += zeroCount;
+        if (seen > rank) {
+            return clamp(0);
+        }
+        for (int i = 0; i < positive.counts.length; i++) {
+            seen += positive.counts[i];
+            if (seen > rank) {
+                return clamp(value(positive.offset + i));
+            }
+        }
+        return max;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeLong(count);
+        out.writeDouble(sum);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeLong(zeroCount);
+        positive.writeTo(out);
+        negative.writeTo(out);
+    }
+
+    static QuantileSketch readFrom(DataInputStream in) throws IOException {
+        QuantileSketch sketch = new QuantileSketch();
+        sketch.count = in.readLong();
+        sketch.sum = in.readDouble();
+        sketch.min = in.readDouble();
+        sketch.max = in.readDouble();
+        sketch.zeroCount = in.readLong();
+        sketch.positive.readFrom(in);
+        sketch.negative.readFrom(in);
+        return sketch;
+    }
+
+    private double clamp(double value) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static int index(double magnitude) {
+        return (int) Math.ceil(Math.log(magnitude) / LOG_GAMMA);
+    }
+
+    // A value with the same relative distance to both bounds of its bucket
+    private static double value(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    // Counts for a contiguous run of bucket indexes starting at offset
+    private static final class Buckets {
+        private static final long[] EMPTY = new long[0];
+
+        private int offset;
+        private long[] counts = EMPTY;
+
+        private void add(int index, long n) {
+            if (counts.length == 0) {
+                offset = index;
+                counts = new long[8];
+            } else if (index < offset) {
+                int shift = Math.max(offset - index, counts.length / 2);
+                long[] grown = new long[counts.length + shift];
+                System.arraycopy(counts, 0, grown, shift, counts.length);
+                counts = grown;
+                offset -= shift;
+            } else if (index >= offset + counts.length) {
+                counts = Arrays.copyOf(counts, Math.max(index - offset + 1, counts.length + counts.length / 2));
+            }
+            counts[index - offset] += n;
+        }
+
+        private void merge(Buckets other) {
+            for (int i = 0; i < other.counts.length; i++) {
+                if (other.counts[i] != 0) {
+                    add(other.offset + i, other.counts[i]);
+                }
+            }
+        }
+
+        private void writeTo(DataOutputStream out) throws IOException {
+            // Trailing and leading empty buckets are not written
+            int first = 0;
+            int last = counts.length - 1;
+            while (first <= last && counts[first] == 0) {
+                first++;
+            }
+            while (last >= first && counts[last] == 0) {
+                last--;
+            }
+            out.writeInt(offset + first);
+            out.writeInt(last - first + 1);
+            for (int i = first; i <= last; i++) {
+                out.writeLong(counts[i]);
+            }
+        }
+
+        private void readFrom(DataInputStream in) throws IOException {
+            offset = in.readInt();
+            int length = in.readInt();
+            if (length < 0 || length > 1 << 16) {
+                throw new IOException("Corrupt sketch");
+            }
+            counts = length == 0 ? EMPTY : new long[length];
+            for (int i = 0; i < length; i++) {
+                counts[i] = in.readLong();
+            }
+        }
+    }
+}
@@ -1,14 +1,32 @@
 package com.example.deliveryservice.web;
 
+import com.example.deliveryservice.dtos.AssignBatchDto;
 import com.example.deliveryservice.dtos.AssignDeliveryDto;
+import com.example.deliveryservice.dtos.DeliveryAggregateDto;
+import com.example.deliveryservice.dtos.DeliveryBatchDto;
 import com.example.deliveryservice.dtos.DeliveryRequestDto;
+import com.example.deliveryservice.dtos.PendingDeliveriesDto;
+import com.example.deliveryservice.dtos.SegmentInfoDto;
 import com.example.deliveryservice.dtos.UpdateDeliveryStatusDto;
 import com.example.deliveryservice.entities.Delivery;
+import com.example.deliveryservice.services.DeliveryBatcher;
+import com.example.deliveryservice.services.DeliverySegmentStore;
 import com.example.deliveryservice.services.DeliveryService;
+import com.example.deliveryservice.services.DeliveryUpdates;
+import com.example.deliveryservice.services.PendingDeliveryBoard;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
 
 
 @RestController
@@ -16,7 +34,14 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class DeliveryController {
 
+    private static final int MAX_PENDING_LIMIT = 200;
+    private static final long MAX_PENDING_WAIT_SECONDS = 30;
+
     private final DeliveryService deliveryService;
+    private final DeliverySegmentStore deliverySegmentStore;
+    private final DeliveryUpdates deliveryUpdates;
+    private final DeliveryBatcher deliveryBatcher;
+    private final PendingDeliveryBoard pendingDeliveryBoard;
 
     @PostMapping
     public ResponseEntity<Delivery> createDelivery(@RequestBody DeliveryRequestDto request) {
@@ -34,6 +59,12 @@ public class DeliveryController {
         return ResponseEntity.ok(deliveryService.getDeliveryById(id));
     }
 
+    // GET /api/deliveries/{id}/stream - server-sent "delivery" events with the status and a live ETA
+    @GetMapping(value = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamDelivery(@PathVariable Long id) {
+        return deliveryUpdates.subscribe(deliveryService.getDeliveryById(id));
+    }
+
     @GetMapping("/order/{orderId}")
     public ResponseEntity<Delivery> getDeliveryByOrderId(@PathVariable Long orderId) {
         return ResponseEntity.ok(deliveryService.getDeliveryByOrderId(orderId));
@@ -44,9 +75,41 @@ public class DeliveryController {
         return ResponseEntity.ok(deliveryService.updateDeliveryStatus(id, statusUpdate));
     }
 
+    // GET /api/deliveries/pending?restaurantId=&lat=&lng=&radiusKm=&limit=&offset= - nearest first when lat/lng are given
     @GetMapping("/pending")
-    public ResponseEntity<java.util.List<Delivery>> getPendingDeliveries() {
-        return ResponseEntity.ok(deliveryService.getPendingDeliveries());
+    public ResponseEntity<java.util.List<Delivery>> getPendingDeliveries(
+            @RequestParam(required = false) Long restaurantId,
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lng,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "0") int offset) {
+        PendingDeliveryBoard.Filter filter = pendingFilter(restaurantId, lat, lng, radiusKm);
+        checkPage(limit, offset);
+        return ResponseEntity.ok(pendingDeliveryBoard.page(filter, offset, limit).getDeliveries());
+    }
+
+    // GET /api/deliveries/pending/feed?...&version=&waitSeconds= - held until the matching deliveries change
+    // after the given version, or the wait runs out; without a version it answers straight away
+    @GetMapping("/pending/feed")
+    public DeferredResult<PendingDeliveriesDto> getPendingFeed(
+            @RequestParam(required = false) Long restaurantId,
+            @RequestParam(required = false) Double lat,
+            @RequestParam(required = false) Double lng,
+            @RequestParam(required = false) Double radiusKm,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) Long version,
+            @RequestParam(defaultValue = "25") long waitSeconds) {
+        PendingDeliveryBoard.Filter filter = pendingFilter(restaurantId, lat, lng, radiusKm);
+        checkPage(limit, offset);
+        if (version == null) {
+            DeferredResult<PendingDeliveriesDto> result = new DeferredResult<>();
+            result.setResult(pendingDeliveryBoard.page(filter, offset, limit));
+            return result;
+        }
+        Duration wait = Duration.ofSeconds(Math.max(1, Math.min(waitSeconds, MAX_PENDING_WAIT_SECONDS)));
+        return pendingDeliveryBoard.poll(filter, offset, limit, version, wait);
     }
 
     @GetMapping("/driver/{driverId}/active")
@@ -63,4 +126,65 @@ public class DeliveryController {
     public ResponseEntity<Delivery> assignDelivery(@PathVariable Long id, @RequestBody AssignDeliveryDto assignRequest) {
         return ResponseEntity.ok(deliveryService.assignDelivery(id, assignRequest.getDriverId()));
     }
+
+    // GET /api/deliveries/batches/suggestions - pending deliveries from one restaurant that one driver could carry together
+    @GetMapping("/batches/suggestions")
+    public ResponseEntity<java.util.List<DeliveryBatchDto>> getBatchSuggestions() {
+        return ResponseEntity.ok(deliveryBatcher.suggestions());
+    }
+
+    // POST /api/deliveries/batches - assign several pending deliveries to a driver as one multi-stop route
+    @PostMapping("/batches")
+    public ResponseEntity<DeliveryBatchDto> assignBatch(@RequestBody AssignBatchDto request) {
+        DeliveryBatchDto batch = deliveryService.assignBatch(request.getDriverId(), request.getDeliveryIds());
+        return new ResponseEntity<>(batch, HttpStatus.CREATED);
+    }
+
+    // GET /api/deliveries/batches/{batchId} - a batch's stops in route order
+    @GetMapping("/batches/{batchId}")
+    public ResponseEntity<DeliveryBatchDto> getBatch(@PathVariable Long batchId) {
+        return ResponseEntity.ok(deliveryService.getBatch(batchId));
+    }
+
+    // GET /api/deliveries/admin/segments - the segment files holding old finished deliveries
+    @GetMapping("/admin/segments")
+    public ResponseEntity<java.util.List<SegmentInfoDto>> getSegments() {
+        return ResponseEntity.ok(deliverySegmentStore.segments());
+    }
+
+    // GET /api/deliveries/admin/segments/aggregate?from=&to=&driverId= - status and on-time counts of segment deliveries in a range
+    @GetMapping("/admin/segments/aggregate")
+    public ResponseEntity<DeliveryAggregateDto> aggregateSegments(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long driverId) {
+        return ResponseEntity.ok(deliverySegmentStore.aggregate(from, to, driverId));
+    }
+
+    // POST /api/deliveries/admin/segments/export - move old finished deliveries into segment files now
+    @PostMapping("/admin/segments/export")
+    public ResponseEntity<java.util.Map<String, Integer>> exportSegments() throws IOException {
+        int exported = deliverySegmentStore.export();
+        if (exported < 0) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A segment export is already running");
+        }
+        return ResponseEntity.ok(java.util.Map.of("exportedDeliveries", exported));
+    }
+
+    private static PendingDeliveryBoard.Filter pendingFilter(Long restaurantId, Double lat, Double lng, Double radiusKm) {
+        if ((lat == null) != (lng == null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "lat and lng must be given together");
+        }
+        if (radiusKm != null && (lat == null || radiusKm <= 0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "radiusKm needs lat and lng and must be positive");
+        }
+        return new PendingDeliveryBoard.Filter(restaurantId, lat, lng, radiusKm);
+    }
+
+    private static void checkPage(int limit, int offset) {
+        if (limit < 1 || limit > MAX_PENDING_LIMIT || offset < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "limit must be between 1 and " + MAX_PENDING_LIMIT + " and offset not negative");
+        }
+    }
 }
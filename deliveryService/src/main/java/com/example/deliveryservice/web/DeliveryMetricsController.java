@@ -0,0 +1,48 @@
+package com.example.deliveryservice.web;
+
+import com.example.deliveryservice.dtos.DeliveryMetricsStatsDto;
+import com.example.deliveryservice.dtos.DeliveryPercentilesDto;
+import com.example.deliveryservice.services.DeliveryMetricsStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/api/deliveries/metrics")
+@RequiredArgsConstructor
+public class DeliveryMetricsController {
+
+    private final DeliveryMetricsStore deliveryMetricsStore;
+
+    // GET /api/deliveries/metrics/percentiles?metric=LATENESS&from=&to=&driverId=&restaurantId=&byHourOfDay=false
+    // - p50/p90/p99 in minutes, over the last day unless a range is given
+    @GetMapping("/percentiles")
+    public ResponseEntity<DeliveryPercentilesDto> getPercentiles(
+            @RequestParam DeliveryMetricsStore.Metric metric,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) Long driverId,
+            @RequestParam(required = false) Long restaurantId,
+            @RequestParam(defaultValue = "false") boolean byHourOfDay) {
+        if (driverId != null && restaurantId != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Give either driverId or restaurantId, not both");
+        }
+        LocalDateTime end = to != null ? to : LocalDateTime.now();
+        LocalDateTime start = from != null ? from : end.minusDays(1);
+        if (!start.isBefore(end)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must be before to");
+        }
+        return ResponseEntity.ok(deliveryMetricsStore.percentiles(metric, start, end, driverId, restaurantId, byHourOfDay));
+    }
+
+    // GET /api/deliveries/metrics/stats - how much each tier of the metrics store holds
+    @GetMapping("/stats")
+    public ResponseEntity<DeliveryMetricsStatsDto> getStats() {
+        return ResponseEntity.ok(deliveryMetricsStore.stats());
+    }
+}
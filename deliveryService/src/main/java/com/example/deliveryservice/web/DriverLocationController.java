@@ -0,0 +1,66 @@
+package com.example.deliveryservice.web;
+
+import com.example.deliveryservice.dtos.DriverLocationDto;
+import com.example.deliveryservice.dtos.DriverLocationStatsDto;
+import com.example.deliveryservice.dtos.LocationBatchResultDto;
+import com.example.deliveryservice.dtos.NearbyDriverDto;
+import com.example.deliveryservice.services.DriverLocationStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/deliveries/locations")
+@RequiredArgsConstructor
+public class DriverLocationController {
+
+    private static final int MAX_BATCH_SIZE = 10_000;
+    private static final int MAX_NEARBY_RESULTS = 200;
+
+    private final DriverLocationStore driverLocationStore;
+
+    // POST /api/deliveries/locations - a batch of pings [{driverId, latitude, longitude, timestamp}]
+    @PostMapping
+    public ResponseEntity<LocationBatchResultDto> ingest(@RequestBody List<DriverLocationDto> pings) {
+        if (pings.size() > MAX_BATCH_SIZE) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                    "At most " + MAX_BATCH_SIZE + " pings per request");
+        }
+        return ResponseEntity.accepted().body(driverLocationStore.ingest(pings));
+    }
+
+    // GET /api/deliveries/locations/driver/{driverId} - a driver's last known position
+    @GetMapping("/driver/{driverId}")
+    public ResponseEntity<DriverLocationDto> getDriverLocation(@PathVariable long driverId) {
+        return driverLocationStore.find(driverId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    // GET /api/deliveries/locations/nearby?lat=&lng=&radiusKm=3&limit=20 - drivers recently seen near a point, nearest first
+    @GetMapping("/nearby")
+    public ResponseEntity<List<NearbyDriverDto>> getNearbyDrivers(@RequestParam double lat,
+                                                                  @RequestParam double lng,
+                                                                  @RequestParam(defaultValue = "3") double radiusKm,
+                                                                  @RequestParam(defaultValue = "20") int limit) {
+        if (!(radiusKm > 0)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "radiusKm must be positive");
+        }
+        try {
+            return ResponseEntity.ok(driverLocationStore.nearby(lat, lng, radiusKm,
+                    Math.max(1, Math.min(limit, MAX_NEARBY_RESULTS))));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    // GET /api/deliveries/locations/stats - drivers tracked and ping counters since startup
+    @GetMapping("/stats")
+    public ResponseEntity<DriverLocationStatsDto> getStats() {
+        return ResponseEntity.ok(driverLocationStore.stats());
+    }
+}
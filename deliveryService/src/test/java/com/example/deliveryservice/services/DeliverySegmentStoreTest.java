@@ -0,0 +1,104 @@
+package com.example.deliveryservice.services;
+
+import com.example.common.segments.Encoding;
+import com.example.common.segments.SegmentWriter;
+import com.example.deliveryservice.entities.Delivery;
+import com.example.deliveryservice.entities.DeliveryStatus;
+import com.example.deliveryservice.repositories.DeliveryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DeliverySegmentStoreTest {
+
+    @TempDir
+    Path dir;
+
+    private final DeliveryRepository deliveryRepository = mock(DeliveryRepository.class);
+
+    @Test
+    void exportKeepsEveryColumn() throws IOException {
+        Delivery batched = delivery(1L);
+        batched.setBatchId(1L);
+        batched.setStopIndex(0);
+        Delivery alone = delivery(2L);
+        alone.setRestaurantId(null);
+        alone.setRestaurantLatitude(null);
+        alone.setCreatedAt(null);
+        when(deliveryRepository.findIdsFinishedBefore(anyLong(), anyCollection(), any(), any()))
+                .thenReturn(List.of(1L, 2L), List.of());
+        when(deliveryRepository.findByDeliveryIdInOrderByDeliveryId(anyCollection())).thenReturn(List.of(batched, alone));
+        DeliverySegmentStore store = store();
+
+        assertEquals(2, store.export());
+
+        assertEquals(batched, store.findById(1).orElseThrow());
+        assertEquals(alone, store.findById(2).orElseThrow());
+        // And once more from the file, as after a restart
+        assertEquals(batched, store().findByOrderId(101).orElseThrow());
+    }
+
+    @Test
+    void readsSegmentsWrittenBeforeTheBatchAndRestaurantColumns() throws IOException {
+        LocalDateTime ended = LocalDateTime.of(2025, 3, 1, 12, 30);
+        long micros = Duration.between(LocalDateTime.of(1970, 1, 1, 0, 0), ended).toNanos() / 1000;
+        try (SegmentWriter writer = new SegmentWriter(dir.resolve("deliveries-old.seg"), 1, List.of(
+                Encoding.DELTA, Encoding.DELTA, Encoding.DICTIONARY, Encoding.STRING_DICTIONARY, Encoding.DOUBLE,
+                Encoding.DOUBLE, Encoding.STRING_DICTIONARY, Encoding.DICTIONARY, Encoding.DELTA, Encoding.DELTA))) {
+            writer.writeRowGroup(1, new long[] {5}, new long[] {105}, new long[] {9}, new String[] {"1 Main St"},
+                    new double[] {48.85}, new double[] {2.35}, new String[] {"Pizzeria"}, new long[] {5},
+                    new long[] {micros}, new long[] {micros});
+            writer.finish();
+        }
+
+        Delivery delivery = store().findById(5).orElseThrow();
+
+        assertEquals(105L, delivery.getOrderId());
+        assertEquals("Pizzeria", delivery.getRestaurantName());
+        assertEquals(DeliveryStatus.COMPLETED, delivery.getStatus());
+        assertEquals(ended, delivery.getActualDeliveryTime());
+        assertNull(delivery.getRestaurantId());
+        assertNull(delivery.getCreatedAt());
+        assertNull(delivery.getBatchId());
+    }
+
+    private DeliverySegmentStore store() throws IOException {
+        DeliverySegmentStore store = new DeliverySegmentStore(deliveryRepository, mock(PlatformTransactionManager.class),
+                dir.toString(), Duration.ofDays(180), 1000, 1000);
+        store.open();
+        return store;
+    }
+
+    private static Delivery delivery(Long id) {
+        Delivery delivery = new Delivery();
+        delivery.setDeliveryId(id);
+        delivery.setOrderId(100 + id);
+        delivery.setDriverId(7L);
+        delivery.setCustomerAddress("1 Main St");
+        delivery.setCustomerLatitude(48.85);
+        delivery.setCustomerLongitude(2.35);
+        delivery.setRestaurantName("Pizzeria");
+        delivery.setRestaurantId(3L);
+        delivery.setRestaurantLatitude(48.86);
+        delivery.setRestaurantLongitude(2.34);
+        delivery.setStatus(DeliveryStatus.COMPLETED);
+        delivery.setCreatedAt(LocalDateTime.of(2025, 3, 1, 12, 0));
+        delivery.setEstimatedDeliveryTime(LocalDateTime.of(2025, 3, 1, 12, 40));
+        delivery.setActualDeliveryTime(LocalDateTime.of(2025, 3, 1, 12, 35, 10, 123_000));
+        return delivery;
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.deliveryservice.services;
+
+import com.example.deliveryservice.dtos.DriverLocationDto;
+import com.example.deliveryservice.dtos.LocationBatchResultDto;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DriverLocationStoreTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void turnsDownPingsWithoutCoordinates() throws Exception {
+        DriverLocationStore store = new DriverLocationStore(1, Duration.ofMinutes(5), Duration.ofHours(24),
+                dir.resolve("locations.bin").toString());
+        List<DriverLocationDto> pings = List.of(new ObjectMapper().readValue(
+                "[{\"driverId\": 1, \"latitude\": 48.85}, {\"driverId\": 2}, {\"driverId\": 3, \"latitude\": 48.85, \"longitude\": 2.35}]",
+                DriverLocationDto[].class));
+
+        LocationBatchResultDto result = store.ingest(pings);
+
+        assertEquals(new LocationBatchResultDto(1, 0, 2), result);
+        assertTrue(store.find(1).isEmpty());
+        assertTrue(store.find(2).isEmpty());
+        assertEquals(2.35, store.find(3).orElseThrow().getLongitude());
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.deliveryservice.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LongIntHashMapTest {
+
+    @Test
+    void putsOverwritesAndRemoves() {
+        LongIntHashMap map = new LongIntHashMap(4);
+
+        map.put(7, 1);
+        map.put(-7, 2);
+        map.put(7, 3);
+        map.remove(42);
+
+        assertEquals(2, map.size());
+        assertEquals(3, map.get(7));
+        assertEquals(2, map.get(-7));
+
+        map.remove(7);
+
+        assertEquals(1, map.size());
+        assertEquals(LongIntHashMap.MISSING, map.get(7));
+        assertEquals(2, map.get(-7));
+    }
+
+    @Test
+    void keepsEveryKeyReachableThroughHeavyChurn() {
+        // Few distinct keys in a small table, so probe runs are long and removals shift them often
+        Random random = new Random(7);
+        LongIntHashMap map = new LongIntHashMap(8);
+        Map<Long, Integer> expected = new HashMap<>();
+
+        for (int step = 0; step < 200_000; step++) {
+            long key = random.nextInt(48) * 1_000_003L;
+            if (random.nextInt(3) == 0) {
+                map.remove(key);
+                expected.remove(key);
+            } else {
+                map.put(key, step);
+                expected.put(key, step);
+            }
+            if (step % 1_000 == 0) {
+                assertSameContents(expected, map);
+            }
+        }
+        assertSameContents(expected, map);
+    }
+
+    @Test
+    void growsPastItsExpectedSize() {
+        LongIntHashMap map = new LongIntHashMap(2);
+
+        for (int i = 0; i < 10_000; i++) {
+            map.put(i * 31L, i);
+        }
+        for (int i = 0; i < 10_000; i += 2) {
+            map.remove(i * 31L);
+        }
+
+        assertEquals(5_000, map.size());
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i % 2 == 0 ? LongIntHashMap.MISSING : i, map.get(i * 31L));
+        }
+    }
+
+    private static void assertSameContents(Map<Long, Integer> expected, LongIntHashMap map) {
+        assertEquals(expected.size(), map.size());
+        expected.forEach((key, value) -> assertEquals(value, map.get(key)));
+        Set<Long> keys = new HashSet<>();
+        map.forEachKey(keys::add);
+        assertEquals(expected.keySet(), keys);
+    }
+}
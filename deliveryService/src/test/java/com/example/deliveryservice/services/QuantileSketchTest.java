@@ -0,0 +1,114 @@
+package com.example.deliveryservice.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class QuantileSketchTest {
+
+    private static final double[] QUANTILES = {0, 0.01, 0.1, 0.25, 0.5, 0.75, 0.9, 0.95, 0.99, 0.999, 1};
+
+    @Test
+    void answersWithinTheRelativeAccuracy() {
+        Random random = new Random(1);
+        double[] values = new double[100_000];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            // Delivery times in seconds: long-tailed, from about a minute to several hours
+            values[i] = Math.exp(7 + random.nextGaussian());
+            sketch.add(values[i]);
+        }
+
+        assertWithinAccuracy(values, sketch);
+        assertEquals(values.length, sketch.count());
+        assertEquals(Arrays.stream(values).average().orElseThrow(), sketch.mean(), 1e-6);
+    }
+
+    @Test
+    void handlesNegativeAndNearZeroValues() {
+        Random random = new Random(2);
+        double[] values = new double[20_000];
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 0; i < values.length; i++) {
+            // Lateness in seconds, early deliveries negative; magnitudes under one count as zero
+            values[i] = i % 50 == 0 ? 0 : random.nextGaussian() * 600;
+            if (Math.abs(values[i]) < QuantileSketch.MIN_MAGNITUDE) {
+                values[i] = 0;
+            }
+            sketch.add(values[i]);
+        }
+
+        assertWithinAccuracy(values, sketch);
+    }
+
+    @Test
+    void mergedSketchesAnswerLikeOneFedEverything() {
+        Random random = new Random(3);
+        QuantileSketch whole = new QuantileSketch();
+        QuantileSketch merged = new QuantileSketch();
+        double[] values = new double[30_000];
+        for (int part = 0; part < 3; part++) {
+            // Each part covers a different range, so merging has to grow the buckets both ways
+            QuantileSketch partSketch = new QuantileSketch();
+            for (int i = 0; i < 10_000; i++) {
+                double value = (part == 1 ? -1 : 1) * Math.exp(part * 3 + random.nextDouble() * 4);
+                values[part * 10_000 + i] = value;
+                partSketch.add(value);
+                whole.add(value);
+            }
+            merged.merge(partSketch);
+        }
+
+        assertEquals(whole.count(), merged.count());
+        for (double q : QUANTILES) {
+            assertEquals(whole.quantile(q), merged.quantile(q), 0, "q=" + q);
+        }
+        assertWithinAccuracy(values, merged);
+    }
+
+    @Test
+    void survivesAWriteAndReadBack() throws IOException {
+        QuantileSketch sketch = new QuantileSketch();
+        for (int i = 1; i <= 5_000; i++) {
+            sketch.add(i % 7 == 0 ? -i : i);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sketch.writeTo(new DataOutputStream(bytes));
+
+        QuantileSketch read = QuantileSketch.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(sketch.count(), read.count());
+        assertEquals(sketch.mean(), read.mean());
+        for (double q : QUANTILES) {
+            assertEquals(sketch.quantile(q), read.quantile(q), 0, "q=" + q);
+        }
+    }
+
+    @Test
+    void emptySketchHasNoAnswers() {
+        QuantileSketch sketch = new QuantileSketch();
+
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        assertTrue(Double.isNaN(sketch.mean()));
+    }
+
+    private static void assertWithinAccuracy(double[] values, QuantileSketch sketch) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        for (double q : QUANTILES) {
+            double exact = sorted[(int) Math.floor(q * (sorted.length - 1))];
+            double estimate = sketch.quantile(q);
+            double tolerance = QuantileSketch.RELATIVE_ACCURACY * Math.abs(exact) + 1e-9;
+            assertEquals(exact, estimate, tolerance, "q=" + q);
+        }
+    }
+}
@@ -1,32 +1,35 @@
-import axios from 'axios';
+import axios, { type CreateAxiosDefaults } from 'axios';
 
-const createService = (port: number) => {
-    return axios.create({
-        baseURL: `http://localhost:${port}`,
-        headers: {
-            'Content-Type': 'application/json',
-        },
+// Every service is reached through the API gateway, which routes by path (/api/orders, /api/restaurants, ...)
+export const GATEWAY_URL = 'http://localhost:8080';
+
+// A client for the gateway that sends the signed-in user's token; the gateway checks it and rate-limits per user
+export const createGatewayClient = (options: CreateAxiosDefaults = {}) => {
+    const client = axios.create({ baseURL: GATEWAY_URL, ...options });
+    client.interceptors.request.use((config) => {
+        const token = localStorage.getItem('token');
+        if (token) {
+            config.headers.Authorization = `Bearer ${token}`;
+        }
+        return config;
+    });
+    // An expired or rejected token is no use for anything that follows, signing in again included
+    client.interceptors.response.use(undefined, (error) => {
+        if (error.response?.status === 401) {
+            localStorage.removeItem('token');
+        }
+        return Promise.reject(error);
     });
+    return client;
 };
 
-export const userService = createService(8084);
-export const restaurantService = createService(8082);
-export const orderService = createService(8081);
-export const deliveryService = createService(8083);
-
-// Add interceptors if needed (e.g., for auth tokens)
-userService.interceptors.request.use((config) => {
-    const token = localStorage.getItem('token');
-    if (token) {
-        config.headers.Authorization = `Bearer ${token}`;
-    }
-    return config;
+const createService = () => createGatewayClient({
+    headers: {
+        'Content-Type': 'application/json',
+    },
 });
 
-orderService.interceptors.request.use((config) => {
-    const token = localStorage.getItem('token');
-    if (token) {
-        config.headers.Authorization = `Bearer ${token}`;
-    }
-    return config;
-});
+export const userService = createService();
+export const restaurantService = createService();
+export const orderService = createService();
+export const deliveryService = createService();
@@ -1,15 +1,13 @@
-import axios from 'axios';
+import { GATEWAY_URL, createGatewayClient } from './axios';
 
-const API_BASE_URL = 'http://localhost';
-
-// Order Service runs on port 8081
-const orderServiceApi = axios.create({
-    baseURL: `${API_BASE_URL}:8081/api`,
+// Order Service, through the API gateway
+const orderServiceApi = createGatewayClient({
+    baseURL: `${GATEWAY_URL}/api`,
 });
 
-// Restaurant Service runs on port 8082
-const restaurantServiceApi = axios.create({
-    baseURL: `${API_BASE_URL}:8082/api`,
+// Restaurant Service, through the API gateway
+const restaurantServiceApi = createGatewayClient({
+    baseURL: `${GATEWAY_URL}/api`,
 });
 
 // Restaurant Owner API Functions
@@ -20,6 +18,38 @@ export const getRestaurantOrders = async (restaurantId: number | string) => {
     return response.data;
 };
 
+// Orders the kitchen is working on (PLACED to READY_FOR_PICKUP), without any history
+export const getActiveRestaurantOrders = async (restaurantId: number | string) => {
+    const response = await orderServiceApi.get(`/orders/restaurant/${restaurantId}/active`);
+    return response.data.orders;
+};
+
+const ACTIVE_STATUSES = ['PLACED', 'ACCEPTED', 'PREPARING', 'READY_FOR_PICKUP'];
+
+// Live kitchen board: onChange gets the full list of active orders, oldest first, on every change.
+// Returns a function that closes the stream.
+export const subscribeToActiveOrders = (restaurantId: number | string, onChange: (orders: any[]) => void) => {
+    const source = new EventSource(`${GATEWAY_URL}/api/orders/restaurant/${restaurantId}/active/stream`);
+    let orders = new Map<number, any>();
+    const emit = () => onChange(Array.from(orders.values()).sort((a, b) => a.id - b.id));
+
+    source.addEventListener('snapshot', (event) => {
+        const board = JSON.parse((event as MessageEvent).data);
+        orders = new Map(board.orders.map((order: any) => [order.id, order]));
+        emit();
+    });
+    source.addEventListener('order', (event) => {
+        const order = JSON.parse((event as MessageEvent).data);
+        if (ACTIVE_STATUSES.includes(order.status)) {
+            orders.set(order.id, order);
+        } else {
+            orders.delete(order.id);
+        }
+        emit();
+    });
+    return () => source.close();
+};
+
 export const updateOrderStatus = async (orderId: number | string, status: string) => {
     const response = await orderServiceApi.put(`/orders/${orderId}/status`, { status });
     return response.data;
@@ -35,8 +35,8 @@ const AdminDashboard: React.FC = () => {
             // Fetch data from multiple services concurrently
             const [statsResponse, usersResponse, restaurantsResponse] = await Promise.all([
                 orderService.get<AdminStats>('/api/orders/admin/stats'),
-                orderService.get('/api/users', { baseURL: 'http://localhost:8084' }).catch(() => ({ data: [] })),
-                orderService.get('/api/restaurants', { baseURL: 'http://localhost:8082' }).catch(() => ({ data: [] }))
+                orderService.get('/api/users').catch(() => ({ data: [] })),
+                orderService.get('/api/restaurants').catch(() => ({ data: [] }))
             ]);
 
             const statsData = statsResponse.data;
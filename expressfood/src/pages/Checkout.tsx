@@ -15,6 +15,8 @@ export const Checkout: React.FC = () => {
     const [loading, setLoading] = useState(false);
     const [address, setAddress] = useState(user?.address || '');
     const [showProfileModal, setShowProfileModal] = useState(false);
+    // One key per checkout, so a double-tap or a retried request can't place the order twice
+    const [idempotencyKey] = useState(() => crypto.randomUUID());
 
     useEffect(() => {
         if (user) {
@@ -54,7 +56,9 @@ export const Checkout: React.FC = () => {
             };
 
             console.log('Creating order with payload:', orderPayload);
-            const response = await orderService.post('/api/orders', orderPayload);
+            const response = await orderService.post('/api/orders', orderPayload, {
+                headers: { 'Idempotency-Key': idempotencyKey }
+            });
             console.log('Order created successfully:', response.data);
 
             clearCart();
@@ -25,12 +25,19 @@ interface Order {
 
 type FilterType = 'all' | 'active' | 'delivered';
 
+// Orders come newest first, a page at a time
+const PAGE_SIZE = 20;
+
 const MyOrders: React.FC = () => {
     const navigate = useNavigate();
     const { user } = useAuth();
     const [orders, setOrders] = useState<Order[]>([]);
     const [loading, setLoading] = useState(true);
     const [filter, setFilter] = useState<FilterType>('all');
+    // Id to page on from, while there may be more recent orders to fetch
+    const [nextBefore, setNextBefore] = useState<number | null>(null);
+    // Finished orders older than a few months live in the archive and are only fetched on request
+    const [archivedLoaded, setArchivedLoaded] = useState(false);
 
     useEffect(() => {
         if (!user) {
@@ -44,7 +51,7 @@ const MyOrders: React.FC = () => {
         try {
             setLoading(true);
             console.log('Fetching orders for user:', user?.id);
-            const response = await orderService.get(`/api/orders/customer/${user?.id}`);
+            const response = await orderService.get(`/api/orders/customer/${user?.id}`, { params: { limit: PAGE_SIZE } });
             console.log('Orders response:', response.data);
 
             // Log each order's details
@@ -52,7 +59,10 @@ const MyOrders: React.FC = () => {
                 console.log(`Order #${order.id} - Status: ${order.status}, Total: $${order.totalAmount}`);
             });
 
-            setOrders(response.data || []);
+            const page: Order[] = response.data || [];
+            setOrders(page);
+            setNextBefore(page.length === PAGE_SIZE ? page[page.length - 1].id : null);
+            setArchivedLoaded(false);
         } catch (err) {
             console.error('Failed to fetch orders:', err);
             setOrders([]);
@@ -61,6 +71,33 @@ const MyOrders: React.FC = () => {
         }
     };
 
+    const fetchOlderOrders = async () => {
+        if (nextBefore === null) {
+            await fetchArchivedOrders();
+            return;
+        }
+        try {
+            const response = await orderService.get(`/api/orders/customer/${user?.id}`, {
+                params: { before: nextBefore, limit: PAGE_SIZE },
+            });
+            const page: Order[] = response.data || [];
+            setOrders(current => [...current, ...page]);
+            setNextBefore(page.length === PAGE_SIZE ? page[page.length - 1].id : null);
+        } catch (err) {
+            console.error('Failed to fetch older orders:', err);
+        }
+    };
+
+    const fetchArchivedOrders = async () => {
+        try {
+            const response = await orderService.get(`/api/orders/customer/${user?.id}`, { params: { archived: true } });
+            setOrders(current => [...current, ...(response.data || [])]);
+            setArchivedLoaded(true);
+        } catch (err) {
+            console.error('Failed to fetch older orders:', err);
+        }
+    };
+
     const markAsReceived = async (orderId: number) => {
         try {
             console.log('Marking order as received:', orderId);
@@ -237,6 +274,14 @@ const MyOrders: React.FC = () => {
                         ))}
                     </div>
                 )}
+
+                {!archivedLoaded && filter !== 'active' && (
+                    <div className="text-center mt-8">
+                        <Button variant="outline" onClick={fetchOlderOrders}>
+                            Show older orders
+                        </Button>
+                    </div>
+                )}
             </div>
         </div>
     );
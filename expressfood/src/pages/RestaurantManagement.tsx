@@ -78,9 +78,7 @@ const RestaurantManagement: React.FC = () => {
     const fetchRestaurants = async () => {
         try {
             setLoading(true);
-            const response = await orderService.get('/api/restaurants', {
-                baseURL: 'http://localhost:8082'
-            });
+            const response = await orderService.get('/api/restaurants');
             setRestaurants(response.data || []);
         } catch (err) {
             console.error('Failed to fetch restaurants:', err);
@@ -113,9 +111,7 @@ const RestaurantManagement: React.FC = () => {
         if (!confirm('Are you sure you want to delete this restaurant?')) return;
 
         try {
-            await orderService.delete(`/api/restaurants/${id}`, {
-                baseURL: 'http://localhost:8082'
-            });
+            await orderService.delete(`/api/restaurants/${id}`);
             await fetchRestaurants();
         } catch (err) {
             console.error('Failed to delete restaurant:', err);
@@ -139,13 +135,9 @@ const RestaurantManagement: React.FC = () => {
         try {
             if (editingRestaurant) {
                 const id = editingRestaurant.id || editingRestaurant.restaurantId;
-                await orderService.put(`/api/restaurants/${id}`, restaurantData, {
-                    baseURL: 'http://localhost:8082'
-                });
+                await orderService.put(`/api/restaurants/${id}`, restaurantData);
             } else {
-                await orderService.post('/api/restaurants', restaurantData, {
-                    baseURL: 'http://localhost:8082'
-                });
+                await orderService.post('/api/restaurants', restaurantData);
             }
 
             setShowForm(false);
@@ -166,9 +158,7 @@ const RestaurantManagement: React.FC = () => {
 
     const fetchMenuItems = async (restaurantId: number) => {
         try {
-            const response = await orderService.get(`/api/restaurants/${restaurantId}/menu`, {
-                baseURL: 'http://localhost:8082'
-            });
+            const response = await orderService.get(`/api/restaurants/${restaurantId}/menu`);
             setMenuItems(response.data?.items || []);
         } catch (err) {
             console.error('Failed to fetch menu items:', err);
@@ -199,9 +189,7 @@ const RestaurantManagement: React.FC = () => {
 
         try {
             const id = selectedRestaurant.id || selectedRestaurant.restaurantId;
-            await orderService.delete(`/api/restaurants/${id}/menu/items/${itemId}`, {
-                baseURL: 'http://localhost:8082'
-            });
+            await orderService.delete(`/api/restaurants/${id}/menu/items/${itemId}`);
             await fetchMenuItems(id);
         } catch (err) {
             console.error('Failed to delete menu item:', err);
@@ -226,14 +214,12 @@ const RestaurantManagement: React.FC = () => {
             if (editingMenuItem) {
                 await orderService.put(
                     `/api/restaurants/${id}/menu/items/${editingMenuItem.id}`,
-                    itemData,
-                    { baseURL: 'http://localhost:8082' }
+                    itemData
                 );
             } else {
                 await orderService.post(
                     `/api/restaurants/${id}/menu/items`,
-                    itemData,
-                    { baseURL: 'http://localhost:8082' }
+                    itemData
                 );
             }
 
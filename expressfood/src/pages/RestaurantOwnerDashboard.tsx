@@ -21,6 +21,7 @@ import { Button } from '../components/ui/Button';
 import { Input } from '../components/ui/Input';
 import {
     getRestaurantOrders,
+    subscribeToActiveOrders,
     updateOrderStatus,
     getRestaurantDetails,
     updateRestaurant,
@@ -71,6 +72,8 @@ const RestaurantOwnerDashboard: React.FC = () => {
 
     // Orders State
     const [orders, setOrders] = useState<Order[]>([]);
+    // Kitchen board, kept current by the server
+    const [activeOrders, setActiveOrders] = useState<Order[]>([]);
 
     // Restaurant State
     const [restaurant, setRestaurant] = useState<Restaurant | null>(null);
@@ -113,6 +116,11 @@ const RestaurantOwnerDashboard: React.FC = () => {
         loadData();
     }, [user, navigate]);
 
+    useEffect(() => {
+        if (!user?.restaurantId) return;
+        return subscribeToActiveOrders(user.restaurantId, setActiveOrders);
+    }, [user?.restaurantId]);
+
     const loadData = async () => {
         if (!user?.restaurantId) return;
 
@@ -358,7 +366,7 @@ const RestaurantOwnerDashboard: React.FC = () => {
                         } />
                         <Route path="orders" element={
                             <OrdersView
-                                orders={orders}
+                                orders={activeOrders}
                                 onUpdateStatus={handleUpdateOrderStatus}
                             />
                         } />
@@ -32,8 +32,9 @@ const Login: React.FC = () => {
         try {
             const response = await userService.post('/api/users/login', formData);
 
-            // Generate mock JWT token
-            const mockToken = 'mock-jwt-token-' + Date.now();
+            // Signed by the userService and checked by the API gateway on every request
+            const authorization: string = response.headers['authorization'] || '';
+            const token = authorization.replace(/^Bearer /, '');
 
             // Extract user data
             const userData = {
@@ -50,7 +51,7 @@ const Login: React.FC = () => {
                 vehicle: response.data.vehicle || ''
             };
 
-            login(mockToken, userData);
+            login(token, userData);
 
             // Redirect based on user role
             if (userData.role === 'ROLE_DRIVER') {
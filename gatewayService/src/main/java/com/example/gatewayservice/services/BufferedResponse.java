@@ -0,0 +1,9 @@
+package com.example.gatewayservice.services;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * An upstream answer read in full, so it can be handed to several callers or kept.
+ */
+public record BufferedResponse(int status, HttpHeaders headers, byte[] body) {
+}
@@ -0,0 +1,15 @@
+package com.example.gatewayservice.services;
+
+/**
+ * Who a request comes from, as read from its verified bearer token.
+ */
+public record Caller(Long userId, String username, String role) {
+
+    // Request attribute holding the caller; absent for anonymous requests
+    public static final String ATTRIBUTE = Caller.class.getName();
+
+    // Rate limits and coalescing are per user, by id when the token carries one
+    public String key() {
+        return userId != null ? "user:" + userId : "user:" + username;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.gatewayservice.services;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Checks the tokens the userService signs at login: the signature against the shared secret,
+ * and the expiry.
+ */
+@Service
+public class JwtVerifier {
+
+    private final JwtParser parser;
+
+    public JwtVerifier(@Value("${gateway.jwt.secret}") String secret) {
+        this.parser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .build();
+    }
+
+    /**
+     * The caller the token was issued to; throws {@link JwtException} if it is forged, expired
+     * or malformed.
+     */
+    public Caller verify(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        Object userId = claims.get("userId");
+        Object role = claims.get("role");
+        if (!(userId instanceof Number) && claims.getSubject() == null) {
+            throw new JwtException("Token names no user");
+        }
+        return new Caller(userId instanceof Number number ? number.longValue() : null,
+                claims.getSubject(), role != null ? role.toString() : null);
+    }
+}
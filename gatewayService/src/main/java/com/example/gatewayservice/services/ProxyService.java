@@ -0,0 +1,247 @@
+package com.example.gatewayservice.services;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Forwards a request to the backend that owns its path.
+ *
+ * GETs are read in full: identical ones in flight together share one upstream call through the
+ * {@link RequestCoalescer}, and those under {@code gateway.cache.paths} are answered from the
+ * {@link ResponseCache} when it holds them. Everything else, event streams and the
+ * {@code gateway.streamed-paths} included, is passed through as it arrives, in both directions.
+ */
+@Service
+public class ProxyService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProxyService.class);
+
+    // Not passed on upstream: hop-by-hop, recomputed, or only the gateway may set them
+    private static final Set<String> DROPPED_REQUEST_HEADERS = Set.of("connection", "keep-alive", "proxy-authorization",
+            "proxy-connection", "te", "trailer", "transfer-encoding", "upgrade", "host", "origin", "accept-encoding",
+            "x-forwarded-for", "x-user-id", "x-user-name", "x-user-role");
+    // Not passed back: hop-by-hop or recomputed; CORS is answered by the gateway alone
+    private static final Set<String> DROPPED_RESPONSE_HEADERS = Set.of("connection", "keep-alive", "proxy-authenticate",
+            "proxy-connection", "trailer", "transfer-encoding", "upgrade", "content-length");
+
+    private final RouteTable routeTable;
+    private final ResponseCache responseCache;
+    private final RequestCoalescer requestCoalescer;
+    private final RestClient restClient;
+    private final RestClient streamClient;
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<String> streamedPaths;
+
+    public ProxyService(RouteTable routeTable,
+                        ResponseCache responseCache,
+                        RequestCoalescer requestCoalescer,
+                        RestClient.Builder restClientBuilder,
+                        @Value("${gateway.connect-timeout:2s}") Duration connectTimeout,
+                        @Value("${gateway.read-timeout:45s}") Duration readTimeout,
+                        @Value("${gateway.streamed-paths:}") List<String> streamedPaths) {
+        this.routeTable = routeTable;
+        this.responseCache = responseCache;
+        this.requestCoalescer = requestCoalescer;
+        this.restClient = restClientBuilder.clone().requestFactory(requestFactory(connectTimeout, readTimeout)).build();
+        // Event streams may go quiet for as long as nothing happens
+        this.streamClient = restClientBuilder.clone().requestFactory(requestFactory(connectTimeout, Duration.ZERO)).build();
+        this.streamedPaths = streamedPaths.stream().map(String::trim).filter(path -> !path.isEmpty()).toList();
+    }
+
+    public void forward(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String path = request.getRequestURI();
+        String route = routeTable.route(path);
+        if (route == null) {
+            response.sendError(HttpStatus.NOT_FOUND.value(), "No backend serves " + path);
+            return;
+        }
+        String backend = routeTable.upstream(route);
+        String pathAndQuery = request.getQueryString() == null ? path : path + "?" + request.getQueryString();
+        URI uri = URI.create(backend + pathAndQuery);
+        Caller caller = (Caller) request.getAttribute(Caller.ATTRIBUTE);
+        HttpMethod method = HttpMethod.valueOf(request.getMethod());
+        boolean eventStream = acceptsEventStream(request);
+
+        try {
+            if (method != HttpMethod.GET || eventStream || streamed(path)) {
+                boolean write = method != HttpMethod.HEAD && method != HttpMethod.OPTIONS && method != HttpMethod.TRACE;
+                if (write) {
+                    responseCache.evict(backend);
+                }
+                try {
+                    stream(request, response, method, uri, caller, eventStream);
+                } finally {
+                    if (write) {
+                        responseCache.evict(backend);
+                    }
+                }
+                return;
+            }
+
+            boolean cacheable = responseCache.covers(path);
+            if (cacheable) {
+                BufferedResponse cached = responseCache.get(backend, pathAndQuery);
+                if (cached != null) {
+                    write(response, cached, "HIT");
+                    return;
+                }
+            }
+            long generation = responseCache.generation();
+            // Cached paths answer everyone alike; anything else is only shared between one caller's requests
+            String key = (cacheable ? "*" : caller != null ? caller.key() : "anonymous") + " "
+                    + headerOrEmpty(request, HttpHeaders.ACCEPT) + " " + uri;
+            BufferedResponse fetched = requestCoalescer.execute(key, () -> fetch(request, uri, caller));
+            if (cacheable) {
+                responseCache.put(backend, pathAndQuery, fetched, generation);
+            }
+            write(response, fetched, cacheable ? "MISS" : null);
+        } catch (ResourceAccessException e) {
+            if (response.isCommitted()) {
+                // Most often the client went away mid-stream; there is nobody left to tell
+                logger.debug("Proxying {} {} ended early: {}", method, path, e.getMessage());
+                return;
+            }
+            boolean timedOut = e.getCause() instanceof SocketTimeoutException;
+            logger.warn("Backend {} unavailable for {} {}: {}", route, method, path, e.getMessage());
+            response.sendError(timedOut ? HttpStatus.GATEWAY_TIMEOUT.value() : HttpStatus.BAD_GATEWAY.value(),
+                    "The " + route + " backend is unavailable");
+        }
+    }
+
+    private BufferedResponse fetch(HttpServletRequest request, URI uri, Caller caller) {
+        return restClient.get()
+                .uri(uri)
+                .headers(headers -> copyRequestHeaders(request, headers, caller))
+                .exchange((upstreamRequest, upstream) -> {
+                    HttpHeaders headers = new HttpHeaders();
+                    copyResponseHeaders(upstream.getHeaders(), headers);
+                    try (InputStream body = upstream.getBody()) {
+                        return new BufferedResponse(upstream.getStatusCode().value(), headers, body.readAllBytes());
+                    }
+                });
+    }
+
+    private void stream(HttpServletRequest request, HttpServletResponse response, HttpMethod method, URI uri,
+                        Caller caller, boolean eventStream) {
+        RestClient.RequestBodySpec spec = (eventStream ? streamClient : restClient).method(method)
+                .uri(uri)
+                .headers(headers -> copyRequestHeaders(request, headers, caller));
+        if (request.getContentLengthLong() > 0 || request.getHeader(HttpHeaders.TRANSFER_ENCODING) != null) {
+            spec.body(outputStream -> request.getInputStream().transferTo(outputStream));
+        }
+        spec.exchange((upstreamRequest, upstream) -> {
+            response.setStatus(upstream.getStatusCode().value());
+            HttpHeaders headers = new HttpHeaders();
+            copyResponseHeaders(upstream.getHeaders(), headers);
+            headers.forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+            try (InputStream body = upstream.getBody()) {
+                OutputStream out = response.getOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = body.read(buffer)) != -1) {
+                    out.write(buffer, 0, read);
+                    // Each event goes out as soon as it arrives rather than when a buffer fills
+                    if (eventStream) {
+                        out.flush();
+                    }
+                }
+                out.flush();
+            }
+            return null;
+        });
+    }
+
+    private static void write(HttpServletResponse response, BufferedResponse buffered, String cacheStatus) throws IOException {
+        response.setStatus(buffered.status());
+        buffered.headers().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        if (cacheStatus != null) {
+            response.setHeader("X-Cache", cacheStatus);
+        }
+        response.setContentLength(buffered.body().length);
+        response.getOutputStream().write(buffered.body());
+    }
+
+    private static void copyRequestHeaders(HttpServletRequest request, HttpHeaders headers, Caller caller) {
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (!DROPPED_REQUEST_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.addAll(name, Collections.list(request.getHeaders(name)));
+            }
+        }
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        headers.set("X-Forwarded-For", forwardedFor == null ? request.getRemoteAddr()
+                : forwardedFor + ", " + request.getRemoteAddr());
+        // Taken from the verified token, and stripped from what the client sent. Only as trustworthy as
+        // the backends being reachable through the gateway alone; no backend reads them yet
+        if (caller != null) {
+            if (caller.userId() != null) {
+                headers.set("X-User-Id", caller.userId().toString());
+            }
+            if (caller.username() != null) {
+                headers.set("X-User-Name", caller.username());
+            }
+            if (caller.role() != null) {
+                headers.set("X-User-Role", caller.role());
+            }
+        }
+    }
+
+    private static void copyResponseHeaders(HttpHeaders from, HttpHeaders to) {
+        from.forEach((name, values) -> {
+            String lower = name.toLowerCase(Locale.ROOT);
+            if (!DROPPED_RESPONSE_HEADERS.contains(lower) && !lower.startsWith("access-control-")) {
+                to.addAll(name, values);
+            }
+        });
+    }
+
+    private boolean streamed(String path) {
+        return streamedPaths.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    private static boolean acceptsEventStream(HttpServletRequest request) {
+        return headerOrEmpty(request, HttpHeaders.ACCEPT).contains(MediaType.TEXT_EVENT_STREAM_VALUE);
+    }
+
+    private static String headerOrEmpty(HttpServletRequest request, String name) {
+        String value = request.getHeader(name);
+        return value == null ? "" : value;
+    }
+
+    private static SimpleClientHttpRequestFactory requestFactory(Duration connectTimeout, Duration readTimeout) {
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory() {
+            @Override
+            protected void prepareConnection(HttpURLConnection connection, String httpMethod) throws IOException {
+                super.prepareConnection(connection, httpMethod);
+                // Redirects are the client's to follow, not the gateway's
+                connection.setInstanceFollowRedirects(false);
+            }
+        };
+        requestFactory.setConnectTimeout(connectTimeout);
+        requestFactory.setReadTimeout(readTimeout);
+        return requestFactory;
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.gatewayservice.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Token buckets, one per signed-in user and one per client address for anonymous requests.
+ * A bucket holds up to its capacity and refills continuously; each request takes a token, and
+ * a request finding the bucket empty is turned away until one has dripped back in.
+ *
+ * A bucket that has refilled to the brim is no different from a new one, so idle buckets are
+ * swept away rather than kept for every address ever seen.
+ */
+@Service
+public class RateLimiter {
+
+    private final Limit userLimit;
+    private final Limit anonymousLimit;
+    private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    public RateLimiter(@Value("${gateway.rate-limit.capacity:100}") double capacity,
+                       @Value("${gateway.rate-limit.refill-per-second:20}") double refillPerSecond,
+                       @Value("${gateway.rate-limit.anonymous-capacity:50}") double anonymousCapacity,
+                       @Value("${gateway.rate-limit.anonymous-refill-per-second:10}") double anonymousRefillPerSecond) {
+        if (capacity < 1 || refillPerSecond <= 0 || anonymousCapacity < 1 || anonymousRefillPerSecond <= 0) {
+            throw new IllegalArgumentException("Rate limits need a capacity of at least 1 and a positive refill rate");
+        }
+        this.userLimit = new Limit(capacity, refillPerSecond / 1e9);
+        this.anonymousLimit = new Limit(anonymousCapacity, anonymousRefillPerSecond / 1e9);
+    }
+
+    /**
+     * Whether the request may go ahead, with the tokens left or, if not, how long until the
+     * next one.
+     */
+    public record Decision(boolean allowed, long remaining, Duration retryAfter) {
+    }
+
+    public Decision tryAcquire(String key, boolean anonymous) {
+        Limit limit = anonymous ? anonymousLimit : userLimit;
+        Bucket bucket = buckets.computeIfAbsent(key, k -> new Bucket(limit, System.nanoTime()));
+        return bucket.tryAcquire(System.nanoTime());
+    }
+
+    @Scheduled(initialDelayString = "${gateway.rate-limit.sweep-interval:PT1M}",
+            fixedDelayString = "${gateway.rate-limit.sweep-interval:PT1M}")
+    public void sweep() {
+        long now = System.nanoTime();
+        buckets.entrySet().removeIf(entry -> entry.getValue().isFull(now));
+    }
+
+    private record Limit(double capacity, double tokensPerNano) {
+    }
+
+    private static final class Bucket {
+        private final Limit limit;
+        private double tokens;
+        private long refilledAt;
+
+        private Bucket(Limit limit, long now) {
+            this.limit = limit;
+            this.tokens = limit.capacity();
+            this.refilledAt = now;
+        }
+
+        private synchronized Decision tryAcquire(long now) {
+            refill(now);
+            if (tokens >= 1) {
+                tokens -= 1;
+                return new Decision(true, (long) tokens, Duration.ZERO);
+            }
+            long wait = (long) Math.ceil((1 - tokens) / limit.tokensPerNano());
+            return new Decision(false, 0, Duration.ofNanos(wait));
+        }
+
+        private synchronized boolean isFull(long now) {
+            refill(now);
+            return tokens >= limit.capacity();
+        }
+
+        private void refill(long now) {
+            tokens = Math.min(limit.capacity(), tokens + (now - refilledAt) * limit.tokensPerNano());
+            refilledAt = now;
+        }
+    }
+}
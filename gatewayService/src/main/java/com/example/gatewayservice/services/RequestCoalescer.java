@@ -0,0 +1,46 @@
+package com.example.gatewayservice.services;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Lets identical requests arriving together share one upstream call: the first makes it and
+ * the others wait for its answer. Nothing is kept once the call is over; that is what the
+ * {@link ResponseCache} is for.
+ */
+@Service
+public class RequestCoalescer {
+
+    private final Map<String, CompletableFuture<BufferedResponse>> inFlight = new ConcurrentHashMap<>();
+
+    public BufferedResponse execute(String key, Supplier<BufferedResponse> call) {
+        CompletableFuture<BufferedResponse> mine = new CompletableFuture<>();
+        CompletableFuture<BufferedResponse> leader = inFlight.putIfAbsent(key, mine);
+        if (leader != null) {
+            try {
+                return leader.join();
+            } catch (CompletionException e) {
+                // The leader's failure is every follower's failure, thrown as the leader saw it
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        try {
+            BufferedResponse response = call.get();
+            mine.complete(response);
+            return response;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+}
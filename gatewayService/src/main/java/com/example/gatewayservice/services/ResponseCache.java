@@ -0,0 +1,119 @@
+package com.example.gatewayservice.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+import org.springframework.util.AntPathMatcher;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Successful GET responses for the paths in {@code gateway.cache.paths}, shared between all
+ * callers for {@code gateway.cache.ttl}, least recently used dropped first.
+ *
+ * A write through the gateway to a backend drops everything held from that backend, both
+ * when it starts and when it ends. Each drop also moves the generation on, and a response is
+ * only kept if no drop happened while it was being fetched, so an answer read before or during
+ * a write is never stored after it.
+ */
+@Service
+public class ResponseCache {
+
+    private final AntPathMatcher pathMatcher = new AntPathMatcher();
+    private final List<String> paths;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final int maxBodyBytes;
+
+    // Guards everything below
+    private final Object lock = new Object();
+    private long generation;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    public ResponseCache(@Value("${gateway.cache.paths:}") List<String> paths,
+                         @Value("${gateway.cache.ttl:30s}") Duration ttl,
+                         @Value("${gateway.cache.max-entries:10000}") int maxEntries,
+                         @Value("${gateway.cache.max-body-bytes:1048576}") int maxBodyBytes) {
+        this.paths = paths.stream().map(String::trim).filter(path -> !path.isEmpty()).toList();
+        this.ttlNanos = ttl.toNanos();
+        this.maxEntries = maxEntries;
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    public boolean covers(String path) {
+        return paths.stream().anyMatch(pattern -> pathMatcher.match(pattern, path));
+    }
+
+    public BufferedResponse get(String backend, String pathAndQuery) {
+        synchronized (lock) {
+            String key = key(backend, pathAndQuery);
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.storedAt() > ttlNanos) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.response();
+        }
+    }
+
+    /**
+     * The generation to pass to {@link #put}, read before the response is fetched.
+     */
+    public long generation() {
+        synchronized (lock) {
+            return generation;
+        }
+    }
+
+    public void put(String backend, String pathAndQuery, BufferedResponse response, long fetchedInGeneration) {
+        if (!storable(response)) {
+            return;
+        }
+        synchronized (lock) {
+            if (fetchedInGeneration == generation) {
+                entries.put(key(backend, pathAndQuery), new Entry(response, System.nanoTime()));
+            }
+        }
+    }
+
+    public void evict(String backend) {
+        String prefix = backend + " ";
+        synchronized (lock) {
+            generation++;
+            entries.keySet().removeIf(key -> key.startsWith(prefix));
+        }
+    }
+
+    private boolean storable(BufferedResponse response) {
+        if (response.status() != 200 || response.body().length > maxBodyBytes
+                || response.headers().containsKey(HttpHeaders.SET_COOKIE)) {
+            return false;
+        }
+        String cacheControl = response.headers().getCacheControl();
+        if (cacheControl == null) {
+            return true;
+        }
+        cacheControl = cacheControl.toLowerCase(Locale.ROOT);
+        return !cacheControl.contains("no-store") && !cacheControl.contains("private")
+                && !cacheControl.contains("no-cache");
+    }
+
+    private static String key(String backend, String pathAndQuery) {
+        return backend + " " + pathAndQuery;
+    }
+
+    private record Entry(BufferedResponse response, long storedAt) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.gatewayservice.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which backend serves a path, by its first segment after {@code /api}: {@code /api/orders/7}
+ * goes to the {@code orders} route. Configured as {@code name=url} pairs in
+ * {@code gateway.routes}.
+ */
+@Service
+public class RouteTable {
+
+    private static final String PREFIX = "/api/";
+
+    private final Map<String, String> upstreams = new HashMap<>();
+
+    public RouteTable(@Value("${gateway.routes}") List<String> routes) {
+        for (String route : routes) {
+            int split = route.indexOf('=');
+            if (split <= 0) {
+                throw new IllegalArgumentException("Gateway route must be name=url: " + route);
+            }
+            String url = route.substring(split + 1).trim();
+            upstreams.put(route.substring(0, split).trim(), url.endsWith("/") ? url.substring(0, url.length() - 1) : url);
+        }
+    }
+
+    /**
+     * The route name for a request path, or null if no backend serves it.
+     */
+    public String route(String path) {
+        if (!path.startsWith(PREFIX)) {
+            return null;
+        }
+        int end = path.indexOf('/', PREFIX.length());
+        String name = path.substring(PREFIX.length(), end < 0 ? path.length() : end);
+        return upstreams.containsKey(name) ? name : null;
+    }
+
+    public String upstream(String route) {
+        return upstreams.get(route);
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.gatewayservice.web;
+
+import com.example.gatewayservice.services.Caller;
+import com.example.gatewayservice.services.JwtVerifier;
+import com.example.gatewayservice.services.RateLimiter;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Checks every /api request once, before it costs a backend anything: a bearer token, if
+ * there is one, must verify, and the caller must have a rate-limit token left. Requests
+ * without a bearer token go through anonymously, limited by client address.
+ */
+@Component
+@RequiredArgsConstructor
+public class EdgeFilter extends OncePerRequestFilter {
+
+    private static final String BEARER = "Bearer ";
+
+    private final JwtVerifier jwtVerifier;
+    private final RateLimiter rateLimiter;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Caller caller = null;
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization != null && authorization.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+            try {
+                caller = jwtVerifier.verify(authorization.substring(BEARER.length()).trim());
+            } catch (JwtException | IllegalArgumentException e) {
+                response.sendError(HttpStatus.UNAUTHORIZED.value(), "Invalid or expired token");
+                return;
+            }
+        }
+
+        RateLimiter.Decision decision = caller != null
+                ? rateLimiter.tryAcquire(caller.key(), false)
+                : rateLimiter.tryAcquire("address:" + request.getRemoteAddr(), true);
+        response.setHeader("X-RateLimit-Remaining", Long.toString(decision.remaining()));
+        if (!decision.allowed()) {
+            long seconds = Math.max(1, (decision.retryAfter().toMillis() + 999) / 1000);
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Too many requests");
+            return;
+        }
+
+        if (caller != null) {
+            request.setAttribute(Caller.ATTRIBUTE, caller);
+        }
+        chain.doFilter(request, response);
+    }
+}
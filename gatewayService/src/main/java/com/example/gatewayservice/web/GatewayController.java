@@ -0,0 +1,23 @@
+package com.example.gatewayservice.web;
+
+import com.example.gatewayservice.services.ProxyService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+@RestController
+@RequiredArgsConstructor
+public class GatewayController {
+
+    private final ProxyService proxyService;
+
+    // ANY /api/** - Forward to the backend owning the path, once EdgeFilter has let the request in
+    @RequestMapping("/api/**")
+    public void proxy(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        proxyService.forward(request, response);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.gatewayservice.services;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+    @Test
+    void allowsABurstUpToTheCapacityThenTurnsAway() {
+        // Refills far too slowly to matter while the test runs
+        RateLimiter limiter = new RateLimiter(3, 0.001, 1, 0.001);
+
+        assertEquals(new RateLimiter.Decision(true, 2, Duration.ZERO), limiter.tryAcquire("user:1", false));
+        assertEquals(1, limiter.tryAcquire("user:1", false).remaining());
+        assertEquals(0, limiter.tryAcquire("user:1", false).remaining());
+        RateLimiter.Decision refused = limiter.tryAcquire("user:1", false);
+
+        assertFalse(refused.allowed());
+        assertEquals(0, refused.remaining());
+        // One token at 0.001 per second takes up to 1000 seconds to drip back in
+        assertTrue(refused.retryAfter().compareTo(Duration.ofSeconds(990)) > 0);
+        assertTrue(refused.retryAfter().compareTo(Duration.ofSeconds(1000)) <= 0);
+    }
+
+    @Test
+    void keepsABucketPerKeyWithTheirOwnLimits() {
+        RateLimiter limiter = new RateLimiter(2, 0.001, 1, 0.001);
+
+        assertTrue(limiter.tryAcquire("10.0.0.1", true).allowed());
+        assertFalse(limiter.tryAcquire("10.0.0.1", true).allowed());
+        assertTrue(limiter.tryAcquire("10.0.0.2", true).allowed());
+        assertTrue(limiter.tryAcquire("user:1", false).allowed());
+        assertTrue(limiter.tryAcquire("user:1", false).allowed());
+        assertFalse(limiter.tryAcquire("user:1", false).allowed());
+    }
+
+    @Test
+    void refillsOverTime() throws InterruptedException {
+        RateLimiter limiter = new RateLimiter(1, 2, 1, 2);
+
+        assertTrue(limiter.tryAcquire("user:1", false).allowed());
+        RateLimiter.Decision refused = limiter.tryAcquire("user:1", false);
+        assertFalse(refused.allowed());
+        assertTrue(refused.retryAfter().compareTo(Duration.ofMillis(500)) <= 0);
+
+        Thread.sleep(refused.retryAfter().toMillis() + 20);
+
+        assertTrue(limiter.tryAcquire("user:1", false).allowed());
+    }
+
+    @Test
+    void sweepingKeepsBucketsThatAreNotFull() {
+        RateLimiter limiter = new RateLimiter(1, 0.001, 1, 0.001);
+        limiter.tryAcquire("user:1", false);
+
+        limiter.sweep();
+
+        assertFalse(limiter.tryAcquire("user:1", false).allowed());
+    }
+
+    @Test
+    void rejectsLimitsThatCouldNeverAllowARequest() {
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(0.5, 1, 1, 1));
+        assertThrows(IllegalArgumentException.class, () -> new RateLimiter(1, 1, 1, 0));
+    }
+}
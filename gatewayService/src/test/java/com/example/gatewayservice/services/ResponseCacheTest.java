@@ -0,0 +1,111 @@
+package com.example.gatewayservice.services;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResponseCacheTest {
+
+    private static final String RESTAURANTS = "http://restaurant-service:8082";
+    private static final String ORDERS = "http://order-service:8081";
+
+    private final ResponseCache cache = new ResponseCache(List.of("/api/restaurants/**"), Duration.ofMinutes(1), 3, 16);
+
+    @Test
+    void coversOnlyTheConfiguredPaths() {
+        assertTrue(cache.covers("/api/restaurants/7/menu"));
+        assertFalse(cache.covers("/api/orders/7"));
+    }
+
+    @Test
+    void answersFromWhatWasStored() {
+        BufferedResponse response = ok("menu");
+
+        cache.put(RESTAURANTS, "/api/restaurants/7", response, cache.generation());
+
+        assertSame(response, cache.get(RESTAURANTS, "/api/restaurants/7"));
+        assertNull(cache.get(RESTAURANTS, "/api/restaurants/7?page=2"));
+    }
+
+    @Test
+    void aWriteDropsOnlyThatBackendsEntries() {
+        cache.put(RESTAURANTS, "/api/restaurants/7", ok("menu"), cache.generation());
+        cache.put(ORDERS, "/api/restaurants/7", ok("other"), cache.generation());
+
+        cache.evict(RESTAURANTS);
+
+        assertNull(cache.get(RESTAURANTS, "/api/restaurants/7"));
+        assertNotNull(cache.get(ORDERS, "/api/restaurants/7"));
+    }
+
+    @Test
+    void neverStoresAResponseFetchedBeforeOrDuringAWrite() {
+        long generation = cache.generation();
+        // A write starts and ends while the GET is in flight
+        cache.evict(RESTAURANTS);
+        cache.evict(RESTAURANTS);
+
+        cache.put(RESTAURANTS, "/api/restaurants/7", ok("stale"), generation);
+
+        assertNull(cache.get(RESTAURANTS, "/api/restaurants/7"));
+
+        cache.put(RESTAURANTS, "/api/restaurants/7", ok("fresh"), cache.generation());
+
+        assertNotNull(cache.get(RESTAURANTS, "/api/restaurants/7"));
+    }
+
+    @Test
+    void skipsResponsesThatMustNotBeShared() {
+        HttpHeaders noStore = new HttpHeaders();
+        noStore.setCacheControl("no-store");
+        HttpHeaders cookie = new HttpHeaders();
+        cookie.add(HttpHeaders.SET_COOKIE, "session=1");
+        long generation = cache.generation();
+
+        cache.put(RESTAURANTS, "/a", new BufferedResponse(200, noStore, bytes("a")), generation);
+        cache.put(RESTAURANTS, "/b", new BufferedResponse(200, cookie, bytes("b")), generation);
+        cache.put(RESTAURANTS, "/c", new BufferedResponse(500, new HttpHeaders(), bytes("c")), generation);
+        cache.put(RESTAURANTS, "/d", ok("longer than sixteen bytes"), generation);
+
+        for (String path : List.of("/a", "/b", "/c", "/d")) {
+            assertNull(cache.get(RESTAURANTS, path), path);
+        }
+    }
+
+    @Test
+    void dropsTheLeastRecentlyUsedAndTheExpired() throws InterruptedException {
+        long generation = cache.generation();
+        cache.put(RESTAURANTS, "/1", ok("1"), generation);
+        cache.put(RESTAURANTS, "/2", ok("2"), generation);
+        cache.put(RESTAURANTS, "/3", ok("3"), generation);
+        cache.get(RESTAURANTS, "/1");
+
+        cache.put(RESTAURANTS, "/4", ok("4"), generation);
+
+        assertNull(cache.get(RESTAURANTS, "/2"));
+        assertNotNull(cache.get(RESTAURANTS, "/1"));
+
+        ResponseCache shortLived = new ResponseCache(List.of("/**"), Duration.ofMillis(10), 3, 16);
+        shortLived.put(RESTAURANTS, "/1", ok("1"), shortLived.generation());
+        Thread.sleep(30);
+
+        assertNull(shortLived.get(RESTAURANTS, "/1"));
+    }
+
+    private static BufferedResponse ok(String body) {
+        return new BufferedResponse(200, new HttpHeaders(), bytes(body));
+    }
+
+    private static byte[] bytes(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.userservice.services;
 
+import com.example.userservice.dtos.UserDto;
 import com.example.userservice.entities.User;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
@@ -20,13 +21,22 @@ public class JwtService {
     private static final long VALIDITY_IN_MILLISECONDS = 1000 * 60 * 60 * 24;
 
     public String generateToken(User user) {
+        return generateToken(user.getUsername(), user.getUserId(), user.getRole());
+    }
+
+    public String generateToken(UserDto user) {
+        return generateToken(user.getUsername(), user.getUserId(), user.getRole());
+    }
+
+    // The API gateway verifies these and passes userId and role on to the services
+    private String generateToken(String username, Long userId, String role) {
         Date now = new Date();
         Date validity = new Date(now.getTime() + VALIDITY_IN_MILLISECONDS);
 
         return Jwts.builder()
-                .subject(user.getUsername())
-                .claim("userId", user.getUserId())
-                .claim("role", user.getRole())
+                .subject(username)
+                .claim("userId", userId)
+                .claim("role", role)
                 .issuedAt(now)
                 .expiration(validity)
                 .signWith(SECRET_KEY)
@@ -2,8 +2,10 @@ package com.example.userservice.web;
 
 import com.example.userservice.dtos.CreateUserRequestDto;
 import com.example.userservice.dtos.UserDto;
+import com.example.userservice.services.JwtService;
 import com.example.userservice.services.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -17,6 +19,7 @@ import java.util.List;
 public class UserController {
 
     private final UserService userService;
+    private final JwtService jwtService;
 
     @PostMapping("/register")
     public ResponseEntity<UserDto> registerUser(@RequestBody CreateUserRequestDto request) {
@@ -27,7 +30,10 @@ public class UserController {
     @PostMapping("/login")
     public ResponseEntity<UserDto> login(@RequestBody com.example.userservice.dtos.LoginRequestDto request) {
         UserDto user = userService.authenticate(request);
-        return ResponseEntity.ok(user);
+        // The token goes in a header so the body stays the UserDto clients already read
+        return ResponseEntity.ok()
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + jwtService.generateToken(user))
+                .body(user);
     }
 
     @GetMapping